@@ -34,7 +34,10 @@
 package org.restlet.ext.jackson;
 
 import java.io.IOException;
+import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import org.restlet.data.MediaType;
 import org.restlet.data.Preference;
@@ -44,9 +47,20 @@ import org.restlet.representation.Representation;
 import org.restlet.representation.Variant;
 import org.restlet.resource.Resource;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+
 /**
  * Converter between the JSON, JSON Smile, CSV, XML, YAML and Representation
- * classes based on Jackson.
+ * classes based on Jackson.<br>
+ * <br>
+ * The converter shares one Jackson object mapper per format and caches the
+ * object readers and writers per object class, so that Jackson's serializer
+ * and deserializer caches are reused across conversions. They are created
+ * through the representations returned by the create methods, so customized
+ * representations are still honored. The representations created by this
+ * converter are given the shared object readers and writers.
  * 
  * @author Jerome Louvel
  * @author Thierry Boileau
@@ -80,6 +94,24 @@ public class JacksonConverter extends ConverterHelper {
     private static final VariantInfo VARIANT_TEXT_YAML = new VariantInfo(
             MediaType.TEXT_YAML);
 
+    /** The shared object mappers, per format. */
+    private final ConcurrentMap<MediaType, ObjectMapper> objectMappers;
+
+    /** The shared object readers, per format and object class. */
+    private final ConcurrentMap<List<Object>, ObjectReader> objectReaders;
+
+    /** The shared object writers, per format and object class. */
+    private final ConcurrentMap<List<Object>, ObjectWriter> objectWriters;
+
+    /**
+     * Constructor.
+     */
+    public JacksonConverter() {
+        this.objectMappers = new ConcurrentHashMap<MediaType, ObjectMapper>();
+        this.objectReaders = new ConcurrentHashMap<List<Object>, ObjectReader>();
+        this.objectWriters = new ConcurrentHashMap<List<Object>, ObjectWriter>();
+    }
+
     /**
      * Creates the marshaling {@link JacksonRepresentation}.
      * 
@@ -109,6 +141,36 @@ public class JacksonConverter extends ConverterHelper {
         return new JacksonRepresentation<T>(source, objectClass);
     }
 
+    /**
+     * Returns the media type identifying the Jackson format used for a given
+     * media type, consistently with
+     * {@link JacksonRepresentation#createObjectMapper()}.
+     * 
+     * @param mediaType
+     *            The media type.
+     * @return The media type identifying the Jackson format.
+     */
+    protected MediaType getFormat(MediaType mediaType) {
+        MediaType result = null;
+
+        if (MediaType.APPLICATION_JSON.isCompatible(mediaType)) {
+            result = MediaType.APPLICATION_JSON;
+        } else if (MediaType.APPLICATION_JSON_SMILE.isCompatible(mediaType)) {
+            result = MediaType.APPLICATION_JSON_SMILE;
+        } else if (MediaType.APPLICATION_XML.isCompatible(mediaType)
+                || MediaType.TEXT_XML.isCompatible(mediaType)) {
+            result = MediaType.APPLICATION_XML;
+        } else if (MediaType.APPLICATION_YAML.isCompatible(mediaType)) {
+            result = MediaType.APPLICATION_YAML;
+        } else if (MediaType.TEXT_CSV.isCompatible(mediaType)) {
+            result = MediaType.TEXT_CSV;
+        } else {
+            result = MediaType.APPLICATION_JSON;
+        }
+
+        return result;
+    }
+
     @Override
     public List<Class<?>> getObjectClasses(Variant source) {
         List<Class<?>> result = null;
@@ -127,6 +189,94 @@ public class JacksonConverter extends ConverterHelper {
         return result;
     }
 
+    /**
+     * Returns the shared object mapper for a given media type.
+     * 
+     * @param mediaType
+     *            The media type.
+     * @return The shared object mapper.
+     */
+    public ObjectMapper getObjectMapper(MediaType mediaType) {
+        MediaType format = getFormat(mediaType);
+        ObjectMapper result = this.objectMappers.get(format);
+
+        if (result == null) {
+            result = create(format, null).getObjectMapper();
+            ObjectMapper previous = this.objectMappers.putIfAbsent(format,
+                    result);
+
+            if (previous != null) {
+                result = previous;
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * Returns the shared object reader for a given media type and object
+     * class.
+     * 
+     * @param <T>
+     * @param mediaType
+     *            The media type.
+     * @param objectClass
+     *            The object class to instantiate.
+     * @return The shared object reader.
+     */
+    public <T> ObjectReader getObjectReader(MediaType mediaType,
+            Class<T> objectClass) {
+        MediaType format = getFormat(mediaType);
+        List<Object> key = Arrays.<Object> asList(format, objectClass);
+        ObjectReader result = this.objectReaders.get(key);
+
+        if (result == null) {
+            JacksonRepresentation<T> prototype = create(format, (T) null);
+            prototype.setObjectClass(objectClass);
+            prototype.setObjectMapper(getObjectMapper(format));
+            result = prototype.getObjectReader();
+            ObjectReader previous = this.objectReaders.putIfAbsent(key, result);
+
+            if (previous != null) {
+                result = previous;
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * Returns the shared object writer for a given media type and object
+     * class.
+     * 
+     * @param <T>
+     * @param mediaType
+     *            The media type.
+     * @param objectClass
+     *            The class of the objects to format.
+     * @return The shared object writer.
+     */
+    public <T> ObjectWriter getObjectWriter(MediaType mediaType,
+            Class<T> objectClass) {
+        MediaType format = getFormat(mediaType);
+        List<Object> key = Arrays.<Object> asList(format, objectClass);
+        ObjectWriter result = this.objectWriters.get(key);
+
+        if (result == null) {
+            JacksonRepresentation<T> prototype = create(format, (T) null);
+            prototype.setObjectClass(objectClass);
+            prototype.setObjectMapper(getObjectMapper(format));
+            result = prototype.getObjectWriter();
+            ObjectWriter previous = this.objectWriters.putIfAbsent(key, result);
+
+            if (previous != null) {
+                result = previous;
+            }
+        }
+
+        return result;
+    }
+
     @Override
     public List<VariantInfo> getVariants(Class<?> source) {
         List<VariantInfo> result = null;
@@ -231,6 +381,14 @@ public class JacksonConverter extends ConverterHelper {
                     && JacksonRepresentation.class.isAssignableFrom(target)) {
                 result = jacksonSource;
             } else {
+                if ((jacksonSource != source)
+                        && (jacksonSource.getObjectClass() != null)) {
+                    // Reuse the shared reader
+                    jacksonSource.setObjectReader(getObjectReader(
+                            jacksonSource.getMediaType(),
+                            jacksonSource.getObjectClass()));
+                }
+
                 result = jacksonSource.getObject();
             }
         }
@@ -256,7 +414,17 @@ public class JacksonConverter extends ConverterHelper {
                     || VARIANT_APPLICATION_YAML.isCompatible(target)
                     || VARIANT_TEXT_YAML.isCompatible(target)
                     || VARIANT_TEXT_CSV.isCompatible(target)) {
-                result = create(target.getMediaType(), source);
+                JacksonRepresentation<Object> jacksonResult = create(
+                        target.getMediaType(), source);
+
+                if (jacksonResult.getObjectClass() != null) {
+                    // Reuse the shared writer
+                    jacksonResult.setObjectWriter(getObjectWriter(
+                            jacksonResult.getMediaType(),
+                            jacksonResult.getObjectClass()));
+                }
+
+                result = jacksonResult;
             }
         }
 
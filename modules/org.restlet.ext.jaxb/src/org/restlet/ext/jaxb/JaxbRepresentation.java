@@ -35,6 +35,7 @@ package org.restlet.ext.jaxb;
 
 import java.io.IOException;
 import java.io.Writer;
+import java.util.Iterator;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.logging.Level;
@@ -77,13 +78,15 @@ public class JaxbRepresentation<T> extends WriterRepresentation {
      * @return The JAXB context.
      * @throws JAXBException
      */
-    public static synchronized JAXBContext getContext(String contextPath)
+    public static JAXBContext getContext(String contextPath)
             throws JAXBException {
         return getContext(contextPath, null);
     }
 
     /**
-     * Returns the JAXB context, if possible from the cached contexts.
+     * Returns the JAXB context, if possible from the cached contexts. Cached
+     * contexts are returned without locking, only the creation of missing
+     * contexts is synchronized.
      * 
      * @param contextPath
      *            The JAXB context path.
@@ -94,16 +97,23 @@ public class JaxbRepresentation<T> extends WriterRepresentation {
      * @return The JAXB context.
      * @throws JAXBException
      */
-    public static synchronized JAXBContext getContext(String contextPath,
+    public static JAXBContext getContext(String contextPath,
             ClassLoader classLoader) throws JAXBException {
         // Contexts are thread-safe so reuse those.
         JAXBContext result = contexts.get(contextPath);
 
         if (result == null) {
-            result = (classLoader == null) ? JAXBContext
-                    .newInstance(contextPath) : JAXBContext.newInstance(
-                    contextPath, classLoader);
-            contexts.put(contextPath, result);
+            // Creating a context is expensive, do it only once
+            synchronized (contexts) {
+                result = contexts.get(contextPath);
+
+                if (result == null) {
+                    result = (classLoader == null) ? JAXBContext
+                            .newInstance(contextPath) : JAXBContext
+                            .newInstance(contextPath, classLoader);
+                    contexts.put(contextPath, result);
+                }
+            }
         }
 
         return result;
@@ -370,6 +380,43 @@ public class JaxbRepresentation<T> extends WriterRepresentation {
         return this.contextPath;
     }
 
+    /**
+     * Returns an iterator streaming the elements of a large XML collection.
+     * The wrapped XML representation is read with StAX and each child element
+     * of the root element is only unmarshalled into an instance of the given
+     * class when the iterator reaches it, so that the whole collection is never
+     * loaded in memory. The wrapped XML representation is consumed by the
+     * iteration.
+     * 
+     * @param <E>
+     *            The type of the collection elements.
+     * @param elementClass
+     *            The class of the collection elements.
+     * @return An iterator over the collection elements or null if no XML
+     *         representation is wrapped.
+     * @throws IOException
+     */
+    public <E> Iterator<E> getElements(Class<E> elementClass)
+            throws IOException {
+        Iterator<E> result = null;
+
+        if (this.xmlRepresentation != null) {
+            try {
+                result = new Unmarshaller<T>(this.contextPath,
+                        this.classLoader).unmarshalElements(this,
+                        this.xmlRepresentation.getReader(), elementClass);
+            } catch (JAXBException e) {
+                Context.getCurrentLogger().log(Level.WARNING,
+                        "Unable to stream the XML representation", e);
+                throw new IOException(
+                        "Unable to stream the XML representation."
+                                + e.getMessage());
+            }
+        }
+
+        return result;
+    }
+
     /**
      * Returns a JAXB SAX source.
      * 
@@ -0,0 +1,177 @@
+/**
+ * Copyright 2005-2012 Restlet S.A.S.
+ * 
+ * The contents of this file are subject to the terms of one of the following
+ * open source licenses: Apache 2.0 or LGPL 3.0 or LGPL 2.1 or CDDL 1.0 or EPL
+ * 1.0 (the "Licenses"). You can select the license that you prefer but you may
+ * not use this file except in compliance with one of these Licenses.
+ * 
+ * You can obtain a copy of the Apache 2.0 license at
+ * http://www.opensource.org/licenses/apache-2.0
+ * 
+ * You can obtain a copy of the LGPL 3.0 license at
+ * http://www.opensource.org/licenses/lgpl-3.0
+ * 
+ * You can obtain a copy of the LGPL 2.1 license at
+ * http://www.opensource.org/licenses/lgpl-2.1
+ * 
+ * You can obtain a copy of the CDDL 1.0 license at
+ * http://www.opensource.org/licenses/cddl1
+ * 
+ * You can obtain a copy of the EPL 1.0 license at
+ * http://www.opensource.org/licenses/eclipse-1.0
+ * 
+ * See the Licenses for the specific language governing permissions and
+ * limitations under the Licenses.
+ * 
+ * Alternatively, you can obtain a royalty free commercial license with less
+ * limitations, transferable or non-transferable, directly at
+ * http://www.restlet.com/products/restlet-framework
+ * 
+ * Restlet is a registered trademark of Restlet S.A.S.
+ */
+
+package org.restlet.ext.jaxb.internal;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import javax.xml.bind.JAXBException;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+import org.restlet.engine.util.Pool;
+
+/**
+ * Iterator unmarshalling the child elements of the root element of an XML
+ * document one at a time, so that large collections don't need to be fully
+ * loaded in memory. The StAX reader is closed and the JAXB unmarshaller
+ * returned to its pool once the last element has been read.
+ * 
+ * @author Jerome Louvel
+ * @param <E>
+ *            The type of the elements.
+ */
+class ElementIterator<E> implements Iterator<E> {
+
+    /** The class of the elements. */
+    private final Class<E> elementClass;
+
+    /** The pool of the JAXB unmarshaller. */
+    private final Pool<javax.xml.bind.Unmarshaller> pool;
+
+    /** The JAXB unmarshaller. */
+    private volatile javax.xml.bind.Unmarshaller unmarshaller;
+
+    /** The StAX reader. */
+    private final XMLStreamReader xmlReader;
+
+    /**
+     * Constructor. Positions the StAX reader on the first child element.
+     * 
+     * @param xmlReader
+     *            The StAX reader.
+     * @param pool
+     *            The pool of the JAXB unmarshaller.
+     * @param unmarshaller
+     *            The JAXB unmarshaller.
+     * @param elementClass
+     *            The class of the elements.
+     * @throws JAXBException
+     */
+    public ElementIterator(XMLStreamReader xmlReader,
+            Pool<javax.xml.bind.Unmarshaller> pool,
+            javax.xml.bind.Unmarshaller unmarshaller, Class<E> elementClass)
+            throws JAXBException {
+        this.xmlReader = xmlReader;
+        this.pool = pool;
+        this.unmarshaller = unmarshaller;
+        this.elementClass = elementClass;
+
+        try {
+            // Skip the root element
+            if (nextElement()) {
+                this.xmlReader.next();
+                nextElement();
+            }
+        } catch (XMLStreamException e) {
+            close();
+            throw new JAXBException("Unable to read the XML document", e);
+        }
+    }
+
+    /**
+     * Closes the StAX reader and releases the JAXB unmarshaller.
+     */
+    private void close() {
+        if (this.unmarshaller != null) {
+            try {
+                this.xmlReader.close();
+            } catch (XMLStreamException e) {
+                // Ignore
+            }
+
+            this.unmarshaller = null;
+        }
+    }
+
+    public boolean hasNext() {
+        return this.unmarshaller != null;
+    }
+
+    public E next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+
+        try {
+            E result = this.unmarshaller.unmarshal(this.xmlReader,
+                    this.elementClass).getValue();
+
+            if (!nextElement()) {
+                // Only reuse unmarshallers that succeeded
+                this.pool.checkin(this.unmarshaller);
+                close();
+            }
+
+            return result;
+        } catch (JAXBException e) {
+            close();
+            throw new IllegalStateException("Unable to unmarshal the element",
+                    e);
+        } catch (XMLStreamException e) {
+            close();
+            throw new IllegalStateException("Unable to read the XML document",
+                    e);
+        }
+    }
+
+    /**
+     * Moves the StAX reader to the next start element at the current depth.
+     * Closes the iterator when the end of the enclosing element or document
+     * is reached.
+     * 
+     * @return True if a start element was reached.
+     * @throws XMLStreamException
+     */
+    private boolean nextElement() throws XMLStreamException {
+        while (this.xmlReader.getEventType() != XMLStreamConstants.START_ELEMENT) {
+            if (this.xmlReader.getEventType() == XMLStreamConstants.END_ELEMENT
+                    || !this.xmlReader.hasNext()) {
+                this.pool.checkin(this.unmarshaller);
+                close();
+                return false;
+            }
+
+            this.xmlReader.next();
+        }
+
+        return true;
+    }
+
+    public void remove() {
+        throw new UnsupportedOperationException();
+    }
+
+}
@@ -36,73 +36,149 @@ package org.restlet.ext.jaxb.internal;
 import java.io.OutputStream;
 import java.io.OutputStreamWriter;
 import java.io.Writer;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.logging.Level;
 
+import javax.xml.bind.JAXBContext;
 import javax.xml.bind.JAXBException;
 
 import org.restlet.Context;
+import org.restlet.data.CharacterSet;
+import org.restlet.engine.util.Pool;
 import org.restlet.ext.jaxb.JaxbRepresentation;
 
+import com.sun.xml.bind.marshaller.NamespacePrefixMapper;
+
 /**
  * This is a utility class to assist in marshaling Java content trees into XML.
  * Each {@code marshal} method takes a different target for the XML.
  * 
  * This class is a factory that constructs an instance of itself for multiple
  * uses. The created instance is thread safe and is optimized to be used for
- * multiple, possibly concurrent calls.
+ * multiple, possibly concurrent calls. The underlying JAXB marshallers are
+ * pooled per JAXB context and configuration.
  * 
  * @author Overstock.com
  */
 public class Marshaller<T> {
 
-    /** The parent JAXB representation. */
-    private final JaxbRepresentation<T> jaxbRepresentation;
+    /** Pool of JAXB marshallers sharing the same context and configuration. */
+    private static class MarshallerPool extends
+            Pool<javax.xml.bind.Marshaller> {
+
+        /** The JAXB context. */
+        private final JAXBContext context;
+
+        /** The character set or null. */
+        private final CharacterSet characterSet;
+
+        /** Indicates if the output is formatted. */
+        private final boolean formattedOutput;
+
+        /** Indicates if a fragment is generated. */
+        private final boolean fragment;
 
-    /** Use thread identity to preserve safety of access to marshalers. */
-    private final ThreadLocal<javax.xml.bind.Marshaller> marshaller = new ThreadLocal<javax.xml.bind.Marshaller>() {
+        /** The "xsi:noNamespaceSchemaLocation" attribute or null. */
+        private final String noNamespaceSchemaLocation;
+
+        /** The "xsi:schemaLocation" attribute or null. */
+        private final String schemaLocation;
+
+        /**
+         * Constructor.
+         * 
+         * @param context
+         *            The JAXB context.
+         * @param jaxbRepresentation
+         *            The JAXB representation providing the configuration.
+         */
+        public MarshallerPool(JAXBContext context,
+                JaxbRepresentation<?> jaxbRepresentation) {
+            this.context = context;
+            this.characterSet = jaxbRepresentation.getCharacterSet();
+            this.formattedOutput = jaxbRepresentation.isFormattedOutput();
+            this.fragment = jaxbRepresentation.isFragment();
+            this.noNamespaceSchemaLocation = jaxbRepresentation
+                    .getNoNamespaceSchemaLocation();
+            this.schemaLocation = jaxbRepresentation.getSchemaLocation();
+        }
 
         @Override
-        protected synchronized javax.xml.bind.Marshaller initialValue() {
-            javax.xml.bind.Marshaller m = null;
-
-            try {
-                m = JaxbRepresentation.getContext(getContextPath(),
-                        getClassLoader()).createMarshaller();
-                m.setProperty("jaxb.formatted.output", getJaxbRepresentation()
-                        .isFormattedOutput());
-
-                if (getJaxbRepresentation().getSchemaLocation() != null) {
-                    m.setProperty("jaxb.schemaLocation",
-                            getJaxbRepresentation().getSchemaLocation());
-                }
-                if (getJaxbRepresentation().getNoNamespaceSchemaLocation() != null) {
-                    m.setProperty("jaxb.noNamespaceSchemaLocation",
-                            getJaxbRepresentation()
-                                    .getNoNamespaceSchemaLocation());
-                }
+        protected javax.xml.bind.Marshaller createObject() {
+            return createMarshaller(this.context, this.formattedOutput,
+                    this.schemaLocation, this.noNamespaceSchemaLocation,
+                    this.characterSet, null, this.fragment);
+        }
+    }
 
-                if (Marshaller.this.jaxbRepresentation.getCharacterSet() != null) {
-                    m.setProperty("jaxb.encoding",
-                            Marshaller.this.jaxbRepresentation
-                                    .getCharacterSet().getName());
-                }
+    /** The maximum number of pools kept. */
+    private static final int MAX_POOLS = 100;
 
-                if (getJaxbRepresentation().getNamespacePrefixMapper() != null) {
-                    m.setProperty("com.sun.xml.bind.namespacePrefixMapper",
-                            getJaxbRepresentation().getNamespacePrefixMapper());
-                }
+    /** The pools of JAXB marshallers, per context and configuration. */
+    private static final ConcurrentMap<List<Object>, MarshallerPool> pools = new ConcurrentHashMap<List<Object>, MarshallerPool>();
+
+    /**
+     * Creates and configures a JAXB marshaller.
+     * 
+     * @param context
+     *            The JAXB context.
+     * @param formattedOutput
+     *            Indicates if the output is formatted.
+     * @param schemaLocation
+     *            The "xsi:schemaLocation" attribute or null.
+     * @param noNamespaceSchemaLocation
+     *            The "xsi:noNamespaceSchemaLocation" attribute or null.
+     * @param characterSet
+     *            The character set or null.
+     * @param namespacePrefixMapper
+     *            The namespace prefix mapper or null.
+     * @param fragment
+     *            Indicates if a fragment is generated.
+     * @return The JAXB marshaller or null.
+     */
+    private static javax.xml.bind.Marshaller createMarshaller(
+            JAXBContext context, boolean formattedOutput,
+            String schemaLocation, String noNamespaceSchemaLocation,
+            CharacterSet characterSet,
+            NamespacePrefixMapper namespacePrefixMapper, boolean fragment) {
+        javax.xml.bind.Marshaller m = null;
+
+        try {
+            m = context.createMarshaller();
+            m.setProperty("jaxb.formatted.output", formattedOutput);
 
-                m.setProperty("jaxb.fragment", getJaxbRepresentation()
-                        .isFragment());
-            } catch (Exception e) {
-                Context.getCurrentLogger().log(Level.WARNING,
-                        "Problem creating Marshaller", e);
-                return null;
+            if (schemaLocation != null) {
+                m.setProperty("jaxb.schemaLocation", schemaLocation);
+            }
+            if (noNamespaceSchemaLocation != null) {
+                m.setProperty("jaxb.noNamespaceSchemaLocation",
+                        noNamespaceSchemaLocation);
+            }
+
+            if (characterSet != null) {
+                m.setProperty("jaxb.encoding", characterSet.getName());
             }
 
-            return m;
+            if (namespacePrefixMapper != null) {
+                m.setProperty("com.sun.xml.bind.namespacePrefixMapper",
+                        namespacePrefixMapper);
+            }
+
+            m.setProperty("jaxb.fragment", fragment);
+        } catch (Exception e) {
+            Context.getCurrentLogger().log(Level.WARNING,
+                    "Problem creating Marshaller", e);
+            return null;
         }
-    };
+
+        return m;
+    }
+
+    /** The parent JAXB representation. */
+    private final JaxbRepresentation<T> jaxbRepresentation;
 
     /** The JAXB context path. */
     private final String contextPath;
@@ -160,18 +236,41 @@ public class Marshaller<T> {
     }
 
     /**
-     * Returns the JAXB marshaller.
+     * Returns the pool of JAXB marshallers matching the context and the
+     * configuration of the parent JAXB representation. Marshallers using a
+     * namespace prefix mapper aren't pooled.
      * 
-     * @return The JAXB marshaller.
+     * @return The pool of JAXB marshallers or null.
      * @throws JAXBException
      */
-    private javax.xml.bind.Marshaller getMarshaller() throws JAXBException {
-        final javax.xml.bind.Marshaller m = this.marshaller.get();
-        if (m == null) {
-            Context.getCurrentLogger().warning("Unable to locate marshaller.");
-            throw new JAXBException("Unable to locate marshaller.");
+    private MarshallerPool getPool() throws JAXBException {
+        MarshallerPool result = null;
+        JaxbRepresentation<T> rep = getJaxbRepresentation();
+
+        if (rep.getNamespacePrefixMapper() == null) {
+            JAXBContext context = JaxbRepresentation.getContext(
+                    getContextPath(), getClassLoader());
+            List<Object> key = Arrays.<Object> asList(context,
+                    rep.isFormattedOutput(), rep.getSchemaLocation(),
+                    rep.getNoNamespaceSchemaLocation(),
+                    rep.getCharacterSet(), rep.isFragment());
+            result = pools.get(key);
+
+            if (result == null) {
+                if (pools.size() >= MAX_POOLS) {
+                    pools.clear();
+                }
+
+                result = new MarshallerPool(context, rep);
+                MarshallerPool previous = pools.putIfAbsent(key, result);
+
+                if (previous != null) {
+                    result = previous;
+                }
+            }
         }
-        return m;
+
+        return result;
     }
 
     /**
@@ -201,9 +300,32 @@ public class Marshaller<T> {
      *             If any unexpected problem occurs during marshaling.
      */
     public void marshal(Object jaxbElement, Writer writer) throws JAXBException {
-        getMarshaller().setEventHandler(
-                getJaxbRepresentation().getValidationEventHandler());
-        getMarshaller().marshal(jaxbElement, writer);
+        MarshallerPool pool = getPool();
+        javax.xml.bind.Marshaller m = null;
+
+        if (pool == null) {
+            JaxbRepresentation<T> rep = getJaxbRepresentation();
+            m = createMarshaller(JaxbRepresentation.getContext(
+                    getContextPath(), getClassLoader()),
+                    rep.isFormattedOutput(), rep.getSchemaLocation(),
+                    rep.getNoNamespaceSchemaLocation(), rep.getCharacterSet(),
+                    rep.getNamespacePrefixMapper(), rep.isFragment());
+        } else {
+            m = pool.checkout();
+        }
+
+        if (m == null) {
+            Context.getCurrentLogger().warning("Unable to locate marshaller.");
+            throw new JAXBException("Unable to locate marshaller.");
+        }
+
+        m.setEventHandler(getJaxbRepresentation().getValidationEventHandler());
+        m.marshal(jaxbElement, writer);
+
+        if (pool != null) {
+            // Only reuse marshallers that succeeded
+            pool.checkin(m);
+        }
     }
 
 }
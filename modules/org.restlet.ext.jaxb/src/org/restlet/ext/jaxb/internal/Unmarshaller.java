@@ -37,15 +37,23 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.io.Reader;
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.logging.Level;
 
 import javax.xml.XMLConstants;
+import javax.xml.bind.JAXBContext;
 import javax.xml.bind.JAXBException;
 import javax.xml.bind.ValidationEventHandler;
 import javax.xml.parsers.SAXParserFactory;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
 import javax.xml.transform.sax.SAXSource;
 
 import org.restlet.Context;
+import org.restlet.engine.util.Pool;
 import org.restlet.ext.jaxb.JaxbRepresentation;
 import org.xml.sax.InputSource;
 import org.xml.sax.XMLReader;
@@ -56,37 +64,58 @@ import org.xml.sax.XMLReader;
  * 
  * Each {@code unmarshal} method takes a different source for the XML. This
  * class caches information to improve unmarshaling performance across calls
- * using the same schema (package).
+ * using the same schema (package). The underlying JAXB unmarshallers are
+ * pooled per JAXB context.
  * 
  * @author Overstock.com
  */
 public class Unmarshaller<T> {
 
-    /** The JAXB context path. */
-    private final String contextPath;
+    /** Pool of JAXB unmarshallers sharing the same context. */
+    private static class UnmarshallerPool extends
+            Pool<javax.xml.bind.Unmarshaller> {
+
+        /** The JAXB context. */
+        private final JAXBContext context;
+
+        /**
+         * Constructor.
+         * 
+         * @param context
+         *            The JAXB context.
+         */
+        public UnmarshallerPool(JAXBContext context) {
+            this.context = context;
+        }
 
-    /**
-     * Use thread identity to preserve safety of access to unmarshallers.
-     */
-    private final ThreadLocal<javax.xml.bind.Unmarshaller> unmarshaller = new ThreadLocal<javax.xml.bind.Unmarshaller>() {
         @Override
-        protected synchronized javax.xml.bind.Unmarshaller initialValue() {
+        protected javax.xml.bind.Unmarshaller createObject() {
             javax.xml.bind.Unmarshaller m = null;
+
             try {
-                m = JaxbRepresentation.getContext(getContextPath(),
-                        getClassLoader()).createUnmarshaller();
+                m = this.context.createUnmarshaller();
             } catch (Exception e) {
                 Context.getCurrentLogger().log(Level.WARNING,
                         "Problem creating Unmarshaller", e);
                 return null;
             }
+
             return m;
         }
-    };
+    }
+
+    /** The pools of JAXB unmarshallers, per context. */
+    private static final ConcurrentMap<JAXBContext, UnmarshallerPool> pools = new ConcurrentHashMap<JAXBContext, UnmarshallerPool>();
+
+    /** The JAXB context path. */
+    private final String contextPath;
 
     /** The JAXB classloader. */
     private final ClassLoader classLoader;
 
+    /** The validation event handler. */
+    private volatile ValidationEventHandler eventHandler;
+
     /**
      * Constructor.
      * 
@@ -119,18 +148,55 @@ public class Unmarshaller<T> {
     }
 
     /**
-     * Returns the JAXB unmarshaller.
+     * Returns the pool of JAXB unmarshallers for the JAXB context.
+     * 
+     * @return The pool of JAXB unmarshallers.
+     * @throws JAXBException
+     */
+    private UnmarshallerPool getPool() throws JAXBException {
+        JAXBContext context = JaxbRepresentation.getContext(getContextPath(),
+                getClassLoader());
+        UnmarshallerPool result = pools.get(context);
+
+        if (result == null) {
+            result = new UnmarshallerPool(context);
+            UnmarshallerPool previous = pools.putIfAbsent(context, result);
+
+            if (previous != null) {
+                result = previous;
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * Checks out a JAXB unmarshaller from the pool and sets its validation
+     * event handler.
      * 
+     * @param pool
+     *            The pool of JAXB unmarshallers.
+     * @param jaxbRep
+     *            The source JAXB representation.
      * @return The JAXB unmarshaller.
      * @throws JAXBException
      */
-    private javax.xml.bind.Unmarshaller getUnmarshaller() throws JAXBException {
-        final javax.xml.bind.Unmarshaller m = this.unmarshaller.get();
+    private javax.xml.bind.Unmarshaller getUnmarshaller(UnmarshallerPool pool,
+            JaxbRepresentation<?> jaxbRep) throws JAXBException {
+        final javax.xml.bind.Unmarshaller m = pool.checkout();
+
         if (m == null) {
             Context.getCurrentLogger()
                     .warning("Unable to locate unmarshaller.");
             throw new JAXBException("Unable to locate unmarshaller.");
         }
+
+        if (jaxbRep.getValidationEventHandler() != null) {
+            m.setEventHandler(jaxbRep.getValidationEventHandler());
+        } else {
+            m.setEventHandler(this.eventHandler);
+        }
+
         return m;
     }
 
@@ -144,7 +210,7 @@ public class Unmarshaller<T> {
      */
     public void setEventHandler(ValidationEventHandler handler)
             throws JAXBException {
-        getUnmarshaller().setEventHandler(handler);
+        this.eventHandler = handler;
     }
 
     /**
@@ -201,8 +267,13 @@ public class Unmarshaller<T> {
             throw new JAXBException("Unable to create customized SAX source", e);
         }
 
-        getUnmarshaller().setEventHandler(jaxbRep.getValidationEventHandler());
-        return getUnmarshaller().unmarshal(ss);
+        UnmarshallerPool pool = getPool();
+        javax.xml.bind.Unmarshaller m = getUnmarshaller(pool, jaxbRep);
+        Object result = m.unmarshal(ss);
+
+        // Only reuse unmarshallers that succeeded
+        pool.checkin(m);
+        return result;
     }
 
     /**
@@ -221,4 +292,42 @@ public class Unmarshaller<T> {
             throws JAXBException, IOException {
         return unmarshal(jaxbRep, jaxbRep.getReader());
     }
+
+    /**
+     * Streams the child elements of the root element of the XML data read
+     * from the specified reader. Each element is unmarshalled when the
+     * returned iterator reaches it.
+     * 
+     * @param <E>
+     *            The type of the elements.
+     * @param jaxbRep
+     *            The source JAXB representation.
+     * @param reader
+     *            The source reader.
+     * @param elementClass
+     *            The class of the elements.
+     * @return An iterator over the unmarshalled elements.
+     * @throws JAXBException
+     *             If any unexpected problem occurs during unmarshaling.
+     */
+    public <E> Iterator<E> unmarshalElements(JaxbRepresentation<?> jaxbRep,
+            Reader reader, Class<E> elementClass) throws JAXBException {
+        XMLStreamReader xmlReader = null;
+
+        try {
+            XMLInputFactory xif = XMLInputFactory.newInstance();
+            xif.setProperty(XMLInputFactory.IS_NAMESPACE_AWARE, true);
+            xif.setProperty(XMLInputFactory.SUPPORT_DTD,
+                    jaxbRep.isExpandingEntityRefs());
+            xif.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES,
+                    jaxbRep.isExpandingEntityRefs());
+            xmlReader = xif.createXMLStreamReader(reader);
+        } catch (XMLStreamException e) {
+            throw new JAXBException("Unable to create the StAX reader", e);
+        }
+
+        UnmarshallerPool pool = getPool();
+        return new ElementIterator<E>(xmlReader, pool, getUnmarshaller(pool,
+                jaxbRep), elementClass);
+    }
 }
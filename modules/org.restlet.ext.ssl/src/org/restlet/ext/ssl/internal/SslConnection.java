@@ -364,6 +364,16 @@ public class SslConnection<T extends Connector> extends Connection<T> {
         return getSslHandshakeStatus() != HandshakeStatus.NOT_HANDSHAKING;
     }
 
+    /**
+     * Returns false as the bytes written need to be encrypted.
+     * 
+     * @return False.
+     */
+    @Override
+    public boolean isTransferable() {
+        return false;
+    }
+
     /**
      * Notifies that the SSL handshake is finished. Application data can now be
      * exchanged.
@@ -418,7 +428,7 @@ public class SslConnection<T extends Connector> extends Connection<T> {
                                 "Unable to handle SSL handshake", e);
                     }
 
-                    getHelper().getController().wakeup();
+                    getController().wakeup();
                 }
             });
         }
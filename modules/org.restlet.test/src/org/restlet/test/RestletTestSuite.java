@@ -86,6 +86,7 @@ import org.restlet.test.security.HttpBasicTestCase;
 import org.restlet.test.security.RoleTestCase;
 import org.restlet.test.security.SecurityTestCase;
 import org.restlet.test.service.ServiceTestSuite;
+import org.restlet.test.util.SeriesTestCase;
 import org.restlet.test.util.TemplateTestCase;
 
 /**
@@ -135,6 +136,7 @@ public class RestletTestSuite extends TestSuite {
         addTestSuite(DigestVerifierTestCase.class);
         addTestSuite(RecipientInfoTestCase.class);
         addTestSuite(RoleTestCase.class);
+        addTestSuite(SeriesTestCase.class);
         addTestSuite(StatusTestCase.class);
         addTestSuite(TemplateTestCase.class);
         addTestSuite(TransformerTestCase.class);
@@ -0,0 +1,211 @@
+/**
+ * Copyright 2005-2012 Restlet S.A.S.
+ * 
+ * The contents of this file are subject to the terms of one of the following
+ * open source licenses: Apache 2.0 or LGPL 3.0 or LGPL 2.1 or CDDL 1.0 or EPL
+ * 1.0 (the "Licenses"). You can select the license that you prefer but you may
+ * not use this file except in compliance with one of these Licenses.
+ * 
+ * You can obtain a copy of the Apache 2.0 license at
+ * http://www.opensource.org/licenses/apache-2.0
+ * 
+ * You can obtain a copy of the LGPL 3.0 license at
+ * http://www.opensource.org/licenses/lgpl-3.0
+ * 
+ * You can obtain a copy of the LGPL 2.1 license at
+ * http://www.opensource.org/licenses/lgpl-2.1
+ * 
+ * You can obtain a copy of the CDDL 1.0 license at
+ * http://www.opensource.org/licenses/cddl1
+ * 
+ * You can obtain a copy of the EPL 1.0 license at
+ * http://www.opensource.org/licenses/eclipse-1.0
+ * 
+ * See the Licenses for the specific language governing permissions and
+ * limitations under the Licenses.
+ * 
+ * Alternatively, you can obtain a royalty free commercial license with less
+ * limitations, transferable or non-transferable, directly at
+ * http://www.restlet.com/products/restlet-framework
+ * 
+ * Restlet is a registered trademark of Restlet S.A.S.
+ */
+
+package org.restlet.test.engine;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+
+import org.restlet.Request;
+import org.restlet.Response;
+import org.restlet.data.ChallengeResponse;
+import org.restlet.data.ChallengeScheme;
+import org.restlet.data.Method;
+import org.restlet.data.Status;
+import org.restlet.engine.io.BioUtils;
+import org.restlet.engine.log.AccessLogRecord;
+import org.restlet.engine.log.AccessLogWriter;
+import org.restlet.service.LogService;
+import org.restlet.test.RestletTestCase;
+
+/**
+ * Test {@link org.restlet.engine.log.AccessLogWriter}.
+ * 
+ * @author Jerome Louvel
+ */
+public class AccessLogWriterTestCase extends RestletTestCase {
+
+    private File testDir;
+
+    private File file;
+
+    private static int countLines(File file) throws IOException {
+        int result = 0;
+        BufferedReader reader = new BufferedReader(new FileReader(file));
+
+        try {
+            while (reader.readLine() != null) {
+                result++;
+            }
+        } finally {
+            reader.close();
+        }
+
+        return result;
+    }
+
+    private static AccessLogRecord createRecord(int index) {
+        Request request = new Request(Method.GET, "http://localhost/path"
+                + index + "?q=" + index);
+        Response response = new Response(request);
+        response.setStatus(Status.SUCCESS_OK);
+        return new AccessLogRecord(response, index);
+    }
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        this.testDir = new File(System.getProperty("java.io.tmpdir"),
+                "AccessLogWriterTestCase");
+        BioUtils.delete(this.testDir, true);
+        this.testDir.mkdirs();
+        this.file = new File(this.testDir, "access.log");
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        BioUtils.delete(this.testDir, true);
+        this.file = null;
+        this.testDir = null;
+        super.tearDown();
+    }
+
+    public void testBlocking() throws Exception {
+        final AccessLogWriter writer = new AccessLogWriter(this.file, 4);
+        writer.setBlocking(true);
+        writer.setBatchSize(2);
+        writer.start();
+
+        Thread[] threads = new Thread[4];
+
+        for (int i = 0; i < threads.length; i++) {
+            threads[i] = new Thread() {
+                @Override
+                public void run() {
+                    for (int j = 0; j < 250; j++) {
+                        writer.offer(createRecord(j));
+                    }
+                }
+            };
+            threads[i].start();
+        }
+
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        writer.stop();
+        assertEquals(0, writer.getDroppedCount());
+        assertEquals(1000, countLines(this.file));
+    }
+
+    public void testDropping() throws Exception {
+        AccessLogWriter writer = new AccessLogWriter(this.file, 4);
+
+        // Records offered before the writer is started are dropped
+        assertFalse(writer.offer(createRecord(0)));
+        assertEquals(1, writer.getDroppedCount());
+
+        // The writer waits for a full batch, the ring buffer is filled
+        writer.setBatchSize(100);
+        writer.setFlushDelay(60000);
+        writer.start();
+
+        for (int i = 0; i < 6; i++) {
+            assertEquals(i < 4, writer.offer(createRecord(i)));
+        }
+
+        assertEquals(3, writer.getDroppedCount());
+        writer.stop();
+        assertEquals(4, countLines(this.file));
+
+        // Records offered after the writer is stopped are dropped too
+        assertFalse(writer.offer(createRecord(6)));
+        assertEquals(4, writer.getDroppedCount());
+        assertEquals(0, writer.getPendingCount());
+    }
+
+    public void testFormat() {
+        AccessLogRecord record = createRecord(7);
+        LogService logService = new LogService();
+        String[] fields = record.toString().split("\t");
+        assertEquals(16, fields.length);
+        assertEquals("GET", fields[6]);
+        assertEquals("/path7", fields[7]);
+        assertEquals("q=7", fields[8]);
+        assertEquals("200", fields[9]);
+        assertEquals("7", fields[12]);
+
+        Response response = new Response(new Request(Method.GET,
+                "http://localhost/path7?q=7"));
+        assertEquals(16, logService.getResponseLogMessage(response, 7).split(
+                "\t").length);
+    }
+
+    public void testUserIdentifier() {
+        Request request = new Request(Method.GET, "http://localhost/path");
+        request.setChallengeResponse(new ChallengeResponse(
+                ChallengeScheme.HTTP_BASIC, "scott", "tiger"));
+        Response response = new Response(request);
+
+        // Taken from the challenge response by default
+        assertEquals("scott",
+                new AccessLogRecord(response, 0).toString().split("\t")[3]);
+
+        // No fallback when the identity is checked via IDENT, the lookup
+        // being done while formatting
+        assertEquals("-", new AccessLogRecord(response, 0, true).toString()
+                .split("\t")[3]);
+    }
+
+    public void testRotation() throws Exception {
+        AccessLogWriter writer = new AccessLogWriter(this.file);
+        writer.setBatchSize(1);
+        writer.setMaxFileSize(200);
+        writer.setMaxFiles(2);
+        writer.start();
+
+        for (int i = 0; i < 10; i++) {
+            writer.offer(createRecord(i));
+        }
+
+        writer.stop();
+        assertTrue(this.file.exists());
+        assertTrue(new File(this.testDir, "access.log.1").exists());
+        assertTrue(new File(this.testDir, "access.log.2").exists());
+        assertFalse(new File(this.testDir, "access.log.3").exists());
+    }
+
+}
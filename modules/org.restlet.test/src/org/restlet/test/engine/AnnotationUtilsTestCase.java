@@ -34,6 +34,7 @@
 package org.restlet.test.engine;
 
 import java.util.List;
+import java.util.Map;
 
 import junit.framework.Assert;
 
@@ -65,6 +66,24 @@ public class AnnotationUtilsTestCase extends RestletTestCase {
 
     }
 
+    public void testGetDispatchTable() {
+        Map<Method, List<AnnotationInfo>> table = AnnotationUtils
+                .getInstance().getDispatchTable(IChild.class);
+        Assert.assertSame(table, AnnotationUtils.getInstance()
+                .getDispatchTable(IChild.class));
+        Assert.assertEquals(2, table.size());
+        Assert.assertNull(table.get(Method.POST));
+
+        List<AnnotationInfo> infos = table.get(Method.PUT);
+        Assert.assertEquals("Wrong count: " + infos, 2, infos.size());
+
+        for (AnnotationInfo ai : infos) {
+            Assert.assertEquals(Method.PUT, ai.getRestletMethod());
+        }
+
+        Assert.assertEquals(2, table.get(Method.GET).size());
+    }
+
     public void testGetAnnotationsWithGenericParameterType() {
         List<AnnotationInfo> infos = AnnotationUtils.getInstance()
                 .getAnnotations(IChild.class);
@@ -0,0 +1,279 @@
+/**
+ * Copyright 2005-2012 Restlet S.A.S.
+ * 
+ * The contents of this file are subject to the terms of one of the following
+ * open source licenses: Apache 2.0 or LGPL 3.0 or LGPL 2.1 or CDDL 1.0 or EPL
+ * 1.0 (the "Licenses"). You can select the license that you prefer but you may
+ * not use this file except in compliance with one of these Licenses.
+ * 
+ * You can obtain a copy of the Apache 2.0 license at
+ * http://www.opensource.org/licenses/apache-2.0
+ * 
+ * You can obtain a copy of the LGPL 3.0 license at
+ * http://www.opensource.org/licenses/lgpl-3.0
+ * 
+ * You can obtain a copy of the LGPL 2.1 license at
+ * http://www.opensource.org/licenses/lgpl-2.1
+ * 
+ * You can obtain a copy of the CDDL 1.0 license at
+ * http://www.opensource.org/licenses/cddl1
+ * 
+ * You can obtain a copy of the EPL 1.0 license at
+ * http://www.opensource.org/licenses/eclipse-1.0
+ * 
+ * See the Licenses for the specific language governing permissions and
+ * limitations under the Licenses.
+ * 
+ * Alternatively, you can obtain a royalty free commercial license with less
+ * limitations, transferable or non-transferable, directly at
+ * http://www.restlet.com/products/restlet-framework
+ * 
+ * Restlet is a registered trademark of Restlet S.A.S.
+ */
+
+package org.restlet.test.engine;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+
+import org.restlet.Request;
+import org.restlet.Response;
+import org.restlet.Restlet;
+import org.restlet.data.CacheDirective;
+import org.restlet.data.Dimension;
+import org.restlet.data.MediaType;
+import org.restlet.data.Method;
+import org.restlet.data.Preference;
+import org.restlet.data.Status;
+import org.restlet.data.Tag;
+import org.restlet.engine.application.CacheFilter;
+import org.restlet.engine.application.CacheStore;
+import org.restlet.representation.InputRepresentation;
+import org.restlet.representation.Representation;
+import org.restlet.representation.StringRepresentation;
+import org.restlet.test.RestletTestCase;
+
+/**
+ * Test {@link org.restlet.engine.application.CacheFilter}.
+ * 
+ * @author Jerome Louvel
+ */
+public class CacheFilterTestCase extends RestletTestCase {
+
+    /** Restlet counting its invocations and answering with a tagged entity. */
+    private static class CountingRestlet extends Restlet {
+
+        private volatile int count;
+
+        private volatile int maxAge = 60;
+
+        private volatile int staleWhileRevalidate = -1;
+
+        private volatile String version = "v1";
+
+        @Override
+        public void handle(Request request, Response response) {
+            this.count++;
+            Tag tag = new Tag(this.version, false);
+
+            if (request.getConditions().getNoneMatch().contains(tag)) {
+                response.setStatus(Status.REDIRECTION_NOT_MODIFIED);
+            } else {
+                MediaType mediaType = MediaType.TEXT_PLAIN;
+
+                if (request.getClientInfo().getPreferredMediaType(
+                        Arrays.asList(MediaType.TEXT_PLAIN,
+                                MediaType.TEXT_HTML)) == MediaType.TEXT_HTML) {
+                    mediaType = MediaType.TEXT_HTML;
+                }
+
+                Representation entity = new StringRepresentation("Content "
+                        + this.version, mediaType);
+                entity.setTag(tag);
+                response.setEntity(entity);
+                response.getDimensions().add(Dimension.MEDIA_TYPE);
+            }
+
+            response.getCacheDirectives().add(
+                    CacheDirective.maxAge(this.maxAge));
+
+            if (this.staleWhileRevalidate >= 0) {
+                response.getCacheDirectives().add(
+                        new CacheDirective("stale-while-revalidate", Integer
+                                .toString(this.staleWhileRevalidate), true));
+            }
+        }
+    }
+
+    private CacheFilter filter;
+
+    private CountingRestlet target;
+
+    private Response get() throws Exception {
+        return handle(new Request(Method.GET, "http://localhost/test"));
+    }
+
+    private Response handle(Request request) throws Exception {
+        Response response = new Response(request);
+        this.filter.handle(request, response);
+        return response;
+    }
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        this.target = new CountingRestlet();
+        this.filter = new CacheFilter(null, new CacheStore(100000), true);
+        this.filter.setNext(this.target);
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        this.filter = null;
+        this.target = null;
+        super.tearDown();
+    }
+
+    public void testFailedStore() throws Exception {
+        this.filter.setNext(new Restlet() {
+            @Override
+            public void handle(Request request, Response response) {
+                InputStream stream = new InputStream() {
+                    @Override
+                    public int read() throws IOException {
+                        throw new IOException("Broken entity");
+                    }
+                };
+
+                response.setEntity(new InputRepresentation(stream,
+                        MediaType.TEXT_PLAIN, 10));
+                response.getCacheDirectives().add(CacheDirective.maxAge(60));
+            }
+        });
+
+        // The partially consumed entity isn't sent
+        Response response = get();
+        assertEquals(Status.SERVER_ERROR_INTERNAL, response.getStatus());
+        assertNull(response.getEntity());
+        assertEquals(0, this.filter.getStore().getCount());
+    }
+
+    public void testFreshHit() throws Exception {
+        assertEquals("Content v1", get().getEntity().getText());
+        Response response = get();
+        assertEquals(Status.SUCCESS_OK, response.getStatus());
+        assertEquals("Content v1", response.getEntity().getText());
+        assertEquals(1, this.target.count);
+
+        // Unsafe methods invalidate the entries
+        handle(new Request(Method.POST, "http://localhost/test"));
+        assertEquals(2, this.target.count);
+        get();
+        assertEquals(3, this.target.count);
+    }
+
+    public void testNoStore() throws Exception {
+        Request request = new Request(Method.GET, "http://localhost/test");
+        request.getCacheDirectives().add(CacheDirective.noStore());
+        handle(request);
+        assertEquals(0, this.filter.getStore().getCount());
+
+        request = new Request(Method.GET, "http://localhost/test");
+        request.getCacheDirectives().add(CacheDirective.onlyIfCached());
+        assertEquals(Status.SERVER_ERROR_GATEWAY_TIMEOUT, handle(request)
+                .getStatus());
+    }
+
+    public void testRevalidation() throws Exception {
+        this.target.maxAge = 0;
+        get();
+        assertEquals(1, this.filter.getStore().getCount());
+
+        // Not modified, served from the cache
+        Response response = get();
+        assertEquals(2, this.target.count);
+        assertEquals(Status.SUCCESS_OK, response.getStatus());
+        assertEquals("Content v1", response.getEntity().getText());
+
+        // Modified, served and stored again
+        this.target.version = "v2";
+        assertEquals("Content v2", get().getEntity().getText());
+        assertEquals(3, this.target.count);
+
+        // Conditional request answered from the cache
+        Request request = new Request(Method.GET, "http://localhost/test");
+        request.getConditions().getNoneMatch().add(new Tag("v2", false));
+        this.target.maxAge = 60;
+        get();
+        assertEquals(Status.REDIRECTION_NOT_MODIFIED, handle(request)
+                .getStatus());
+        assertEquals(4, this.target.count);
+    }
+
+    public void testSharedMaxAge() throws Exception {
+        CacheDirective[][] orders = {
+                { CacheDirective.sharedMaxAge(600), CacheDirective.maxAge(60),
+                        CacheDirective.proxyMustRevalidate() },
+                { CacheDirective.proxyMustRevalidate(),
+                        CacheDirective.maxAge(60),
+                        CacheDirective.sharedMaxAge(600) } };
+
+        for (CacheDirective[] directives : orders) {
+            Response response = new Response(new Request(Method.GET,
+                    "http://localhost/test"));
+            response.setEntity(new StringRepresentation("Content"));
+            response.getCacheDirectives().addAll(Arrays.asList(directives));
+            response.getCacheDirectives().add(
+                    new CacheDirective("stale-while-revalidate", "60", true));
+            long now = System.currentTimeMillis();
+
+            // Shared caches use s-maxage and honor proxy-revalidate
+            CacheStore.Entry entry = new CacheStore.Entry(response,
+                    new byte[0], true);
+            assertEquals(600000, entry.getFreshnessLifetime());
+            assertFalse(entry.isStaleServable(now));
+
+            // Private caches use max-age and ignore proxy-revalidate
+            entry = new CacheStore.Entry(response, new byte[0], false);
+            assertEquals(60000, entry.getFreshnessLifetime());
+            assertTrue(entry.isStaleServable(now));
+        }
+    }
+
+    public void testStaleWhileRevalidate() throws Exception {
+        this.target.maxAge = 0;
+        this.target.staleWhileRevalidate = 60;
+        get();
+        this.target.version = "v2";
+
+        // The stale entry is served, then revalidated
+        assertEquals("Content v1", get().getEntity().getText());
+        assertEquals(2, this.target.count);
+        assertEquals("Content v2", get().getEntity().getText());
+    }
+
+    public void testVary() throws Exception {
+        Request request = new Request(Method.GET, "http://localhost/test");
+        request.getClientInfo().getAcceptedMediaTypes().add(
+                new Preference<MediaType>(MediaType.TEXT_HTML));
+        assertEquals(MediaType.TEXT_HTML, handle(request).getEntity()
+                .getMediaType());
+        assertEquals(MediaType.TEXT_PLAIN, get().getEntity().getMediaType());
+        assertEquals(2, this.target.count);
+        assertEquals(2, this.filter.getStore().getCount());
+
+        request = new Request(Method.GET, "http://localhost/test");
+        request.getClientInfo().getAcceptedMediaTypes().add(
+                new Preference<MediaType>(MediaType.TEXT_HTML));
+        assertEquals(MediaType.TEXT_HTML, handle(request).getEntity()
+                .getMediaType());
+        assertEquals(2, this.target.count);
+
+        // Unsafe requests remove all the variants
+        handle(new Request(Method.PUT, "http://localhost/test"));
+        assertEquals(0, this.filter.getStore().getCount());
+        assertEquals(0, this.filter.getStore().getSize());
+    }
+
+}
@@ -33,6 +33,8 @@
 
 package org.restlet.test.engine;
 
+import org.restlet.data.CharacterSet;
+import org.restlet.data.MediaType;
 import org.restlet.engine.header.ContentType;
 import org.restlet.test.RestletTestCase;
 
@@ -70,4 +72,20 @@ public class ContentTypeTestCase extends RestletTestCase {
                 .getFirstValue("version"));
     }
 
+    public void testValueOf() {
+        String h1 = "text/plain; charset=UTF-8";
+        ContentType ct1 = ContentType.valueOf(h1);
+
+        assertEquals(MediaType.TEXT_PLAIN, ct1.getMediaType());
+        assertEquals(CharacterSet.UTF_8, ct1.getCharacterSet());
+        assertSame(ct1, ContentType.valueOf(h1));
+
+        try {
+            ContentType.valueOf("application/docbook+xml; version='my version'");
+            fail("Shouldn't reach this point");
+        } catch (IllegalArgumentException iae) {
+            // OK
+        }
+    }
+
 }
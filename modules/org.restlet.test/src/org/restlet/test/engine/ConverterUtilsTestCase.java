@@ -0,0 +1,137 @@
+/**
+ * Copyright 2005-2012 Restlet S.A.S.
+ * 
+ * The contents of this file are subject to the terms of one of the following
+ * open source licenses: Apache 2.0 or LGPL 3.0 or LGPL 2.1 or CDDL 1.0 or EPL
+ * 1.0 (the "Licenses"). You can select the license that you prefer but you may
+ * not use this file except in compliance with one of these Licenses.
+ * 
+ * You can obtain a copy of the Apache 2.0 license at
+ * http://www.opensource.org/licenses/apache-2.0
+ * 
+ * You can obtain a copy of the LGPL 3.0 license at
+ * http://www.opensource.org/licenses/lgpl-3.0
+ * 
+ * You can obtain a copy of the LGPL 2.1 license at
+ * http://www.opensource.org/licenses/lgpl-2.1
+ * 
+ * You can obtain a copy of the CDDL 1.0 license at
+ * http://www.opensource.org/licenses/cddl1
+ * 
+ * You can obtain a copy of the EPL 1.0 license at
+ * http://www.opensource.org/licenses/eclipse-1.0
+ * 
+ * See the Licenses for the specific language governing permissions and
+ * limitations under the Licenses.
+ * 
+ * Alternatively, you can obtain a royalty free commercial license with less
+ * limitations, transferable or non-transferable, directly at
+ * http://www.restlet.com/products/restlet-framework
+ * 
+ * Restlet is a registered trademark of Restlet S.A.S.
+ */
+
+package org.restlet.test.engine;
+
+import java.io.IOException;
+import java.util.List;
+
+import org.restlet.data.MediaType;
+import org.restlet.engine.Engine;
+import org.restlet.engine.converter.ConverterHelper;
+import org.restlet.engine.converter.ConverterUtils;
+import org.restlet.engine.converter.DefaultConverter;
+import org.restlet.engine.resource.VariantInfo;
+import org.restlet.representation.Representation;
+import org.restlet.representation.StringRepresentation;
+import org.restlet.representation.Variant;
+import org.restlet.resource.Resource;
+import org.restlet.test.RestletTestCase;
+
+/**
+ * Unit tests for the converter selection.
+ * 
+ * @author Jerome Louvel
+ */
+public class ConverterUtilsTestCase extends RestletTestCase {
+
+    /** Converter preferring strings. */
+    private static class StringConverter extends ConverterHelper {
+
+        @Override
+        public List<Class<?>> getObjectClasses(Variant source) {
+            return null;
+        }
+
+        @Override
+        public List<VariantInfo> getVariants(Class<?> source) {
+            return null;
+        }
+
+        @Override
+        public float score(Object source, Variant target, Resource resource) {
+            return (source instanceof String) ? 2.0F : -1.0F;
+        }
+
+        @Override
+        public <T> float score(Representation source, Class<T> target,
+                Resource resource) {
+            return String.class.equals(target) ? 2.0F : -1.0F;
+        }
+
+        @Override
+        public <T> T toObject(Representation source, Class<T> target,
+                Resource resource) throws IOException {
+            return null;
+        }
+
+        @Override
+        public Representation toRepresentation(Object source, Variant target,
+                Resource resource) throws IOException {
+            return null;
+        }
+    }
+
+    public void testBestHelper() {
+        Variant variant = new Variant(MediaType.TEXT_PLAIN);
+        Representation entity = new StringRepresentation("test");
+
+        ConverterHelper helper = ConverterUtils.getBestHelper("test",
+                variant, null);
+        assertTrue(helper instanceof DefaultConverter);
+        assertSame(helper, ConverterUtils.getBestHelper("other", variant,
+                null));
+        assertTrue(ConverterUtils.getBestHelper(entity, String.class, null)
+                instanceof DefaultConverter);
+
+        // Registering a converter invalidates the previous decisions
+        StringConverter converter = new StringConverter();
+        Engine.getInstance().getRegisteredConverters().add(converter);
+        assertSame(converter, ConverterUtils.getBestHelper("test", variant,
+                null));
+        assertSame(converter, ConverterUtils.getBestHelper(entity,
+                String.class, null));
+
+        Engine.getInstance().getRegisteredConverters().remove(converter);
+        assertSame(helper, ConverterUtils.getBestHelper("test", variant,
+                null));
+    }
+
+    public void testVariants() {
+        List<VariantInfo> variants = ConverterUtils.getVariants(String.class,
+                null);
+        assertNotNull(variants);
+        int size = variants.size();
+        assertTrue(size > 0);
+        variants.clear();
+
+        // The cached variants are copied
+        List<VariantInfo> variants2 = ConverterUtils.getVariants(String.class,
+                null);
+        assertEquals(size, variants2.size());
+        variants2.get(0).setMediaType(MediaType.IMAGE_PNG);
+        assertFalse(MediaType.IMAGE_PNG.equals(ConverterUtils
+                .getVariants(String.class, null).get(0).getMediaType()));
+    }
+
+}
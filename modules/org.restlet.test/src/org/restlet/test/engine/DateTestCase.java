@@ -33,9 +33,14 @@
 
 package org.restlet.test.engine;
 
+import java.text.SimpleDateFormat;
 import java.util.Date;
+import java.util.Locale;
+import java.util.Random;
+import java.util.TimeZone;
 
 import org.restlet.engine.util.DateUtils;
+import org.restlet.engine.util.FastHttpDateFormat;
 import org.restlet.test.RestletTestCase;
 
 /**
@@ -63,6 +68,61 @@ public class DateTestCase extends RestletTestCase {
 
     private String DATE_RFC822_1 = "Fri, 12 Apr 85 23:20:50 GMT";
 
+    private static SimpleDateFormat getFormat(String pattern) {
+        SimpleDateFormat result = new SimpleDateFormat(pattern, Locale.US);
+        result.setTimeZone(TimeZone.getTimeZone("GMT"));
+        return result;
+    }
+
+    /**
+     * Compares the specialized HTTP dates formatter and parser with the
+     * generic ones.
+     */
+    public void testFastHttpDates() throws Exception {
+        SimpleDateFormat rfc1123 = getFormat(DateUtils.FORMAT_RFC_1123.get(0));
+        SimpleDateFormat rfc1036 = getFormat(DateUtils.FORMAT_RFC_1036.get(0));
+        SimpleDateFormat asc = getFormat(DateUtils.FORMAT_ASC_TIME.get(0));
+        Random random = new Random();
+
+        for (int i = 0; i < 2000; i++) {
+            // Dates between 1900 and 2100, with a precision of one second
+            long time = ((long) (random.nextDouble() * 6311390400L) - 2208988800L) * 1000L;
+            Date date = new Date(time);
+
+            String formatted = rfc1123.format(date);
+            assertEquals(formatted, FastHttpDateFormat.formatRfc1123(time));
+            assertEquals(date, FastHttpDateFormat.parseRfc1123(formatted));
+
+            formatted = asc.format(date);
+            assertEquals(formatted, FastHttpDateFormat.formatAscTime(time));
+            assertEquals(date, FastHttpDateFormat.parseAscTime(formatted));
+
+            formatted = rfc1036.format(date);
+            assertEquals(formatted, FastHttpDateFormat.formatRfc1036(time));
+            assertEquals(rfc1036.parse(formatted), FastHttpDateFormat
+                    .parseRfc1036(formatted));
+        }
+
+        // Space padded day of the month
+        assertEquals(DateUtils.parse("Sun Nov 06 08:49:37 1994",
+                DateUtils.FORMAT_ASC_TIME), FastHttpDateFormat
+                .parseAscTime("Sun Nov  6 08:49:37 1994"));
+
+        // Malformed dates are left to the generic parser
+        assertNull(FastHttpDateFormat.parseRfc1123("Sun, 31 Feb 1994 08:49:37 GMT"));
+        assertNull(FastHttpDateFormat.parseRfc1123("Sun, 06 Nov 1994 08:49:37 PST"));
+        assertNull(FastHttpDateFormat.parseRfc1123("Sun, 6 Nov 1994 08:49:37 GMT"));
+        assertEquals(rfc1123.parse("Sun, 6 Nov 1994 08:49:37 GMT"), DateUtils
+                .parse("Sun, 6 Nov 1994 08:49:37 GMT"));
+        assertEquals(rfc1123.parse("Sun, 06 Nov 1994 08:49:37 PST"), DateUtils
+                .parse("Sun, 06 Nov 1994 08:49:37 PST"));
+
+        // The current second is cached
+        long now = System.currentTimeMillis();
+        assertSame(FastHttpDateFormat.formatRfc1123(now), FastHttpDateFormat
+                .formatRfc1123(now));
+    }
+
     /**
      * Tests for dates in the RFC 822 format.
      */
@@ -0,0 +1,168 @@
+/**
+ * Copyright 2005-2012 Restlet S.A.S.
+ * 
+ * The contents of this file are subject to the terms of one of the following
+ * open source licenses: Apache 2.0 or LGPL 3.0 or LGPL 2.1 or CDDL 1.0 or EPL
+ * 1.0 (the "Licenses"). You can select the license that you prefer but you may
+ * not use this file except in compliance with one of these Licenses.
+ * 
+ * You can obtain a copy of the Apache 2.0 license at
+ * http://www.opensource.org/licenses/apache-2.0
+ * 
+ * You can obtain a copy of the LGPL 3.0 license at
+ * http://www.opensource.org/licenses/lgpl-3.0
+ * 
+ * You can obtain a copy of the LGPL 2.1 license at
+ * http://www.opensource.org/licenses/lgpl-2.1
+ * 
+ * You can obtain a copy of the CDDL 1.0 license at
+ * http://www.opensource.org/licenses/cddl1
+ * 
+ * You can obtain a copy of the EPL 1.0 license at
+ * http://www.opensource.org/licenses/eclipse-1.0
+ * 
+ * See the Licenses for the specific language governing permissions and
+ * limitations under the Licenses.
+ * 
+ * Alternatively, you can obtain a royalty free commercial license with less
+ * limitations, transferable or non-transferable, directly at
+ * http://www.restlet.com/products/restlet-framework
+ * 
+ * Restlet is a registered trademark of Restlet S.A.S.
+ */
+
+package org.restlet.test.engine;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.util.List;
+
+import org.restlet.data.CharacterSet;
+import org.restlet.data.LocalReference;
+import org.restlet.data.MediaType;
+import org.restlet.data.Reference;
+import org.restlet.data.ReferenceList;
+import org.restlet.engine.io.BioUtils;
+import org.restlet.engine.local.DirectoryCache;
+import org.restlet.engine.local.ListingRepresentation;
+import org.restlet.engine.util.AlphaNumericComparator;
+import org.restlet.test.RestletTestCase;
+
+/**
+ * Test {@link org.restlet.engine.local.DirectoryCache}.
+ * 
+ * @author Jerome Louvel
+ */
+public class DirectoryCacheTestCase extends RestletTestCase {
+
+    private File testDir;
+
+    private String testUri;
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        this.testDir = new File(System.getProperty("java.io.tmpdir"),
+                "DirectoryCacheTestCase");
+        BioUtils.delete(this.testDir, true);
+        this.testDir.mkdirs();
+        this.testUri = LocalReference.createFileReference(this.testDir)
+                .toString() + "/";
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        BioUtils.delete(this.testDir, true);
+        this.testDir = null;
+        this.testUri = null;
+        super.tearDown();
+    }
+
+    private ReferenceList createList() {
+        ReferenceList result = new ReferenceList();
+        result.setIdentifier(this.testUri);
+        result.add(this.testUri + "file10.txt");
+        result.add(this.testUri + "file2.txt");
+        result.add(this.testUri + "file1.txt");
+        return result;
+    }
+
+    public void testExpiration() throws Exception {
+        DirectoryCache cache = new DirectoryCache(0);
+        this.testDir.setLastModified(System.currentTimeMillis() - 10000);
+        cache.putList(this.testUri, false, createList());
+        Thread.sleep(5);
+
+        // Expired, but the directory hasn't changed
+        assertNotNull(cache.getList(this.testUri, false));
+
+        // Expired, and the directory has changed
+        this.testDir.setLastModified(System.currentTimeMillis() - 5000);
+        assertNull(cache.getList(this.testUri, false));
+
+        // Non local listings only rely on their time to live
+        cache.putList("clap://class/test/", false, createList());
+        Thread.sleep(5);
+        assertNull(cache.getList("clap://class/test/", false));
+    }
+
+    public void testListing() throws Exception {
+        ReferenceList list = createList();
+        String html = list.getWebRepresentation().getText();
+        String text = list.getTextRepresentation().getText();
+        assertEquals(html, new ListingRepresentation(list,
+                MediaType.TEXT_HTML).getText());
+        assertEquals(text, new ListingRepresentation(list,
+                MediaType.TEXT_URI_LIST).getText());
+    }
+
+    public void testListingCharacterSet() throws Exception {
+        // A file name outside Latin-1
+        File file = new File(this.testDir, "\u6587\u4ef6-\u00e9t\u00e9.txt");
+        assertTrue(file.createNewFile());
+        ReferenceList list = createList();
+        list.add(LocalReference.createFileReference(file));
+
+        ListingRepresentation listing = new ListingRepresentation(list,
+                MediaType.TEXT_HTML);
+        assertEquals(CharacterSet.UTF_8, listing.getCharacterSet());
+
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        listing.write(baos);
+        String html = new String(baos.toByteArray(), listing
+                .getCharacterSet().getName());
+        assertEquals(list.getWebRepresentation().getText(), html);
+        assertFalse(html.contains("?"));
+        assertEquals(file, new LocalReference(list.get(3)).getFile());
+    }
+
+    public void testRemove() throws Exception {
+        DirectoryCache cache = new DirectoryCache(60000);
+        cache.putList(this.testUri, false, createList());
+        cache.putList(this.testUri + "file1.txt", true, createList());
+        cache.putList(this.testUri + "sub/", false, createList());
+        assertEquals(3, cache.getCount());
+
+        cache.remove(this.testUri + "file2.txt");
+        assertNull(cache.getList(this.testUri, false));
+        assertNull(cache.getList(this.testUri + "file1.txt", true));
+        assertNotNull(cache.getList(this.testUri + "sub/", false));
+    }
+
+    public void testSortedList() throws Exception {
+        DirectoryCache cache = new DirectoryCache(60000);
+        AlphaNumericComparator comparator = new AlphaNumericComparator();
+        assertNull(cache.getSortedList(this.testUri, comparator));
+
+        cache.putList(this.testUri, false, createList());
+        List<Reference> sorted = cache.getSortedList(this.testUri, comparator);
+        assertEquals(3, sorted.size());
+        assertTrue(sorted.get(0).toString().endsWith("file1.txt"));
+        assertTrue(sorted.get(1).toString().endsWith("file2.txt"));
+        assertTrue(sorted.get(2).toString().endsWith("file10.txt"));
+
+        // The sorted listing is computed once
+        assertSame(sorted, cache.getSortedList(this.testUri, comparator));
+    }
+
+}
@@ -0,0 +1,268 @@
+/**
+ * Copyright 2005-2012 Restlet S.A.S.
+ * 
+ * The contents of this file are subject to the terms of one of the following
+ * open source licenses: Apache 2.0 or LGPL 3.0 or LGPL 2.1 or CDDL 1.0 or EPL
+ * 1.0 (the "Licenses"). You can select the license that you prefer but you may
+ * not use this file except in compliance with one of these Licenses.
+ * 
+ * You can obtain a copy of the Apache 2.0 license at
+ * http://www.opensource.org/licenses/apache-2.0
+ * 
+ * You can obtain a copy of the LGPL 3.0 license at
+ * http://www.opensource.org/licenses/lgpl-3.0
+ * 
+ * You can obtain a copy of the LGPL 2.1 license at
+ * http://www.opensource.org/licenses/lgpl-2.1
+ * 
+ * You can obtain a copy of the CDDL 1.0 license at
+ * http://www.opensource.org/licenses/cddl1
+ * 
+ * You can obtain a copy of the EPL 1.0 license at
+ * http://www.opensource.org/licenses/eclipse-1.0
+ * 
+ * See the Licenses for the specific language governing permissions and
+ * limitations under the Licenses.
+ * 
+ * Alternatively, you can obtain a royalty free commercial license with less
+ * limitations, transferable or non-transferable, directly at
+ * http://www.restlet.com/products/restlet-framework
+ * 
+ * Restlet is a registered trademark of Restlet S.A.S.
+ */
+
+package org.restlet.test.engine;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.InflaterInputStream;
+
+import org.restlet.data.ClientInfo;
+import org.restlet.data.Encoding;
+import org.restlet.data.MediaType;
+import org.restlet.data.Preference;
+import org.restlet.data.Reference;
+import org.restlet.data.Tag;
+import org.restlet.engine.application.CompressionPool;
+import org.restlet.engine.application.Encoder;
+import org.restlet.engine.application.EncodingCache;
+import org.restlet.engine.application.PooledDeflaterOutputStream;
+import org.restlet.engine.application.PooledInflaterInputStream;
+import org.restlet.engine.io.BioUtils;
+import org.restlet.representation.FileRepresentation;
+import org.restlet.representation.InputRepresentation;
+import org.restlet.representation.Representation;
+import org.restlet.representation.StringRepresentation;
+import org.restlet.service.EncoderService;
+import org.restlet.test.RestletTestCase;
+
+/**
+ * Test {@link org.restlet.engine.application.Encoder}.
+ * 
+ * @author Jerome Louvel
+ */
+public class EncoderTestCase extends RestletTestCase {
+
+    private static String decode(Representation representation)
+            throws IOException {
+        return BioUtils.toString(new GZIPInputStream(representation
+                .getStream()));
+    }
+
+    private static String getContent() {
+        StringBuilder sb = new StringBuilder();
+
+        for (int i = 0; i < 1000; i++) {
+            sb.append("Line ").append(i).append('\n');
+        }
+
+        return sb.toString();
+    }
+
+    private ClientInfo clientInfo;
+
+    private EncoderService encoderService;
+
+    private File testDir;
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        this.clientInfo = new ClientInfo();
+        this.clientInfo.getAcceptedEncodings().add(
+                new Preference<Encoding>(Encoding.GZIP));
+        this.encoderService = new EncoderService();
+        this.testDir = new File(System.getProperty("java.io.tmpdir"),
+                "EncoderTestCase");
+        BioUtils.delete(this.testDir, true);
+        this.testDir.mkdirs();
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        BioUtils.delete(this.testDir, true);
+        this.clientInfo = null;
+        this.encoderService = null;
+        this.testDir = null;
+        super.tearDown();
+    }
+
+    public void testCache() throws IOException {
+        EncodingCache cache = new EncodingCache(100000);
+        this.encoderService.setEncodingCache(cache);
+        Encoder encoder = new Encoder(null, false, true, this.encoderService);
+        Reference ref = new Reference("http://localhost/resource");
+        String content = getContent();
+
+        for (int i = 0; i < 2; i++) {
+            Representation rep = new StringRepresentation(content);
+            rep.setTag(new Tag("v1", false));
+            Representation encoded = encoder.encode(this.clientInfo, rep, ref);
+            assertTrue(encoded.hasKnownSize());
+            assertEquals(Encoding.GZIP, encoded.getEncodings().get(0));
+            assertEquals(content, decode(encoded));
+        }
+
+        assertEquals(1, cache.getCount());
+
+        // Another compression level gives other encoded bytes
+        this.encoderService.setCompressionLevel(Deflater.NO_COMPRESSION);
+        Representation rep = new StringRepresentation(content);
+        rep.setTag(new Tag("v1", false));
+        Representation encoded = encoder.encode(this.clientInfo, rep, ref);
+        assertTrue(encoded.getSize() > content.length());
+        assertEquals(content, decode(encoded));
+        assertEquals(2, cache.getCount());
+        this.encoderService.setCompressionLevel(Deflater.DEFAULT_COMPRESSION);
+
+        // Weak tags don't identify the encoded bytes
+        rep = new StringRepresentation(content);
+        rep.setTag(new Tag("v2", true));
+        encoded = encoder.encode(this.clientInfo, rep, ref);
+        assertFalse(encoded.hasKnownSize());
+        assertEquals(2, cache.getCount());
+
+        // Transient content isn't cached
+        rep = new InputRepresentation(new ByteArrayInputStream(content
+                .getBytes()), MediaType.TEXT_PLAIN, content.length());
+        rep.setTag(new Tag("v3", false));
+        encoded = encoder.encode(this.clientInfo, rep, ref);
+        assertFalse(encoded.hasKnownSize());
+        assertEquals(content, decode(encoded));
+        assertEquals(2, cache.getCount());
+    }
+
+    public void testCacheEviction() throws IOException {
+        EncodingCache cache = new EncodingCache(100, 10000);
+        this.encoderService.setEncodingCache(cache);
+        Encoder encoder = new Encoder(null, false, true, this.encoderService);
+        String content = getContent();
+
+        for (int i = 0; i < 10; i++) {
+            Representation rep = new StringRepresentation(content);
+            rep.setTag(new Tag("v" + i, false));
+            encoder.encode(this.clientInfo, rep, new Reference(
+                    "http://localhost/resource"));
+            assertTrue(cache.getSize() <= cache.getMaxSize());
+        }
+
+        assertTrue(cache.getCount() < 10);
+    }
+
+    public void testCompressionLevel() throws IOException {
+        String content = getContent();
+        Encoder encoder = new Encoder(null, false, true, this.encoderService);
+        this.encoderService.setCompressionLevel(Deflater.NO_COMPRESSION);
+        Representation stored = encoder.encode(this.clientInfo,
+                new StringRepresentation(content));
+        this.encoderService.setCompressionLevel(Deflater.BEST_COMPRESSION);
+        Representation compressed = encoder.encode(this.clientInfo,
+                new StringRepresentation(content));
+
+        ByteArrayOutputStream storedBytes = new ByteArrayOutputStream();
+        stored.write(storedBytes);
+        ByteArrayOutputStream compressedBytes = new ByteArrayOutputStream();
+        compressed.write(compressedBytes);
+        assertTrue(storedBytes.size() > content.length());
+        assertTrue(compressedBytes.size() < content.length() / 2);
+    }
+
+    public void testPooledStreams() throws IOException {
+        String content = getContent();
+        CompressionPool pool = new CompressionPool(2);
+
+        for (int i = 0; i < 5; i++) {
+            for (boolean gzip : new boolean[] { true, false }) {
+                ByteArrayOutputStream baos = new ByteArrayOutputStream();
+                PooledDeflaterOutputStream pdos = new PooledDeflaterOutputStream(
+                        baos, pool, gzip, Deflater.DEFAULT_COMPRESSION,
+                        Deflater.DEFAULT_STRATEGY);
+                pdos.write(content.getBytes());
+                pdos.finish();
+
+                // Check the interoperability with the JDK streams
+                InputStream jdkStream = gzip ? new GZIPInputStream(
+                        new ByteArrayInputStream(baos.toByteArray()))
+                        : new InflaterInputStream(new ByteArrayInputStream(
+                                baos.toByteArray()));
+                assertEquals(content, BioUtils.toString(jdkStream));
+
+                InputStream pooledStream = new PooledInflaterInputStream(
+                        new ByteArrayInputStream(baos.toByteArray()), pool,
+                        gzip);
+                assertEquals(content, BioUtils.toString(pooledStream));
+            }
+        }
+
+        // One deflater and one inflater per wrapping mode
+        assertEquals(4, pool.getCreatedCount());
+        assertEquals(4, pool.getIdleCount());
+
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        OutputStream os = new GZIPOutputStream(baos);
+        os.write(content.getBytes());
+        os.close();
+        byte[] corrupted = baos.toByteArray();
+        corrupted[corrupted.length - 1]++;
+
+        try {
+            BioUtils.exhaust(new PooledInflaterInputStream(
+                    new ByteArrayInputStream(corrupted), pool, true));
+            fail("The corrupted trailer should be detected");
+        } catch (IOException e) {
+            // Expected
+        }
+    }
+
+    public void testPrecompressed() throws IOException {
+        String content = getContent();
+        File file = new File(this.testDir, "test.txt");
+        FileOutputStream fos = new FileOutputStream(file);
+        fos.write(content.getBytes());
+        fos.close();
+
+        File sibling = new File(this.testDir, "test.txt.gz");
+        OutputStream os = new GZIPOutputStream(new FileOutputStream(sibling));
+        os.write(content.getBytes());
+        os.close();
+        sibling.setLastModified(file.lastModified());
+
+        Encoder encoder = new Encoder(null, false, true, this.encoderService);
+        Representation encoded = encoder.encode(this.clientInfo,
+                new FileRepresentation(file, MediaType.TEXT_PLAIN));
+        assertTrue(encoded instanceof FileRepresentation);
+        assertEquals(sibling, ((FileRepresentation) encoded).getFile());
+        assertEquals(MediaType.TEXT_PLAIN, encoded.getMediaType());
+        assertEquals(Encoding.GZIP, encoded.getEncodings().get(0));
+        assertEquals(content, decode(encoded));
+    }
+
+}
@@ -37,8 +37,13 @@ import junit.framework.Test;
 import junit.framework.TestSuite;
 
 import org.restlet.test.engine.connector.AsynchroneTestCase;
+import org.restlet.test.engine.connector.ClientConnectionPoolTestCase;
+import org.restlet.test.engine.connector.FileTransferTestCase;
 import org.restlet.test.engine.connector.HttpInboundRequestTestCase;
+import org.restlet.test.engine.connector.PipeliningTestCase;
+import org.restlet.test.engine.connector.SelectorThreadsTestCase;
 import org.restlet.test.engine.io.BioUtilsTestCase;
+import org.restlet.test.engine.io.BufferPoolTestCase;
 import org.restlet.test.engine.io.BufferTestCase;
 import org.restlet.test.engine.io.ReaderInputStreamTestCase;
 import org.restlet.test.engine.util.Base64TestCase;
@@ -62,22 +67,33 @@ public class EngineTestSuite extends TestSuite {
     /** Constructor. */
     public EngineTestSuite() {
         super("Engine package");
+        addTestSuite(AccessLogWriterTestCase.class);
         addTestSuite(AlphaNumericComparatorTestCase.class);
         addTestSuite(AnnotationUtilsTestCase.class);
         addTestSuite(Base64TestCase.class);
+        addTestSuite(BufferPoolTestCase.class);
         addTestSuite(BufferTestCase.class);
         addTestSuite(BioUtilsTestCase.class);
+        addTestSuite(CacheFilterTestCase.class);
         addTestSuite(CookiesTestCase.class);
+        addTestSuite(DirectoryCacheTestCase.class);
         addTestSuite(ContentTypeTestCase.class);
+        addTestSuite(ConverterUtilsTestCase.class);
+        addTestSuite(EncoderTestCase.class);
         addTestSuite(HeaderTestCase.class);
         addTestSuite(HttpCallTestCase.class);
+        addTestSuite(MappedFileCacheTestCase.class);
         addTestSuite(AsynchroneTestCase.class);
         addTestSuite(HttpInboundRequestTestCase.class);
+        addTestSuite(FileTransferTestCase.class);
         addTestSuite(ImmutableDateTestCase.class);
         addTestSuite(UnclosableInputStreamTestCase.class);
         addTestSuite(UnclosableOutputStreamTestCase.class);
         addTestSuite(PreferencesTestCase.class);
         addTestSuite(ReaderInputStreamTestCase.class);
+        addTestSuite(SelectorThreadsTestCase.class);
+        addTestSuite(ClientConnectionPoolTestCase.class);
+        addTestSuite(PipeliningTestCase.class);
 
         // Tests based on HTTP client connectors are not supported by the GAE
         // edition.
@@ -33,6 +33,8 @@
 
 package org.restlet.test.engine;
 
+import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.Date;
 import java.util.List;
@@ -41,6 +43,9 @@ import org.restlet.data.ClientInfo;
 import org.restlet.data.Encoding;
 import org.restlet.data.MediaType;
 import org.restlet.engine.header.EncodingReader;
+import org.restlet.engine.header.Header;
+import org.restlet.engine.header.HeaderConstants;
+import org.restlet.engine.header.HeaderLineParser;
 import org.restlet.engine.header.HeaderReader;
 import org.restlet.engine.header.PreferenceReader;
 import org.restlet.engine.header.TokenReader;
@@ -112,6 +117,66 @@ public class HeaderTestCase extends RestletTestCase {
     /**
      * Tests the parsing.
      */
+    /**
+     * Tests the {@link HeaderLineParser} class, feeding it with split byte
+     * buffers.
+     */
+    public void testLineParser() throws IOException {
+        HeaderLineParser parser = new HeaderLineParser(4);
+        assertFalse(parser.parse(ByteBuffer.wrap("GET /path HT".getBytes())));
+        assertTrue(parser.parse(ByteBuffer.wrap("TP/1.1\r\ncon".getBytes())));
+        assertEquals("GET /path HTTP/1.1", parser.toString());
+        assertEquals("/path", parser.substring(4, 9));
+        parser.clear();
+
+        ByteBuffer bytes = ByteBuffer.wrap("tent-TYPE: \ttext/plain\r\n"
+                .getBytes());
+        assertFalse(parser.parse(ByteBuffer.wrap("con".getBytes())));
+        assertTrue(parser.parse(bytes));
+        Header header = parser.readHeader();
+        assertEquals("content-TYPE", header.getName());
+        assertEquals("text/plain", header.getValue());
+        parser.clear();
+
+        // Well-known names received with the same case are shared
+        assertTrue(parser.parse(ByteBuffer.wrap("Content-Type: text/xml\r\n"
+                .getBytes())));
+        header = parser.readHeader();
+        assertSame(HeaderConstants.HEADER_CONTENT_TYPE, header.getName());
+        assertEquals("text/xml", header.getValue());
+        parser.clear();
+
+        assertTrue(parser.parse(ByteBuffer.wrap("X-Custom:\r\n".getBytes())));
+        header = parser.readHeader();
+        assertEquals("X-Custom", header.getName());
+        assertEquals("", header.getValue());
+        parser.clear();
+
+        assertTrue(parser.parse(ByteBuffer.wrap("\r\n".getBytes())));
+        assertNull(parser.readHeader());
+    }
+
+    /**
+     * Tests the maximum line length of the {@link HeaderLineParser} class.
+     */
+    public void testLineParserMaxLength() throws IOException {
+        HeaderLineParser parser = new HeaderLineParser(4, 16);
+        assertTrue(parser.parse(ByteBuffer.wrap("X-Custom: 123456\r\n"
+                .getBytes())));
+        assertFalse(parser.isLineTooLong());
+        parser.clear();
+
+        try {
+            parser.parse(ByteBuffer.wrap("X-Custom: 1234567\r\n".getBytes()));
+            fail("The line should be too long");
+        } catch (IOException e) {
+            assertTrue(parser.isLineTooLong());
+        }
+
+        parser.clear();
+        assertFalse(parser.isLineTooLong());
+    }
+
     public void testParsing() {
         String header1 = "Accept-Encoding,User-Agent";
         String header2 = "Accept-Encoding , User-Agent";
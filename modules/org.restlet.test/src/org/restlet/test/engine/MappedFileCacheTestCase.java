@@ -0,0 +1,252 @@
+/**
+ * Copyright 2005-2012 Restlet S.A.S.
+ * 
+ * The contents of this file are subject to the terms of one of the following
+ * open source licenses: Apache 2.0 or LGPL 3.0 or LGPL 2.1 or CDDL 1.0 or EPL
+ * 1.0 (the "Licenses"). You can select the license that you prefer but you may
+ * not use this file except in compliance with one of these Licenses.
+ * 
+ * You can obtain a copy of the Apache 2.0 license at
+ * http://www.opensource.org/licenses/apache-2.0
+ * 
+ * You can obtain a copy of the LGPL 3.0 license at
+ * http://www.opensource.org/licenses/lgpl-3.0
+ * 
+ * You can obtain a copy of the LGPL 2.1 license at
+ * http://www.opensource.org/licenses/lgpl-2.1
+ * 
+ * You can obtain a copy of the CDDL 1.0 license at
+ * http://www.opensource.org/licenses/cddl1
+ * 
+ * You can obtain a copy of the EPL 1.0 license at
+ * http://www.opensource.org/licenses/eclipse-1.0
+ * 
+ * See the Licenses for the specific language governing permissions and
+ * limitations under the Licenses.
+ * 
+ * Alternatively, you can obtain a royalty free commercial license with less
+ * limitations, transferable or non-transferable, directly at
+ * http://www.restlet.com/products/restlet-framework
+ * 
+ * Restlet is a registered trademark of Restlet S.A.S.
+ */
+
+package org.restlet.test.engine;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.NonWritableChannelException;
+import java.util.Arrays;
+import java.util.Random;
+
+import org.restlet.Client;
+import org.restlet.Context;
+import org.restlet.Request;
+import org.restlet.Response;
+import org.restlet.data.LocalReference;
+import org.restlet.data.Method;
+import org.restlet.data.Protocol;
+import org.restlet.data.Status;
+import org.restlet.engine.io.BioUtils;
+import org.restlet.engine.io.BufferFileChannel;
+import org.restlet.engine.local.FileClientHelper;
+import org.restlet.engine.local.MappedFileCache;
+import org.restlet.engine.local.MappedFileRepresentation;
+import org.restlet.representation.Representation;
+import org.restlet.test.RestletTestCase;
+
+/**
+ * Test {@link org.restlet.engine.local.MappedFileCache}.
+ * 
+ * @author Jerome Louvel
+ */
+public class MappedFileCacheTestCase extends RestletTestCase {
+
+    private static byte[] read(FileChannel channel) throws Exception {
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        ByteBuffer buffer = ByteBuffer.allocate(1000);
+
+        while (channel.read(buffer) != -1) {
+            buffer.flip();
+            baos.write(buffer.array(), 0, buffer.limit());
+            buffer.clear();
+        }
+
+        channel.close();
+        return baos.toByteArray();
+    }
+
+    private File testDir;
+
+    private File createFile(String name, int size) throws Exception {
+        byte[] content = new byte[size];
+        new Random().nextBytes(content);
+        File result = new File(this.testDir, name);
+        FileOutputStream fos = new FileOutputStream(result);
+        fos.write(content);
+        fos.close();
+        return result;
+    }
+
+    private byte[] getContent(File file) throws Exception {
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        BioUtils.copy(new FileInputStream(file), baos);
+        return baos.toByteArray();
+    }
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        this.testDir = new File(System.getProperty("java.io.tmpdir"),
+                "MappedFileCacheTestCase");
+        BioUtils.delete(this.testDir, true);
+        this.testDir.mkdirs();
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        BioUtils.delete(this.testDir, true);
+        this.testDir = null;
+        super.tearDown();
+    }
+
+    public void testCache() throws Exception {
+        MappedFileCache cache = new MappedFileCache(1000000, 10000);
+        File small = createFile("small.bin", 5000);
+        File large = createFile("large.bin", 50000);
+
+        ByteBuffer content = cache.get(small);
+        assertFalse(content.isDirect());
+        assertTrue(content.isReadOnly());
+        assertTrue(Arrays.equals(getContent(small), read(new BufferFileChannel(
+                content))));
+
+        content = cache.get(large);
+        assertTrue(content.isDirect());
+        assertTrue(Arrays.equals(getContent(large), read(new BufferFileChannel(
+                content))));
+        assertEquals(2, cache.getCount());
+        assertEquals(55000, cache.getSize());
+
+        // Too large files aren't cached
+        assertNull(cache.get(createFile("huge.bin", 200000)));
+        assertEquals(2, cache.getCount());
+
+        // Modified files are loaded again
+        createFile("small.bin", 6000);
+        small.setLastModified(System.currentTimeMillis() + 10000);
+        assertEquals(6000, cache.get(small).limit());
+        assertEquals(56000, cache.getSize());
+    }
+
+    public void testChannel() throws Exception {
+        MappedFileCache cache = new MappedFileCache(1000000, 10000);
+        File small = createFile("small.bin", 5000);
+        File large = createFile("large.bin", 50000);
+        byte[] expected = getContent(large);
+
+        // Mappings of mapped content are slices of the cached buffer
+        FileChannel channel = new BufferFileChannel(cache.get(large));
+        MappedByteBuffer mapping = channel.map(FileChannel.MapMode.READ_ONLY,
+                100, 200);
+        assertEquals(200, mapping.remaining());
+        assertEquals(expected[100], mapping.get(0));
+        assertEquals(expected[299], mapping.get(199));
+
+        try {
+            channel.map(FileChannel.MapMode.READ_WRITE, 0, 10);
+            fail("Read-write mappings should be rejected");
+        } catch (NonWritableChannelException e) {
+            // Expected
+        }
+
+        // Only shared locks are granted, until the channel is closed
+        FileLock lock = channel.lock(0, Long.MAX_VALUE, true);
+        assertTrue(lock.isShared());
+        assertTrue(lock.isValid());
+        lock.release();
+        assertFalse(lock.isValid());
+        lock = channel.tryLock(0, 10, true);
+
+        try {
+            channel.lock(0, 10, false);
+            fail("Exclusive locks should be rejected");
+        } catch (NonWritableChannelException e) {
+            // Expected
+        }
+
+        channel.close();
+        assertFalse(lock.isValid());
+
+        // Heap copies are mapped from their file
+        expected = getContent(small);
+        channel = new BufferFileChannel(cache.get(small), small);
+        mapping = channel.map(FileChannel.MapMode.READ_ONLY, 10, 20);
+        assertEquals(20, mapping.remaining());
+        assertEquals(expected[10], mapping.get(0));
+        channel.close();
+    }
+
+    public void testEviction() throws Exception {
+        MappedFileCache cache = new MappedFileCache(100000);
+
+        for (int i = 0; i < 20; i++) {
+            assertNotNull(cache.get(createFile("file" + i, 10000)));
+        }
+
+        assertEquals(10, cache.getCount());
+        assertEquals(100000, cache.getSize());
+    }
+
+    public void testFileClient() throws Exception {
+        File file = createFile("test.bin", 20000);
+        Client client = new Client(new Context(), Protocol.FILE);
+        client.getContext().getParameters().add("mappedCacheSize", "1000000");
+        client.start();
+
+        try {
+            for (int i = 0; i < 2; i++) {
+                Response response = client.handle(new Request(
+                        Method.GET, LocalReference.createFileReference(file)));
+                Representation entity = response.getEntity();
+                assertTrue(entity instanceof MappedFileRepresentation);
+                assertTrue(entity.getChannel() instanceof BufferFileChannel);
+
+                ByteArrayOutputStream baos = new ByteArrayOutputStream();
+                entity.write(baos);
+                assertTrue(Arrays.equals(getContent(file), baos.toByteArray()));
+            }
+        } finally {
+            client.stop();
+        }
+    }
+
+    public void testRemove() throws Exception {
+        Client client = new Client(new Context(), Protocol.FILE);
+        client.getContext().getParameters().add("mappedCacheSize", "1000000");
+        FileClientHelper helper = new FileClientHelper(client);
+        MappedFileCache cache = helper.getMappedFileCache();
+        File file = createFile("test.bin", 20000);
+        assertNotNull(cache.get(file));
+        assertTrue(cache.remove(file));
+        assertFalse(cache.remove(file));
+        assertEquals(0, cache.getSize());
+
+        // Files are evicted before being deleted
+        assertNotNull(cache.get(file));
+        Request request = new Request(Method.DELETE,
+                LocalReference.createFileReference(file));
+        Response response = new Response(request);
+        helper.handle(request, response);
+        assertEquals(Status.SUCCESS_NO_CONTENT, response.getStatus());
+        assertFalse(file.exists());
+        assertEquals(0, cache.getCount());
+    }
+
+}
@@ -37,6 +37,8 @@ import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
 
+import org.restlet.data.ClientInfo;
+import org.restlet.data.Language;
 import org.restlet.data.MediaType;
 import org.restlet.data.Preference;
 import org.restlet.engine.header.PreferenceReader;
@@ -49,6 +51,40 @@ import org.restlet.test.RestletTestCase;
  * @author Jerome Louvel
  */
 public class PreferencesTestCase extends RestletTestCase {
+
+    /**
+     * Tests that cached header values give independent preferences.
+     */
+    public void testCachedParsing() {
+        String header = "text/html;level=1;q=0.7, application/xml;q=0.5";
+        ClientInfo ci1 = new ClientInfo();
+        ClientInfo ci2 = new ClientInfo();
+        PreferenceReader.addMediaTypes(header, ci1);
+        PreferenceReader.addMediaTypes(header, ci2);
+
+        List<Preference<MediaType>> prefs1 = ci1.getAcceptedMediaTypes();
+        List<Preference<MediaType>> prefs2 = ci2.getAcceptedMediaTypes();
+        assertEquals(2, prefs1.size());
+        assertEquals(2, prefs2.size());
+        assertEquals("text/html; level=1", prefs1.get(0).getMetadata()
+                .getName());
+        assertEquals(0.7F, prefs1.get(0).getQuality());
+        assertSame(prefs1.get(1).getMetadata(), prefs2.get(1).getMetadata());
+        assertNotSame(prefs1.get(0), prefs2.get(0));
+
+        // Updating a preference doesn't affect the next requests
+        prefs1.get(0).setQuality(0.1F);
+        ClientInfo ci3 = new ClientInfo();
+        PreferenceReader.addMediaTypes(header, ci3);
+        assertEquals(0.7F, ci3.getAcceptedMediaTypes().get(0).getQuality());
+
+        PreferenceReader.addLanguages("fr-ca, en;q=0.5", ci1);
+        PreferenceReader.addLanguages("fr-ca, en;q=0.5", ci2);
+        assertEquals(Language.ENGLISH, ci1.getAcceptedLanguages().get(1)
+                .getMetadata());
+        assertSame(ci1.getAcceptedLanguages().get(0).getMetadata(), ci2
+                .getAcceptedLanguages().get(0).getMetadata());
+    }
     /**
      * Tests the parsing of a single preference header.
      * 
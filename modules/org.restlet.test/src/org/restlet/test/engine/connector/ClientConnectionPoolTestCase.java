@@ -0,0 +1,153 @@
+/**
+ * Copyright 2005-2012 Restlet S.A.S.
+ * 
+ * The contents of this file are subject to the terms of one of the following
+ * open source licenses: Apache 2.0 or LGPL 3.0 or LGPL 2.1 or CDDL 1.0 or EPL
+ * 1.0 (the "Licenses"). You can select the license that you prefer but you may
+ * not use this file except in compliance with one of these Licenses.
+ * 
+ * You can obtain a copy of the Apache 2.0 license at
+ * http://www.opensource.org/licenses/apache-2.0
+ * 
+ * You can obtain a copy of the LGPL 3.0 license at
+ * http://www.opensource.org/licenses/lgpl-3.0
+ * 
+ * You can obtain a copy of the LGPL 2.1 license at
+ * http://www.opensource.org/licenses/lgpl-2.1
+ * 
+ * You can obtain a copy of the CDDL 1.0 license at
+ * http://www.opensource.org/licenses/cddl1
+ * 
+ * You can obtain a copy of the EPL 1.0 license at
+ * http://www.opensource.org/licenses/eclipse-1.0
+ * 
+ * See the Licenses for the specific language governing permissions and
+ * limitations under the Licenses.
+ * 
+ * Alternatively, you can obtain a royalty free commercial license with less
+ * limitations, transferable or non-transferable, directly at
+ * http://www.restlet.com/products/restlet-framework
+ * 
+ * Restlet is a registered trademark of Restlet S.A.S.
+ */
+package org.restlet.test.engine.connector;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArraySet;
+
+import org.restlet.Client;
+import org.restlet.Context;
+import org.restlet.Request;
+import org.restlet.Response;
+import org.restlet.Restlet;
+import org.restlet.Server;
+import org.restlet.data.MediaType;
+import org.restlet.data.Method;
+import org.restlet.data.Protocol;
+import org.restlet.test.RestletTestCase;
+
+/**
+ * Unit test for the reuse of persistent connections by the internal client
+ * connector.
+ * 
+ * @author Jerome Louvel
+ */
+public class ClientConnectionPoolTestCase extends RestletTestCase {
+
+    /** The client ports seen by the server. */
+    private final Set<Integer> clientPorts = new CopyOnWriteArraySet<Integer>();
+
+    private Server server;
+
+    private String getUri(int i) {
+        return "http://localhost:" + this.server.getEphemeralPort() + "/test"
+                + i;
+    }
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        this.clientPorts.clear();
+        this.server = new Server(new Context(), Protocol.HTTP, 0,
+                new Restlet() {
+                    @Override
+                    public void handle(Request request, Response response) {
+                        clientPorts.add(request.getClientInfo().getPort());
+                        response.setEntity(request.getResourceRef().getPath(),
+                                MediaType.TEXT_PLAIN);
+                    }
+                });
+        this.server.start();
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        this.server.stop();
+        this.server = null;
+        super.tearDown();
+    }
+
+    public void testConcurrentRequests() throws Exception {
+        final Client client = new Client(new Context(), Protocol.HTTP);
+        client.getContext().getParameters().add("maxConnectionsPerHost", "2");
+        client.start();
+
+        try {
+            final List<Throwable> errors = new ArrayList<Throwable>();
+            List<Thread> threads = new ArrayList<Thread>();
+
+            for (int i = 0; i < 8; i++) {
+                final int index = i;
+                Thread thread = new Thread() {
+                    @Override
+                    public void run() {
+                        try {
+                            Response response = client.handle(new Request(
+                                    Method.GET, getUri(index)));
+                            assertTrue(response.getStatus().isSuccess());
+                            assertEquals("/test" + index, response
+                                    .getEntityAsText());
+                        } catch (Throwable t) {
+                            synchronized (errors) {
+                                errors.add(t);
+                            }
+                        }
+                    }
+                };
+                threads.add(thread);
+                thread.start();
+            }
+
+            for (Thread thread : threads) {
+                thread.join(30000);
+            }
+
+            assertTrue(errors.toString(), errors.isEmpty());
+            assertTrue(this.clientPorts.size() <= 2);
+        } finally {
+            client.stop();
+        }
+    }
+
+    public void testSequentialRequests() throws Exception {
+        Client client = new Client(new Context(), Protocol.HTTP);
+        client.start();
+
+        try {
+            for (int i = 0; i < 5; i++) {
+                Response response = client.handle(new Request(Method.GET,
+                        getUri(i)));
+                assertTrue(response.getStatus().isSuccess());
+                assertEquals("/test" + i, response.getEntityAsText());
+            }
+
+            // The same persistent connection is reused by each request
+            assertEquals(1, this.clientPorts.size());
+        } finally {
+            client.stop();
+        }
+    }
+
+}
@@ -0,0 +1,153 @@
+/**
+ * Copyright 2005-2012 Restlet S.A.S.
+ * 
+ * The contents of this file are subject to the terms of one of the following
+ * open source licenses: Apache 2.0 or LGPL 3.0 or LGPL 2.1 or CDDL 1.0 or EPL
+ * 1.0 (the "Licenses"). You can select the license that you prefer but you may
+ * not use this file except in compliance with one of these Licenses.
+ * 
+ * You can obtain a copy of the Apache 2.0 license at
+ * http://www.opensource.org/licenses/apache-2.0
+ * 
+ * You can obtain a copy of the LGPL 3.0 license at
+ * http://www.opensource.org/licenses/lgpl-3.0
+ * 
+ * You can obtain a copy of the LGPL 2.1 license at
+ * http://www.opensource.org/licenses/lgpl-2.1
+ * 
+ * You can obtain a copy of the CDDL 1.0 license at
+ * http://www.opensource.org/licenses/cddl1
+ * 
+ * You can obtain a copy of the EPL 1.0 license at
+ * http://www.opensource.org/licenses/eclipse-1.0
+ * 
+ * See the Licenses for the specific language governing permissions and
+ * limitations under the Licenses.
+ * 
+ * Alternatively, you can obtain a royalty free commercial license with less
+ * limitations, transferable or non-transferable, directly at
+ * http://www.restlet.com/products/restlet-framework
+ * 
+ * Restlet is a registered trademark of Restlet S.A.S.
+ */
+
+package org.restlet.test.engine.connector;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.restlet.Client;
+import org.restlet.Context;
+import org.restlet.Request;
+import org.restlet.Response;
+import org.restlet.Restlet;
+import org.restlet.Server;
+import org.restlet.data.MediaType;
+import org.restlet.data.Method;
+import org.restlet.data.Protocol;
+import org.restlet.data.Range;
+import org.restlet.data.Status;
+import org.restlet.engine.application.RangeRepresentation;
+import org.restlet.engine.io.BioUtils;
+import org.restlet.engine.local.MappedFileCache;
+import org.restlet.engine.local.MappedFileRepresentation;
+import org.restlet.representation.FileRepresentation;
+import org.restlet.test.RestletTestCase;
+
+/**
+ * Unit test for the direct transfer of file entities by the internal server
+ * connector.
+ * 
+ * @author Jerome Louvel
+ */
+public class FileTransferTestCase extends RestletTestCase {
+
+    public void testFileTransfer() throws Exception {
+        testFileTransfer(null);
+    }
+
+    private void testFileTransfer(final MappedFileCache cache)
+            throws Exception {
+        final byte[] content = new byte[300000];
+        new Random().nextBytes(content);
+        final File file = File.createTempFile("restlet-transfer", ".bin");
+        file.deleteOnExit();
+        FileOutputStream fos = new FileOutputStream(file);
+        fos.write(content);
+        fos.close();
+        final AtomicInteger openedChannels = new AtomicInteger();
+
+        Server server = new Server(new Context(), Protocol.HTTP, 0,
+                new Restlet() {
+                    @Override
+                    public void handle(Request request, Response response) {
+                        FileRepresentation entity = (cache == null) ? new FileRepresentation(
+                                file, MediaType.APPLICATION_OCTET_STREAM) {
+                            @Override
+                            public FileChannel getChannel() throws IOException {
+                                openedChannels.incrementAndGet();
+                                return super.getChannel();
+                            }
+                        }
+                                : new MappedFileRepresentation(file,
+                                        MediaType.APPLICATION_OCTET_STREAM,
+                                        -1, cache);
+
+                        if ("/range".equals(request.getResourceRef()
+                                .getPath())) {
+                            response.setEntity(new RangeRepresentation(entity,
+                                    new Range(1000, 50000)));
+                            response.setStatus(Status.SUCCESS_PARTIAL_CONTENT);
+                        } else {
+                            response.setEntity(entity);
+                        }
+                    }
+                });
+        server.start();
+
+        Client client = new Client(new Context(), Protocol.HTTP);
+        client.start();
+
+        try {
+            String uri = "http://localhost:" + server.getEphemeralPort();
+            Response response = client
+                    .handle(new Request(Method.GET, uri + "/full"));
+            assertTrue(response.getStatus().isSuccess());
+            assertTrue(Arrays.equals(content, getBytes(response)));
+
+            response = client.handle(new Request(Method.GET, uri + "/range"));
+            assertEquals(Status.SUCCESS_PARTIAL_CONTENT, response.getStatus());
+            byte[] expected = new byte[50000];
+            System.arraycopy(content, 1000, expected, 0, expected.length);
+            assertTrue(Arrays.equals(expected, getBytes(response)));
+
+            if (cache == null) {
+                // The file is opened once per transfer
+                assertEquals(2, openedChannels.get());
+            }
+        } finally {
+            client.stop();
+            server.stop();
+            file.delete();
+        }
+    }
+
+    public void testMappedFileTransfer() throws Exception {
+        MappedFileCache cache = new MappedFileCache(10000000);
+        testFileTransfer(cache);
+        assertEquals(1, cache.getCount());
+    }
+
+    private byte[] getBytes(Response response) throws Exception {
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        BioUtils.copy(response.getEntity().getStream(), baos);
+        return baos.toByteArray();
+    }
+
+}
@@ -33,8 +33,18 @@
 
 package org.restlet.test.engine.connector;
 
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.Socket;
+import java.util.Locale;
+
 import org.restlet.Context;
+import org.restlet.Request;
+import org.restlet.Response;
+import org.restlet.Restlet;
 import org.restlet.Server;
+import org.restlet.data.MediaType;
 import org.restlet.data.Protocol;
 import org.restlet.engine.Engine;
 import org.restlet.engine.connector.Connection;
@@ -51,6 +61,108 @@ import org.restlet.util.Series;
  */
 public class HttpInboundRequestTestCase extends RestletTestCase {
 
+    public void testHeaderLineTooLong() throws Exception {
+        Engine.register(false);
+        Engine.getInstance().getRegisteredServers()
+                .add(new HttpServerHelper(null));
+        Server server = new Server(new Context(), Protocol.HTTP, 0,
+                new Restlet() {
+                    @Override
+                    public void handle(Request request, Response response) {
+                        fail("The request shouldn't be handled");
+                    }
+                });
+        server.getContext().getParameters().add("maxHeaderLineLength", "1024");
+        server.start();
+
+        Socket socket = new Socket("localhost", server.getEphemeralPort());
+
+        try {
+            socket.setSoTimeout(5000);
+            StringBuilder request = new StringBuilder();
+            request.append("GET /test HTTP/1.1\r\nHost: localhost\r\n");
+            request.append("X-Large: ");
+
+            for (int i = 0; i < 4096; i++) {
+                request.append('x');
+            }
+
+            request.append("\r\n\r\n");
+            OutputStream out = socket.getOutputStream();
+            out.write(request.toString().getBytes("ISO-8859-1"));
+            out.flush();
+
+            // The response is sent before closing the connection
+            InputStream in = socket.getInputStream();
+            ByteArrayOutputStream received = new ByteArrayOutputStream();
+            byte[] bytes = new byte[1024];
+            int read;
+
+            while ((read = in.read(bytes)) != -1) {
+                received.write(bytes, 0, read);
+            }
+
+            String response = received.toString("ISO-8859-1");
+            assertTrue(response, response.startsWith("HTTP/1.1 400"));
+        } finally {
+            socket.close();
+            server.stop();
+        }
+    }
+
+    public void testIndexedHeaders() throws Exception {
+        Engine.register(false);
+        Engine.getInstance().getRegisteredServers()
+                .add(new HttpServerHelper(null));
+        Server server = new Server(new Context(), Protocol.HTTP, 0);
+        server.start();
+
+        HttpServerHelper hsh = (HttpServerHelper) server.getContext()
+                .getAttributes().get("org.restlet.engine.helper");
+        Connection<Server> c = hsh.getConnectionPool().checkout();
+
+        HttpInboundRequest hir = new HttpInboundRequest(server.getContext(), c,
+                "GET", "/test", "HTTP/1.1");
+        Series<Header> headers = new Series<Header>(Header.class);
+        headers.add("host", "localhost:8182");
+        headers.add("Accept", "text/html");
+        headers.add("ACCEPT", "application/json;q=0.5");
+        headers.add("cookie", "a=1; b=2");
+        headers.add("Range", "bytes=0-9");
+        headers.add("IF-NONE-MATCH", "\"xyz\"");
+        hir.setHeaders(headers);
+
+        // Header names are matched independently of the default locale
+        Locale locale = Locale.getDefault();
+        Locale.setDefault(new Locale("tr", "TR"));
+
+        try {
+            assertEquals("localhost", hir.getHostRef().getHostDomain());
+            assertEquals(8182, hir.getHostRef().getHostPort());
+            assertEquals(2, hir.getClientInfo().getAcceptedMediaTypes()
+                    .size());
+            assertEquals(MediaType.TEXT_HTML, hir.getClientInfo()
+                    .getAcceptedMediaTypes().get(0).getMetadata());
+            assertEquals(2, hir.getCookies().size());
+            assertEquals("b", hir.getCookies().get(1).getName());
+            assertEquals(1, hir.getRanges().size());
+            assertEquals(10, hir.getRanges().get(0).getSize());
+            assertEquals("xyz", hir.getConditions().getNoneMatch().get(0)
+                    .getName());
+        } finally {
+            Locale.setDefault(locale);
+        }
+
+        assertNull(hir.getReferrerRef());
+
+        // Headers added after the index was built must be visible
+        HttpInboundRequest.addHeader(hir, "Warning",
+                "199 localhost \"Miscellaneous warning\"");
+        assertEquals(1, hir.getWarnings().size());
+
+        server.stop();
+    }
+
     public void testRequestUri() throws Exception {
         Engine.register(false);
         Engine.getInstance().getRegisteredServers()
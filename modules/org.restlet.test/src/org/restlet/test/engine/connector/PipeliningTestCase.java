@@ -0,0 +1,249 @@
+/**
+ * Copyright 2005-2012 Restlet S.A.S.
+ * 
+ * The contents of this file are subject to the terms of one of the following
+ * open source licenses: Apache 2.0 or LGPL 3.0 or LGPL 2.1 or CDDL 1.0 or EPL
+ * 1.0 (the "Licenses"). You can select the license that you prefer but you may
+ * not use this file except in compliance with one of these Licenses.
+ * 
+ * You can obtain a copy of the Apache 2.0 license at
+ * http://www.opensource.org/licenses/apache-2.0
+ * 
+ * You can obtain a copy of the LGPL 3.0 license at
+ * http://www.opensource.org/licenses/lgpl-3.0
+ * 
+ * You can obtain a copy of the LGPL 2.1 license at
+ * http://www.opensource.org/licenses/lgpl-2.1
+ * 
+ * You can obtain a copy of the CDDL 1.0 license at
+ * http://www.opensource.org/licenses/cddl1
+ * 
+ * You can obtain a copy of the EPL 1.0 license at
+ * http://www.opensource.org/licenses/eclipse-1.0
+ * 
+ * See the Licenses for the specific language governing permissions and
+ * limitations under the Licenses.
+ * 
+ * Alternatively, you can obtain a royalty free commercial license with less
+ * limitations, transferable or non-transferable, directly at
+ * http://www.restlet.com/products/restlet-framework
+ * 
+ * Restlet is a registered trademark of Restlet S.A.S.
+ */
+package org.restlet.test.engine.connector;
+
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.restlet.Client;
+import org.restlet.Context;
+import org.restlet.Request;
+import org.restlet.Response;
+import org.restlet.data.Method;
+import org.restlet.data.Protocol;
+import org.restlet.test.RestletTestCase;
+
+/**
+ * Unit test for the pipelining of requests by the internal client connector.
+ * 
+ * @author Jerome Louvel
+ */
+public class PipeliningTestCase extends RestletTestCase {
+
+    /**
+     * Minimal HTTP server answering the requests received on each connection
+     * in order, once the expected number of requests has been read.
+     */
+    private static class PipeliningServer extends Thread {
+
+        /** Indicates if the connections are closed after one response. */
+        private final boolean closing;
+
+        /** The number of requests to read before answering. */
+        private final int expected;
+
+        /** The maximum number of requests received before answering. */
+        private volatile int maxReceived;
+
+        private final ServerSocket serverSocket;
+
+        public PipeliningServer(int expected, boolean closing)
+                throws Exception {
+            this.closing = closing;
+            this.expected = expected;
+            this.maxReceived = 0;
+            this.serverSocket = new ServerSocket(0);
+            setDaemon(true);
+        }
+
+        public int getMaxReceived() {
+            return maxReceived;
+        }
+
+        public int getPort() {
+            return serverSocket.getLocalPort();
+        }
+
+        private void handle(Socket socket) throws Exception {
+            socket.setSoTimeout(1000);
+            InputStream in = socket.getInputStream();
+            OutputStream out = socket.getOutputStream();
+            StringBuilder received = new StringBuilder();
+            List<String> paths = new ArrayList<String>();
+            byte[] bytes = new byte[1024];
+            boolean open = true;
+
+            while (open) {
+                boolean timedOut = false;
+
+                try {
+                    int read = in.read(bytes);
+
+                    if (read == -1) {
+                        open = false;
+                    } else {
+                        received.append(new String(bytes, 0, read, "ISO-8859-1"));
+                    }
+                } catch (SocketTimeoutException ste) {
+                    // Answer what has been received so far
+                    timedOut = true;
+                }
+
+                int end = received.indexOf("\r\n\r\n");
+
+                while (end != -1) {
+                    String head = received.substring(0, end);
+                    received.delete(0, end + 4);
+                    paths.add(head.split(" ")[1]);
+                    end = received.indexOf("\r\n\r\n");
+                }
+
+                if (!paths.isEmpty()
+                        && ((paths.size() >= expected) || timedOut)) {
+                    maxReceived = Math.max(maxReceived, paths.size());
+                    StringBuilder responses = new StringBuilder();
+
+                    for (String path : paths) {
+                        responses.append("HTTP/1.1 200 OK\r\n");
+                        responses.append("Content-Type: text/plain\r\n");
+                        responses.append("Content-Length: " + path.length()
+                                + "\r\n");
+
+                        if (closing) {
+                            responses.append("Connection: close\r\n");
+                        }
+
+                        responses.append("\r\n");
+                        responses.append(path);
+
+                        if (closing) {
+                            break;
+                        }
+                    }
+
+                    out.write(responses.toString().getBytes("ISO-8859-1"));
+                    out.flush();
+                    paths.clear();
+
+                    if (closing) {
+                        open = false;
+                    }
+                }
+            }
+
+            socket.close();
+        }
+
+        @Override
+        public void run() {
+            try {
+                while (true) {
+                    handle(serverSocket.accept());
+                }
+            } catch (Exception e) {
+                // Server stopped
+            }
+        }
+
+        public void shutdown() throws Exception {
+            serverSocket.close();
+        }
+    }
+
+    private void sendConcurrently(final Client client, final int port,
+            int count) throws Exception {
+        final List<Throwable> errors = new ArrayList<Throwable>();
+        List<Thread> threads = new ArrayList<Thread>();
+
+        for (int i = 0; i < count; i++) {
+            final String path = "/test" + i;
+            Thread thread = new Thread() {
+                @Override
+                public void run() {
+                    try {
+                        Response response = client.handle(new Request(
+                                Method.GET, "http://localhost:" + port + path));
+                        assertTrue(response.getStatus().toString(), response
+                                .getStatus().isSuccess());
+                        assertEquals(path, response.getEntityAsText());
+                    } catch (Throwable t) {
+                        synchronized (errors) {
+                            errors.add(t);
+                        }
+                    }
+                }
+            };
+            threads.add(thread);
+            thread.start();
+        }
+
+        for (Thread thread : threads) {
+            thread.join(30000);
+        }
+
+        assertTrue(errors.toString(), errors.isEmpty());
+    }
+
+    private Client createClient() throws Exception {
+        Client client = new Client(new Context(), Protocol.HTTP);
+        client.getContext().getParameters().add("pipeliningConnections",
+                "true");
+        client.getContext().getParameters().add("maxConnectionsPerHost", "1");
+        client.start();
+        return client;
+    }
+
+    public void testPipelining() throws Exception {
+        PipeliningServer server = new PipeliningServer(3, false);
+        server.start();
+        Client client = createClient();
+
+        try {
+            sendConcurrently(client, server.getPort(), 3);
+            assertEquals(3, server.getMaxReceived());
+        } finally {
+            client.stop();
+            server.shutdown();
+        }
+    }
+
+    public void testServerClosing() throws Exception {
+        PipeliningServer server = new PipeliningServer(3, true);
+        server.start();
+        Client client = createClient();
+
+        try {
+            // Requests left unanswered are sent again on new connections
+            sendConcurrently(client, server.getPort(), 3);
+        } finally {
+            client.stop();
+            server.shutdown();
+        }
+    }
+
+}
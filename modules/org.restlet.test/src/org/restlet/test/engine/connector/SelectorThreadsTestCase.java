@@ -0,0 +1,98 @@
+/**
+ * Copyright 2005-2012 Restlet S.A.S.
+ * 
+ * The contents of this file are subject to the terms of one of the following
+ * open source licenses: Apache 2.0 or LGPL 3.0 or LGPL 2.1 or CDDL 1.0 or EPL
+ * 1.0 (the "Licenses"). You can select the license that you prefer but you may
+ * not use this file except in compliance with one of these Licenses.
+ * 
+ * You can obtain a copy of the Apache 2.0 license at
+ * http://www.opensource.org/licenses/apache-2.0
+ * 
+ * You can obtain a copy of the LGPL 3.0 license at
+ * http://www.opensource.org/licenses/lgpl-3.0
+ * 
+ * You can obtain a copy of the LGPL 2.1 license at
+ * http://www.opensource.org/licenses/lgpl-2.1
+ * 
+ * You can obtain a copy of the CDDL 1.0 license at
+ * http://www.opensource.org/licenses/cddl1
+ * 
+ * You can obtain a copy of the EPL 1.0 license at
+ * http://www.opensource.org/licenses/eclipse-1.0
+ * 
+ * See the Licenses for the specific language governing permissions and
+ * limitations under the Licenses.
+ * 
+ * Alternatively, you can obtain a royalty free commercial license with less
+ * limitations, transferable or non-transferable, directly at
+ * http://www.restlet.com/products/restlet-framework
+ * 
+ * Restlet is a registered trademark of Restlet S.A.S.
+ */
+
+package org.restlet.test.engine.connector;
+
+import org.restlet.Client;
+import org.restlet.Context;
+import org.restlet.Request;
+import org.restlet.Response;
+import org.restlet.Restlet;
+import org.restlet.Server;
+import org.restlet.data.MediaType;
+import org.restlet.data.Method;
+import org.restlet.data.Protocol;
+import org.restlet.engine.connector.HttpServerHelper;
+import org.restlet.engine.connector.SelectorConnectionController;
+import org.restlet.test.RestletTestCase;
+
+/**
+ * Unit test for the internal server connector spreading its connections over
+ * several selector threads.
+ * 
+ * @author Jerome Louvel
+ */
+public class SelectorThreadsTestCase extends RestletTestCase {
+
+    public void testSelectorThreads() throws Exception {
+        Server server = new Server(new Context(), Protocol.HTTP, 0,
+                new Restlet() {
+                    @Override
+                    public void handle(Request request, Response response) {
+                        response.setEntity(request.getResourceRef().getPath(),
+                                MediaType.TEXT_PLAIN);
+                    }
+                });
+        server.getContext().getParameters().add("selectorThreads", "3");
+        server.start();
+
+        HttpServerHelper hsh = (HttpServerHelper) server.getContext()
+                .getAttributes().get("org.restlet.engine.helper");
+        SelectorConnectionController[] controllers = hsh.getController()
+                .getSelectorControllers();
+        assertNotNull(controllers);
+        assertEquals(3, controllers.length);
+
+        try {
+            for (int i = 0; i < 9; i++) {
+                // Use a new client each time so that a new connection is
+                // accepted for each request
+                Client client = new Client(new Context(), Protocol.HTTP);
+                client.start();
+
+                try {
+                    Response response = client.handle(new Request(Method.GET,
+                            "http://localhost:" + server.getEphemeralPort()
+                                    + "/test" + i));
+                    assertTrue(response.getStatus().isSuccess());
+                    assertEquals("/test" + i, response.getEntityAsText());
+                } finally {
+                    client.stop();
+                }
+            }
+        } finally {
+            server.stop();
+        }
+    }
+
+}
@@ -38,11 +38,19 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.io.StringWriter;
+import java.util.Arrays;
+import java.util.zip.GZIPInputStream;
 
 import org.restlet.data.CharacterSet;
+import org.restlet.data.Encoding;
 import org.restlet.data.MediaType;
+import org.restlet.engine.application.CompressionPool;
+import org.restlet.engine.application.EncodeRepresentation;
 import org.restlet.engine.io.BioUtils;
+import org.restlet.engine.io.ContinuationInputStream;
+import org.restlet.representation.InputRepresentation;
 import org.restlet.representation.OutputRepresentation;
+import org.restlet.representation.StringRepresentation;
 import org.restlet.test.RestletTestCase;
 
 /**
@@ -52,6 +60,66 @@ import org.restlet.test.RestletTestCase;
  */
 public class BioUtilsTestCase extends RestletTestCase {
 
+    public void testBufferedStream() throws IOException {
+        final byte[] content = new byte[] { 1, 2, 3, -1, -2, -3, 4, 5, 6 };
+        final Thread[] writingThread = new Thread[1];
+
+        OutputRepresentation or = new OutputRepresentation(
+                MediaType.APPLICATION_OCTET_STREAM, content.length) {
+            @Override
+            public void write(OutputStream outputStream) throws IOException {
+                writingThread[0] = Thread.currentThread();
+                outputStream.write(content);
+            }
+        };
+
+        assertTrue(BioUtils.isBufferable(or));
+        InputStream is = or.getStream();
+        assertTrue(is instanceof ContinuationInputStream);
+
+        byte[] result = new byte[content.length];
+        assertEquals(content.length, is.read(result));
+        assertEquals(-1, is.read());
+        assertTrue(Arrays.equals(content, result));
+        assertSame(Thread.currentThread(), writingThread[0]);
+    }
+
+    public void testEncodedStreamClose() throws IOException {
+        final boolean[] closed = new boolean[1];
+        InputStream content = new ByteArrayInputStream(new byte[100000]) {
+            @Override
+            public void close() throws IOException {
+                closed[0] = true;
+            }
+        };
+
+        CompressionPool.getInstance().clear();
+        EncodeRepresentation er = new EncodeRepresentation(Encoding.GZIP,
+                new InputRepresentation(content));
+        InputStream is = er.getStream();
+        assertTrue(is.read() != -1);
+
+        // Stop reading before the end
+        is.close();
+        assertTrue(closed[0]);
+        assertEquals(1, CompressionPool.getInstance().getIdleCount());
+        assertEquals(-1, is.read());
+    }
+
+    public void testEncodedStream() throws IOException {
+        StringBuilder sb = new StringBuilder();
+
+        for (int i = 0; i < 10000; i++) {
+            sb.append("Line ").append(i).append('\n');
+        }
+
+        EncodeRepresentation er = new EncodeRepresentation(Encoding.GZIP,
+                new StringRepresentation(sb.toString()));
+        InputStream is = er.getStream();
+        assertTrue(is instanceof ContinuationInputStream);
+        assertEquals(sb.toString(), BioUtils.toString(new GZIPInputStream(is)));
+    }
+
     public void testGetStream() throws IOException {
         StringWriter writer = new StringWriter();
         OutputStream out = BioUtils.getOutputStream(writer, CharacterSet.UTF_8);
@@ -0,0 +1,91 @@
+/**
+ * Copyright 2005-2012 Restlet S.A.S.
+ * 
+ * The contents of this file are subject to the terms of one of the following
+ * open source licenses: Apache 2.0 or LGPL 3.0 or LGPL 2.1 or CDDL 1.0 or EPL
+ * 1.0 (the "Licenses"). You can select the license that you prefer but you may
+ * not use this file except in compliance with one of these Licenses.
+ * 
+ * You can obtain a copy of the Apache 2.0 license at
+ * http://www.opensource.org/licenses/apache-2.0
+ * 
+ * You can obtain a copy of the LGPL 3.0 license at
+ * http://www.opensource.org/licenses/lgpl-3.0
+ * 
+ * You can obtain a copy of the LGPL 2.1 license at
+ * http://www.opensource.org/licenses/lgpl-2.1
+ * 
+ * You can obtain a copy of the CDDL 1.0 license at
+ * http://www.opensource.org/licenses/cddl1
+ * 
+ * You can obtain a copy of the EPL 1.0 license at
+ * http://www.opensource.org/licenses/eclipse-1.0
+ * 
+ * See the Licenses for the specific language governing permissions and
+ * limitations under the Licenses.
+ * 
+ * Alternatively, you can obtain a royalty free commercial license with less
+ * limitations, transferable or non-transferable, directly at
+ * http://www.restlet.com/products/restlet-framework
+ * 
+ * Restlet is a registered trademark of Restlet S.A.S.
+ */
+
+package org.restlet.test.engine.io;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+import org.restlet.engine.io.Buffer;
+import org.restlet.engine.io.BufferPool;
+import org.restlet.test.RestletTestCase;
+
+/**
+ * Test case for the {@link BufferPool} class.
+ * 
+ * @author Jerome Louvel
+ */
+public class BufferPoolTestCase extends RestletTestCase {
+
+    public void testLeaseRelease() {
+        BufferPool pool = new BufferPool(false, 1024 * 1024);
+        ByteBuffer first = pool.lease(3000);
+        assertEquals(4096, first.capacity());
+        assertEquals(1, pool.getLeasedCount());
+        assertEquals(4096, pool.getLeasedBytes());
+
+        pool.release(first);
+        assertEquals(0, pool.getLeasedCount());
+
+        ByteBuffer second = pool.lease(4096);
+        assertSame(first, second);
+        assertEquals(1, pool.getAllocatedCount());
+        assertEquals(1, pool.getReusedCount());
+    }
+
+    public void testBufferRelease() throws IOException {
+        BufferPool pool = new BufferPool(false, 1024 * 1024);
+        Buffer buffer = new Buffer(8192, pool);
+        assertFalse(buffer.isLeased());
+        assertTrue(buffer.isEmpty());
+        assertEquals(8192, buffer.capacity());
+
+        buffer.fill("abc");
+        assertTrue(buffer.isLeased());
+        assertFalse(buffer.release());
+        assertEquals(1, pool.getLeasedCount());
+
+        buffer.flip();
+        StringBuilder sb = new StringBuilder();
+
+        while (buffer.hasRemaining()) {
+            sb.append((char) buffer.drain());
+        }
+
+        assertEquals("abc", sb.toString());
+        assertTrue(buffer.release());
+        assertFalse(buffer.isLeased());
+        assertEquals(0, pool.getLeasedCount());
+    }
+
+}
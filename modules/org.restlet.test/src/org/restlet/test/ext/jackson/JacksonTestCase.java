@@ -36,8 +36,11 @@ package org.restlet.test.ext.jackson;
 import java.util.Date;
 
 import org.restlet.data.MediaType;
+import org.restlet.ext.jackson.JacksonConverter;
 import org.restlet.ext.jackson.JacksonRepresentation;
+import org.restlet.representation.Representation;
 import org.restlet.representation.StringRepresentation;
+import org.restlet.representation.Variant;
 import org.restlet.test.RestletTestCase;
 
 /**
@@ -78,6 +81,44 @@ public class JacksonTestCase extends RestletTestCase {
         return invoice;
     }
 
+    @SuppressWarnings("unchecked")
+    public void testConverter() throws Exception {
+        JacksonConverter converter = new JacksonConverter();
+        Customer customer = createCustomer();
+        MediaType jsonUtf8 = MediaType.valueOf("application/json;charset=UTF-8");
+        assertSame(converter.getObjectMapper(MediaType.APPLICATION_JSON),
+                converter.getObjectMapper(jsonUtf8));
+        assertNotSame(converter.getObjectMapper(MediaType.APPLICATION_JSON),
+                converter.getObjectMapper(MediaType.APPLICATION_XML));
+        assertSame(converter.getObjectWriter(MediaType.APPLICATION_JSON,
+                Customer.class), converter.getObjectWriter(
+                MediaType.APPLICATION_JSON, Customer.class));
+
+        Representation rep = converter.toRepresentation(customer, new Variant(
+                MediaType.APPLICATION_JSON), null);
+        assertSame(converter.getObjectWriter(MediaType.APPLICATION_JSON,
+                Customer.class),
+                ((JacksonRepresentation<Customer>) rep).getObjectWriter());
+        String text = rep.getText();
+
+        Customer customer2 = converter.toObject(new StringRepresentation(text,
+                MediaType.APPLICATION_JSON), Customer.class, null);
+        verify(customer, customer2);
+
+        // The shared reader and writer give the same results twice
+        assertEquals(text, converter.toRepresentation(customer,
+                new Variant(MediaType.APPLICATION_JSON), null).getText());
+        verify(customer, converter.toObject(new StringRepresentation(text,
+                MediaType.APPLICATION_JSON), Customer.class, null));
+
+        Invoice invoice = createInvoice();
+        rep = converter.toRepresentation(invoice, new Variant(
+                MediaType.TEXT_CSV), null);
+        assertEquals("1356533333882,12456,false\n", rep.getText());
+        verify(invoice, converter.toObject(new StringRepresentation(
+                rep.getText(), MediaType.TEXT_CSV), Invoice.class, null));
+    }
+
     public void testCsv() throws Exception {
         Invoice invoice = createInvoice();
         JacksonRepresentation<Invoice> rep = new JacksonRepresentation<Invoice>(
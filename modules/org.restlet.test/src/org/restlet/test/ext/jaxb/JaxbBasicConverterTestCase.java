@@ -34,12 +34,14 @@
 package org.restlet.test.ext.jaxb;
 
 import java.io.IOException;
+import java.util.Iterator;
 
 import javax.xml.bind.JAXBException;
 
 import org.restlet.data.MediaType;
 import org.restlet.ext.jaxb.JaxbRepresentation;
 import org.restlet.representation.Representation;
+import org.restlet.representation.StringRepresentation;
 import org.restlet.representation.Variant;
 import org.restlet.service.ConverterService;
 import org.restlet.test.RestletTestCase;
@@ -51,6 +53,32 @@ import org.restlet.test.RestletTestCase;
  */
 public class JaxbBasicConverterTestCase extends RestletTestCase {
 
+    public void testElements() throws IOException {
+        Representation xml = new StringRepresentation(
+                "<samples><sample><value>a</value></sample>"
+                        + "<sample><value>b</value></sample></samples>",
+                MediaType.APPLICATION_XML);
+        JaxbRepresentation<Sample> rep = new JaxbRepresentation<Sample>(xml,
+                Sample.class);
+        Iterator<Sample> elements = rep.getElements(Sample.class);
+        assertTrue(elements.hasNext());
+        assertEquals("a", elements.next().getVal());
+        assertTrue(elements.hasNext());
+        assertEquals("b", elements.next().getVal());
+        assertFalse(elements.hasNext());
+    }
+
+    public void testMarshalling() throws IOException {
+        for (int i = 0; i < 3; i++) {
+            JaxbRepresentation<Sample> rep = new JaxbRepresentation<Sample>(
+                    MediaType.APPLICATION_XML, new Sample("value" + i));
+            JaxbRepresentation<Sample> result = new JaxbRepresentation<Sample>(
+                    new StringRepresentation(rep.getText(),
+                            MediaType.APPLICATION_XML), Sample.class);
+            assertEquals("value" + i, result.getObject().getVal());
+        }
+    }
+
     public void testObjectionToRepresentation() {
         ConverterService cs = new ConverterService();
         Representation rep = cs.toRepresentation(new Sample(), new Variant(
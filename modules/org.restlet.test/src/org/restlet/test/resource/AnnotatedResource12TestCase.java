@@ -81,4 +81,23 @@ public class AnnotatedResource12TestCase extends RestletTestCase {
         assertEquals("value2", myForm.getFirstValue("param2"));
     }
 
+    public void testRepeatedCalls() {
+        Form myForm = new Form();
+        myForm.add("param1", "value1");
+
+        for (int i = 0; i < 3; i++) {
+            myForm.set("param2", "value" + i);
+            myResource.store(myForm);
+            assertEquals("value" + i, myResource.represent().getFirstValue(
+                    "param2"));
+        }
+
+        // Another proxy of the same interface reuses the invocation plans
+        ClientResource otherResource = new ClientResource("http://local");
+        otherResource.setNext(clientResource.getNext());
+        MyResource12 otherProxy = otherResource.wrap(MyResource12.class);
+        assertTrue(otherProxy.toString().startsWith("ClientProxy"));
+        assertNotNull(otherProxy.represent());
+    }
+
 }
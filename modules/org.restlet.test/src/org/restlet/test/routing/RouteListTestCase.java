@@ -35,7 +35,13 @@ package org.restlet.test.routing;
 
 import org.restlet.Request;
 import org.restlet.Response;
+import org.restlet.Restlet;
+import org.restlet.data.Method;
 import org.restlet.routing.Route;
+import org.restlet.routing.Router;
+import org.restlet.routing.Template;
+import org.restlet.routing.TemplateRoute;
+import org.restlet.routing.Variable;
 import org.restlet.test.RestletTestCase;
 import org.restlet.util.RouteList;
 
@@ -119,4 +125,76 @@ public class RouteListTestCase extends RestletTestCase {
         assertNull(list.getRandom(null, null, 9f));
     }
 
+    public void testGetTrieMatch() {
+        Router router = new Router();
+        RouteList list = router.getRoutes();
+        Restlet target = new Restlet() {
+        };
+
+        assertNull(list.getTrieMatch(null, null, 1f));
+
+        router.attach("/users", target);
+        router.attach("/users/{id}", target);
+        router.attach("/users/{id}/orders/{order}", target);
+        router.attach("/users/{id}.{ext}", target);
+        router.attach("/users/me", target);
+        router.attach("/files/{path}", target).getTemplate().getVariables()
+                .put("path", new Variable(Variable.TYPE_URI_PATH));
+        router.attach("/static", target).setMatchingMode(
+                Template.MODE_STARTS_WITH);
+        router.attach("/api/", target).setMatchingMode(
+                Template.MODE_STARTS_WITH);
+        router.attach("/items/{id}", target).getTemplate().getVariables()
+                .put("id", new Variable(Variable.TYPE_DIGIT));
+        router.attach("/{any}/details", target);
+        router.attach("relative/{id}", target);
+        list.add(new MockScoringRoute(0));
+        router.attachDefault(target);
+
+        String[] paths = { "/users", "/users/", "/users/42", "/users/me",
+                "/users/42.json", "/users/42/orders/7", "/users/42/orders",
+                "/files/a/b/c", "/static", "/statics/x", "/static/css/a.css",
+                "/api", "/api/v1", "/items/12", "/items/ab", "/x/details",
+                "/x/y/details", "relative/3", "", "/", "/unknown/path" };
+
+        int matches = 0;
+
+        for (String path : paths) {
+            Request request = null;
+
+            if (path.startsWith("/") || (path.length() == 0)) {
+                request = new Request(Method.GET, "http://localhost" + path);
+                request.getResourceRef().setBaseRef("http://localhost");
+            } else {
+                request = new Request(Method.GET, "http://localhost/base/"
+                        + path);
+                request.getResourceRef().setBaseRef("http://localhost/base/");
+            }
+
+            Route expected = list.getFirst(request, new Response(request),
+                    0.5f);
+            assertSame("Route for " + path, expected, list.getTrieMatch(
+                    request, new Response(request), 0.5f));
+
+            if (expected != null) {
+                matches++;
+            }
+
+            // Structural changes rebuild the trie
+            if (path.equals("/users/42")) {
+                list.remove(1);
+            }
+        }
+
+        assertEquals(13, matches);
+
+        // Routes added after the first lookup are taken into account
+        TemplateRoute route = router.attach("/late/{id}", target);
+        list.add(0, list.remove(list.size() - 1));
+        Request request = new Request(Method.GET, "http://localhost/late/1");
+        request.getResourceRef().setBaseRef("http://localhost");
+        assertSame(route, list.getTrieMatch(request, new Response(request),
+                0.5f));
+    }
+
 }
@@ -37,8 +37,10 @@ import java.util.ArrayList;
 import java.util.List;
 
 import org.restlet.Request;
+import org.restlet.data.Language;
 import org.restlet.data.MediaType;
 import org.restlet.data.Preference;
+import org.restlet.engine.application.ConnegCache;
 import org.restlet.representation.Variant;
 import org.restlet.service.ConnegService;
 import org.restlet.service.MetadataService;
@@ -51,6 +53,92 @@ import org.restlet.test.RestletTestCase;
  */
 public class ConnegServiceTestCase extends RestletTestCase {
 
+    public void testCache() {
+        ConnegCache cache = new ConnegCache();
+        ConnegService connegService = new ConnegService();
+        connegService.setCache(cache);
+        connegService.setStrict(true);
+        MetadataService metadataService = new MetadataService();
+
+        List<Variant> variants = new ArrayList<Variant>();
+        variants.add(new Variant(MediaType.APPLICATION_XML));
+        variants.add(new Variant(MediaType.APPLICATION_JSON));
+
+        Request request = new Request();
+        request.getClientInfo().getAcceptedMediaTypes()
+                .add(new Preference<MediaType>(MediaType.APPLICATION_JSON));
+        assertSame(variants.get(1), connegService.getPreferredVariant(
+                variants, request, metadataService));
+        assertEquals(1, cache.getCount());
+
+        // Equivalent variants and preferences reuse the decision
+        List<Variant> variants2 = new ArrayList<Variant>();
+        variants2.add(new Variant(MediaType.APPLICATION_XML));
+        variants2.add(new Variant(MediaType.APPLICATION_JSON));
+        Request request2 = new Request();
+        request2.getClientInfo().getAcceptedMediaTypes()
+                .add(new Preference<MediaType>(MediaType.APPLICATION_JSON));
+        assertSame(variants2.get(1), connegService.getPreferredVariant(
+                variants2, request2, metadataService));
+        assertEquals(1, cache.getCount());
+
+        // Different preferences lead to a new decision
+        Request request3 = new Request();
+        request3.getClientInfo().getAcceptedMediaTypes()
+                .add(new Preference<MediaType>(MediaType.TEXT_HTML));
+        assertNull(connegService.getPreferredVariant(variants, request3,
+                metadataService));
+        assertNull(connegService.getPreferredVariant(variants, request3,
+                metadataService));
+        assertEquals(2, cache.getCount());
+
+        // Different variants lead to a new decision
+        variants2.get(1).getLanguages().add(Language.FRENCH);
+        request2.getClientInfo().getAcceptedLanguages()
+                .add(new Preference<Language>(Language.ENGLISH));
+        assertNull(connegService.getPreferredVariant(variants2, request2,
+                metadataService));
+        assertEquals(3, cache.getCount());
+
+        cache.clear();
+        assertEquals(0, cache.getCount());
+    }
+
+    public void testCacheMetadataService() {
+        ConnegCache cache = new ConnegCache();
+        ConnegService connegService = new ConnegService();
+        connegService.setCache(cache);
+        connegService.setStrict(false);
+
+        List<Variant> variants = new ArrayList<Variant>();
+        variants.add(new Variant(MediaType.APPLICATION_XML));
+        variants.add(new Variant(MediaType.APPLICATION_JSON));
+        Request request = new Request();
+
+        // The default media type drives the flexible decision
+        MetadataService xmlService = new MetadataService();
+        xmlService.setDefaultMediaType(MediaType.APPLICATION_XML);
+        MetadataService jsonService = new MetadataService();
+        jsonService.setDefaultMediaType(MediaType.APPLICATION_JSON);
+        assertSame(variants.get(0), connegService.getPreferredVariant(
+                variants, request, xmlService));
+        assertSame(variants.get(1), connegService.getPreferredVariant(
+                variants, request, jsonService));
+        assertEquals(2, cache.getCount());
+
+        // Equivalent metadata services reuse the decision
+        MetadataService jsonService2 = new MetadataService();
+        jsonService2.setDefaultMediaType(MediaType.APPLICATION_JSON);
+        assertSame(variants.get(1), connegService.getPreferredVariant(
+                variants, request, jsonService2));
+        assertEquals(2, cache.getCount());
+
+        // The strict algorithm ignores the default metadata
+        assertEquals(
+                cache.getKey(variants, request, true, xmlService),
+                cache.getKey(variants, request, true, jsonService));
+    }
+
     public void testStrict() {
         List<Variant> variants = new ArrayList<Variant>();
         Variant variant = new Variant(MediaType.APPLICATION_XML);
@@ -0,0 +1,169 @@
+/**
+ * Copyright 2005-2012 Restlet S.A.S.
+ * 
+ * The contents of this file are subject to the terms of one of the following
+ * open source licenses: Apache 2.0 or LGPL 3.0 or LGPL 2.1 or CDDL 1.0 or EPL
+ * 1.0 (the "Licenses"). You can select the license that you prefer but you may
+ * not use this file except in compliance with one of these Licenses.
+ * 
+ * You can obtain a copy of the Apache 2.0 license at
+ * http://www.opensource.org/licenses/apache-2.0
+ * 
+ * You can obtain a copy of the LGPL 3.0 license at
+ * http://www.opensource.org/licenses/lgpl-3.0
+ * 
+ * You can obtain a copy of the LGPL 2.1 license at
+ * http://www.opensource.org/licenses/lgpl-2.1
+ * 
+ * You can obtain a copy of the CDDL 1.0 license at
+ * http://www.opensource.org/licenses/cddl1
+ * 
+ * You can obtain a copy of the EPL 1.0 license at
+ * http://www.opensource.org/licenses/eclipse-1.0
+ * 
+ * See the Licenses for the specific language governing permissions and
+ * limitations under the Licenses.
+ * 
+ * Alternatively, you can obtain a royalty free commercial license with less
+ * limitations, transferable or non-transferable, directly at
+ * http://www.restlet.com/products/restlet-framework
+ * 
+ * Restlet is a registered trademark of Restlet S.A.S.
+ */
+
+package org.restlet.test.util;
+
+import org.restlet.data.Form;
+import org.restlet.data.Parameter;
+import org.restlet.test.RestletTestCase;
+import org.restlet.util.Series;
+
+/**
+ * Unit tests for the {@link Series} class.
+ * 
+ * @author Jerome Louvel
+ */
+public class SeriesTestCase extends RestletTestCase {
+
+    /**
+     * Creates a series large enough to have its lookups indexed.
+     * 
+     * @return A new series.
+     */
+    private Series<Parameter> createSeries() {
+        Series<Parameter> result = new Form();
+
+        for (int i = 0; i < 20; i++) {
+            result.add("param" + i, "value" + i);
+        }
+
+        result.add("Accept", "text/html");
+        result.add("accept", "text/plain");
+        result.add("ACCEPT", "application/json");
+        return result;
+    }
+
+    public void testLookups() {
+        Series<Parameter> series = createSeries();
+
+        assertEquals("value3", series.getFirstValue("param3"));
+        assertNull(series.getFirstValue("PARAM3"));
+        assertEquals("value3", series.getFirstValue("PARAM3", true));
+        assertNull(series.getFirstValue("unknown"));
+        assertEquals("text/plain", series.getFirstValue("accept"));
+        assertEquals("text/html,text/plain,application/json",
+                series.getValues("Accept"));
+        assertEquals("text/html", series.getValues("Accept", ",", false));
+        assertEquals(3, series.getValuesArray("accept", true).length);
+        assertEquals("application/json", series.subList("ACCEPT").get(0)
+                .getValue());
+        assertNull(series.getFirstValue("paräm", true));
+    }
+
+    public void testRename() {
+        Series<Parameter> series = createSeries();
+        assertEquals("value3", series.getFirstValue("param3"));
+        assertNull(series.getFirstValue("fresh"));
+
+        // Entries renamed in place are no longer found under their former
+        // name, and are found under their new one once the series changes
+        series.getFirst("param5").setName("param3");
+        series.getFirst("param6").setName("fresh");
+        assertNull(series.getFirstValue("param5"));
+        assertEquals("value3", series.getValues("param3"));
+        series.add("param20", "value20");
+        assertEquals("value3,value5", series.getValues("param3"));
+        assertEquals("value6", series.getFirstValue("fresh"));
+
+        // Name based mutations act on the renamed entries
+        assertEquals("new", series.set("param3", "new").getValue());
+        assertEquals("new", series.getValues("param3"));
+        assertTrue(series.removeAll("fresh"));
+        assertNull(series.getFirstValue("fresh"));
+
+        // Moves that keep the size and the names are detected too
+        Parameter first = series.get(0);
+        java.util.ListIterator<Parameter> iter = series.listIterator();
+        iter.next();
+        iter.set(series.get(1));
+        iter.next();
+        iter.set(first);
+        assertEquals(1, series.indexOf(series.getFirst("param0")));
+    }
+
+    public void testModifications() {
+        Series<Parameter> series = createSeries();
+        assertEquals("value0", series.getFirstValue("param0"));
+
+        // Mutations through the series methods
+        series.remove(0);
+        assertNull(series.getFirstValue("param0"));
+        assertEquals("value1", series.getFirstValue("param1"));
+        series.add(0, new Parameter("param0", "new0"));
+        assertEquals("new0", series.getFirstValue("param0"));
+        series.set(1, new Parameter("param0", "new1"));
+        assertEquals("new0,new1", series.getValues("param0"));
+
+        // Name based mutations
+        assertTrue(series.removeFirst("param0"));
+        assertEquals("new1", series.getFirstValue("param0"));
+        assertTrue(series.removeAll("accept", true));
+        assertFalse(series.removeAll("accept", true));
+        assertNull(series.getValues("accept"));
+        series.add("X-Test", "a");
+        series.add("x-test", "b");
+        assertEquals("c", series.set("X-Test", "c", true).getValue());
+        assertEquals("c", series.getValues("x-test"));
+        assertEquals(1, series.subList("X-Test", true).size());
+        assertNull(series.set("X-Other", "d"));
+        assertEquals("d", series.getFirstValue("X-Other"));
+
+        // Iterator and sub-list changes are detected
+        series.getFirst("param2").setName("renamed");
+        assertNull(series.getFirstValue("param2"));
+        series.iterator().next();
+        java.util.Iterator<Parameter> iter = series.iterator();
+        iter.next();
+        iter.remove();
+        assertNull(series.getFirstValue("param0"));
+        assertEquals("value3", series.getFirstValue("param3"));
+        assertEquals("value2", series.getFirstValue("renamed"));
+        series.subList(0, 5).clear();
+        assertNull(series.getFirstValue("param3"));
+        assertEquals("value8", series.getFirstValue("param8"));
+
+        // Unmodifiable views follow their series
+        @SuppressWarnings("unchecked")
+        Series<Parameter> view = (Series<Parameter>) Series
+                .unmodifiableSeries(series);
+        assertEquals("value8", view.getFirstValue("param8"));
+        series.removeFirst("param8");
+        assertNull(view.getFirstValue("param8"));
+
+        // Small series aren't indexed
+        series.clear();
+        series.add("a", "b");
+        assertEquals("b", series.getFirstValue("a"));
+    }
+
+}
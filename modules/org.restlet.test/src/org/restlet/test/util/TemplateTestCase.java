@@ -90,6 +90,37 @@ public class TemplateTestCase extends RestletTestCase {
         assertEquals("123/456", variables3.get("v1"));
     }
 
+    public void testSegmentMatching() {
+        Template template = new Template("/users/{id}/orders/{order}",
+                Template.MODE_EQUALS, Variable.TYPE_URI_SEGMENT, "", true,
+                false);
+        Map<String, Object> variables = new HashMap<String, Object>();
+        assertEquals(22, template.parse("/users/j%20d/orders/42", variables));
+        assertEquals("j%20d", variables.get("id"));
+        assertEquals("42", variables.get("order"));
+
+        assertEquals(-1, template.match("/users//orders/42"));
+        assertEquals(-1, template.match("/users/jd/orders/42/items"));
+        assertEquals(-1, template.match("/users/j%2/orders/42"));
+        assertEquals(-1, template.match("/users/jd/orders/42?x=1"));
+
+        template.setMatchingMode(Template.MODE_STARTS_WITH);
+        assertEquals(19, template.match("/users/jd/orders/42/items"));
+        assertEquals(19, template.match("/users/jd/orders/42?x=1"));
+
+        template = new Template("/users/{id}", Template.MODE_EQUALS,
+                Variable.TYPE_URI_SEGMENT, "", false, false);
+        template.getVariables().put(
+                "id",
+                new Variable(Variable.TYPE_URI_SEGMENT, "", false, false,
+                        true, false));
+        variables.clear();
+        assertEquals(7, template.parse("/users/", variables));
+        assertEquals("", variables.get("id"));
+        assertEquals(12, template.parse("/users/j%20d", variables));
+        assertEquals("j d", variables.get("id"));
+    }
+
     public void testVariableNames() throws Exception {
         Template tpl = new Template(
                 "http://{userId}.restlet.com/invoices/{invoiceId}");
@@ -33,12 +33,19 @@
 
 package org.restlet.data;
 
+import org.restlet.engine.util.InternCache;
+
 /**
  * Metadata used to specify the character set of textual representations.
  * 
  * @author Jerome Louvel
  */
 public final class CharacterSet extends Metadata {
+
+    // [ifndef gwt] member
+    /** Cache of the character sets parsed from non constant names. */
+    private static final InternCache<CharacterSet> PARSED_CHARACTER_SETS = new InternCache<CharacterSet>();
+
     /** All character sets acceptable. */
     public static final CharacterSet ALL = new CharacterSet("*",
             "All character sets");
@@ -251,7 +258,16 @@ public final class CharacterSet extends Metadata {
             } else if (name.equalsIgnoreCase(MACINTOSH.getName())) {
                 result = MACINTOSH;
             } else {
-                result = new CharacterSet(name);
+                // [ifndef gwt]
+                result = PARSED_CHARACTER_SETS.get(name);
+
+                if (result == null) {
+                    result = PARSED_CHARACTER_SETS.put(name,
+                            new CharacterSet(name));
+                }
+                // [enddef]
+                // [ifdef gwt] instruction uncomment
+                // result = new CharacterSet(name);
             }
         }
 
@@ -33,6 +33,8 @@
 
 package org.restlet.data;
 
+import org.restlet.engine.util.InternCache;
+
 /**
  * Modifier of a representation's media type. Useful to apply compression
  * without losing the identity of the underlying media type.
@@ -40,6 +42,11 @@ package org.restlet.data;
  * @author Jerome Louvel
  */
 public final class Encoding extends Metadata {
+
+    // [ifndef gwt] member
+    /** Cache of the encodings parsed from non constant names. */
+    private static final InternCache<Encoding> PARSED_ENCODINGS = new InternCache<Encoding>();
+
     /** All encodings acceptable. */
     public static final Encoding ALL = new Encoding("*", "All encodings");
 
@@ -98,7 +105,15 @@ public final class Encoding extends Metadata {
             } else if (name.equalsIgnoreCase(VELOCITY.getName())) {
                 result = VELOCITY;
             } else {
-                result = new Encoding(name);
+                // [ifndef gwt]
+                result = PARSED_ENCODINGS.get(name);
+
+                if (result == null) {
+                    result = PARSED_ENCODINGS.put(name, new Encoding(name));
+                }
+                // [enddef]
+                // [ifdef gwt] instruction uncomment
+                // result = new Encoding(name);
             }
         }
 
@@ -37,6 +37,8 @@ import java.util.Collections;
 import java.util.List;
 import java.util.concurrent.CopyOnWriteArrayList;
 
+import org.restlet.engine.util.InternCache;
+
 /**
  * Language used in representations and preferences. A language tag is composed
  * of one or more parts: A primary language tag and a possibly empty series of
@@ -45,6 +47,11 @@ import java.util.concurrent.CopyOnWriteArrayList;
  * @author Jerome Louvel
  */
 public final class Language extends Metadata {
+
+    // [ifndef gwt] member
+    /** Cache of the languages parsed from non constant names. */
+    private static final InternCache<Language> PARSED_LANGUAGES = new InternCache<Language>();
+
     /** All languages acceptable. */
     public static final Language ALL = new Language("*", "All languages");
 
@@ -105,7 +112,15 @@ public final class Language extends Metadata {
             } else if (name.equalsIgnoreCase(SPANISH.getName())) {
                 result = SPANISH;
             } else {
-                result = new Language(name);
+                // [ifndef gwt]
+                result = PARSED_LANGUAGES.get(name);
+
+                if (result == null) {
+                    result = PARSED_LANGUAGES.put(name, new Language(name));
+                }
+                // [enddef]
+                // [ifdef gwt] instruction uncomment
+                // result = new Language(name);
             }
         }
 
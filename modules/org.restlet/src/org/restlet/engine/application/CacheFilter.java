@@ -0,0 +1,481 @@
+/**
+ * Copyright 2005-2012 Restlet S.A.S.
+ * 
+ * The contents of this file are subject to the terms of one of the following
+ * open source licenses: Apache 2.0 or LGPL 3.0 or LGPL 2.1 or CDDL 1.0 or EPL
+ * 1.0 (the "Licenses"). You can select the license that you prefer but you may
+ * not use this file except in compliance with one of these Licenses.
+ * 
+ * You can obtain a copy of the Apache 2.0 license at
+ * http://www.opensource.org/licenses/apache-2.0
+ * 
+ * You can obtain a copy of the LGPL 3.0 license at
+ * http://www.opensource.org/licenses/lgpl-3.0
+ * 
+ * You can obtain a copy of the LGPL 2.1 license at
+ * http://www.opensource.org/licenses/lgpl-2.1
+ * 
+ * You can obtain a copy of the CDDL 1.0 license at
+ * http://www.opensource.org/licenses/cddl1
+ * 
+ * You can obtain a copy of the EPL 1.0 license at
+ * http://www.opensource.org/licenses/eclipse-1.0
+ * 
+ * See the Licenses for the specific language governing permissions and
+ * limitations under the Licenses.
+ * 
+ * Alternatively, you can obtain a royalty free commercial license with less
+ * limitations, transferable or non-transferable, directly at
+ * http://www.restlet.com/products/restlet-framework
+ * 
+ * Restlet is a registered trademark of Restlet S.A.S.
+ */
+
+package org.restlet.engine.application;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.logging.Level;
+
+import org.restlet.Application;
+import org.restlet.Context;
+import org.restlet.Request;
+import org.restlet.Response;
+import org.restlet.Restlet;
+import org.restlet.data.CacheDirective;
+import org.restlet.data.ChallengeResponse;
+import org.restlet.data.Conditions;
+import org.restlet.data.Dimension;
+import org.restlet.data.Method;
+import org.restlet.data.Status;
+import org.restlet.data.Tag;
+import org.restlet.engine.header.HeaderConstants;
+import org.restlet.representation.Representation;
+import org.restlet.routing.Filter;
+
+// [excludes gwt]
+/**
+ * Filter caching responses in memory. Cacheable responses to GET requests are
+ * kept in a {@link CacheStore} and served again without invoking the next
+ * Restlet as long as they are fresh, based on the "Cache-Control" directives
+ * and the expiration date. Stale responses are revalidated using the
+ * "If-None-Match" and "If-Modified-Since" conditions. When the response
+ * allowed it with the "stale-while-revalidate" directive, a stale response is
+ * served immediately while its revalidation happens in the background, using
+ * the application's task service.<br>
+ * <br>
+ * This filter can be added to the inbound chain of an application or set as
+ * the next Restlet of a client resource.<br>
+ * <br>
+ * Concurrency note: instances of this class or its subclasses can be invoked by
+ * several threads at the same time and therefore must be thread-safe. You
+ * should be especially careful when storing state in member variables.
+ * 
+ * @author Jerome Louvel
+ */
+public class CacheFilter extends Filter {
+
+    /**
+     * Returns the value in seconds of a cache directive.
+     * 
+     * @param directive
+     *            The cache directive.
+     * @param defaultValue
+     *            The value returned if the directive has no valid value.
+     * @return The value in seconds.
+     */
+    static long getSeconds(CacheDirective directive, long defaultValue) {
+        long result = defaultValue;
+
+        if (directive.getValue() != null) {
+            try {
+                result = Long.parseLong(directive.getValue().trim());
+            } catch (NumberFormatException nfe) {
+                // Keep the default value
+            }
+        }
+
+        return result;
+    }
+
+    /** The maximum size of a cached entity. */
+    private volatile long maxEntrySize;
+
+    /** Indicates if the cache is shared by several users. */
+    private final boolean shared;
+
+    /** The cache store. */
+    private final CacheStore store;
+
+    /**
+     * Constructor.
+     * 
+     * @param context
+     *            The context.
+     * @param store
+     *            The cache store.
+     * @param shared
+     *            True if the cache is shared by several users, as when
+     *            attached to an application, false if it is private to a
+     *            single user, as when attached to a client resource.
+     */
+    public CacheFilter(Context context, CacheStore store, boolean shared) {
+        super(context);
+        this.maxEntrySize = store.getMaxSize() / 10;
+        this.shared = shared;
+        this.store = store;
+    }
+
+    /**
+     * Indicates if a response can be stored.
+     * 
+     * @param request
+     *            The request.
+     * @param response
+     *            The response.
+     * @return True if the response can be stored.
+     */
+    protected boolean canStore(Request request, Response response) {
+        boolean result = Status.SUCCESS_OK.equals(response.getStatus())
+                && response.isEntityAvailable()
+                && (response.getEntity().getSize() != Representation.UNKNOWN_SIZE)
+                && (response.getEntity().getSize() <= getMaxEntrySize());
+        boolean isPublic = false;
+
+        for (CacheDirective directive : request.getCacheDirectives()) {
+            if (HeaderConstants.CACHE_NO_STORE.equals(directive.getName())) {
+                result = false;
+            }
+        }
+
+        for (CacheDirective directive : response.getCacheDirectives()) {
+            String name = directive.getName();
+
+            if (HeaderConstants.CACHE_NO_STORE.equals(name)) {
+                result = false;
+            } else if (isShared()
+                    && HeaderConstants.CACHE_PRIVATE.equals(name)) {
+                result = false;
+            } else if (HeaderConstants.CACHE_PUBLIC.equals(name)) {
+                isPublic = true;
+            }
+        }
+
+        if (result && isShared()) {
+            ChallengeResponse challengeResponse = request
+                    .getChallengeResponse();
+            result = (challengeResponse == null) || isPublic;
+        }
+
+        if (result) {
+            for (Dimension dimension : response.getDimensions()) {
+                if ((dimension == Dimension.AUTHORIZATION)
+                        || (dimension == Dimension.TIME)
+                        || (dimension == Dimension.UNSPECIFIED)) {
+                    result = false;
+                }
+            }
+        }
+
+        return result;
+    }
+
+    @Override
+    protected int doHandle(Request request, Response response) {
+        if (!Method.GET.equals(request.getMethod())
+                && !Method.HEAD.equals(request.getMethod())) {
+            if (!request.getMethod().isSafe()) {
+                getStore().remove(getPrimaryKey(request));
+            }
+
+            return super.doHandle(request, response);
+        } else if (!request.getRanges().isEmpty()) {
+            return super.doHandle(request, response);
+        }
+
+        String key = getPrimaryKey(request);
+        long now = System.currentTimeMillis();
+        long maxAge = -1;
+        boolean onlyIfCached = false;
+
+        for (CacheDirective directive : request.getCacheDirectives()) {
+            String name = directive.getName();
+
+            if (HeaderConstants.CACHE_NO_STORE.equals(name)) {
+                return super.doHandle(request, response);
+            } else if (HeaderConstants.CACHE_NO_CACHE.equals(name)) {
+                maxAge = 0;
+            } else if (HeaderConstants.CACHE_MAX_AGE.equals(name)) {
+                long value = getSeconds(directive, -1);
+
+                if ((value >= 0) && ((maxAge == -1) || (value * 1000L < maxAge))) {
+                    maxAge = value * 1000L;
+                }
+            } else if (HeaderConstants.CACHE_ONLY_IF_CACHED.equals(name)) {
+                onlyIfCached = true;
+            }
+        }
+
+        CacheStore.Entry entry = getStore().get(key, request);
+
+        if (entry == null) {
+            if (onlyIfCached) {
+                response.setStatus(Status.SERVER_ERROR_GATEWAY_TIMEOUT);
+                return CONTINUE;
+            }
+
+            super.doHandle(request, response);
+            store(key, request, response);
+        } else if (entry.isFresh(now, maxAge) || onlyIfCached) {
+            serve(request, response, entry);
+        } else if ((maxAge == -1) && entry.isStaleServable(now)
+                && entry.startRevalidation()) {
+            serve(request, response, entry);
+            revalidateLater(key, new Request(request), entry);
+        } else {
+            revalidate(key, request, response, entry);
+        }
+
+        return CONTINUE;
+    }
+
+    /**
+     * Returns the maximum size of a cached entity.
+     * 
+     * @return The maximum size of a cached entity (in bytes).
+     */
+    public long getMaxEntrySize() {
+        return maxEntrySize;
+    }
+
+    /**
+     * Returns the primary key of the entries matching a request. By default,
+     * it is based on the target URI, HEAD requests sharing the entries of
+     * GET requests.
+     * 
+     * @param request
+     *            The request.
+     * @return The primary key.
+     */
+    protected String getPrimaryKey(Request request) {
+        return Method.GET.getName() + " "
+                + request.getResourceRef().getTargetRef();
+    }
+
+    /**
+     * Returns the cache store.
+     * 
+     * @return The cache store.
+     */
+    public CacheStore getStore() {
+        return store;
+    }
+
+    /**
+     * Indicates if the cache is shared by several users.
+     * 
+     * @return True if the cache is shared by several users.
+     */
+    public boolean isShared() {
+        return shared;
+    }
+
+    /**
+     * Revalidates an entry by invoking the next Restlet with conditions
+     * built from the entry validators, then updates the response.
+     * 
+     * @param key
+     *            The primary key.
+     * @param request
+     *            The request to handle.
+     * @param response
+     *            The response to update.
+     * @param entry
+     *            The entry to revalidate.
+     */
+    protected void revalidate(String key, Request request, Response response,
+            CacheStore.Entry entry) {
+        Representation info = entry.getEntityInfo();
+        Conditions conditions = request.getConditions();
+
+        if ((info.getTag() == null) && (info.getModificationDate() == null)) {
+            super.doHandle(request, response);
+            store(key, request, response);
+        } else {
+            Conditions validators = new Conditions();
+            List<Tag> tags = new ArrayList<Tag>();
+
+            if (info.getTag() != null) {
+                tags.add(info.getTag());
+                validators.setNoneMatch(tags);
+            }
+
+            validators.setModifiedSince(info.getModificationDate());
+            request.setConditions(validators);
+
+            try {
+                super.doHandle(request, response);
+            } finally {
+                request.setConditions(conditions);
+            }
+
+            if (Status.REDIRECTION_NOT_MODIFIED.equals(response.getStatus())) {
+                entry.refresh(response, isShared());
+                serve(request, response, entry);
+            } else {
+                store(key, request, response);
+            }
+        }
+    }
+
+    /**
+     * Revalidates an entry in the background, using the task service of the
+     * current application when available, or synchronously otherwise.
+     * 
+     * @param key
+     *            The primary key.
+     * @param request
+     *            A copy of the request.
+     * @param entry
+     *            The entry to revalidate.
+     */
+    protected void revalidateLater(final String key, final Request request,
+            final CacheStore.Entry entry) {
+        final Restlet next = getNext();
+        Runnable task = new Runnable() {
+            public void run() {
+                try {
+                    Response response = new Response(request);
+                    Representation info = entry.getEntityInfo();
+                    List<Tag> tags = new ArrayList<Tag>();
+
+                    if (info.getTag() != null) {
+                        tags.add(info.getTag());
+                    }
+
+                    Conditions validators = new Conditions();
+                    validators.setNoneMatch(tags);
+                    validators.setModifiedSince(info.getModificationDate());
+                    request.setConditions(validators);
+                    next.handle(request, response);
+
+                    if (Status.REDIRECTION_NOT_MODIFIED.equals(response
+                            .getStatus())) {
+                        entry.refresh(response, isShared());
+                    } else {
+                        store(key, request, response);
+                    }
+                } catch (Throwable t) {
+                    Context.getCurrentLogger().log(Level.WARNING,
+                            "Unable to revalidate a cached response", t);
+                } finally {
+                    entry.endRevalidation();
+                }
+            }
+        };
+
+        Application application = Application.getCurrent();
+
+        if ((next != null) && (application != null)
+                && (application.getTaskService() != null)
+                && application.getTaskService().isStarted()) {
+            try {
+                application.getTaskService().execute(task);
+            } catch (Exception e) {
+                task.run();
+            }
+        } else if (next != null) {
+            task.run();
+        } else {
+            entry.endRevalidation();
+        }
+    }
+
+    /**
+     * Serves a cached entry, taking into account the conditions of the
+     * request.
+     * 
+     * @param request
+     *            The request to handle.
+     * @param response
+     *            The response to update.
+     * @param entry
+     *            The entry to serve.
+     */
+    protected void serve(Request request, Response response,
+            CacheStore.Entry entry) {
+        long now = System.currentTimeMillis();
+        Representation entity = entry.getRepresentation();
+        response.setAge((int) (entry.getAge(now) / 1000L));
+        response.setCacheDirectives(new ArrayList<CacheDirective>(entry
+                .getCacheDirectives()));
+        response.getDimensions().clear();
+        response.getDimensions().addAll(entry.getDimensions());
+        response.setEntity(entity);
+        response.setStatus(Status.SUCCESS_OK);
+        Status status = request.getConditions().getStatus(
+                request.getMethod(), entity);
+
+        if (status != null) {
+            response.setStatus(status);
+        }
+    }
+
+    /**
+     * Sets the maximum size of a cached entity.
+     * 
+     * @param maxEntrySize
+     *            The maximum size of a cached entity (in bytes).
+     */
+    public void setMaxEntrySize(long maxEntrySize) {
+        this.maxEntrySize = maxEntrySize;
+    }
+
+    /**
+     * Stores a response if it is cacheable. The response entity is buffered
+     * and replaced by a representation of the cached content.
+     * 
+     * @param key
+     *            The primary key.
+     * @param request
+     *            The request.
+     * @param response
+     *            The response to store.
+     */
+    protected void store(String key, Request request, Response response) {
+        if (canStore(request, response)) {
+            Representation entity = response.getEntity();
+            ByteArrayOutputStream baos = new ByteArrayOutputStream(
+                    (int) entity.getSize());
+
+            try {
+                entity.write(baos);
+                CacheStore.Entry entry = new CacheStore.Entry(response,
+                        baos.toByteArray(), isShared());
+
+                if ((entry.getFreshnessLifetime() > 0)
+                        || (entity.getTag() != null)
+                        || (entity.getModificationDate() != null)) {
+                    getStore().put(key, request, entry);
+                }
+
+                response.setEntity(entry.getRepresentation());
+                entity.release();
+            } catch (IOException ioe) {
+                Context.getCurrentLogger().log(Level.WARNING,
+                        "Unable to cache a response entity", ioe);
+
+                if (entity.isTransient()) {
+                    // The entity was partially consumed and can't be sent
+                    entity.release();
+                    response.setEntity(null);
+                    response.setStatus(Status.SERVER_ERROR_INTERNAL, ioe);
+                }
+            }
+        }
+    }
+
+}
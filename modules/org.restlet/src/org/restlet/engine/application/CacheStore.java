@@ -0,0 +1,551 @@
+/**
+ * Copyright 2005-2012 Restlet S.A.S.
+ * 
+ * The contents of this file are subject to the terms of one of the following
+ * open source licenses: Apache 2.0 or LGPL 3.0 or LGPL 2.1 or CDDL 1.0 or EPL
+ * 1.0 (the "Licenses"). You can select the license that you prefer but you may
+ * not use this file except in compliance with one of these Licenses.
+ * 
+ * You can obtain a copy of the Apache 2.0 license at
+ * http://www.opensource.org/licenses/apache-2.0
+ * 
+ * You can obtain a copy of the LGPL 3.0 license at
+ * http://www.opensource.org/licenses/lgpl-3.0
+ * 
+ * You can obtain a copy of the LGPL 2.1 license at
+ * http://www.opensource.org/licenses/lgpl-2.1
+ * 
+ * You can obtain a copy of the CDDL 1.0 license at
+ * http://www.opensource.org/licenses/cddl1
+ * 
+ * You can obtain a copy of the EPL 1.0 license at
+ * http://www.opensource.org/licenses/eclipse-1.0
+ * 
+ * See the Licenses for the specific language governing permissions and
+ * limitations under the Licenses.
+ * 
+ * Alternatively, you can obtain a royalty free commercial license with less
+ * limitations, transferable or non-transferable, directly at
+ * http://www.restlet.com/products/restlet-framework
+ * 
+ * Restlet is a registered trademark of Restlet S.A.S.
+ */
+
+package org.restlet.engine.application;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.restlet.Request;
+import org.restlet.Response;
+import org.restlet.data.CacheDirective;
+import org.restlet.data.Dimension;
+import org.restlet.data.Encoding;
+import org.restlet.data.Language;
+import org.restlet.engine.header.HeaderConstants;
+import org.restlet.representation.ByteArrayRepresentation;
+import org.restlet.representation.Representation;
+
+// [excludes gwt]
+/**
+ * Bounded store of cached responses used by the {@link CacheFilter}. The
+ * entries are weighted by the size of their content and the least recently
+ * used ones are evicted first. Each entry is keyed by a primary key, usually
+ * the method and the target URI, completed by the values of the request
+ * dimensions that the cached response varies upon.
+ * 
+ * @author Jerome Louvel
+ */
+public class CacheStore {
+
+    /**
+     * Cached response, holding the entity content and metadata as well as its
+     * freshness information.
+     */
+    public static class Entry {
+
+        /** The response cache directives. */
+        private volatile List<CacheDirective> cacheDirectives;
+
+        /** The entity content. */
+        private final byte[] content;
+
+        /** The response dimensions. */
+        private final Set<Dimension> dimensions;
+
+        /** The entity metadata. */
+        private final Representation entityInfo;
+
+        /** The freshness lifetime (in milliseconds). */
+        private volatile long freshnessLifetime;
+
+        /** The age of the response when it was stored (in milliseconds). */
+        private volatile long initialAge;
+
+        /** Indicates if stale content must not be served. */
+        private volatile boolean mustRevalidate;
+
+        /** The key, made of the primary key and the secondary key. */
+        private volatile String key;
+
+        /** The primary key. */
+        private volatile String primaryKey;
+
+        /** Indicates if a revalidation is in progress. */
+        private final AtomicBoolean revalidating;
+
+        /** The delay during which stale content can be served (in ms). */
+        private volatile long staleWhileRevalidate;
+
+        /** The time when the entry was stored or last revalidated. */
+        private volatile long storedTime;
+
+        /**
+         * Constructor.
+         * 
+         * @param response
+         *            The response to cache.
+         * @param content
+         *            The buffered entity content.
+         * @param shared
+         *            True if the cache is shared by several users.
+         */
+        public Entry(Response response, byte[] content, boolean shared) {
+            Representation entity = response.getEntity();
+            this.content = content;
+            this.dimensions = new HashSet<Dimension>(response.getDimensions());
+            this.entityInfo = new ByteArrayRepresentation(new byte[0]);
+            this.entityInfo.setCharacterSet(entity.getCharacterSet());
+            this.entityInfo.setDisposition(entity.getDisposition());
+            this.entityInfo.setEncodings(new ArrayList<Encoding>(entity
+                    .getEncodings()));
+            this.entityInfo.setExpirationDate(entity.getExpirationDate());
+            this.entityInfo.setLanguages(new ArrayList<Language>(entity
+                    .getLanguages()));
+            this.entityInfo.setLocationRef(entity.getLocationRef());
+            this.entityInfo.setMediaType(entity.getMediaType());
+            this.entityInfo.setModificationDate(entity.getModificationDate());
+            this.entityInfo.setTag(entity.getTag());
+            this.revalidating = new AtomicBoolean(false);
+            refresh(response, shared);
+        }
+
+        /**
+         * Ends a revalidation started by {@link #startRevalidation()}.
+         */
+        public void endRevalidation() {
+            this.revalidating.set(false);
+        }
+
+        /**
+         * Returns the current age of the entry.
+         * 
+         * @param now
+         *            The current time (in milliseconds).
+         * @return The current age (in milliseconds).
+         */
+        public long getAge(long now) {
+            return this.initialAge + (now - this.storedTime);
+        }
+
+        /**
+         * Returns the response cache directives.
+         * 
+         * @return The response cache directives.
+         */
+        public List<CacheDirective> getCacheDirectives() {
+            return cacheDirectives;
+        }
+
+        /**
+         * Returns the entity content.
+         * 
+         * @return The entity content.
+         */
+        public byte[] getContent() {
+            return content;
+        }
+
+        /**
+         * Returns the response dimensions.
+         * 
+         * @return The response dimensions.
+         */
+        public Set<Dimension> getDimensions() {
+            return dimensions;
+        }
+
+        /**
+         * Returns the entity metadata.
+         * 
+         * @return The entity metadata.
+         */
+        public Representation getEntityInfo() {
+            return entityInfo;
+        }
+
+        /**
+         * Returns the freshness lifetime.
+         * 
+         * @return The freshness lifetime (in milliseconds).
+         */
+        public long getFreshnessLifetime() {
+            return freshnessLifetime;
+        }
+
+        /**
+         * Returns a new representation of the cached entity.
+         * 
+         * @return A new representation of the cached entity.
+         */
+        public Representation getRepresentation() {
+            Representation result = new ByteArrayRepresentation(this.content,
+                    0, this.content.length, this.entityInfo.getMediaType(),
+                    this.content.length);
+            result.setCharacterSet(this.entityInfo.getCharacterSet());
+            result.setDisposition(this.entityInfo.getDisposition());
+            result.setEncodings(new ArrayList<Encoding>(this.entityInfo
+                    .getEncodings()));
+            result.setExpirationDate(this.entityInfo.getExpirationDate());
+            result.setLanguages(new ArrayList<Language>(this.entityInfo
+                    .getLanguages()));
+            result.setLocationRef(this.entityInfo.getLocationRef());
+            result.setModificationDate(this.entityInfo.getModificationDate());
+            result.setTag(this.entityInfo.getTag());
+            return result;
+        }
+
+        /**
+         * Indicates if the entry is fresh.
+         * 
+         * @param now
+         *            The current time (in milliseconds).
+         * @param maxAge
+         *            The maximum age accepted by the client (in
+         *            milliseconds) or -1.
+         * @return True if the entry is fresh.
+         */
+        public boolean isFresh(long now, long maxAge) {
+            long age = getAge(now);
+            return (age < getFreshnessLifetime())
+                    && ((maxAge == -1) || (age <= maxAge));
+        }
+
+        /**
+         * Indicates if the stale entry can be served while being revalidated.
+         * 
+         * @param now
+         *            The current time (in milliseconds).
+         * @return True if the stale entry can be served.
+         */
+        public boolean isStaleServable(long now) {
+            return !this.mustRevalidate
+                    && (getAge(now) < getFreshnessLifetime()
+                            + this.staleWhileRevalidate);
+        }
+
+        /**
+         * Refreshes the freshness information with a new response, typically
+         * a "304 Not modified" one.
+         * 
+         * @param response
+         *            The new response.
+         * @param shared
+         *            True if the cache is shared by several users.
+         */
+        public void refresh(Response response, boolean shared) {
+            long lifetime = -1;
+            boolean sMaxAgeSeen = false;
+            long now = System.currentTimeMillis();
+            Date date = response.getDate();
+            this.mustRevalidate = false;
+            this.staleWhileRevalidate = 0;
+
+            for (CacheDirective directive : response.getCacheDirectives()) {
+                String name = directive.getName();
+
+                if (HeaderConstants.CACHE_NO_CACHE.equals(name)
+                        && (directive.getValue() == null)) {
+                    lifetime = 0;
+                    this.mustRevalidate = true;
+                } else if (HeaderConstants.CACHE_MUST_REVALIDATE.equals(name)
+                        || (shared && HeaderConstants.CACHE_PROXY_MUST_REVALIDATE
+                                .equals(name))) {
+                    this.mustRevalidate = true;
+                } else if (HeaderConstants.CACHE_STALE_WHILE_REVALIDATE
+                        .equals(name)) {
+                    this.staleWhileRevalidate = CacheFilter.getSeconds(
+                            directive, 0) * 1000L;
+                } else if (lifetime != 0) {
+                    if (shared
+                            && HeaderConstants.CACHE_SHARED_MAX_AGE.equals(name)) {
+                        // Overrides max-age for shared caches, in any order
+                        lifetime = CacheFilter.getSeconds(directive, 0) * 1000L;
+                        sMaxAgeSeen = true;
+                    } else if (HeaderConstants.CACHE_MAX_AGE.equals(name)
+                            && !sMaxAgeSeen) {
+                        lifetime = CacheFilter.getSeconds(directive, 0) * 1000L;
+                    }
+                }
+            }
+
+            if ((lifetime == -1)
+                    && (this.entityInfo.getExpirationDate() != null)) {
+                lifetime = this.entityInfo.getExpirationDate().getTime()
+                        - ((date == null) ? now : date.getTime());
+            }
+
+            this.cacheDirectives = new ArrayList<CacheDirective>(response
+                    .getCacheDirectives());
+            this.freshnessLifetime = Math.max(0, lifetime);
+            this.initialAge = Math.max(0, response.getAge() * 1000L);
+            this.storedTime = now;
+        }
+
+        /**
+         * Starts a revalidation if none is in progress.
+         * 
+         * @return True if the revalidation was started by this call.
+         */
+        public boolean startRevalidation() {
+            return this.revalidating.compareAndSet(false, true);
+        }
+    }
+
+    /**
+     * Returns the part of the key depending on the request dimensions.
+     * 
+     * @param dimensions
+     *            The dimensions the response varies upon.
+     * @param request
+     *            The request.
+     * @return The secondary key.
+     */
+    protected static String getSecondaryKey(Set<Dimension> dimensions,
+            Request request) {
+        StringBuilder sb = new StringBuilder();
+
+        for (Dimension dimension : Dimension.values()) {
+            if (dimensions.contains(dimension)) {
+                sb.append('|');
+
+                switch (dimension) {
+                case CHARACTER_SET:
+                    sb.append(request.getClientInfo()
+                            .getAcceptedCharacterSets());
+                    break;
+                case CLIENT_ADDRESS:
+                    sb.append(request.getClientInfo().getAddress());
+                    break;
+                case CLIENT_AGENT:
+                    sb.append(request.getClientInfo().getAgent());
+                    break;
+                case ENCODING:
+                    sb.append(request.getClientInfo().getAcceptedEncodings());
+                    break;
+                case LANGUAGE:
+                    sb.append(request.getClientInfo().getAcceptedLanguages());
+                    break;
+                case MEDIA_TYPE:
+                    sb.append(request.getClientInfo().getAcceptedMediaTypes());
+                    break;
+                default:
+                    break;
+                }
+            }
+        }
+
+        return sb.toString();
+    }
+
+    /** The dimensions last stored for each primary key. */
+    private final Map<String, Set<Dimension>> dimensions;
+
+    /** The cached entries in access order. */
+    private final LinkedHashMap<String, Entry> entries;
+
+    /** The keys of the cached entries for each primary key. */
+    private final Map<String, Set<String>> keys;
+
+    /** The maximum total size of the cached contents. */
+    private final long maxSize;
+
+    /** The current total size of the cached contents. */
+    private long size;
+
+    /**
+     * Constructor.
+     * 
+     * @param maxSize
+     *            The maximum total size of the cached contents (in bytes).
+     */
+    public CacheStore(long maxSize) {
+        this.dimensions = new HashMap<String, Set<Dimension>>();
+        this.entries = new LinkedHashMap<String, Entry>(16, 0.75f, true);
+        this.keys = new HashMap<String, Set<String>>();
+        this.maxSize = maxSize;
+        this.size = 0;
+    }
+
+    /**
+     * Removes all the entries.
+     */
+    public synchronized void clear() {
+        this.dimensions.clear();
+        this.entries.clear();
+        this.keys.clear();
+        this.size = 0;
+    }
+
+    /**
+     * Returns the entry matching a request.
+     * 
+     * @param primaryKey
+     *            The primary key.
+     * @param request
+     *            The request.
+     * @return The matching entry or null.
+     */
+    public synchronized Entry get(String primaryKey, Request request) {
+        Entry result = null;
+        Set<Dimension> dims = this.dimensions.get(primaryKey);
+
+        if (dims != null) {
+            result = this.entries.get(primaryKey
+                    + getSecondaryKey(dims, request));
+        }
+
+        return result;
+    }
+
+    /**
+     * Returns the number of entries.
+     * 
+     * @return The number of entries.
+     */
+    public synchronized int getCount() {
+        return this.entries.size();
+    }
+
+    /**
+     * Returns the maximum total size of the cached contents.
+     * 
+     * @return The maximum total size of the cached contents (in bytes).
+     */
+    public long getMaxSize() {
+        return maxSize;
+    }
+
+    /**
+     * Returns the current total size of the cached contents.
+     * 
+     * @return The current total size of the cached contents (in bytes).
+     */
+    public synchronized long getSize() {
+        return size;
+    }
+
+    /**
+     * Stores an entry, evicting the least recently used entries if necessary.
+     * 
+     * @param primaryKey
+     *            The primary key.
+     * @param request
+     *            The request that led to the cached response.
+     * @param entry
+     *            The entry to store.
+     */
+    public synchronized void put(String primaryKey, Request request,
+            Entry entry) {
+        if (entry.getContent().length <= getMaxSize()) {
+            Set<Dimension> previousDims = this.dimensions.get(primaryKey);
+
+            if ((previousDims != null)
+                    && !previousDims.equals(entry.getDimensions())) {
+                // The variants don't vary upon the same dimensions anymore
+                remove(primaryKey);
+            }
+
+            String key = primaryKey
+                    + getSecondaryKey(entry.getDimensions(), request);
+            entry.key = key;
+            entry.primaryKey = primaryKey;
+            Entry previous = this.entries.put(key, entry);
+
+            if (previous != null) {
+                this.size -= previous.getContent().length;
+            } else {
+                Set<String> primaryKeys = this.keys.get(primaryKey);
+
+                if (primaryKeys == null) {
+                    primaryKeys = new HashSet<String>();
+                    this.keys.put(primaryKey, primaryKeys);
+                }
+
+                primaryKeys.add(key);
+            }
+
+            this.dimensions.put(primaryKey, entry.getDimensions());
+            this.size += entry.getContent().length;
+            Entry eldest;
+
+            for (Iterator<Entry> iter = this.entries.values().iterator(); (this.size > getMaxSize())
+                    && iter.hasNext();) {
+                eldest = iter.next();
+                iter.remove();
+                removed(eldest);
+            }
+        }
+    }
+
+    /**
+     * Removes all the entries of a primary key.
+     * 
+     * @param primaryKey
+     *            The primary key.
+     */
+    public synchronized void remove(String primaryKey) {
+        Set<String> primaryKeys = this.keys.remove(primaryKey);
+
+        if (primaryKeys != null) {
+            for (String key : primaryKeys) {
+                Entry entry = this.entries.remove(key);
+
+                if (entry != null) {
+                    this.size -= entry.getContent().length;
+                }
+            }
+
+            this.dimensions.remove(primaryKey);
+        }
+    }
+
+    /**
+     * Updates the bookkeeping after the removal of an entry.
+     * 
+     * @param entry
+     *            The removed entry.
+     */
+    private void removed(Entry entry) {
+        this.size -= entry.getContent().length;
+        Set<String> primaryKeys = this.keys.get(entry.primaryKey);
+
+        if (primaryKeys != null) {
+            primaryKeys.remove(entry.key);
+
+            if (primaryKeys.isEmpty()) {
+                this.keys.remove(entry.primaryKey);
+                this.dimensions.remove(entry.primaryKey);
+            }
+        }
+    }
+
+}
@@ -0,0 +1,255 @@
+/**
+ * Copyright 2005-2012 Restlet S.A.S.
+ * 
+ * The contents of this file are subject to the terms of one of the following
+ * open source licenses: Apache 2.0 or LGPL 3.0 or LGPL 2.1 or CDDL 1.0 or EPL
+ * 1.0 (the "Licenses"). You can select the license that you prefer but you may
+ * not use this file except in compliance with one of these Licenses.
+ * 
+ * You can obtain a copy of the Apache 2.0 license at
+ * http://www.opensource.org/licenses/apache-2.0
+ * 
+ * You can obtain a copy of the LGPL 3.0 license at
+ * http://www.opensource.org/licenses/lgpl-3.0
+ * 
+ * You can obtain a copy of the LGPL 2.1 license at
+ * http://www.opensource.org/licenses/lgpl-2.1
+ * 
+ * You can obtain a copy of the CDDL 1.0 license at
+ * http://www.opensource.org/licenses/cddl1
+ * 
+ * You can obtain a copy of the EPL 1.0 license at
+ * http://www.opensource.org/licenses/eclipse-1.0
+ * 
+ * See the Licenses for the specific language governing permissions and
+ * limitations under the Licenses.
+ * 
+ * Alternatively, you can obtain a royalty free commercial license with less
+ * limitations, transferable or non-transferable, directly at
+ * http://www.restlet.com/products/restlet-framework
+ * 
+ * Restlet is a registered trademark of Restlet S.A.S.
+ */
+
+package org.restlet.engine.application;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+// [excludes gwt]
+/**
+ * Bounded pool of {@link Deflater} and {@link Inflater} instances. Each new
+ * instance allocates native memory that is only reclaimed when it is ended or
+ * finalized, so reusing them avoids native memory spikes under load. Released
+ * instances are reset and kept for reuse, or ended right away when the pool is
+ * full.
+ * 
+ * @author Jerome Louvel
+ */
+public class CompressionPool {
+
+    /** The shared instance. */
+    private static final CompressionPool instance = new CompressionPool(Runtime
+            .getRuntime().availableProcessors() * 2);
+
+    /**
+     * Returns the shared instance.
+     * 
+     * @return The shared instance.
+     */
+    public static CompressionPool getInstance() {
+        return instance;
+    }
+
+    /** The number of instances created. */
+    private final AtomicLong createdCount;
+
+    /** The idle deflaters, with and without zlib wrapping. */
+    private final List<Queue<Deflater>> deflaters;
+
+    /** The number of idle deflaters, with and without zlib wrapping. */
+    private final AtomicInteger[] deflaterCounts;
+
+    /** The idle inflaters, with and without zlib wrapping. */
+    private final List<Queue<Inflater>> inflaters;
+
+    /** The number of idle inflaters, with and without zlib wrapping. */
+    private final AtomicInteger[] inflaterCounts;
+
+    /** The maximum number of idle instances kept for each kind. */
+    private final int maxIdle;
+
+    /**
+     * Constructor.
+     * 
+     * @param maxIdle
+     *            The maximum number of idle instances kept for each kind.
+     */
+    public CompressionPool(int maxIdle) {
+        this.maxIdle = maxIdle;
+        this.createdCount = new AtomicLong();
+        this.deflaters = new ArrayList<Queue<Deflater>>(2);
+        this.deflaterCounts = new AtomicInteger[2];
+        this.inflaters = new ArrayList<Queue<Inflater>>(2);
+        this.inflaterCounts = new AtomicInteger[2];
+
+        for (int i = 0; i < 2; i++) {
+            this.deflaters.add(new ConcurrentLinkedQueue<Deflater>());
+            this.deflaterCounts[i] = new AtomicInteger();
+            this.inflaters.add(new ConcurrentLinkedQueue<Inflater>());
+            this.inflaterCounts[i] = new AtomicInteger();
+        }
+    }
+
+    /**
+     * Acquires a deflater.
+     * 
+     * @param level
+     *            The compression level.
+     * @param strategy
+     *            The compression strategy.
+     * @param nowrap
+     *            True to produce raw deflate data, without zlib wrapping, as
+     *            required by GZip.
+     * @return The deflater.
+     */
+    public Deflater acquireDeflater(int level, int strategy, boolean nowrap) {
+        int index = nowrap ? 1 : 0;
+        Deflater result = this.deflaters.get(index).poll();
+
+        if (result != null) {
+            this.deflaterCounts[index].decrementAndGet();
+            result.setLevel(level);
+        } else {
+            this.createdCount.incrementAndGet();
+            result = new Deflater(level, nowrap);
+        }
+
+        result.setStrategy(strategy);
+        return result;
+    }
+
+    /**
+     * Acquires an inflater.
+     * 
+     * @param nowrap
+     *            True to inflate raw deflate data, without zlib wrapping, as
+     *            required by GZip.
+     * @return The inflater.
+     */
+    public Inflater acquireInflater(boolean nowrap) {
+        int index = nowrap ? 1 : 0;
+        Inflater result = this.inflaters.get(index).poll();
+
+        if (result != null) {
+            this.inflaterCounts[index].decrementAndGet();
+        } else {
+            this.createdCount.incrementAndGet();
+            result = new Inflater(nowrap);
+        }
+
+        return result;
+    }
+
+    /**
+     * Ends all the idle instances.
+     */
+    public void clear() {
+        Deflater deflater;
+        Inflater inflater;
+
+        for (int i = 0; i < 2; i++) {
+            while ((deflater = this.deflaters.get(i).poll()) != null) {
+                this.deflaterCounts[i].decrementAndGet();
+                deflater.end();
+            }
+
+            while ((inflater = this.inflaters.get(i).poll()) != null) {
+                this.inflaterCounts[i].decrementAndGet();
+                inflater.end();
+            }
+        }
+    }
+
+    /**
+     * Returns the number of deflaters and inflaters created since the creation
+     * of the pool.
+     * 
+     * @return The number of instances created.
+     */
+    public long getCreatedCount() {
+        return createdCount.get();
+    }
+
+    /**
+     * Returns the number of idle instances, of all kinds.
+     * 
+     * @return The number of idle instances.
+     */
+    public int getIdleCount() {
+        int result = 0;
+
+        for (int i = 0; i < 2; i++) {
+            result += this.deflaterCounts[i].get()
+                    + this.inflaterCounts[i].get();
+        }
+
+        return result;
+    }
+
+    /**
+     * Returns the maximum number of idle instances kept for each kind.
+     * 
+     * @return The maximum number of idle instances kept for each kind.
+     */
+    public int getMaxIdle() {
+        return maxIdle;
+    }
+
+    /**
+     * Releases a deflater previously acquired.
+     * 
+     * @param deflater
+     *            The deflater to release.
+     * @param nowrap
+     *            The wrapping mode used to acquire the deflater.
+     */
+    public void release(Deflater deflater, boolean nowrap) {
+        int index = nowrap ? 1 : 0;
+
+        if (this.deflaterCounts[index].incrementAndGet() <= getMaxIdle()) {
+            deflater.reset();
+            this.deflaters.get(index).offer(deflater);
+        } else {
+            this.deflaterCounts[index].decrementAndGet();
+            deflater.end();
+        }
+    }
+
+    /**
+     * Releases an inflater previously acquired.
+     * 
+     * @param inflater
+     *            The inflater to release.
+     * @param nowrap
+     *            The wrapping mode used to acquire the inflater.
+     */
+    public void release(Inflater inflater, boolean nowrap) {
+        int index = nowrap ? 1 : 0;
+
+        if (this.inflaterCounts[index].incrementAndGet() <= getMaxIdle()) {
+            inflater.reset();
+            this.inflaters.get(index).offer(inflater);
+        } else {
+            this.inflaterCounts[index].decrementAndGet();
+            inflater.end();
+        }
+    }
+
+}
@@ -0,0 +1,239 @@
+/**
+ * Copyright 2005-2012 Restlet S.A.S.
+ * 
+ * The contents of this file are subject to the terms of one of the following
+ * open source licenses: Apache 2.0 or LGPL 3.0 or LGPL 2.1 or CDDL 1.0 or EPL
+ * 1.0 (the "Licenses"). You can select the license that you prefer but you may
+ * not use this file except in compliance with one of these Licenses.
+ * 
+ * You can obtain a copy of the Apache 2.0 license at
+ * http://www.opensource.org/licenses/apache-2.0
+ * 
+ * You can obtain a copy of the LGPL 3.0 license at
+ * http://www.opensource.org/licenses/lgpl-3.0
+ * 
+ * You can obtain a copy of the LGPL 2.1 license at
+ * http://www.opensource.org/licenses/lgpl-2.1
+ * 
+ * You can obtain a copy of the CDDL 1.0 license at
+ * http://www.opensource.org/licenses/cddl1
+ * 
+ * You can obtain a copy of the EPL 1.0 license at
+ * http://www.opensource.org/licenses/eclipse-1.0
+ * 
+ * See the Licenses for the specific language governing permissions and
+ * limitations under the Licenses.
+ * 
+ * Alternatively, you can obtain a royalty free commercial license with less
+ * limitations, transferable or non-transferable, directly at
+ * http://www.restlet.com/products/restlet-framework
+ * 
+ * Restlet is a registered trademark of Restlet S.A.S.
+ */
+
+package org.restlet.engine.application;
+
+import java.util.List;
+
+import org.restlet.Request;
+import org.restlet.data.Metadata;
+import org.restlet.data.Preference;
+import org.restlet.engine.resource.VariantInfo;
+import org.restlet.engine.util.InternCache;
+import org.restlet.representation.Variant;
+import org.restlet.service.MetadataService;
+
+// [excludes gwt]
+/**
+ * Cache of content negotiation decisions. As the preferred variant only
+ * depends on the client preferences, on the characteristics of the available
+ * variants, on the default metadata of the metadata service in the flexible
+ * mode and on the presence of a query for annotated variants, a key is
+ * computed from those elements and mapped to the index of the preferred
+ * variant in the list. Clients sending the same preferences for the same
+ * resources, which is the common case, then skip the scoring of each variant.<br>
+ * <br>
+ * The cache can be shared by applications with distinct metadata services. The
+ * {@link #clear()} method must be invoked if the conneg algorithm is
+ * customized.
+ * 
+ * @author Jerome Louvel
+ */
+public class ConnegCache {
+
+    /**
+     * Appends the name and quality of each preference to a key.
+     * 
+     * @param key
+     *            The key to update.
+     * @param preferences
+     *            The preferences to append.
+     */
+    private static void appendPreferences(StringBuilder key,
+            List<? extends Preference<? extends Metadata>> preferences) {
+        for (Preference<? extends Metadata> preference : preferences) {
+            key.append(preference.getMetadata()).append(';')
+                    .append(preference.getQuality()).append(',');
+        }
+
+        key.append('|');
+    }
+
+    /** The index of the preferred variant for each computed key. */
+    private final InternCache<Integer> decisions;
+
+    /**
+     * Constructor. Caches up to 1000 decisions.
+     */
+    public ConnegCache() {
+        this(1000);
+    }
+
+    /**
+     * Constructor.
+     * 
+     * @param maxEntries
+     *            The maximum number of cached decisions.
+     */
+    public ConnegCache(int maxEntries) {
+        this.decisions = new InternCache<Integer>(maxEntries, 4096);
+    }
+
+    /**
+     * Removes all the cached decisions.
+     */
+    public void clear() {
+        this.decisions.clear();
+    }
+
+    /**
+     * Returns the number of cached decisions.
+     * 
+     * @return The number of cached decisions.
+     */
+    public int getCount() {
+        return this.decisions.size();
+    }
+
+    /**
+     * Returns the cached index of the preferred variant for a given key.
+     * 
+     * @param key
+     *            The decision key.
+     * @return The index of the preferred variant, -1 if no variant was
+     *         preferred or null if the decision isn't cached.
+     */
+    public Integer getIndex(String key) {
+        return this.decisions.get(key);
+    }
+
+    /**
+     * Computes the key of a negotiation decision.
+     * 
+     * @param variants
+     *            The list of variants to compare.
+     * @param request
+     *            The request including client preferences.
+     * @param strict
+     *            True if the strict conneg algorithm is used.
+     * @param metadataService
+     *            The metadata service used to get default metadata values.
+     * @return The decision key or null if the decision can't be cached.
+     */
+    public String getKey(List<? extends Variant> variants, Request request,
+            boolean strict, MetadataService metadataService) {
+        String result = null;
+
+        if ((variants != null) && !variants.isEmpty() && (request != null)) {
+            StringBuilder key = new StringBuilder(256);
+            key.append(strict ? 'S' : 'F').append(request.getMethod())
+                    .append('|');
+
+            if (!strict && (metadataService != null)) {
+                // The flexible algorithm falls back to the default metadata
+                key.append(metadataService.getDefaultMediaType()).append(';')
+                        .append(metadataService.getDefaultLanguage())
+                        .append(';')
+                        .append(metadataService.getDefaultCharacterSet())
+                        .append(';')
+                        .append(metadataService.getDefaultEncoding());
+            }
+
+            key.append('|');
+            appendPreferences(key, request.getClientInfo()
+                    .getAcceptedMediaTypes());
+            appendPreferences(key, request.getClientInfo()
+                    .getAcceptedLanguages());
+            appendPreferences(key, request.getClientInfo()
+                    .getAcceptedCharacterSets());
+            appendPreferences(key, request.getClientInfo()
+                    .getAcceptedEncodings());
+
+            boolean annotated = false;
+            boolean queryConstrained = false;
+
+            for (Variant variant : variants) {
+                key.append(variant.getMediaType()).append(';')
+                        .append(variant.getLanguages()).append(';')
+                        .append(variant.getCharacterSet()).append(';')
+                        .append(variant.getEncodings());
+
+                if (variant instanceof VariantInfo) {
+                    VariantInfo variantInfo = (VariantInfo) variant;
+                    key.append(';').append(variantInfo.getInputScore());
+
+                    if (variantInfo.getAnnotationInfo() != null) {
+                        String query = variantInfo.getAnnotationInfo()
+                                .getQuery();
+                        key.append(';').append(query);
+                        annotated = true;
+                        queryConstrained = queryConstrained
+                                || (query != null);
+                    }
+                }
+
+                key.append(',');
+            }
+
+            if (annotated) {
+                // The annotation score depends on the request query
+                String query = (request.getResourceRef() == null) ? null
+                        : request.getResourceRef().getQuery();
+                key.append('|').append(query != null);
+
+                if (queryConstrained) {
+                    key.append(query);
+                }
+            }
+
+            result = key.toString();
+        }
+
+        return result;
+    }
+
+    /**
+     * Caches a negotiation decision.
+     * 
+     * @param key
+     *            The decision key.
+     * @param variants
+     *            The list of compared variants.
+     * @param preferred
+     *            The preferred variant or null.
+     */
+    public void put(String key, List<? extends Variant> variants,
+            Variant preferred) {
+        if (preferred == null) {
+            this.decisions.put(key, -1);
+        } else {
+            for (int i = 0; i < variants.size(); i++) {
+                if (variants.get(i) == preferred) {
+                    this.decisions.put(key, i);
+                    break;
+                }
+            }
+        }
+    }
+
+}
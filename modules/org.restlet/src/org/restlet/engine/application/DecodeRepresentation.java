@@ -43,8 +43,6 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Iterator;
 import java.util.List;
-import java.util.zip.GZIPInputStream;
-import java.util.zip.InflaterInputStream;
 import java.util.zip.ZipInputStream;
 
 import org.restlet.data.Encoding;
@@ -123,9 +121,11 @@ public class DecodeRepresentation extends WrapperRepresentation {
 
         if (encodedStream != null) {
             if (encoding.equals(Encoding.GZIP)) {
-                result = new GZIPInputStream(encodedStream);
+                result = new PooledInflaterInputStream(encodedStream,
+                        CompressionPool.getInstance(), true);
             } else if (encoding.equals(Encoding.DEFLATE)) {
-                result = new InflaterInputStream(encodedStream);
+                result = new PooledInflaterInputStream(encodedStream,
+                        CompressionPool.getInstance(), false);
             } else if (encoding.equals(Encoding.ZIP)) {
                 @SuppressWarnings("resource")
                 final ZipInputStream stream = new ZipInputStream(encodedStream);
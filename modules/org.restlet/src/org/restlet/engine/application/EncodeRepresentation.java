@@ -43,14 +43,16 @@ import java.util.Arrays;
 import java.util.Collection;
 import java.util.Iterator;
 import java.util.List;
+import java.util.zip.Deflater;
 import java.util.zip.DeflaterOutputStream;
-import java.util.zip.GZIPOutputStream;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipOutputStream;
 
 import org.restlet.data.Disposition;
 import org.restlet.data.Encoding;
 import org.restlet.engine.io.BioUtils;
+import org.restlet.engine.io.ContinuationInputStream;
+import org.restlet.engine.io.IoUtils;
 import org.restlet.engine.io.NioUtils;
 import org.restlet.representation.Representation;
 import org.restlet.util.WrapperList;
@@ -76,6 +78,12 @@ public class EncodeRepresentation extends WrapperRepresentation {
     /** Indicates if the encoding can happen. */
     private volatile boolean canEncode;
 
+    /** The compression level. */
+    private volatile int compressionLevel;
+
+    /** The compression strategy. */
+    private volatile int compressionStrategy;
+
     /** The encoding to apply. */
     private volatile Encoding encoding;
 
@@ -96,6 +104,8 @@ public class EncodeRepresentation extends WrapperRepresentation {
         this.canEncode = getSupportedEncodings().contains(encoding);
         this.encodings = null;
         this.encoding = encoding;
+        this.compressionLevel = Deflater.DEFAULT_COMPRESSION;
+        this.compressionStrategy = Deflater.DEFAULT_STRATEGY;
     }
 
     /**
@@ -138,12 +148,82 @@ public class EncodeRepresentation extends WrapperRepresentation {
     @Override
     public ReadableByteChannel getChannel() throws IOException {
         if (canEncode()) {
-            return NioUtils.getChannel(this);
+            return NioUtils.getChannel(getStream());
         } else {
             return getWrappedRepresentation().getChannel();
         }
     }
 
+    /**
+     * Returns the compression level, from 0 to 9 or
+     * {@link Deflater#DEFAULT_COMPRESSION}.
+     * 
+     * @return The compression level.
+     */
+    public int getCompressionLevel() {
+        return compressionLevel;
+    }
+
+    /**
+     * Returns the compression strategy, as defined by {@link Deflater}.
+     * 
+     * @return The compression strategy.
+     */
+    public int getCompressionStrategy() {
+        return compressionStrategy;
+    }
+
+    /**
+     * Returns the encoding to apply.
+     * 
+     * @return The encoding to apply.
+     */
+    public Encoding getEncoding() {
+        return encoding;
+    }
+
+    /**
+     * Returns the stream encoding the content written to it into the given
+     * output stream.
+     * 
+     * @param outputStream
+     *            The target output stream.
+     * @return The encoder output stream or null for the identity encoding.
+     * @throws IOException
+     */
+    private DeflaterOutputStream getEncoderStream(OutputStream outputStream)
+            throws IOException {
+        DeflaterOutputStream result = null;
+
+        if (this.encoding.equals(Encoding.GZIP)) {
+            result = new PooledDeflaterOutputStream(outputStream,
+                    CompressionPool.getInstance(), true,
+                    getCompressionLevel(), getCompressionStrategy());
+        } else if (this.encoding.equals(Encoding.DEFLATE)) {
+            result = new PooledDeflaterOutputStream(outputStream,
+                    CompressionPool.getInstance(), false,
+                    getCompressionLevel(), getCompressionStrategy());
+        } else if (this.encoding.equals(Encoding.ZIP)) {
+            @SuppressWarnings("resource")
+            final ZipOutputStream stream = new ZipOutputStream(outputStream);
+            stream.setLevel(getCompressionLevel());
+            String name = "entry";
+
+            if (getWrappedRepresentation().getDisposition() != null) {
+                name = getWrappedRepresentation().getDisposition()
+                        .getParameters()
+                        .getFirstValue(Disposition.NAME_FILENAME, true, name);
+            }
+
+            stream.putNextEntry(new ZipEntry(name));
+            result = stream;
+        } else if (this.encoding.equals(Encoding.IDENTITY)) {
+            // Encoder unnecessary for identity encoding
+        }
+
+        return result;
+    }
+
     /**
      * Returns the applied encodings.
      * 
@@ -247,10 +327,72 @@ public class EncodeRepresentation extends WrapperRepresentation {
         return result;
     }
 
+    /**
+     * Returns a stream with the encoded content. The wrapped content is read
+     * and encoded by chunks on the reading thread, without any pipe nor writer
+     * thread.
+     */
     @Override
     public InputStream getStream() throws IOException {
         if (canEncode()) {
-            return BioUtils.getInputStream(this);
+            final InputStream wrappedStream = getWrappedRepresentation()
+                    .getStream();
+
+            if (wrappedStream == null) {
+                return null;
+            }
+
+            return new ContinuationInputStream() {
+                private final byte[] buffer = new byte[IoUtils.BUFFER_SIZE];
+
+                private DeflaterOutputStream encoderStream;
+
+                private boolean started = false;
+
+                @Override
+                protected boolean produce(OutputStream outputStream)
+                        throws IOException {
+                    if (!this.started) {
+                        this.encoderStream = getEncoderStream(outputStream);
+                        this.started = true;
+                    }
+
+                    int count = wrappedStream.read(this.buffer);
+
+                    if (count == -1) {
+                        wrappedStream.close();
+
+                        if (this.encoderStream != null) {
+                            this.encoderStream.finish();
+                        }
+
+                        return false;
+                    }
+
+                    if (this.encoderStream != null) {
+                        this.encoderStream.write(this.buffer, 0, count);
+                    } else {
+                        outputStream.write(this.buffer, 0, count);
+                    }
+
+                    return true;
+                }
+
+                @Override
+                protected void onClose() throws IOException {
+                    try {
+                        wrappedStream.close();
+                    } finally {
+                        if (this.encoderStream instanceof PooledDeflaterOutputStream) {
+                            // Give the deflater back without finishing
+                            ((PooledDeflaterOutputStream) this.encoderStream)
+                                    .release();
+                        } else if (this.encoderStream != null) {
+                            this.encoderStream.close();
+                        }
+                    }
+                }
+            };
         } else {
             return getWrappedRepresentation().getStream();
         }
@@ -265,35 +407,42 @@ public class EncodeRepresentation extends WrapperRepresentation {
         }
     }
 
+    /**
+     * Sets the compression level.
+     * 
+     * @param compressionLevel
+     *            The compression level, from 0 to 9 or
+     *            {@link Deflater#DEFAULT_COMPRESSION}.
+     */
+    public void setCompressionLevel(int compressionLevel) {
+        this.compressionLevel = compressionLevel;
+    }
+
+    /**
+     * Sets the compression strategy.
+     * 
+     * @param compressionStrategy
+     *            The compression strategy, as defined by {@link Deflater}.
+     */
+    public void setCompressionStrategy(int compressionStrategy) {
+        this.compressionStrategy = compressionStrategy;
+    }
+
     @Override
     public void write(OutputStream outputStream) throws IOException {
         if (canEncode()) {
-            DeflaterOutputStream encoderOutputStream = null;
-
-            if (this.encoding.equals(Encoding.GZIP)) {
-                encoderOutputStream = new GZIPOutputStream(outputStream);
-            } else if (this.encoding.equals(Encoding.DEFLATE)) {
-                encoderOutputStream = new DeflaterOutputStream(outputStream);
-            } else if (this.encoding.equals(Encoding.ZIP)) {
-                @SuppressWarnings("resource")
-                final ZipOutputStream stream = new ZipOutputStream(outputStream);
-                String name = "entry";
-                
-                if (getWrappedRepresentation().getDisposition() != null) {
-                    name = getWrappedRepresentation()
-                            .getDisposition()
-                            .getParameters()
-                            .getFirstValue(Disposition.NAME_FILENAME, true,
-                                    name);
+            DeflaterOutputStream encoderOutputStream = getEncoderStream(outputStream);
+
+            if (encoderOutputStream instanceof PooledDeflaterOutputStream) {
+                try {
+                    getWrappedRepresentation().write(encoderOutputStream);
+                    encoderOutputStream.flush();
+                    encoderOutputStream.finish();
+                } finally {
+                    ((PooledDeflaterOutputStream) encoderOutputStream)
+                            .release();
                 }
-                
-                stream.putNextEntry(new ZipEntry(name));
-                encoderOutputStream = stream;
-            } else if (this.encoding.equals(Encoding.IDENTITY)) {
-                // Encoder unnecessary for identity encoding
-            }
-
-            if (encoderOutputStream != null) {
+            } else if (encoderOutputStream != null) {
                 getWrappedRepresentation().write(encoderOutputStream);
                 encoderOutputStream.flush();
                 encoderOutputStream.finish();
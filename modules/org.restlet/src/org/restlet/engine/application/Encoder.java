@@ -33,6 +33,8 @@
 
 package org.restlet.engine.application;
 
+import java.io.File;
+import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.List;
 
@@ -42,6 +44,8 @@ import org.restlet.Response;
 import org.restlet.data.ClientInfo;
 import org.restlet.data.Encoding;
 import org.restlet.data.Preference;
+import org.restlet.data.Reference;
+import org.restlet.representation.FileRepresentation;
 import org.restlet.representation.Representation;
 import org.restlet.routing.Filter;
 import org.restlet.service.EncoderService;
@@ -109,7 +113,7 @@ public class Encoder extends Filter {
         if (isEncodingResponse()
                 && getEncoderService().canEncode(response.getEntity())) {
             response.setEntity(encode(request.getClientInfo(),
-                    response.getEntity()));
+                    response.getEntity(), request.getResourceRef()));
         }
     }
 
@@ -147,11 +151,59 @@ public class Encoder extends Filter {
      */
     public Representation encode(ClientInfo client,
             Representation representation) {
+        return encode(client, representation, null);
+    }
+
+    /**
+     * Encodes a given representation if an encoding is supported by the client.
+     * A precompressed sibling file or a cached encoded entity is used when
+     * available, otherwise the representation is encoded on the fly.
+     * 
+     * @param client
+     *            The client preferences to use.
+     * @param representation
+     *            The representation to encode.
+     * @param resourceRef
+     *            The reference of the target resource, used to identify
+     *            cached entities. May be null.
+     * @return The encoded representation or the original one if no encoding
+     *         supported by the client.
+     * @see EncoderService#getEncodingCache()
+     */
+    public Representation encode(ClientInfo client,
+            Representation representation, Reference resourceRef) {
         Representation result = representation;
         Encoding bestEncoding = getBestEncoding(client);
 
         if (bestEncoding != null) {
-            result = new EncodeRepresentation(bestEncoding, representation);
+            EncodeRepresentation encoder = new EncodeRepresentation(
+                    bestEncoding, representation);
+            result = null;
+
+            if (getEncoderService() != null) {
+                encoder.setCompressionLevel(getEncoderService()
+                        .getCompressionLevel());
+                encoder.setCompressionStrategy(getEncoderService()
+                        .getCompressionStrategy());
+            }
+
+            if (!Encoding.IDENTITY.equals(bestEncoding)) {
+                if (representation instanceof FileRepresentation) {
+                    result = getPrecompressedRepresentation(
+                            (FileRepresentation) representation, bestEncoding);
+                }
+
+                EncodingCache cache = (getEncoderService() == null) ? null
+                        : getEncoderService().getEncodingCache();
+
+                if ((result == null) && (cache != null)) {
+                    result = cache.encode(encoder, resourceRef);
+                }
+            }
+
+            if (result == null) {
+                result = encoder;
+            }
         }
 
         return result;
@@ -201,6 +253,48 @@ public class Encoder extends Filter {
         return encoderService;
     }
 
+    /**
+     * Returns the precompressed sibling of a file representation. For the GZip
+     * encoding, a file with the ".gz" extension appended is looked up next to
+     * the original file and used if it isn't older.
+     * 
+     * @param representation
+     *            The file representation to encode.
+     * @param encoding
+     *            The encoding to apply.
+     * @return The precompressed representation or null if not available.
+     */
+    protected Representation getPrecompressedRepresentation(
+            FileRepresentation representation, Encoding encoding) {
+        FileRepresentation result = null;
+        File file = representation.getFile();
+
+        if (Encoding.GZIP.equals(encoding) && (file != null)
+                && (representation.getRange() == null)) {
+            File sibling = new File(file.getPath() + ".gz");
+
+            if (sibling.isFile()
+                    && (sibling.lastModified() >= file.lastModified())) {
+                result = new FileRepresentation(sibling,
+                        representation.getMediaType());
+                result.setCharacterSet(representation.getCharacterSet());
+                result.setDisposition(representation.getDisposition());
+                result.setEncodings(new ArrayList<Encoding>(representation
+                        .getEncodings()));
+                result.getEncodings().remove(Encoding.IDENTITY);
+                result.getEncodings().add(encoding);
+                result.setExpirationDate(representation.getExpirationDate());
+                result.setLanguages(representation.getLanguages());
+                result.setLocationRef(representation.getLocationRef());
+                result.setModificationDate(representation
+                        .getModificationDate());
+                result.setTag(representation.getTag());
+            }
+        }
+
+        return result;
+    }
+
     /**
      * Returns the list of supported encodings. By default it calls
      * {@link EncodeRepresentation#getSupportedEncodings()} static method.
@@ -0,0 +1,334 @@
+/**
+ * Copyright 2005-2012 Restlet S.A.S.
+ * 
+ * The contents of this file are subject to the terms of one of the following
+ * open source licenses: Apache 2.0 or LGPL 3.0 or LGPL 2.1 or CDDL 1.0 or EPL
+ * 1.0 (the "Licenses"). You can select the license that you prefer but you may
+ * not use this file except in compliance with one of these Licenses.
+ * 
+ * You can obtain a copy of the Apache 2.0 license at
+ * http://www.opensource.org/licenses/apache-2.0
+ * 
+ * You can obtain a copy of the LGPL 3.0 license at
+ * http://www.opensource.org/licenses/lgpl-3.0
+ * 
+ * You can obtain a copy of the LGPL 2.1 license at
+ * http://www.opensource.org/licenses/lgpl-2.1
+ * 
+ * You can obtain a copy of the CDDL 1.0 license at
+ * http://www.opensource.org/licenses/cddl1
+ * 
+ * You can obtain a copy of the EPL 1.0 license at
+ * http://www.opensource.org/licenses/eclipse-1.0
+ * 
+ * See the Licenses for the specific language governing permissions and
+ * limitations under the Licenses.
+ * 
+ * Alternatively, you can obtain a royalty free commercial license with less
+ * limitations, transferable or non-transferable, directly at
+ * http://www.restlet.com/products/restlet-framework
+ * 
+ * Restlet is a registered trademark of Restlet S.A.S.
+ */
+
+package org.restlet.engine.application;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.ReadableByteChannel;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.logging.Level;
+
+import org.restlet.Context;
+import org.restlet.data.Encoding;
+import org.restlet.data.Reference;
+import org.restlet.engine.io.NioUtils;
+import org.restlet.representation.FileRepresentation;
+import org.restlet.representation.Representation;
+
+// [excludes gwt]
+/**
+ * Cache of encoded entities, bounded by the total number of encoded bytes kept
+ * in memory and evicting the least recently used entries first. This prevents
+ * identical static or semi-static entities from being compressed again for
+ * each request.<br>
+ * <br>
+ * File representations are identified by their file path and modification
+ * date. Other representations are identified by their resource reference and
+ * their strong entity tag. The encoding, the compression level and strategy
+ * are also part of the identity of the cached entries. Representations without
+ * such identity, with a range, or with an unknown or too large size are not
+ * cached.
+ * 
+ * @author Jerome Louvel
+ */
+public class EncodingCache {
+
+    /** Encoded representation whose content is served from the cache. */
+    private static class CachedRepresentation extends EncodeRepresentation {
+
+        /** The encoded content. */
+        private final byte[] content;
+
+        /**
+         * Constructor.
+         * 
+         * @param encoding
+         *            The encoding applied.
+         * @param wrappedRepresentation
+         *            The original representation.
+         * @param content
+         *            The encoded content.
+         */
+        public CachedRepresentation(Encoding encoding,
+                Representation wrappedRepresentation, byte[] content) {
+            super(encoding, wrappedRepresentation);
+            this.content = content;
+        }
+
+        @Override
+        public long getAvailableSize() {
+            return getSize();
+        }
+
+        @Override
+        public ReadableByteChannel getChannel() throws IOException {
+            return NioUtils.getChannel(getStream());
+        }
+
+        @Override
+        public long getSize() {
+            return this.content.length;
+        }
+
+        @Override
+        public InputStream getStream() throws IOException {
+            return new ByteArrayInputStream(this.content);
+        }
+
+        @Override
+        public void write(OutputStream outputStream) throws IOException {
+            outputStream.write(this.content);
+        }
+    }
+
+    /** The cached entries, in access order. */
+    private final LinkedHashMap<String, byte[]> entries;
+
+    /** The maximum size of a cached entry, before encoding. */
+    private final long maxEntrySize;
+
+    /** The maximum total size of the cached entries. */
+    private final long maxSize;
+
+    /** The current total size of the cached entries. */
+    private long size;
+
+    /**
+     * Constructor. The maximum size of a single entry is a tenth of the
+     * maximum total size.
+     * 
+     * @param maxSize
+     *            The maximum total size of the cached entries (in bytes).
+     */
+    public EncodingCache(long maxSize) {
+        this(maxSize, maxSize / 10);
+    }
+
+    /**
+     * Constructor.
+     * 
+     * @param maxSize
+     *            The maximum total size of the cached entries (in bytes).
+     * @param maxEntrySize
+     *            The maximum size of a cached entry, before encoding (in
+     *            bytes).
+     */
+    public EncodingCache(long maxSize, long maxEntrySize) {
+        this.entries = new LinkedHashMap<String, byte[]>(16, 0.75f, true);
+        this.maxSize = maxSize;
+        this.maxEntrySize = maxEntrySize;
+        this.size = 0;
+    }
+
+    /**
+     * Removes all the cached entries.
+     */
+    public synchronized void clear() {
+        this.entries.clear();
+        this.size = 0;
+    }
+
+    /**
+     * Returns the encoded representation, from the cache if possible. On cache
+     * miss, the given encoder is used to fully encode the content, which is
+     * then cached.
+     * 
+     * @param encoder
+     *            The representation encoding on the fly.
+     * @param resourceRef
+     *            The reference of the resource or null.
+     * @return The encoded representation or null if it can't be cached.
+     */
+    public Representation encode(EncodeRepresentation encoder,
+            Reference resourceRef) {
+        Representation result = null;
+        Encoding encoding = encoder.getEncoding();
+        Representation representation = encoder.getWrappedRepresentation();
+        String key = getKey(encoding, encoder.getCompressionLevel(),
+                encoder.getCompressionStrategy(), representation, resourceRef);
+
+        if (key != null) {
+            byte[] content = get(key);
+
+            if (content == null) {
+                try {
+                    ByteArrayOutputStream baos = new ByteArrayOutputStream();
+                    encoder.write(baos);
+                    content = baos.toByteArray();
+                    put(key, content);
+                } catch (IOException e) {
+                    Context.getCurrentLogger().log(Level.WARNING,
+                            "Unable to encode the representation", e);
+                }
+            }
+
+            if (content != null) {
+                result = new CachedRepresentation(encoding, representation,
+                        content);
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * Returns the cached content for the given key.
+     * 
+     * @param key
+     *            The entry key.
+     * @return The cached content or null.
+     */
+    protected synchronized byte[] get(String key) {
+        return this.entries.get(key);
+    }
+
+    /**
+     * Returns the number of cached entries.
+     * 
+     * @return The number of cached entries.
+     */
+    public synchronized int getCount() {
+        return this.entries.size();
+    }
+
+    /**
+     * Returns the cache key of an encoded representation.
+     * 
+     * @param encoding
+     *            The encoding to apply.
+     * @param compressionLevel
+     *            The compression level.
+     * @param compressionStrategy
+     *            The compression strategy.
+     * @param representation
+     *            The representation to encode.
+     * @param resourceRef
+     *            The reference of the resource or null.
+     * @return The cache key or null if the representation can't be cached.
+     */
+    protected String getKey(Encoding encoding, int compressionLevel,
+            int compressionStrategy, Representation representation,
+            Reference resourceRef) {
+        String result = null;
+
+        // Transient content couldn't be encoded again after a failure
+        if (!representation.isTransient()
+                && (representation.getRange() == null)
+                && representation.hasKnownSize()
+                && (representation.getSize() <= getMaxEntrySize())) {
+            if (representation instanceof FileRepresentation) {
+                File file = ((FileRepresentation) representation).getFile();
+
+                if (file != null) {
+                    result = "file|" + file.getAbsolutePath() + "|"
+                            + file.lastModified();
+                }
+            } else if ((resourceRef != null)
+                    && (representation.getTag() != null)
+                    && !representation.getTag().isWeak()) {
+                result = "tag|" + resourceRef.getTargetRef() + "|"
+                        + representation.getTag().getName();
+            }
+
+            if (result != null) {
+                result += "|" + encoding.getName() + "|" + compressionLevel
+                        + "|" + compressionStrategy;
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * Returns the maximum size of a cached entry, before encoding.
+     * 
+     * @return The maximum size of a cached entry (in bytes).
+     */
+    public long getMaxEntrySize() {
+        return maxEntrySize;
+    }
+
+    /**
+     * Returns the maximum total size of the cached entries.
+     * 
+     * @return The maximum total size of the cached entries (in bytes).
+     */
+    public long getMaxSize() {
+        return maxSize;
+    }
+
+    /**
+     * Returns the current total size of the cached entries.
+     * 
+     * @return The current total size of the cached entries (in bytes).
+     */
+    public synchronized long getSize() {
+        return size;
+    }
+
+    /**
+     * Caches an encoded content, evicting the least recently used entries if
+     * necessary.
+     * 
+     * @param key
+     *            The entry key.
+     * @param content
+     *            The encoded content.
+     */
+    protected synchronized void put(String key, byte[] content) {
+        if (content.length <= getMaxSize()) {
+            byte[] previous = this.entries.put(key, content);
+
+            if (previous != null) {
+                this.size -= previous.length;
+            }
+
+            this.size += content.length;
+
+            for (Iterator<Map.Entry<String, byte[]>> iter = this.entries
+                    .entrySet().iterator(); (this.size > getMaxSize())
+                    && iter.hasNext();) {
+                this.size -= iter.next().getValue().length;
+                iter.remove();
+            }
+        }
+    }
+
+}
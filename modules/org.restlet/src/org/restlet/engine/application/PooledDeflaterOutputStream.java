@@ -0,0 +1,160 @@
+/**
+ * Copyright 2005-2012 Restlet S.A.S.
+ * 
+ * The contents of this file are subject to the terms of one of the following
+ * open source licenses: Apache 2.0 or LGPL 3.0 or LGPL 2.1 or CDDL 1.0 or EPL
+ * 1.0 (the "Licenses"). You can select the license that you prefer but you may
+ * not use this file except in compliance with one of these Licenses.
+ * 
+ * You can obtain a copy of the Apache 2.0 license at
+ * http://www.opensource.org/licenses/apache-2.0
+ * 
+ * You can obtain a copy of the LGPL 3.0 license at
+ * http://www.opensource.org/licenses/lgpl-3.0
+ * 
+ * You can obtain a copy of the LGPL 2.1 license at
+ * http://www.opensource.org/licenses/lgpl-2.1
+ * 
+ * You can obtain a copy of the CDDL 1.0 license at
+ * http://www.opensource.org/licenses/cddl1
+ * 
+ * You can obtain a copy of the EPL 1.0 license at
+ * http://www.opensource.org/licenses/eclipse-1.0
+ * 
+ * See the Licenses for the specific language governing permissions and
+ * limitations under the Licenses.
+ * 
+ * Alternatively, you can obtain a royalty free commercial license with less
+ * limitations, transferable or non-transferable, directly at
+ * http://www.restlet.com/products/restlet-framework
+ * 
+ * Restlet is a registered trademark of Restlet S.A.S.
+ */
+
+package org.restlet.engine.application;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.zip.CRC32;
+import java.util.zip.DeflaterOutputStream;
+
+import org.restlet.engine.io.IoUtils;
+
+// [excludes gwt]
+/**
+ * Deflater output stream producing either GZip or zlib (HTTP "deflate")
+ * content with a deflater borrowed from a {@link CompressionPool}. The
+ * deflater is given back to the pool as soon as the stream is finished or
+ * closed.
+ * 
+ * @author Jerome Louvel
+ */
+public class PooledDeflaterOutputStream extends DeflaterOutputStream {
+
+    /** The GZip header, without flags nor modification time. */
+    private static final byte[] GZIP_HEADER = new byte[] { 0x1f,
+            (byte) 0x8b, 8, 0, 0, 0, 0, 0, 0, 0 };
+
+    /** The checksum of the uncompressed data, for the GZip format. */
+    private final CRC32 crc;
+
+    /** The pool of the deflater. */
+    private final CompressionPool pool;
+
+    /** Indicates if the deflater has been released. */
+    private boolean released;
+
+    /**
+     * Constructor.
+     * 
+     * @param outputStream
+     *            The output stream receiving the compressed content.
+     * @param pool
+     *            The pool providing the deflater.
+     * @param gzip
+     *            True for the GZip format, false for the zlib format.
+     * @param level
+     *            The compression level.
+     * @param strategy
+     *            The compression strategy.
+     * @throws IOException
+     */
+    public PooledDeflaterOutputStream(OutputStream outputStream,
+            CompressionPool pool, boolean gzip, int level, int strategy)
+            throws IOException {
+        super(outputStream, pool.acquireDeflater(level, strategy, gzip),
+                IoUtils.BUFFER_SIZE);
+        this.pool = pool;
+        this.released = false;
+
+        if (gzip) {
+            this.crc = new CRC32();
+            this.out.write(GZIP_HEADER);
+        } else {
+            this.crc = null;
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            super.close();
+        } finally {
+            release();
+        }
+    }
+
+    @Override
+    public void finish() throws IOException {
+        if (!this.released) {
+            try {
+                super.finish();
+
+                if (this.crc != null) {
+                    writeInt((int) this.crc.getValue());
+                    writeInt((int) this.def.getBytesRead());
+                }
+            } finally {
+                release();
+            }
+        }
+    }
+
+    /**
+     * Gives the deflater back to the pool. Further writes are rejected.
+     */
+    public void release() {
+        if (!this.released) {
+            this.released = true;
+            this.pool.release(this.def, this.crc != null);
+        }
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        if (this.released) {
+            throw new IOException("The compressed stream is already finished");
+        }
+
+        super.write(b, off, len);
+
+        if (this.crc != null) {
+            this.crc.update(b, off, len);
+        }
+    }
+
+    /**
+     * Writes an integer in little-endian order.
+     * 
+     * @param value
+     *            The integer to write.
+     * @throws IOException
+     */
+    private void writeInt(int value) throws IOException {
+        this.out.write(value & 0xff);
+        this.out.write((value >> 8) & 0xff);
+        this.out.write((value >> 16) & 0xff);
+        this.out.write((value >> 24) & 0xff);
+    }
+
+}
@@ -0,0 +1,258 @@
+/**
+ * Copyright 2005-2012 Restlet S.A.S.
+ * 
+ * The contents of this file are subject to the terms of one of the following
+ * open source licenses: Apache 2.0 or LGPL 3.0 or LGPL 2.1 or CDDL 1.0 or EPL
+ * 1.0 (the "Licenses"). You can select the license that you prefer but you may
+ * not use this file except in compliance with one of these Licenses.
+ * 
+ * You can obtain a copy of the Apache 2.0 license at
+ * http://www.opensource.org/licenses/apache-2.0
+ * 
+ * You can obtain a copy of the LGPL 3.0 license at
+ * http://www.opensource.org/licenses/lgpl-3.0
+ * 
+ * You can obtain a copy of the LGPL 2.1 license at
+ * http://www.opensource.org/licenses/lgpl-2.1
+ * 
+ * You can obtain a copy of the CDDL 1.0 license at
+ * http://www.opensource.org/licenses/cddl1
+ * 
+ * You can obtain a copy of the EPL 1.0 license at
+ * http://www.opensource.org/licenses/eclipse-1.0
+ * 
+ * See the Licenses for the specific language governing permissions and
+ * limitations under the Licenses.
+ * 
+ * Alternatively, you can obtain a royalty free commercial license with less
+ * limitations, transferable or non-transferable, directly at
+ * http://www.restlet.com/products/restlet-framework
+ * 
+ * Restlet is a registered trademark of Restlet S.A.S.
+ */
+
+package org.restlet.engine.application;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.zip.CRC32;
+import java.util.zip.InflaterInputStream;
+import java.util.zip.ZipException;
+
+import org.restlet.engine.io.IoUtils;
+
+// [excludes gwt]
+/**
+ * Inflater input stream reading either GZip or zlib (HTTP "deflate") content
+ * with an inflater borrowed from a {@link CompressionPool}. The inflater is
+ * given back to the pool as soon as the end of the content is reached or the
+ * stream is closed. Only the first member of a GZip content is read.
+ * 
+ * @author Jerome Louvel
+ */
+public class PooledInflaterInputStream extends InflaterInputStream {
+
+    /** GZip header flag indicating a header checksum. */
+    private static final int FHCRC = 2;
+
+    /** GZip header flag indicating extra fields. */
+    private static final int FEXTRA = 4;
+
+    /** GZip header flag indicating a file name. */
+    private static final int FNAME = 8;
+
+    /** GZip header flag indicating a comment. */
+    private static final int FCOMMENT = 16;
+
+    /** The checksum of the uncompressed data, for the GZip format. */
+    private final CRC32 crc;
+
+    /** Indicates if the end of the content has been reached. */
+    private boolean endReached;
+
+    /** The pool of the inflater. */
+    private final CompressionPool pool;
+
+    /** Indicates if the inflater has been released. */
+    private boolean released;
+
+    /**
+     * Constructor.
+     * 
+     * @param inputStream
+     *            The input stream providing the compressed content.
+     * @param pool
+     *            The pool providing the inflater.
+     * @param gzip
+     *            True for the GZip format, false for the zlib format.
+     * @throws IOException
+     */
+    public PooledInflaterInputStream(InputStream inputStream,
+            CompressionPool pool, boolean gzip) throws IOException {
+        super(inputStream, pool.acquireInflater(gzip), IoUtils.BUFFER_SIZE);
+        this.pool = pool;
+        this.endReached = false;
+        this.released = false;
+
+        if (gzip) {
+            this.crc = new CRC32();
+
+            try {
+                readHeader();
+            } catch (IOException e) {
+                release();
+                throw e;
+            }
+        } else {
+            this.crc = null;
+        }
+    }
+
+    @Override
+    public int available() throws IOException {
+        return this.endReached ? 0 : super.available();
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            super.close();
+        } finally {
+            release();
+        }
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        if (this.endReached) {
+            return -1;
+        } else if (this.released) {
+            throw new IOException("The compressed stream is already closed");
+        }
+
+        int result = super.read(b, off, len);
+
+        if (result == -1) {
+            this.endReached = true;
+
+            try {
+                if (this.crc != null) {
+                    readTrailer();
+                }
+            } finally {
+                release();
+            }
+        } else if (this.crc != null) {
+            this.crc.update(b, off, result);
+        }
+
+        return result;
+    }
+
+    /**
+     * Reads the GZip header.
+     * 
+     * @throws IOException
+     */
+    private void readHeader() throws IOException {
+        if ((readUByte() != 0x1f) || (readUByte() != 0x8b)) {
+            throw new ZipException("Not in GZIP format");
+        }
+
+        if (readUByte() != 8) {
+            throw new ZipException("Unsupported compression method");
+        }
+
+        int flags = readUByte();
+
+        // Skip the modification time, extra flags and OS
+        for (int i = 0; i < 6; i++) {
+            readUByte();
+        }
+
+        if ((flags & FEXTRA) != 0) {
+            int length = readUByte() | (readUByte() << 8);
+
+            for (int i = 0; i < length; i++) {
+                readUByte();
+            }
+        }
+
+        if ((flags & FNAME) != 0) {
+            while (readUByte() != 0) {
+            }
+        }
+
+        if ((flags & FCOMMENT) != 0) {
+            while (readUByte() != 0) {
+            }
+        }
+
+        if ((flags & FHCRC) != 0) {
+            readUByte();
+            readUByte();
+        }
+    }
+
+    /**
+     * Reads the GZip trailer and checks it against the inflated content.
+     * 
+     * @throws IOException
+     */
+    private void readTrailer() throws IOException {
+        byte[] trailer = new byte[8];
+        int remaining = this.inf.getRemaining();
+        int count = Math.min(remaining, trailer.length);
+        System.arraycopy(this.buf, this.len - remaining, trailer, 0, count);
+
+        while (count < trailer.length) {
+            int read = this.in.read(trailer, count, trailer.length - count);
+
+            if (read == -1) {
+                throw new EOFException("Unexpected end of GZIP trailer");
+            }
+
+            count += read;
+        }
+
+        long expectedCrc = (trailer[0] & 0xff) | ((trailer[1] & 0xff) << 8)
+                | ((trailer[2] & 0xff) << 16)
+                | ((long) (trailer[3] & 0xff) << 24);
+        long expectedSize = (trailer[4] & 0xff) | ((trailer[5] & 0xff) << 8)
+                | ((trailer[6] & 0xff) << 16)
+                | ((long) (trailer[7] & 0xff) << 24);
+
+        if ((expectedCrc != this.crc.getValue())
+                || (expectedSize != (this.inf.getBytesWritten() & 0xffffffffL))) {
+            throw new ZipException("Corrupt GZIP trailer");
+        }
+    }
+
+    /**
+     * Reads an unsigned byte from the compressed stream.
+     * 
+     * @return The unsigned byte.
+     * @throws IOException
+     */
+    private int readUByte() throws IOException {
+        int result = this.in.read();
+
+        if (result == -1) {
+            throw new EOFException("Unexpected end of GZIP header");
+        }
+
+        return result;
+    }
+
+    /**
+     * Gives the inflater back to the pool.
+     */
+    public void release() {
+        if (!this.released) {
+            this.released = true;
+            this.pool.release(this.inf, this.crc != null);
+        }
+    }
+
+}
@@ -223,21 +223,36 @@ public abstract class BaseHelper<T extends Connector> extends
      * @return Indicates if some concrete activity occurred.
      */
     protected boolean control() {
+        return control(getInboundMessages(), getOutboundMessages());
+    }
+
+    /**
+     * Controls the given queues for inbound or outbound messages to handle.
+     * Only the messages queued when the control starts are handled.
+     * 
+     * @param inboundMessages
+     *            The queue of inbound messages.
+     * @param outboundMessages
+     *            The queue of outbound messages.
+     * @return Indicates if some concrete activity occurred.
+     */
+    protected boolean control(Queue<Response> inboundMessages,
+            Queue<Response> outboundMessages) {
         boolean result = false;
         int size;
 
         // Control pending inbound messages
-        size = getInboundMessages().size();
+        size = inboundMessages.size();
 
         for (int i = 0; i < size; i++) {
-            handleInbound(getInboundMessages().poll());
+            handleInbound(inboundMessages.poll());
         }
 
         // Control pending outbound messages
-        size = getOutboundMessages().size();
+        size = outboundMessages.size();
 
         for (int i = 0; i < size; i++) {
-            handleOutbound(getOutboundMessages().poll());
+            handleOutbound(outboundMessages.poll());
         }
 
         return result;
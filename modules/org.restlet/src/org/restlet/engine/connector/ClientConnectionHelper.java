@@ -35,9 +35,17 @@ package org.restlet.engine.connector;
 
 import java.io.IOException;
 import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.net.SocketAddress;
 import java.net.UnknownHostException;
 import java.nio.channels.SocketChannel;
-import java.util.Iterator;
+import java.util.Collections;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.CountDownLatch;
 import java.util.logging.Level;
 
@@ -46,6 +54,7 @@ import org.restlet.Request;
 import org.restlet.Response;
 import org.restlet.data.Reference;
 import org.restlet.data.Status;
+import org.restlet.engine.io.IoUtils;
 
 /**
  * Base client helper based on NIO non blocking sockets. Here is the list of
@@ -77,13 +86,49 @@ import org.restlet.data.Status;
  * <td>The socket connection timeout or 0 for unlimited wait.</td>
  * </tr>
  * </table>
+ * <br>
+ * Open connections are indexed by target host and port. A request reuses the
+ * most recently active idle connection to its host, leaving the least recently
+ * used ones expire after "maxIoIdleTimeMs". When the "maxConnectionsPerHost"
+ * or "maxTotalConnections" limit is reached, requests wait in a FIFO queue per
+ * host until a connection becomes available.
  * 
  * @author Jerome Louvel
  */
 public abstract class ClientConnectionHelper extends ConnectionHelper<Client> {
 
+    /**
+     * A message waiting for a connection, along with the time at which it was
+     * queued.
+     */
+    private static final class WaitingMessage {
+
+        /** The time at which the message was queued. */
+        private final long queueTime;
+
+        /** The waiting response. */
+        private final Response response;
+
+        /**
+         * Constructor.
+         * 
+         * @param response
+         *            The waiting response.
+         */
+        private WaitingMessage(Response response) {
+            this.queueTime = System.currentTimeMillis();
+            this.response = response;
+        }
+    }
+
     protected static final String CONNECTOR_LATCH = "org.restlet.engine.connector.latch";
 
+    /** The open connections indexed by target socket address. */
+    private final ConcurrentMap<SocketAddress, List<Connection<Client>>> hostConnections;
+
+    /** The messages waiting for a connection, indexed by socket address. */
+    private final ConcurrentMap<SocketAddress, Queue<WaitingMessage>> waitingMessages;
+
     /**
      * Constructor.
      * 
@@ -92,6 +137,96 @@ public abstract class ClientConnectionHelper extends ConnectionHelper<Client> {
      */
     public ClientConnectionHelper(Client connector) {
         super(connector, true);
+        this.hostConnections = new ConcurrentHashMap<SocketAddress, List<Connection<Client>>>();
+        this.waitingMessages = new ConcurrentHashMap<SocketAddress, Queue<WaitingMessage>>();
+    }
+
+    /**
+     * Indexes a new connection to the given socket address.
+     * 
+     * @param socketAddress
+     *            The target socket address.
+     * @param connection
+     *            The new connection.
+     */
+    private void addHostConnection(SocketAddress socketAddress,
+            Connection<Client> connection) {
+        synchronized (this.hostConnections) {
+            List<Connection<Client>> connections = this.hostConnections
+                    .get(socketAddress);
+
+            if (connections == null) {
+                connections = new CopyOnWriteArrayList<Connection<Client>>();
+                this.hostConnections.put(socketAddress, connections);
+            }
+
+            connections.add(connection);
+        }
+    }
+
+    /**
+     * Queues a message behind the ones already waiting for a connection to the
+     * given socket address.
+     * 
+     * @param socketAddress
+     *            The target socket address.
+     * @param response
+     *            The response to queue.
+     */
+    private void addWaitingMessage(SocketAddress socketAddress,
+            Response response) {
+        synchronized (this.waitingMessages) {
+            Queue<WaitingMessage> waiting = this.waitingMessages
+                    .get(socketAddress);
+
+            if (waiting == null) {
+                waiting = new ConcurrentLinkedQueue<WaitingMessage>();
+                this.waitingMessages.put(socketAddress, waiting);
+            }
+
+            waiting.add(new WaitingMessage(response));
+        }
+    }
+
+    @Override
+    protected void checkin(Connection<?> connection) {
+        SocketAddress socketAddress = connection.getSocketAddress();
+
+        if (socketAddress != null) {
+            List<Connection<Client>> connections = this.hostConnections
+                    .get(socketAddress);
+
+            if (connections != null) {
+                synchronized (this.hostConnections) {
+                    connections.remove(connection);
+
+                    // Forget the hosts without open connection
+                    if (connections.isEmpty()) {
+                        this.hostConnections.remove(socketAddress);
+                    }
+                }
+            }
+
+            Queue<WaitingMessage> waiting = this.waitingMessages
+                    .get(socketAddress);
+
+            if ((waiting != null) && !waiting.isEmpty()) {
+                // Room has been made for a waiting message
+                getController().wakeup();
+            }
+        }
+
+        super.checkin(connection);
+    }
+
+    @Override
+    protected boolean control() {
+        // Waiting messages are served before the new ones
+        for (SocketAddress socketAddress : this.waitingMessages.keySet()) {
+            handleWaitingMessages(socketAddress);
+        }
+
+        return super.control();
     }
 
     @Override
@@ -191,14 +326,18 @@ public abstract class ClientConnectionHelper extends ConnectionHelper<Client> {
                                     + response.getRequest());
                 }
 
-                Connection<Client> bestConn = getBestConnection(response
+                InetSocketAddress socketAddress = getSocketAddress(response
                         .getRequest());
 
-                if (bestConn != null) {
-                    bestConn.getOutboundWay().handle(response);
+                if (socketAddress != null) {
+                    // Queue the message behind the ones already waiting for
+                    // a connection to the same host
+                    addWaitingMessage(socketAddress, response);
+                    handleWaitingMessages(socketAddress);
                 } else {
-                    getLogger().log(Level.WARNING,
-                            "Unable to find a connection to send the request");
+                    getLogger()
+                            .log(Level.WARNING,
+                                    "Unable to create a socket address related to the request.");
                     response.setStatus(Status.CONNECTOR_ERROR_COMMUNICATION,
                             "Unable to find a connection to send the request");
                     unblock(response);
@@ -214,6 +353,22 @@ public abstract class ClientConnectionHelper extends ConnectionHelper<Client> {
         }
     }
 
+    /**
+     * Immediately closes an idle connection and detaches it from the
+     * controller, making room for a new connection.
+     * 
+     * @param connection
+     *            The connection to evict.
+     */
+    protected void evict(Connection<Client> connection) {
+        ConnectionController controller = connection.getController();
+        connection.close(false);
+
+        if (controller != null) {
+            controller.detach(connection);
+        }
+    }
+
     /**
      * Tries to reuse an existing connection for the given request, or creates a
      * new one. It may return null if the maximum number of connections per host
@@ -229,12 +384,6 @@ public abstract class ClientConnectionHelper extends ConnectionHelper<Client> {
             throws UnknownHostException, IOException {
         Connection<Client> result = null;
 
-        // Try to reuse an existing connection for the same host and
-        // port
-        int hostConnectionCount = 0;
-        int bestScore = Integer.MAX_VALUE;
-        boolean foundConn = false;
-
         // Determine the target host domain and port of the request.
         InetSocketAddress socketAddress = getSocketAddress(request);
 
@@ -243,61 +392,113 @@ public abstract class ClientConnectionHelper extends ConnectionHelper<Client> {
                     .log(Level.WARNING,
                             "Unable to create a socket address related to the request.");
         } else {
-            // Associate the given request to the first available connection
-            // opened on the same host domain and port.
-            for (Iterator<Connection<Client>> iterator = getConnections()
-                    .iterator(); !foundConn && iterator.hasNext();) {
-                Connection<Client> currConn = iterator.next();
-
-                if (socketAddress.equals(currConn.getSocketAddress())) {
-                    if (currConn.isAvailable()) {
+            result = getBestConnection(request, socketAddress);
+        }
+
+        return result;
+    }
+
+    /**
+     * Tries to reuse an idle connection to the given socket address, or creates
+     * a new one. Stale connections found on the way are evicted. When the
+     * maximum number of connections per host or in general is reached, returns
+     * the least loaded pipelining connection to the host if any, or null
+     * otherwise.
+     * 
+     * @param request
+     *            The request to handle.
+     * @param socketAddress
+     *            The target socket address.
+     * @return An existing connection able to handle the request, a new one or
+     *         null.
+     * @throws UnknownHostException
+     * @throws IOException
+     */
+    protected Connection<Client> getBestConnection(Request request,
+            InetSocketAddress socketAddress) throws UnknownHostException,
+            IOException {
+        Connection<Client> result = null;
+        Connection<Client> busyConn = null;
+        int hostConnectionCount = 0;
+        int bestScore = Integer.MAX_VALUE;
+
+        // Reuse the most recently active idle connection, so that the least
+        // recently used ones can expire
+        for (Connection<Client> currConn : getHostConnections(socketAddress)) {
+            if (currConn.isAvailable()) {
+                if (isStale(currConn)) {
+                    evict(currConn);
+                } else {
+                    if ((result == null)
+                            || (currConn.getLastActivity() > result
+                                    .getLastActivity())) {
                         result = currConn;
-                        foundConn = true;
-                    } else if (currConn.getState().compareTo(
-                            ConnectionState.OPEN) <= 0) {
-                        // Assign the request to the busy connection that
-                        // handles the less number of messages. This is useful
-                        // in case the maximum number of connections has been
-                        // reached. As a drawback, the message will only be
-                        // handled as soon as possible.
-                        int currScore = currConn.getLoadScore();
-
-                        if (bestScore > currScore) {
-                            bestScore = currScore;
-                            result = currConn;
-                        }
-
-                        hostConnectionCount++;
                     }
+
+                    hostConnectionCount++;
+                }
+            } else if (currConn.getState().compareTo(ConnectionState.OPEN) <= 0) {
+                if (currConn.isPipelining() && isPipelinable(request)) {
+                    // Pipelining connections can accept the message while
+                    // busy, the less loaded one is kept as a fallback
+                    int currScore = currConn.getLoadScore();
+
+                    if (bestScore > currScore) {
+                        bestScore = currScore;
+                        busyConn = currConn;
+                    }
+                }
+
+                hostConnectionCount++;
+            }
+        }
+
+        if (result != null) {
+            getLogger().log(
+                    Level.FINE,
+                    "Reusing an existing client connection to: "
+                            + socketAddress);
+        } else {
+            boolean hostFull = (getMaxConnectionsPerHost() != -1)
+                    && (hostConnectionCount >= getMaxConnectionsPerHost());
+            boolean totalFull = (getMaxTotalConnections() != -1)
+                    && (getConnections().size() >= getMaxTotalConnections());
+
+            if (!hostFull && totalFull) {
+                // Evict the least recently used idle connection to another
+                // host
+                Connection<Client> lruConn = null;
+
+                for (Connection<Client> currConn : getConnections()) {
+                    if (currConn.isAvailable()
+                            && ((lruConn == null) || (currConn
+                                    .getLastActivity() < lruConn
+                                    .getLastActivity()))) {
+                        lruConn = currConn;
+                    }
+                }
+
+                if (lruConn != null) {
+                    if (getLogger().isLoggable(Level.FINE)) {
+                        getLogger().log(
+                                Level.FINE,
+                                "Evicting the least recently used client connection to: "
+                                        + lruConn.getSocketAddress());
+                    }
+
+                    evict(lruConn);
+                    totalFull = false;
                 }
             }
 
-            // No connection has been found, try to create a new one that will
-            // handle the message soon.
-            if (foundConn) {
-                getLogger().log(
-                        Level.FINE,
-                        "Reusing an existing client connection to: "
-                                + socketAddress);
-            } else if ((getMaxTotalConnections() != -1)
-                    && (getConnections().size() >= getMaxTotalConnections())) {
+            if (hostFull || totalFull) {
+                result = busyConn;
+
                 if (result == null) {
-                    getLogger()
-                            .log(Level.WARNING,
-                                    "Unable to create a new connection. Maximum total number of connections reached!");
-                } else {
                     getLogger().log(
                             Level.FINE,
-                            "Enqueue Request to an existing client connection to: "
+                            "Waiting for a client connection to: "
                                     + socketAddress);
-                }
-            } else if ((getMaxConnectionsPerHost() != -1)
-                    && (hostConnectionCount >= getMaxConnectionsPerHost())) {
-                if (result == null) {
-                    getLogger()
-                            .log(Level.WARNING,
-                                    "Unable to create a new connection. Maximum number of connections reached for host: "
-                                            + socketAddress);
                 } else {
                     getLogger().log(
                             Level.FINE,
@@ -317,12 +518,28 @@ public abstract class ClientConnectionHelper extends ConnectionHelper<Client> {
                         createSocketChannel(request.isConfidential(),
                                 socketAddress), getController(), socketAddress);
                 getConnections().add(result);
+                addHostConnection(socketAddress, result);
             }
         }
 
         return result;
     }
 
+    /**
+     * Returns the open connections to the given socket address.
+     * 
+     * @param socketAddress
+     *            The target socket address.
+     * @return The open connections to the given socket address.
+     */
+    protected List<Connection<Client>> getHostConnections(
+            SocketAddress socketAddress) {
+        List<Connection<Client>> result = this.hostConnections
+                .get(socketAddress);
+        return (result == null) ? Collections.<Connection<Client>> emptyList()
+                : result;
+    }
+
     /**
      * Returns the host name of the HTTP proxy, if specified.
      * 
@@ -468,17 +685,110 @@ public abstract class ClientConnectionHelper extends ConnectionHelper<Client> {
         handleOutbound(response, true);
     }
 
+    /**
+     * Hands the messages waiting for a connection to the given socket address
+     * over to the available connections, in arrival order. The messages that
+     * have been waiting for more than {@link IoUtils#TIMEOUT_MS} are failed.
+     * 
+     * @param socketAddress
+     *            The target socket address.
+     */
+    protected void handleWaitingMessages(SocketAddress socketAddress) {
+        Queue<WaitingMessage> waiting = this.waitingMessages.get(socketAddress);
+        WaitingMessage message;
+        boolean full = false;
+
+        while (!full && (waiting != null)
+                && ((message = waiting.peek()) != null)) {
+            Response response = message.response;
+
+            try {
+                if ((System.currentTimeMillis() - message.queueTime) >= IoUtils.TIMEOUT_MS) {
+                    waiting.remove(message);
+                    getLogger().log(
+                            Level.WARNING,
+                            "Unable to find a connection to send the request to: "
+                                    + socketAddress);
+                    response.setStatus(Status.CONNECTOR_ERROR_COMMUNICATION,
+                            "Unable to find a connection to send the request");
+                    unblock(response);
+                } else {
+                    Connection<Client> bestConn = getBestConnection(
+                            response.getRequest(),
+                            (InetSocketAddress) socketAddress);
+
+                    if (bestConn == null) {
+                        full = true;
+                    } else {
+                        waiting.remove(message);
+                        bestConn.getOutboundWay().handle(response);
+                    }
+                }
+            } catch (Throwable t) {
+                waiting.remove(message);
+                getLogger()
+                        .log(Level.FINE,
+                                "An error occured during the communication with the remote server.",
+                                t);
+                response.setStatus(Status.CONNECTOR_ERROR_COMMUNICATION, t);
+                unblock(response);
+            }
+        }
+
+        if ((waiting != null) && waiting.isEmpty()) {
+            synchronized (this.waitingMessages) {
+                // Forget the hosts without waiting message
+                if (waiting.isEmpty()) {
+                    this.waitingMessages.remove(socketAddress, waiting);
+                }
+            }
+        }
+    }
+
     @Override
     public boolean isControllerDaemon() {
         return Boolean.parseBoolean(getHelpedParameters().getFirstValue(
                 "controllerDaemon", "true"));
     }
 
+    /**
+     * Indicates if the given request can be pipelined on a busy connection, and
+     * consequently be sent again on another connection if the server closes
+     * the connection before answering it. By default, only requests with a
+     * safe method and without entity are pipelined.
+     * 
+     * @param request
+     *            The request to test.
+     * @return True if the request can be pipelined.
+     */
+    public boolean isPipelinable(Request request) {
+        return (request != null) && request.getMethod().isSafe()
+                && !request.isEntityAvailable();
+    }
+
     @Override
     public boolean isProxying() {
         return getProxyHost() != null;
     }
 
+    /**
+     * Indicates if an idle connection can't be reused, either because its
+     * socket isn't connected anymore or because it has been idle for too long.
+     * 
+     * @param connection
+     *            The idle connection.
+     * @return True if the connection can't be reused.
+     */
+    protected boolean isStale(Connection<Client> connection) {
+        SocketChannel socketChannel = connection.getSocketChannel();
+        Socket socket = connection.getSocket();
+
+        return (socketChannel == null) || !socketChannel.isOpen()
+                || !socketChannel.isConnected() || (socket == null)
+                || socket.isInputShutdown() || socket.isOutputShutdown()
+                || connection.hasTimedOut();
+    }
+
     @Override
     public void start() throws Exception {
         getLogger().info("Starting the internal " + getProtocols() + " client");
@@ -489,6 +799,22 @@ public abstract class ClientConnectionHelper extends ConnectionHelper<Client> {
     public void stop() throws Exception {
         getLogger().info("Stopping the internal " + getProtocols() + " client");
         super.stop();
+
+        // Release the messages still waiting for a connection
+        for (Queue<WaitingMessage> waiting : this.waitingMessages.values()) {
+            WaitingMessage message;
+
+            while ((message = waiting.poll()) != null) {
+                message.response.setStatus(
+                        Status.CONNECTOR_ERROR_COMMUNICATION,
+                        "The client connector has been stopped");
+                unblock(message.response);
+            }
+        }
+
+        this.waitingMessages.clear();
+
+        this.hostConnections.clear();
     }
 
     /**
@@ -185,7 +185,7 @@ public abstract class ClientInboundWay extends InboundWay {
 
         int i = 0;
         int start = 0;
-        int size = getLineBuilder().length();
+        int size = getLineParser().length();
         char next;
 
         if (size == 0) {
@@ -193,26 +193,26 @@ public abstract class ClientInboundWay extends InboundWay {
         } else {
             // Parse the protocol version
             for (i = start; (version == null) && (i < size); i++) {
-                next = getLineBuilder().charAt(i);
+                next = getLineParser().charAt(i);
 
                 if (HeaderUtils.isSpace(next)) {
-                    version = getLineBuilder().substring(start, i);
+                    version = getLineParser().substring(start, i);
                     start = i + 1;
                 }
             }
 
             // Parse the status code
             for (i = start; (statusCode == -1) && (i < size); i++) {
-                next = getLineBuilder().charAt(i);
+                next = getLineParser().charAt(i);
 
                 if (HeaderUtils.isSpace(next)) {
                     try {
-                        statusCode = Integer.parseInt(getLineBuilder()
+                        statusCode = Integer.parseInt(getLineParser()
                                 .substring(start, i));
                     } catch (NumberFormatException e) {
                         throw new IOException(
                                 "Unable to parse the status code. Non numeric value: "
-                                        + getLineBuilder().substring(start, i)
+                                        + getLineParser().substring(start, i)
                                                 .toString());
                     }
 
@@ -227,11 +227,11 @@ public abstract class ClientInboundWay extends InboundWay {
 
             // Parse the reason phrase
             for (i = start; (reasonPhrase == null) && (i < size); i++) {
-                next = getLineBuilder().charAt(i);
+                next = getLineParser().charAt(i);
             }
 
             if (i == size) {
-                reasonPhrase = getLineBuilder().substring(start, i);
+                reasonPhrase = getLineParser().substring(start, i);
                 start = i + 1;
             }
 
@@ -93,7 +93,12 @@ public abstract class ClientOutboundWay extends OutboundWay {
     public Connection<Client> getConnection() {
         return (Connection<Client>) super.getConnection();
     }
-    
+
+    @Override
+    public ClientConnectionHelper getHelper() {
+        return (ClientConnectionHelper) super.getHelper();
+    }
+
     @Override
     public void onMessageCompleted(boolean endDetected) throws IOException {
         Response message = getMessage();
@@ -65,6 +65,9 @@ import org.restlet.util.SelectionRegistration;
  */
 public class Connection<T extends Connector> implements SelectionListener {
 
+    /** The IO controller managing the connection. */
+    private volatile ConnectionController controller;
+
     /** The parent connector helper. */
     private final ConnectionHelper<T> helper;
 
@@ -139,6 +142,7 @@ public class Connection<T extends Connector> implements SelectionListener {
     public void clear() {
         this.inboundWay.clear();
         this.outboundWay.clear();
+        this.controller = null;
         this.readableSelectionChannel = null;
         this.socketChannel = null;
         this.registration = null;
@@ -215,8 +219,8 @@ public class Connection<T extends Connector> implements SelectionListener {
      *            The response to commit.
      */
     public void commit(Response response) {
-        getHelper().getOutboundMessages().add(response);
-        getHelper().getController().wakeup();
+        getController().getOutboundMessages().add(response);
+        getController().wakeup();
     }
 
     /**
@@ -260,6 +264,18 @@ public class Connection<T extends Connector> implements SelectionListener {
                         .getInetAddress().getHostAddress();
     }
 
+    /**
+     * Returns the IO controller managing the connection. If the connection
+     * isn't attached to a socket, the main controller of the parent helper is
+     * returned.
+     * 
+     * @return The IO controller managing the connection.
+     */
+    public ConnectionController getController() {
+        ConnectionController result = this.controller;
+        return (result == null) ? getHelper().getController() : result;
+    }
+
     /**
      * Returns the parent connector helper.
      * 
@@ -449,6 +465,7 @@ public class Connection<T extends Connector> implements SelectionListener {
         this.pipelining = helper.isPipeliningConnections();
         this.maxIoIdleTimeMs = helper.getMaxIoIdleTimeMs();
         this.state = ConnectionState.OPENING;
+        this.controller = controller;
         this.socketChannel = socketChannel;
         this.socketAddress = socketAddress;
 
@@ -540,6 +557,17 @@ public class Connection<T extends Connector> implements SelectionListener {
         return getHelper().isServerSide();
     }
 
+    /**
+     * Indicates if file entities can be directly transferred to the socket
+     * channel, bypassing the IO buffers. This isn't possible when the bytes
+     * written need to be transformed, for example encrypted.
+     * 
+     * @return True if file entities can be directly transferred.
+     */
+    public boolean isTransferable() {
+        return true;
+    }
+
     /**
      * Notifies the connection that a new activity has been detected and that it
      * should be kept alive.
@@ -572,7 +600,7 @@ public class Connection<T extends Connector> implements SelectionListener {
         close(false);
 
         // Give the controller a hint to clean up the closed connection
-        getHelper().getController().wakeup();
+        getController().wakeup();
     }
 
     /**
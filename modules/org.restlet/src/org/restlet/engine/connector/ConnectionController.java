@@ -45,6 +45,7 @@ import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.logging.Level;
 
 import org.restlet.Context;
+import org.restlet.Response;
 import org.restlet.engine.io.WakeupListener;
 import org.restlet.util.SelectionListener;
 import org.restlet.util.SelectionRegistration;
@@ -94,9 +95,7 @@ public class ConnectionController extends Controller implements Runnable,
         }
 
         if (conn.getState() == ConnectionState.CLOSED) {
-            // Detach the connection and collect it
-            getHelper().getConnections().remove(conn);
-            getHelper().checkin(conn);
+            detach(conn);
         } else if ((conn.getState() == ConnectionState.CLOSING)
                 && conn.isEmpty()) {
             conn.close(false);
@@ -120,6 +119,14 @@ public class ConnectionController extends Controller implements Runnable,
         }
     }
 
+    /**
+     * Controls the pending inbound and outbound messages. By default, it calls
+     * {@link BaseHelper#control()} on the parent helper.
+     */
+    protected void controlMessages() {
+        getHelper().control();
+    }
+
     /**
      * Creates a new NIO selector.
      * 
@@ -138,12 +145,28 @@ public class ConnectionController extends Controller implements Runnable,
         return result;
     }
 
+    /**
+     * Detaches a closed connection from the controller and checks it back in
+     * the helper's connection pool.
+     * 
+     * @param connection
+     *            The closed connection.
+     */
+    protected void detach(Connection<?> connection) {
+        getHelper().getConnections().remove(connection);
+        getHelper().checkin(connection);
+    }
+
     @Override
     protected void doInit() {
         this.selector = createSelector();
+
         // Done in the controller for thread safety reason regarding the byte
-        // buffers part of the pooled connections
-        getHelper().createConnectionPool();
+        // buffers part of the pooled connections. Only the main controller of
+        // the helper owns the pool.
+        if (getHelper().getController() == this) {
+            getHelper().createConnectionPool();
+        }
     }
 
     @Override
@@ -158,8 +181,8 @@ public class ConnectionController extends Controller implements Runnable,
 
     @Override
     protected void doRun(long sleepTime) throws IOException {
-        getHelper().getLogger().log(Level.FINEST, "helper.control()");
-        super.doRun(sleepTime);
+        getHelper().getLogger().log(Level.FINEST, "controlMessages()");
+        controlMessages();
         getHelper().getLogger().log(Level.FINEST, "controlConnections()");
         controlConnections();
         getHelper().getLogger().log(Level.FINEST, "registerKeys()");
@@ -171,6 +194,16 @@ public class ConnectionController extends Controller implements Runnable,
         selectKeys(sleepTime);
     }
 
+    /**
+     * Returns the queue of inbound messages pending for handling. By default,
+     * it returns the queue of the parent helper.
+     * 
+     * @return The queue of inbound messages.
+     */
+    protected Queue<Response> getInboundMessages() {
+        return getHelper().getInboundMessages();
+    }
+
     /**
      * Returns the queue of new selection registrations.
      * 
@@ -180,6 +213,16 @@ public class ConnectionController extends Controller implements Runnable,
         return this.newRegistrations;
     }
 
+    /**
+     * Returns the queue of outbound messages pending for handling. By default,
+     * it returns the queue of the parent helper.
+     * 
+     * @return The queue of outbound messages.
+     */
+    protected Queue<Response> getOutboundMessages() {
+        return getHelper().getOutboundMessages();
+    }
+
     /**
      * Returns the NIO selector.
      * 
@@ -40,8 +40,11 @@ import java.net.SocketException;
 import java.nio.channels.SocketChannel;
 import java.util.List;
 import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.logging.Level;
 
 import org.restlet.Connector;
+import org.restlet.engine.header.HeaderLineParser;
+import org.restlet.engine.io.BufferPool;
 
 /**
  * Connector helper using network connections. Here is the list of parameters
@@ -61,6 +64,13 @@ import org.restlet.Connector;
  * <td>Maximum number of concurrent connections per host (IP address).</td>
  * </tr>
  * <tr>
+ * <td>maxHeaderLineLength</td>
+ * <td>int</td>
+ * <td>8192</td>
+ * <td>Maximum length in bytes of a start line or header line received. Servers
+ * answer longer header lines with a 400 status and close the connection.</td>
+ * </tr>
+ * <tr>
  * <td>initialConnections</td>
  * <td>int</td>
  * <td>100</td>
@@ -69,6 +79,13 @@ import org.restlet.Connector;
  * simply reused.</td>
  * </tr>
  * <tr>
+ * <td>maxPooledBuffersSize</td>
+ * <td>int</td>
+ * <td>16 * 1024 * 1024</td>
+ * <td>Maximum number of bytes retained by the pool of buffers shared by the
+ * connections, in addition to the buffers cached by each thread.</td>
+ * </tr>
+ * <tr>
  * <td>maxTotalConnections</td>
  * <td>int</td>
  * <td>-1</td>
@@ -87,6 +104,14 @@ import org.restlet.Connector;
  * <td>Indicates if pipelining connections are supported.</td>
  * </tr>
  * <tr>
+ * <td>pooledBuffers</td>
+ * <td>boolean</td>
+ * <td>true</td>
+ * <td>Indicates if the byte buffers of the connections should be leased from a
+ * shared pool only while some bytes are in flight, reducing the memory used by
+ * idle connections.</td>
+ * </tr>
+ * <tr>
  * <td>pooledConnections</td>
  * <td>boolean</td>
  * <td>true</td>
@@ -153,6 +178,10 @@ import org.restlet.Connector;
  */
 public abstract class ConnectionHelper<T extends Connector> extends
         BaseHelper<T> {
+
+    /** The pool of byte buffers shared by the connections. */
+    private volatile BufferPool bufferPool;
+
     /** The connection pool. */
     private volatile ConnectionPool<T> connectionPool;
 
@@ -169,6 +198,7 @@ public abstract class ConnectionHelper<T extends Connector> extends
      */
     public ConnectionHelper(T connector, boolean clientSide) {
         super(connector, clientSide);
+        this.bufferPool = null;
         this.connections = new CopyOnWriteArrayList<Connection<T>>();
         this.connectionPool = null;
     }
@@ -231,6 +261,15 @@ public abstract class ConnectionHelper<T extends Connector> extends
             SocketChannel socketChannel, ConnectionController controller,
             InetSocketAddress socketAddress) throws IOException;
 
+    /**
+     * Creates the pool of byte buffers shared by the connections.
+     * 
+     * @return The pool of byte buffers.
+     */
+    protected BufferPool createBufferPool() {
+        return new BufferPool(isDirectBuffers(), getMaxPooledBuffersSize());
+    }
+
     /**
      * Creates the connection pool.
      */
@@ -272,6 +311,14 @@ public abstract class ConnectionHelper<T extends Connector> extends
         if (isPooledConnection()) {
             this.connectionPool = null;
         }
+
+        if (getBufferPool() != null) {
+            if (getLogger().isLoggable(Level.FINE)) {
+                getLogger().fine(getBufferPool().toString());
+            }
+
+            getBufferPool().clear();
+        }
     }
 
     @Override
@@ -284,6 +331,15 @@ public abstract class ConnectionHelper<T extends Connector> extends
         }
     }
 
+    /**
+     * Returns the pool of byte buffers shared by the connections.
+     * 
+     * @return The pool of byte buffers or null if buffers aren't pooled.
+     */
+    public BufferPool getBufferPool() {
+        return bufferPool;
+    }
+
     /**
      * Returns the connection pool.
      * 
@@ -326,6 +382,29 @@ public abstract class ConnectionHelper<T extends Connector> extends
                 "maxConnectionsPerHost", "-1"));
     }
 
+    /**
+     * Returns the maximum length in bytes of a start line or header line
+     * received.
+     * 
+     * @return The maximum length of a start line or header line received.
+     */
+    public int getMaxHeaderLineLength() {
+        return Integer.parseInt(getHelpedParameters().getFirstValue(
+                "maxHeaderLineLength",
+                Integer.toString(HeaderLineParser.DEFAULT_MAX_LENGTH)));
+    }
+
+    /**
+     * Returns the maximum number of bytes retained by the pool of buffers
+     * shared by the connections.
+     * 
+     * @return The maximum number of bytes retained by the pool of buffers.
+     */
+    public int getMaxPooledBuffersSize() {
+        return Integer.parseInt(getHelpedParameters().getFirstValue(
+                "maxPooledBuffersSize", Integer.toString(16 * 1024 * 1024)));
+    }
+
     /**
      * Returns the maximum number of concurrent connections allowed. By default,
      * it is unbounded.
@@ -427,6 +506,17 @@ public abstract class ConnectionHelper<T extends Connector> extends
                 "pipeliningConnections", "false"));
     }
 
+    /**
+     * Indicates if the byte buffers of the connections should be leased from a
+     * shared pool only while some bytes are in flight.
+     * 
+     * @return True if the byte buffers should be pooled.
+     */
+    public boolean isPooledBuffers() {
+        return Boolean.parseBoolean(getHelpedParameters().getFirstValue(
+                "pooledBuffers", "true"));
+    }
+
     /**
      * Indicates if the connection objects should be pooled to save
      * instantiation time.
@@ -493,4 +583,13 @@ public abstract class ConnectionHelper<T extends Connector> extends
         return Boolean.parseBoolean(getHelpedParameters().getFirstValue(
                 "socketReuseAddress", "true"));
     }
+
+    @Override
+    public void start() throws Exception {
+        if (isPooledBuffers()) {
+            this.bufferPool = createBufferPool();
+        }
+
+        super.start();
+    }
 }
@@ -65,6 +65,27 @@ public abstract class Controller {
         this.running = false;
     }
 
+    /**
+     * Detects if the worker service is overloaded and updates the overload
+     * state of the controller accordingly.
+     */
+    protected void controlOverload() {
+        boolean isWorkerServiceOverloaded = getHelper()
+                .isWorkerServiceOverloaded();
+
+        if (isOverloaded() && !isWorkerServiceOverloaded) {
+            setOverloaded(false);
+            getHelper().getLogger().info(
+                    "Connector overload ended. Accepting new work again");
+            getHelper().traceWorkerService();
+        } else if (isWorkerServiceOverloaded) {
+            setOverloaded(true);
+            getHelper().getLogger().info(
+                    "Connector overload detected. Stop accepting new work");
+            getHelper().traceWorkerService();
+        }
+    }
+
     /**
      * Initializes the controller before entering the control loop.
      */
@@ -133,27 +154,11 @@ public abstract class Controller {
             setRunning(true);
             long sleepTime = getHelper().getControllerSleepTimeMs();
             boolean hasWorkerThreads = getHelper().hasWorkerThreads();
-            boolean isWorkerServiceOverloaded;
 
             while (isRunning()) {
                 try {
                     if (hasWorkerThreads) {
-                        isWorkerServiceOverloaded = getHelper()
-                                .isWorkerServiceOverloaded();
-
-                        if (isOverloaded() && !isWorkerServiceOverloaded) {
-                            setOverloaded(false);
-                            getHelper()
-                                    .getLogger()
-                                    .info("Connector overload ended. Accepting new work again");
-                            getHelper().traceWorkerService();
-                        } else if (isWorkerServiceOverloaded) {
-                            setOverloaded(true);
-                            getHelper()
-                                    .getLogger()
-                                    .info("Connector overload detected. Stop accepting new work");
-                            getHelper().traceWorkerService();
-                        }
+                        controlOverload();
                     }
 
                     doRun(sleepTime);
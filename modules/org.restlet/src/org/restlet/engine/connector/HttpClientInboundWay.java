@@ -40,15 +40,23 @@ import java.util.concurrent.ConcurrentLinkedQueue;
 import org.restlet.Client;
 import org.restlet.Response;
 import org.restlet.data.Status;
+import org.restlet.engine.io.Buffer;
 import org.restlet.engine.io.IoState;
 
 /**
- * HTTP client inbound way.
+ * HTTP client inbound way. Responses are matched in FIFO order with the
+ * requests sent on the connection, including pipelined ones.
  * 
  * @author Jerome Louvel
  */
 public class HttpClientInboundWay extends ClientInboundWay {
 
+    /** Indicates if a response has already been received. */
+    private volatile boolean answered;
+
+    /** Indicates if the end of the socket channel has been detected. */
+    private volatile boolean endDetected;
+
     /** The queue of messages. */
     private final Queue<Response> messages;
 
@@ -63,12 +71,16 @@ public class HttpClientInboundWay extends ClientInboundWay {
      */
     public HttpClientInboundWay(Connection<Client> connection, int bufferSize) {
         super(connection, bufferSize);
+        this.answered = false;
+        this.endDetected = false;
         this.messages = new ConcurrentLinkedQueue<Response>();
     }
 
     @Override
     public void clear() {
         super.clear();
+        this.answered = false;
+        this.endDetected = false;
         this.messages.clear();
     }
 
@@ -126,7 +138,19 @@ public class HttpClientInboundWay extends ClientInboundWay {
     @Override
     public void onMessageCompleted(boolean endDetected) throws IOException {
         getMessages().remove(getMessage());
+        this.answered = true;
         super.onMessageCompleted(endDetected);
+
+        if (!getMessages().isEmpty()) {
+            if (getConnection().getState().compareTo(ConnectionState.OPEN) <= 0) {
+                // Expect the response to the next request sent
+                setMessageState(MessageState.START);
+                getConnection().getController().wakeup();
+            } else {
+                // The remaining requests won't be answered on this connection
+                retryPendingMessages();
+            }
+        }
     }
 
     @Override
@@ -141,6 +165,18 @@ public class HttpClientInboundWay extends ClientInboundWay {
         super.onError(status);
     }
 
+    @Override
+    public int onFill(Buffer buffer, Object... args) throws IOException {
+        int result = super.onFill(buffer, args);
+
+        if (result == -1) {
+            // The server has closed the connection
+            this.endDetected = true;
+        }
+
+        return result;
+    }
+
     @Override
     public void onTimeOut() {
         for (Response rsp : getMessages()) {
@@ -154,4 +190,48 @@ public class HttpClientInboundWay extends ClientInboundWay {
         super.onTimeOut();
     }
 
+    /**
+     * Sends again through another connection the requests still waiting for a
+     * response when the server won't answer them on this connection. Only the
+     * pipelinable requests are sent again, provided that the server has
+     * answered at least one request on this connection. The other ones fail
+     * with a communication error.
+     */
+    protected void retryPendingMessages() {
+        for (Response rsp : getMessages()) {
+            if ((rsp != getMessage()) && getMessages().remove(rsp)) {
+                if (this.answered
+                        && getHelper().isPipelinable(rsp.getRequest())) {
+                    getHelper().getOutboundMessages().add(rsp);
+                } else {
+                    getHelper().onInboundError(
+                            Status.CONNECTOR_ERROR_COMMUNICATION, rsp);
+                }
+            }
+        }
+
+        getHelper().getController().wakeup();
+    }
+
+    @Override
+    public void updateState() {
+        if (this.endDetected && (getMessage() == null)
+                && getBuffer().isEmpty() && !getMessages().isEmpty()) {
+            // All the responses sent by the server have been read
+            retryPendingMessages();
+        } else if ((getMessageState() == MessageState.START)
+                && (getIoState() != IoState.PROCESSING)
+                && !getBuffer().isEmpty()) {
+            // The next pipelined response has already been buffered
+            onSelected(getRegistration());
+
+            if (!getHelper().getInboundMessages().isEmpty()) {
+                // Let the controller handle the response received
+                getConnection().getController().wakeup();
+            }
+        }
+
+        super.updateState();
+    }
+
 }
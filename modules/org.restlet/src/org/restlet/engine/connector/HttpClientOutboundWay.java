@@ -42,7 +42,10 @@ import org.restlet.Response;
 import org.restlet.data.Status;
 
 /**
- * HTTP client outbound way.
+ * HTTP client outbound way. When the connection is pipelining, the next queued
+ * request is written without waiting for the response to the previous one, as
+ * long as all the requests in flight are pipelinable. The responses are
+ * matched in FIFO order by the inbound way.
  * 
  * @author Jerome Louvel
  */
@@ -64,6 +67,30 @@ public class HttpClientOutboundWay extends ClientOutboundWay {
         this.messages = new ConcurrentLinkedQueue<Response>();
     }
 
+    /**
+     * Indicates if the given message can be written before the responses to
+     * the previous requests have been received.
+     * 
+     * @param message
+     *            The message to write.
+     * @return True if the message can be pipelined.
+     */
+    protected boolean canPipeline(Response message) {
+        boolean result = getConnection().isPipelining()
+                && getConnection().isPersistent()
+                && (getConnection().getState() == ConnectionState.OPEN)
+                && getHelper().isPipelinable(message.getRequest());
+
+        if (result) {
+            for (Response rsp : ((HttpClientInboundWay) getConnection()
+                    .getInboundWay()).getMessages()) {
+                result = result && getHelper().isPipelinable(rsp.getRequest());
+            }
+        }
+
+        return result;
+    }
+
     @Override
     public void clear() {
         super.clear();
@@ -114,11 +141,15 @@ public class HttpClientOutboundWay extends ClientOutboundWay {
             Request request = message.getRequest();
 
             if (request.isExpectingResponse()) {
-                Queue<Response> inboundMessages = ((HttpClientInboundWay) getConnection()
-                        .getInboundWay()).getMessages();
-                inboundMessages.add(message);
-                getConnection().getInboundWay().setMessageState(
-                        MessageState.START);
+                HttpClientInboundWay inboundWay = (HttpClientInboundWay) getConnection()
+                        .getInboundWay();
+                inboundWay.getMessages().add(message);
+
+                // Otherwise the inbound way will expect this response once
+                // the previous ones have been received
+                if (inboundWay.getMessageState() == MessageState.IDLE) {
+                    inboundWay.setMessageState(MessageState.START);
+                }
             }
         }
 
@@ -132,6 +163,11 @@ public class HttpClientOutboundWay extends ClientOutboundWay {
         if (message != null) {
             getMessages().remove(message);
             super.onMessageCompleted(endDetected);
+
+            if (!getMessages().isEmpty()) {
+                // Give the controller a chance to write the next message
+                getConnection().getController().wakeup();
+            }
         }
     }
 
@@ -151,9 +187,25 @@ public class HttpClientOutboundWay extends ClientOutboundWay {
     @Override
     public void updateState() {
         // Update the IO state if necessary
-        if (getMessage() == null
-                && getConnection().getInboundWay().isAvailable()) {
-            setMessage(getMessages().peek());
+        if (getMessage() == null) {
+            Response next = getMessages().peek();
+
+            if (next == null) {
+                // Nothing to write
+            } else if (getConnection().getState().compareTo(
+                    ConnectionState.OPEN) > 0) {
+                // The connection is closing, send the pending messages
+                // through another one
+                for (Response rsp : getMessages()) {
+                    getMessages().remove(rsp);
+                    getHelper().getOutboundMessages().add(rsp);
+                }
+
+                getHelper().getController().wakeup();
+            } else if (getConnection().getInboundWay().isAvailable()
+                    || canPipeline(next)) {
+                setMessage(next);
+            }
         }
 
         super.updateState();
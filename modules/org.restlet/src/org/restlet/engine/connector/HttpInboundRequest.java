@@ -229,7 +229,7 @@ public class HttpInboundRequest extends Request implements InboundRequest {
 
         if (!this.cacheDirectivesAdded) {
             if (getHeaders() != null) {
-                for (Header header : getHeaders().subList(
+                for (Header header : getHeaderList(
                         HeaderConstants.HEADER_CACHE_CONTROL)) {
                     CacheDirectiveReader.addValues(header, result);
                 }
@@ -247,7 +247,7 @@ public class HttpInboundRequest extends Request implements InboundRequest {
         if (!this.securityAdded) {
             if (getHeaders() != null) {
                 // Extract the header value
-                String authorization = getHeaders().getValues(
+                String authorization = getHeaderValues(
                         HeaderConstants.HEADER_AUTHORIZATION);
 
                 // Set the challenge response
@@ -274,16 +274,15 @@ public class HttpInboundRequest extends Request implements InboundRequest {
         if (!this.clientAdded) {
             if (getHeaders() != null) {
                 // Extract the header values
-                String acceptMediaType = getHeaders().getValues(
+                String acceptMediaType = getHeaderValues(
                         HeaderConstants.HEADER_ACCEPT);
-                String acceptCharset = getHeaders().getValues(
+                String acceptCharset = getHeaderValues(
                         HeaderConstants.HEADER_ACCEPT_CHARSET);
-                String acceptEncoding = getHeaders().getValues(
+                String acceptEncoding = getHeaderValues(
                         HeaderConstants.HEADER_ACCEPT_ENCODING);
-                String acceptLanguage = getHeaders().getValues(
+                String acceptLanguage = getHeaderValues(
                         HeaderConstants.HEADER_ACCEPT_LANGUAGE);
-                String expect = getHeaders().getValues(
-                        HeaderConstants.HEADER_EXPECT);
+                String expect = getHeaderValues(HeaderConstants.HEADER_EXPECT);
 
                 // Parse the headers and update the call preferences
 
@@ -321,9 +320,9 @@ public class HttpInboundRequest extends Request implements InboundRequest {
                 }
 
                 // Set other properties
-                result.setAgent(getHeaders().getValues(
+                result.setAgent(getHeaderValues(
                         HeaderConstants.HEADER_USER_AGENT));
-                result.setFrom(getHeaders().getFirstValue(
+                result.setFrom(getFirstHeaderValue(
                         HeaderConstants.HEADER_FROM));
                 result.setAddress(getConnection().getAddress());
                 result.setPort(getConnection().getPort());
@@ -343,7 +342,7 @@ public class HttpInboundRequest extends Request implements InboundRequest {
                         // Lookup the "X-Forwarded-For" header supported by
                         // popular
                         // proxies and caches.
-                        final String header = getHeaders().getValues(
+                        final String header = getHeaderValues(
                                 HeaderConstants.HEADER_X_FORWARDED_FOR);
                         if (header != null) {
                             final String[] addresses = header.split(",");
@@ -374,25 +373,28 @@ public class HttpInboundRequest extends Request implements InboundRequest {
         if (!this.conditionAdded) {
             if (getHeaders() != null) {
                 // Extract the header values
-                String ifMatchHeader = getHeaders().getValues(
+                String ifMatchHeader = getHeaderValues(
                         HeaderConstants.HEADER_IF_MATCH);
-                String ifNoneMatchHeader = getHeaders().getValues(
+                String ifNoneMatchHeader = getHeaderValues(
                         HeaderConstants.HEADER_IF_NONE_MATCH);
                 Date ifModifiedSince = null;
                 Date ifUnmodifiedSince = null;
-                String ifRangeHeader = getHeaders().getFirstValue(
+                String ifRangeHeader = getFirstHeaderValue(
                         HeaderConstants.HEADER_IF_RANGE);
 
-                for (Header header : getHeaders()) {
-                    if (header.getName().equalsIgnoreCase(
-                            HeaderConstants.HEADER_IF_MODIFIED_SINCE)) {
-                        ifModifiedSince = HeaderReader.readDate(
-                                header.getValue(), false);
-                    } else if (header.getName().equalsIgnoreCase(
-                            HeaderConstants.HEADER_IF_UNMODIFIED_SINCE)) {
-                        ifUnmodifiedSince = HeaderReader.readDate(
-                                header.getValue(), false);
-                    }
+                String ifModifiedSinceHeader = getLastHeaderValue(
+                        HeaderConstants.HEADER_IF_MODIFIED_SINCE);
+                String ifUnmodifiedSinceHeader = getLastHeaderValue(
+                        HeaderConstants.HEADER_IF_UNMODIFIED_SINCE);
+
+                if (ifModifiedSinceHeader != null) {
+                    ifModifiedSince = HeaderReader.readDate(
+                            ifModifiedSinceHeader, false);
+                }
+
+                if (ifUnmodifiedSinceHeader != null) {
+                    ifUnmodifiedSince = HeaderReader.readDate(
+                            ifUnmodifiedSinceHeader, false);
                 }
 
                 // Set the If-Modified-Since date
@@ -506,7 +508,7 @@ public class HttpInboundRequest extends Request implements InboundRequest {
 
         if (!this.cookiesAdded) {
             if (getHeaders() != null) {
-                String cookieValues = getHeaders().getValues(
+                String cookieValues = getHeaderValues(
                         HeaderConstants.HEADER_COOKIE);
 
                 if (cookieValues != null) {
@@ -520,6 +522,30 @@ public class HttpInboundRequest extends Request implements InboundRequest {
         return result;
     }
 
+    /**
+     * Returns the value of the first header with the given name.
+     * 
+     * @param name
+     *            The header name (case insensitive).
+     * @return The value of the first matching header or null.
+     */
+    private String getFirstHeaderValue(String name) {
+        return (getHeaders() == null) ? null : getHeaders().getFirstValue(
+                name, true);
+    }
+
+    /**
+     * Returns the headers with the given name.
+     * 
+     * @param name
+     *            The header name (case insensitive).
+     * @return The list of matching headers.
+     */
+    private List<Header> getHeaderList(String name) {
+        return (getHeaders() == null) ? new ArrayList<Header>() : getHeaders()
+                .subList(name, true);
+    }
+
     /*
      * (non-Javadoc)
      * 
@@ -531,6 +557,43 @@ public class HttpInboundRequest extends Request implements InboundRequest {
                 HeaderConstants.ATTRIBUTE_HEADERS);
     }
 
+    /**
+     * Returns the values of the headers with the given name, concatenated and
+     * separated by a comma.
+     * 
+     * @param name
+     *            The header name (case insensitive).
+     * @return The values of the matching headers or null.
+     */
+    private String getHeaderValues(String name) {
+        return (getHeaders() == null) ? null : getHeaders().getValues(name,
+                ",", true);
+    }
+
+    /**
+     * Returns the values of the headers with the given name.
+     * 
+     * @param name
+     *            The header name (case insensitive).
+     * @return The array of values.
+     */
+    private String[] getHeaderValuesArray(String name) {
+        return (getHeaders() == null) ? new String[0] : getHeaders()
+                .getValuesArray(name, true);
+    }
+
+    /**
+     * Returns the value of the last header with the given name.
+     * 
+     * @param name
+     *            The header name (case insensitive).
+     * @return The value of the last matching header or null.
+     */
+    private String getLastHeaderValue(String name) {
+        String[] values = getHeaderValuesArray(name);
+        return (values.length == 0) ? null : values[values.length - 1];
+    }
+
     @Override
     public ChallengeResponse getProxyChallengeResponse() {
         ChallengeResponse result = super.getProxyChallengeResponse();
@@ -538,7 +601,7 @@ public class HttpInboundRequest extends Request implements InboundRequest {
         if (!this.proxySecurityAdded) {
             if (getHeaders() != null) {
                 // Extract the header value
-                final String authorization = getHeaders().getValues(
+                final String authorization = getHeaderValues(
                         HeaderConstants.HEADER_PROXY_AUTHORIZATION);
 
                 // Set the challenge response
@@ -560,8 +623,7 @@ public class HttpInboundRequest extends Request implements InboundRequest {
         if (!this.rangesAdded) {
             if (getHeaders() != null) {
                 // Extract the header value
-                String ranges = getHeaders().getValues(
-                        HeaderConstants.HEADER_RANGE);
+                String ranges = getHeaderValues(HeaderConstants.HEADER_RANGE);
                 result.addAll(RangeReader.read(ranges));
             }
 
@@ -576,7 +638,7 @@ public class HttpInboundRequest extends Request implements InboundRequest {
         List<RecipientInfo> result = super.getRecipientsInfo();
 
         if (!recipientsInfoAdded && (getHeaders() != null)) {
-            for (String header : getHeaders().getValuesArray(
+            for (String header : getHeaderValuesArray(
                     HeaderConstants.HEADER_VIA)) {
                 new RecipientInfoReader(header).addValues(result);
             }
@@ -596,7 +658,7 @@ public class HttpInboundRequest extends Request implements InboundRequest {
     public Reference getReferrerRef() {
         if (!this.referrerAdded) {
             if (getHeaders() != null) {
-                final String referrerValue = getHeaders().getValues(
+                final String referrerValue = getHeaderValues(
                         HeaderConstants.HEADER_REFERRER);
 
                 if (referrerValue != null) {
@@ -625,7 +687,7 @@ public class HttpInboundRequest extends Request implements InboundRequest {
 
         if (!this.warningsAdded) {
             if (getHeaders() != null) {
-                for (String warning : getHeaders().getValuesArray(
+                for (String warning : getHeaderValuesArray(
                         HeaderConstants.HEADER_WARNING)) {
                     new WarningReader(warning).addValues(result);
                 }
@@ -663,8 +725,7 @@ public class HttpInboundRequest extends Request implements InboundRequest {
         }
 
         // Parse the host header
-        String host = (getHeaders() == null) ? null : getHeaders()
-                .getFirstValue(HeaderConstants.HEADER_HOST, true);
+        String host = getFirstHeaderValue(HeaderConstants.HEADER_HOST);
         String hostDomain = null;
         int hostPort = -1;
 
@@ -738,8 +799,7 @@ public class HttpInboundRequest extends Request implements InboundRequest {
         }
 
         // Set the request date
-        String dateHeader = (getHeaders() == null) ? null : getHeaders()
-                .getFirstValue(HeaderConstants.HEADER_DATE);
+        String dateHeader = getFirstHeaderValue(HeaderConstants.HEADER_DATE);
         Date date = null;
         if (dateHeader != null) {
             date = DateUtils.parse(dateHeader);
@@ -752,8 +812,8 @@ public class HttpInboundRequest extends Request implements InboundRequest {
         setDate(date);
 
         // Set the max forwards
-        String maxForwardsHeader = (getHeaders() == null) ? null : getHeaders()
-                .getFirstValue(HeaderConstants.HEADER_MAX_FORWARDS);
+        String maxForwardsHeader = getFirstHeaderValue(
+                HeaderConstants.HEADER_MAX_FORWARDS);
         if (maxForwardsHeader != null) {
             try {
                 setMaxForwards(Integer.parseInt(maxForwardsHeader));
@@ -128,6 +128,13 @@ public class HttpServerInboundWay extends ServerInboundWay {
         super.onReceived(message);
     }
 
+    @Override
+    protected void onRejected(Response response) {
+        // Keep the response in sequence with the pipelined ones
+        getMessages().add(response);
+        super.onRejected(response);
+    }
+
     @Override
     public void onTimeOut() {
         for (Response rsp : getMessages()) {
@@ -40,10 +40,9 @@ import java.util.logging.Level;
 import org.restlet.Response;
 import org.restlet.data.Status;
 import org.restlet.engine.header.Header;
-import org.restlet.engine.header.HeaderReader;
+import org.restlet.engine.header.HeaderLineParser;
 import org.restlet.engine.header.HeaderUtils;
 import org.restlet.engine.io.Buffer;
-import org.restlet.engine.io.BufferState;
 import org.restlet.engine.io.IoState;
 import org.restlet.engine.io.ReadableChunkedChannel;
 import org.restlet.engine.io.ReadableSelectionChannel;
@@ -68,6 +67,9 @@ public abstract class InboundWay extends Way {
     /** The NIO selection registration of the entity. */
     private volatile SelectionRegistration entityRegistration;
 
+    /** The parser of the start line and header lines. */
+    private final HeaderLineParser lineParser;
+
     /**
      * Constructor.
      * 
@@ -79,6 +81,8 @@ public abstract class InboundWay extends Way {
     public InboundWay(Connection<?> connection, int bufferSize) {
         super(connection, bufferSize);
         this.builderIndex = 0;
+        this.lineParser = new HeaderLineParser(256, getHelper()
+                .getMaxHeaderLineLength());
     }
 
     @Override
@@ -88,6 +92,15 @@ public abstract class InboundWay extends Way {
         this.entityRegistration = null;
     }
 
+    @Override
+    protected void clearLineBuilder() {
+        super.clearLineBuilder();
+
+        if (this.lineParser != null) {
+            this.lineParser.clear();
+        }
+    }
+
     /**
      * Returns the message entity if available.
      * 
@@ -153,16 +166,10 @@ public abstract class InboundWay extends Way {
      * @throws IOException
      */
     protected boolean fillLine() throws IOException {
-        boolean result = false;
-        setLineBuilderState(getBuffer().drain(getLineBuilder(),
-                getLineBuilderState()));
-
-        if (getLineBuilderState() == BufferState.DRAINING) {
-            result = true;
+        boolean result = getLineParser().parse(getBuffer().getBytes());
 
-            if (getLogger().isLoggable(Level.FINE)) {
-                getLogger().log(Level.FINE, getLineBuilder().toString());
-            }
+        if (result && getLogger().isLoggable(Level.FINE)) {
+            getLogger().log(Level.FINE, getLineParser().toString());
         }
 
         return result;
@@ -186,6 +193,15 @@ public abstract class InboundWay extends Way {
         return entityRegistration;
     }
 
+    /**
+     * Returns the parser of the start line and header lines.
+     * 
+     * @return The parser of the start line and header lines.
+     */
+    protected HeaderLineParser getLineParser() {
+        return lineParser;
+    }
+
     @Override
     public int getInterestOperations() {
         int result = 0;
@@ -215,7 +231,7 @@ public abstract class InboundWay extends Way {
 
         // Wakeup the controller to update the registrations,
         // since this callback can be called asynchronous
-        getHelper().getController().wakeup();
+        getConnection().getController().wakeup();
 
         if (getLogger().isLoggable(Level.FINER)) {
             getLogger().finer("Inbound message completed");
@@ -235,9 +251,10 @@ public abstract class InboundWay extends Way {
         while (continueReading && isLineReadable()) {
             // Parse next ready lines
             if (getMessageState() == MessageState.START) {
-                if (getLineBuilder().length() == 0) {
+                if (getLineParser().length() == 0) {
                     // Silently eat empty lines used for keep alive purpose
                     // sometimes (SIP)
+                    clearLineBuilder();
                     continueReading = false;
                 } else {
                     if (getHelper().getLogger().isLoggable(Level.FINE)) {
@@ -370,7 +387,7 @@ public abstract class InboundWay extends Way {
      * @throws IOException
      */
     protected Header readHeader() throws IOException {
-        Header header = HeaderReader.readHeader(getLineBuilder());
+        Header header = getLineParser().readHeader();
         clearLineBuilder();
         return header;
     }
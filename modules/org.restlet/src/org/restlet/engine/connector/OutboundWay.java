@@ -272,39 +272,7 @@ public abstract class OutboundWay extends Way {
             }
 
             setMessageState(MessageState.BODY);
-            ReadableByteChannel rbc = getActualMessage().getEntity()
-                    .getChannel();
-
-            if (rbc instanceof FileChannel) {
-                setEntityChannelType(EntityType.TRANSFERABLE);
-            } else if (rbc instanceof BlockableChannel) {
-                BlockableChannel bc = (BlockableChannel) rbc;
-
-                if (bc.isBlocking()) {
-                    setEntityChannelType(EntityType.BLOCKING);
-                } else {
-                    setEntityChannelType(EntityType.NON_BLOCKING);
-                }
-            } else if (rbc instanceof SelectableChannel) {
-                SelectableChannel sc = (SelectableChannel) rbc;
-
-                if (sc.isBlocking()) {
-                    setEntityChannelType(EntityType.BLOCKING);
-                } else {
-                    setEntityChannelType(EntityType.NON_BLOCKING);
-                }
-            } else {
-                setEntityChannelType(EntityType.BLOCKING);
-            }
-
-            if (getActualMessage().getEntity().getAvailableSize() == Representation.UNKNOWN_SIZE) {
-                setEntityChannel(new ReadableChunkingChannel(rbc, getBuffer()
-                        .capacity()));
-            } else {
-                setEntityChannel(new ReadableSizedChannel(rbc,
-                        getActualMessage().getEntity().getAvailableSize()));
-            }
-
+            openEntityChannel(getActualMessage().getEntity());
         } else {
             setMessageState(MessageState.END);
         }
@@ -458,10 +426,62 @@ public abstract class OutboundWay extends Way {
         }
     }
 
+    /**
+     * Opens the channel from which the entity is written, once the start line
+     * and the headers have been sent.
+     * 
+     * @param entity
+     *            The entity to write.
+     * @throws IOException
+     */
+    protected void openEntityChannel(Representation entity) throws IOException {
+        ReadableByteChannel rbc = entity.getChannel();
+
+        if (rbc instanceof FileChannel) {
+            setEntityChannelType(EntityType.TRANSFERABLE);
+        } else if (rbc instanceof BlockableChannel) {
+            BlockableChannel bc = (BlockableChannel) rbc;
+
+            if (bc.isBlocking()) {
+                setEntityChannelType(EntityType.BLOCKING);
+            } else {
+                setEntityChannelType(EntityType.NON_BLOCKING);
+            }
+        } else if (rbc instanceof SelectableChannel) {
+            SelectableChannel sc = (SelectableChannel) rbc;
+
+            if (sc.isBlocking()) {
+                setEntityChannelType(EntityType.BLOCKING);
+            } else {
+                setEntityChannelType(EntityType.NON_BLOCKING);
+            }
+        } else {
+            setEntityChannelType(EntityType.BLOCKING);
+        }
+
+        if (entity.getAvailableSize() == Representation.UNKNOWN_SIZE) {
+            setEntityChannel(new ReadableChunkingChannel(rbc, getBuffer()
+                    .capacity()));
+        } else {
+            setEntityChannel(new ReadableSizedChannel(rbc, entity
+                    .getAvailableSize()));
+        }
+    }
+
     @Override
     public int processIoBuffer() throws IOException {
         int result = super.processIoBuffer();
 
+        if ((getMessageState() == MessageState.BODY) && getBuffer().isEmpty()) {
+            // Start line and headers fully written, the entity can be directly
+            // transferred if supported
+            int transferred = transferEntity();
+
+            if (transferred > 0) {
+                result = Math.max(result, 0) + transferred;
+            }
+        }
+
         if (getMessage() != null) {
             if (getMessageState() == MessageState.END) {
                 // Message fully written, ready for a new one
@@ -528,6 +548,18 @@ public abstract class OutboundWay extends Way {
                 && (entity.getAvailableSize() == Representation.UNKNOWN_SIZE);
     }
 
+    /**
+     * Directly transfers the entity to the socket channel, bypassing the IO
+     * buffer. Invoked once the start line and the headers have been fully
+     * written. Does nothing by default.
+     * 
+     * @return The number of bytes transferred.
+     * @throws IOException
+     */
+    protected int transferEntity() throws IOException {
+        return 0;
+    }
+
     @Override
     public void updateState() {
         if ((getMessageState() == MessageState.IDLE) && (getMessage() != null)) {
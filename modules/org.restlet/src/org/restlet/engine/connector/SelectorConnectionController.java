@@ -0,0 +1,169 @@
+/**
+ * Copyright 2005-2012 Restlet S.A.S.
+ * 
+ * The contents of this file are subject to the terms of one of the following
+ * open source licenses: Apache 2.0 or LGPL 3.0 or LGPL 2.1 or CDDL 1.0 or EPL
+ * 1.0 (the "Licenses"). You can select the license that you prefer but you may
+ * not use this file except in compliance with one of these Licenses.
+ * 
+ * You can obtain a copy of the Apache 2.0 license at
+ * http://www.opensource.org/licenses/apache-2.0
+ * 
+ * You can obtain a copy of the LGPL 3.0 license at
+ * http://www.opensource.org/licenses/lgpl-3.0
+ * 
+ * You can obtain a copy of the LGPL 2.1 license at
+ * http://www.opensource.org/licenses/lgpl-2.1
+ * 
+ * You can obtain a copy of the CDDL 1.0 license at
+ * http://www.opensource.org/licenses/cddl1
+ * 
+ * You can obtain a copy of the EPL 1.0 license at
+ * http://www.opensource.org/licenses/eclipse-1.0
+ * 
+ * See the Licenses for the specific language governing permissions and
+ * limitations under the Licenses.
+ * 
+ * Alternatively, you can obtain a royalty free commercial license with less
+ * limitations, transferable or non-transferable, directly at
+ * http://www.restlet.com/products/restlet-framework
+ * 
+ * Restlet is a registered trademark of Restlet S.A.S.
+ */
+
+package org.restlet.engine.connector;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import org.restlet.Response;
+
+/**
+ * Controls the IO work of a subset of the connections accepted by a parent
+ * {@link ServerConnectionController}. Each instance runs its own NIO selector
+ * loop and has its own queues of inbound and outbound messages, allowing the
+ * connections of a server connector to be spread over several threads.
+ * 
+ * @author Jerome Louvel
+ */
+public class SelectorConnectionController extends ConnectionController {
+
+    /** The set of connections managed by this controller. */
+    private final List<Connection<?>> connections;
+
+    /** The queue of inbound messages. */
+    private final Queue<Response> inboundMessages;
+
+    /** The queue of outbound messages. */
+    private final Queue<Response> outboundMessages;
+
+    /** The parent controller accepting the connections. */
+    private final ServerConnectionController parent;
+
+    /**
+     * Constructor.
+     * 
+     * @param parent
+     *            The parent controller accepting the connections.
+     */
+    public SelectorConnectionController(ServerConnectionController parent) {
+        super(parent.getHelper());
+        this.parent = parent;
+        this.connections = new CopyOnWriteArrayList<Connection<?>>();
+        this.inboundMessages = new ConcurrentLinkedQueue<Response>();
+        this.outboundMessages = new ConcurrentLinkedQueue<Response>();
+    }
+
+    /**
+     * Attaches a newly accepted connection to this controller and wakes up the
+     * selector thread so that the connection registration is processed.
+     * 
+     * @param connection
+     *            The connection to attach.
+     */
+    public void attach(Connection<?> connection) {
+        getConnections().add(connection);
+        wakeup();
+    }
+
+    @Override
+    protected void controlConnections() throws IOException {
+        for (Connection<?> connection : getConnections()) {
+            controlConnection(connection);
+        }
+    }
+
+    /**
+     * Controls the pending messages of the queues of this controller, instead
+     * of the ones of the parent helper.
+     */
+    @Override
+    protected void controlMessages() {
+        getHelper().control(getInboundMessages(), getOutboundMessages());
+    }
+
+    /**
+     * Does nothing as the overload state is controlled by the parent
+     * controller.
+     */
+    @Override
+    protected void controlOverload() {
+    }
+
+    @Override
+    protected void detach(Connection<?> connection) {
+        getConnections().remove(connection);
+        super.detach(connection);
+    }
+
+    /**
+     * Returns the set of connections managed by this controller.
+     * 
+     * @return The set of connections managed by this controller.
+     */
+    public List<Connection<?>> getConnections() {
+        return connections;
+    }
+
+    @Override
+    protected Queue<Response> getInboundMessages() {
+        return inboundMessages;
+    }
+
+    /**
+     * Returns the number of connections managed by this controller.
+     * 
+     * @return The number of connections managed by this controller.
+     */
+    public int getLoad() {
+        return getConnections().size();
+    }
+
+    @Override
+    protected Queue<Response> getOutboundMessages() {
+        return outboundMessages;
+    }
+
+    /**
+     * Returns the parent controller accepting the connections.
+     * 
+     * @return The parent controller accepting the connections.
+     */
+    public ServerConnectionController getParent() {
+        return parent;
+    }
+
+    /**
+     * Returns the overload state of the parent controller.
+     * 
+     * @return True if the parent controller is overloaded.
+     */
+    @Override
+    public boolean isOverloaded() {
+        return getParent().isOverloaded();
+    }
+
+}
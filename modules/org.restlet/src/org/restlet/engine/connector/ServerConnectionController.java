@@ -41,15 +41,21 @@ import java.nio.channels.ClosedByInterruptException;
 import java.nio.channels.SelectionKey;
 import java.nio.channels.SocketChannel;
 import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
 import java.util.logging.Level;
 
 import org.restlet.Server;
 import org.restlet.engine.io.IoUtils;
+import org.restlet.engine.log.LoggingThreadFactory;
 
 /**
  * Controls the IO work of parent server helper and manages its connections.
- * Listens on a server socket channel for incoming connections.
+ * Listens on a server socket channel for incoming connections. If several
+ * selector threads are configured, the accepted connections are spread over
+ * several {@link SelectorConnectionController} instances, each one running its
+ * own NIO selector loop.
  * 
  * @author Jerome Louvel
  */
@@ -58,6 +64,12 @@ public class ServerConnectionController extends ConnectionController {
     /** The latch to countdown when the socket is ready to accept connections. */
     private final CountDownLatch latch;
 
+    /** The selector controllers among which the connections are spread. */
+    private volatile SelectorConnectionController[] selectorControllers;
+
+    /** The service running the selector controllers. */
+    private volatile ExecutorService selectorService;
+
     /**
      * Constructor.
      * 
@@ -84,6 +96,35 @@ public class ServerConnectionController extends ConnectionController {
         }
     }
 
+    @Override
+    protected void controlConnections() throws IOException {
+        // Connections are controlled by the selector controllers if any
+        if (getSelectorControllers() == null) {
+            super.controlConnections();
+        }
+    }
+
+    /**
+     * Creates the selector controllers if more than one selector thread is
+     * configured.
+     * 
+     * @return The selector controllers or null.
+     */
+    protected SelectorConnectionController[] createSelectorControllers() {
+        SelectorConnectionController[] result = null;
+        int selectorThreads = getHelper().getSelectorThreads();
+
+        if (selectorThreads > 1) {
+            result = new SelectorConnectionController[selectorThreads];
+
+            for (int i = 0; i < result.length; i++) {
+                result[i] = new SelectorConnectionController(this);
+            }
+        }
+
+        return result;
+    }
+
     /**
      * Returns the parent server helper.
      * 
@@ -93,6 +134,42 @@ public class ServerConnectionController extends ConnectionController {
         return (ServerConnectionHelper) super.getHelper();
     }
 
+    /**
+     * Returns the selector controllers among which the connections are spread
+     * or null if the connections are controlled by this controller.
+     * 
+     * @return The selector controllers or null.
+     */
+    public SelectorConnectionController[] getSelectorControllers() {
+        return selectorControllers;
+    }
+
+    /**
+     * Returns the controller that should manage a newly accepted connection.
+     * If selector controllers are available, the least loaded one is
+     * returned.
+     * 
+     * @return The controller that should manage a new connection.
+     */
+    protected ConnectionController getTargetController() {
+        ConnectionController result = this;
+        SelectorConnectionController[] controllers = getSelectorControllers();
+
+        if (controllers != null) {
+            SelectorConnectionController target = controllers[0];
+
+            for (int i = 1; i < controllers.length; i++) {
+                if (controllers[i].getLoad() < target.getLoad()) {
+                    target = controllers[i];
+                }
+            }
+
+            result = target;
+        }
+
+        return result;
+    }
+
     @Override
     protected void onSelected(SelectionKey key) throws IOException {
         if (!key.isAcceptable()) {
@@ -112,14 +189,20 @@ public class ServerConnectionController extends ConnectionController {
                     if ((getHelper().getMaxTotalConnections() == -1)
                             || (connectionsCount <= getHelper()
                                     .getMaxTotalConnections())) {
+                        ConnectionController target = getTargetController();
                         Connection<Server> connection = getHelper().checkout(
                                 socketChannel,
-                                this,
+                                target,
                                 (InetSocketAddress) socketChannel.socket()
                                         .getRemoteSocketAddress());
                         connection.open();
                         getHelper().getConnections().add(connection);
 
+                        if (target != this) {
+                            ((SelectorConnectionController) target)
+                                    .attach(connection);
+                        }
+
                         if (getHelper().getLogger().isLoggable(Level.FINE)) {
                             getHelper().getLogger().fine(
                                     "Connection from \""
@@ -157,6 +240,27 @@ public class ServerConnectionController extends ConnectionController {
     protected void doInit() {
         super.doInit();
 
+        // Start the selector threads if needed
+        SelectorConnectionController[] controllers = createSelectorControllers();
+
+        if (controllers != null) {
+            this.selectorService = Executors.newFixedThreadPool(
+                    controllers.length, new LoggingThreadFactory(getHelper()
+                            .getLogger(), getHelper().isControllerDaemon()));
+
+            for (SelectorConnectionController controller : controllers) {
+                this.selectorService.submit(controller);
+            }
+
+            if (getHelper().getLogger().isLoggable(Level.FINE)) {
+                getHelper().getLogger().fine(
+                        "Accepted connections spread over "
+                                + controllers.length + " selector threads");
+            }
+        }
+
+        this.selectorControllers = controllers;
+
         // Register interest in NIO accept events
         try {
             getHelper().getServerSocketChannel().register(getSelector(),
@@ -169,4 +273,28 @@ public class ServerConnectionController extends ConnectionController {
 
         this.latch.countDown();
     }
+
+    @Override
+    protected void doRelease() {
+        try {
+            // Stop the selector threads if needed
+            if (this.selectorService != null) {
+                for (SelectorConnectionController controller : getSelectorControllers()) {
+                    controller.shutdown();
+                }
+
+                this.selectorService.shutdown();
+
+                try {
+                    this.selectorService.awaitTermination(10, TimeUnit.SECONDS);
+                } catch (InterruptedException ex) {
+                    getHelper().getLogger().log(Level.FINE,
+                            "Interruption while shutting down the selectors",
+                            ex);
+                }
+            }
+        } finally {
+            super.doRelease();
+        }
+    }
 }
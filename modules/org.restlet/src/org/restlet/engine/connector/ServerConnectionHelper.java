@@ -74,6 +74,15 @@ import org.restlet.data.Status;
  * <td>Enable/disable the SO_REUSEADDR socket option. See
  * java.io.ServerSocket#reuseAddress property for additional details.</td>
  * </tr>
+ * <tr>
+ * <td>selectorThreads</td>
+ * <td>int</td>
+ * <td>Number of available processors</td>
+ * <td>Number of NIO selector threads among which the accepted connections are
+ * spread. The main controller thread is then dedicated to accepting new
+ * connections. If the value is '1' or lower, a single controller thread
+ * accepts and processes all the connections.</td>
+ * </tr>
  * </table>
  * 
  * @author Jerome Louvel
@@ -190,8 +199,10 @@ public abstract class ServerConnectionHelper extends ConnectionHelper<Server> {
 
             if (!response.isCommitted() && response.isAutoCommitting()) {
                 response.setCommitted(true);
-                getOutboundMessages().add(response);
-                getController().wakeup();
+                ConnectionController controller = ((InboundRequest) response
+                        .getRequest()).getConnection().getController();
+                controller.getOutboundMessages().add(response);
+                controller.wakeup();
             }
         }
     }
@@ -210,8 +221,9 @@ public abstract class ServerConnectionHelper extends ConnectionHelper<Server> {
                         connection.getOutboundWay().handle(response);
                     } else {
                         // Put the response at the end of the queue
-                        getOutboundMessages().add(response);
-                        getController().wakeup();
+                        connection.getController().getOutboundMessages()
+                                .add(response);
+                        connection.getController().wakeup();
                     }
                 } catch (IOException e) {
                     getLogger().log(Level.FINE,
@@ -231,6 +243,19 @@ public abstract class ServerConnectionHelper extends ConnectionHelper<Server> {
         return (ServerConnectionController) super.getController();
     }
 
+    /**
+     * Returns the number of NIO selector threads among which the accepted
+     * connections are spread. If the value is '1' or lower, a single
+     * controller thread accepts and processes all the connections.
+     * 
+     * @return The number of NIO selector threads.
+     */
+    public int getSelectorThreads() {
+        return Integer.parseInt(getHelpedParameters().getFirstValue(
+                "selectorThreads",
+                Integer.toString(Runtime.getRuntime().availableProcessors())));
+    }
+
     /**
      * Returns the server socket channel.
      * 
@@ -34,12 +34,16 @@
 package org.restlet.engine.connector;
 
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.logging.Level;
 
 import org.restlet.Message;
 import org.restlet.Request;
 import org.restlet.Response;
 import org.restlet.Server;
+import org.restlet.data.Status;
 import org.restlet.engine.header.HeaderUtils;
+import org.restlet.engine.io.Buffer;
 import org.restlet.engine.io.IoState;
 import org.restlet.representation.Representation;
 
@@ -50,6 +54,9 @@ import org.restlet.representation.Representation;
  */
 public abstract class ServerInboundWay extends InboundWay {
 
+    /** Indicates if a request has been rejected, ending the reading. */
+    private volatile boolean rejected;
+
     /**
      * Constructor.
      * 
@@ -60,6 +67,13 @@ public abstract class ServerInboundWay extends InboundWay {
      */
     public ServerInboundWay(Connection<?> connection, int bufferSize) {
         super(connection, bufferSize);
+        this.rejected = false;
+    }
+
+    @Override
+    public void clear() {
+        super.clear();
+        this.rejected = false;
     }
 
     /**
@@ -71,6 +85,61 @@ public abstract class ServerInboundWay extends InboundWay {
      */
     protected abstract Response createResponse(Request request);
 
+    /**
+     * Discards the bytes remaining in the given buffer.
+     * 
+     * @param buffer
+     *            The buffer to drain.
+     * @return The number of bytes discarded.
+     */
+    private int discard(Buffer buffer) {
+        ByteBuffer bytes = buffer.getBytes();
+        int result = bytes.remaining();
+        bytes.position(bytes.limit());
+        return result;
+    }
+
+    /**
+     * Reads the current message line. When a header line exceeds the maximum
+     * length, the request is rejected with a
+     * {@link Status#CLIENT_ERROR_BAD_REQUEST} status without being handled and
+     * the connection is closed once the response is sent.
+     */
+    @Override
+    protected boolean fillLine() throws IOException {
+        boolean result = false;
+
+        try {
+            result = super.fillLine();
+        } catch (IOException e) {
+            Response response = getMessage();
+
+            if (!getLineParser().isLineTooLong() || (response == null)) {
+                throw e;
+            }
+
+            getLogger().log(Level.FINE,
+                    "Rejecting a request with a header line too long", e);
+
+            if (getHeaders() != null) {
+                ((InboundRequest) response.getRequest())
+                        .setHeaders(getHeaders());
+            }
+
+            // Stop reading from the connection, closed after the response
+            this.rejected = true;
+            getConnection().setPersistent(false);
+            onMessageCompleted(false);
+            clearLineBuilder();
+            discard(getBuffer());
+            response.setStatus(Status.CLIENT_ERROR_BAD_REQUEST,
+                    "Header line too long");
+            onRejected(response);
+        }
+
+        return result;
+    }
+
     @Override
     public Message getActualMessage() {
         return getMessage().getRequest();
@@ -131,8 +200,8 @@ public abstract class ServerInboundWay extends InboundWay {
      */
     protected void onReceived(Response message) throws IOException {
         if (message.getRequest() != null) {
-            // Add it to the helper queue
-            getHelper().getInboundMessages().add(message);
+            // Add it to the controller queue
+            getConnection().getController().getInboundMessages().add(message);
 
             if (!message.getRequest().isEntityAvailable()) {
                 // The request has been completely read
@@ -141,6 +210,33 @@ public abstract class ServerInboundWay extends InboundWay {
         }
     }
 
+    @Override
+    public int onDrain(Buffer buffer, int maxDrained, Object... args)
+            throws IOException {
+        int result = 0;
+
+        if (this.rejected) {
+            // Discard the bytes received after a rejected request
+            result = discard(buffer);
+        } else {
+            result = super.onDrain(buffer, maxDrained, args);
+        }
+
+        return result;
+    }
+
+    /**
+     * Call back invoked when a request is rejected before being completely
+     * received. The response is sent back without handling the request.
+     * 
+     * @param response
+     *            The response to the rejected request.
+     */
+    protected void onRejected(Response response) {
+        response.setCommitted(true);
+        getConnection().commit(response);
+    }
+
     @Override
     protected void readStartLine() throws IOException {
         String requestMethod = null;
@@ -149,7 +245,7 @@ public abstract class ServerInboundWay extends InboundWay {
 
         int i = 0;
         int start = 0;
-        int size = getLineBuilder().length();
+        int size = getLineParser().length();
         char next;
 
         if (size == 0) {
@@ -157,10 +253,10 @@ public abstract class ServerInboundWay extends InboundWay {
         } else {
             // Parse the request method
             for (i = start; (requestMethod == null) && (i < size); i++) {
-                next = getLineBuilder().charAt(i);
+                next = getLineParser().charAt(i);
 
                 if (HeaderUtils.isSpace(next)) {
-                    requestMethod = getLineBuilder().substring(start, i);
+                    requestMethod = getLineParser().substring(start, i);
                     start = i + 1;
                 }
             }
@@ -172,10 +268,10 @@ public abstract class ServerInboundWay extends InboundWay {
 
             // Parse the request URI
             for (i = start; (requestUri == null) && (i < size); i++) {
-                next = getLineBuilder().charAt(i);
+                next = getLineParser().charAt(i);
 
                 if (HeaderUtils.isSpace(next)) {
-                    requestUri = getLineBuilder().substring(start, i);
+                    requestUri = getLineParser().substring(start, i);
                     start = i + 1;
                 }
             }
@@ -191,11 +287,11 @@ public abstract class ServerInboundWay extends InboundWay {
 
             // Parse the protocol version
             for (i = start; (protocol == null) && (i < size); i++) {
-                next = getLineBuilder().charAt(i);
+                next = getLineParser().charAt(i);
             }
 
             if (i == size) {
-                protocol = getLineBuilder().substring(start, i);
+                protocol = getLineParser().substring(start, i);
                 start = i + 1;
             }
 
@@ -216,7 +312,7 @@ public abstract class ServerInboundWay extends InboundWay {
 
     @Override
     public void updateState() {
-        if (getMessageState() == MessageState.IDLE) {
+        if ((getMessageState() == MessageState.IDLE) && !this.rejected) {
             setMessageState(MessageState.START);
         }
 
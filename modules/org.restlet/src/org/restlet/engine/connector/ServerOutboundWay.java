@@ -34,25 +34,41 @@
 package org.restlet.engine.connector;
 
 import java.io.IOException;
+import java.nio.channels.FileChannel;
 import java.util.logging.Level;
 
 import org.restlet.Request;
 import org.restlet.Response;
 import org.restlet.Server;
 import org.restlet.data.Method;
+import org.restlet.data.Range;
 import org.restlet.data.Status;
+import org.restlet.engine.application.RangeRepresentation;
 import org.restlet.engine.header.Header;
 import org.restlet.engine.header.HeaderUtils;
+import org.restlet.engine.io.Buffer;
+import org.restlet.representation.FileRepresentation;
 import org.restlet.representation.Representation;
 import org.restlet.util.Series;
 
 /**
- * Server-side outbound way.
+ * Server-side outbound way. File entities, possibly wrapped in a
+ * {@link RangeRepresentation}, are directly transferred from their file channel
+ * to the socket channel when the connection supports it.
  * 
  * @author Jerome Louvel
  */
 public abstract class ServerOutboundWay extends OutboundWay {
 
+    /** The file channel directly transferred to the socket channel. */
+    private volatile FileChannel transferChannel;
+
+    /** The position in the file of the next byte to transfer. */
+    private volatile long transferPosition;
+
+    /** The number of bytes remaining to be transferred. */
+    private volatile long transferRemaining;
+
     /**
      * Constructor.
      * 
@@ -63,6 +79,9 @@ public abstract class ServerOutboundWay extends OutboundWay {
      */
     public ServerOutboundWay(Connection<Server> connection, int bufferSize) {
         super(connection, bufferSize);
+        this.transferChannel = null;
+        this.transferPosition = 0;
+        this.transferRemaining = 0;
     }
 
     @Override
@@ -143,6 +162,30 @@ public abstract class ServerOutboundWay extends OutboundWay {
         HeaderUtils.addResponseHeaders(getMessage(), headers);
     }
 
+    @Override
+    public void clear() {
+        super.clear();
+        clearTransfer();
+    }
+
+    /**
+     * Clears the state of the direct transfer.
+     */
+    protected void clearTransfer() {
+        this.transferChannel = null;
+        this.transferPosition = 0;
+        this.transferRemaining = 0;
+    }
+
+    /**
+     * Returns false while the entity is directly transferred to the socket
+     * channel.
+     */
+    @Override
+    public boolean couldFill(Buffer buffer, Object... args) {
+        return !isTransferring() && super.couldFill(buffer, args);
+    }
+
     @Override
     public Response getActualMessage() {
         return getMessage();
@@ -154,6 +197,29 @@ public abstract class ServerOutboundWay extends OutboundWay {
         return (Connection<Server>) super.getConnection();
     }
 
+    /**
+     * Returns the file channel directly transferred to the socket channel.
+     * 
+     * @return The file channel directly transferred or null.
+     */
+    protected FileChannel getTransferChannel() {
+        return transferChannel;
+    }
+
+    @Override
+    protected boolean hasIoInterest() {
+        return super.hasIoInterest() || isTransferring();
+    }
+
+    /**
+     * Indicates if the entity is directly transferred to the socket channel.
+     * 
+     * @return True if the entity is directly transferred.
+     */
+    public boolean isTransferring() {
+        return getTransferChannel() != null;
+    }
+
     @Override
     public void onMessageCompleted(boolean endDetected) throws IOException {
         if (getMessage() != null) {
@@ -192,6 +258,115 @@ public abstract class ServerOutboundWay extends OutboundWay {
         }
 
         super.onMessageCompleted(endDetected);
+        clearTransfer();
+    }
+
+    /**
+     * Directly transfers the entity from its file channel when possible,
+     * without opening the buffered entity channel.
+     */
+    @Override
+    protected void openEntityChannel(Representation entity) throws IOException {
+        if (!prepareTransfer(entity)) {
+            super.openEntityChannel(entity);
+        }
+    }
+
+    /**
+     * Prepares the direct transfer of the entity to the socket channel if
+     * possible. This requires a plain connection and a file entity of known
+     * size, optionally wrapped in a {@link RangeRepresentation}. Otherwise,
+     * the entity is written through the IO buffer.
+     * 
+     * @param entity
+     *            The entity to send.
+     * @return True if the entity will be directly transferred.
+     * @throws IOException
+     */
+    protected boolean prepareTransfer(Representation entity)
+            throws IOException {
+        long size = entity.getAvailableSize();
+
+        if (!getConnection().isTransferable() || (size <= 0)
+                || shouldBeChunked(entity)) {
+            return false;
+        }
+
+        FileRepresentation fileRepresentation = null;
+        long position = 0;
+
+        if (entity instanceof FileRepresentation) {
+            if (entity.getRange() == null) {
+                fileRepresentation = (FileRepresentation) entity;
+            }
+        } else if (entity instanceof RangeRepresentation) {
+            Representation wrapped = ((RangeRepresentation) entity)
+                    .getWrappedRepresentation();
+            Range range = entity.getRange();
+
+            if ((wrapped instanceof FileRepresentation) && (range != null)
+                    && (wrapped.getRange() == null)) {
+                fileRepresentation = (FileRepresentation) wrapped;
+
+                if (range.getIndex() != Range.INDEX_LAST) {
+                    position = range.getIndex();
+                } else if (range.getSize() != Range.SIZE_MAX) {
+                    position = wrapped.getSize() - range.getSize();
+                }
+            }
+        }
+
+        if ((fileRepresentation != null)
+                && (fileRepresentation.getFile() != null) && (position >= 0)) {
+            // Open the file channel once, reusing the channel of the
+            // representation which might share a cached file content
+            this.transferChannel = fileRepresentation.getChannel();
+            this.transferPosition = position;
+            this.transferRemaining = size;
+            setEntityChannelType(EntityType.TRANSFERABLE);
+            setEntityChannel(this.transferChannel);
+
+            if (getLogger().isLoggable(Level.FINER)) {
+                getLogger().finer(
+                        "Directly transferring " + size + " bytes of "
+                                + fileRepresentation.getFile());
+            }
+        }
+
+        return isTransferring();
+    }
+
+    @Override
+    protected int transferEntity() throws IOException {
+        int result = 0;
+
+        if (isTransferring()) {
+            long transferred = getTransferChannel().transferTo(
+                    this.transferPosition,
+                    Math.min(this.transferRemaining, Integer.MAX_VALUE),
+                    getConnection().getSocketChannel());
+
+            if (transferred > 0) {
+                getConnection().onActivity();
+                this.transferPosition += transferred;
+                this.transferRemaining -= transferred;
+                result = (int) transferred;
+
+                if (getLogger().isLoggable(Level.FINER)) {
+                    getLogger().log(Level.FINER,
+                            transferred + " bytes transferred");
+                }
+            } else if (this.transferPosition >= getTransferChannel().size()) {
+                throw new IOException(
+                        "The file entity ended before its expected size");
+            }
+
+            if (this.transferRemaining == 0) {
+                setMessageState(MessageState.END);
+            }
+        }
+
+        return result;
     }
 
     @Override
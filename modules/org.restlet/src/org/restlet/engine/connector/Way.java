@@ -97,7 +97,9 @@ public abstract class Way implements SelectionListener, CompletionListener,
      */
     public Way(Connection<?> connection, int bufferSize) {
         this.connection = connection;
-        this.buffer = new Buffer(bufferSize, getHelper().isDirectBuffers());
+        this.buffer = (getHelper().getBufferPool() == null) ? new Buffer(
+                bufferSize, getHelper().isDirectBuffers()) : new Buffer(
+                bufferSize, getHelper().getBufferPool());
         this.headers = null;
         this.ioState = IoState.IDLE;
         this.lineBuilder = new StringBuilder();
@@ -135,6 +137,7 @@ public abstract class Way implements SelectionListener, CompletionListener,
         }
 
         this.buffer.clear();
+        this.buffer.release();
         this.headers = null;
         this.ioState = IoState.IDLE;
         clearLineBuilder();
@@ -339,6 +342,7 @@ public abstract class Way implements SelectionListener, CompletionListener,
         setMessage(null);
         setHeaders(null);
         getBuffer().clear();
+        getBuffer().release();
     }
 
     /**
@@ -451,6 +455,8 @@ public abstract class Way implements SelectionListener, CompletionListener,
             } else if ((getIoState() == IoState.PROCESSING)) {
                 onPostProcessing();
             }
+
+            releaseBuffer();
         } catch (Exception e) {
             getConnection().onError("Error while processing a connection", e,
                     Status.CONNECTOR_ERROR_COMMUNICATION);
@@ -492,6 +498,17 @@ public abstract class Way implements SelectionListener, CompletionListener,
         return getBuffer().process(this, 0);
     }
 
+    /**
+     * Gives the byte buffer back to its pool if the way isn't processing IO and
+     * no byte is in flight.
+     */
+    protected void releaseBuffer() {
+        if ((getIoState() != IoState.PROCESSING)
+                && (getIoState() != IoState.READY)) {
+            getBuffer().release();
+        }
+    }
+
     /**
      * Sets the response headers to be written.
      * 
@@ -592,6 +609,7 @@ public abstract class Way implements SelectionListener, CompletionListener,
         }
 
         getRegistration().setInterestOperations(getInterestOperations());
+        releaseBuffer();
     }
 
 }
@@ -33,7 +33,12 @@
 
 package org.restlet.engine.converter;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
 import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.logging.Level;
 
 import org.restlet.Context;
@@ -44,12 +49,101 @@ import org.restlet.representation.Variant;
 import org.restlet.resource.Resource;
 
 /**
- * Utilities for the converter service.
+ * Utilities for the converter service. The selected converter helpers and the
+ * convertible variants are cached as they only depend on the classes and media
+ * types involved. The caches are reset when the list of registered converters
+ * changes.
  * 
  * @author Jerome Louvel
  */
 public class ConverterUtils {
 
+    /**
+     * Decisions made for a given list of registered converter helpers.
+     */
+    private static final class Decisions {
+
+        /** The registered converter helpers when the decisions were made. */
+        private final ConverterHelper[] converters;
+
+        /** The best helpers to convert a representation into an object. */
+        private final ConcurrentMap<List<Object>, ConverterHelper> toObject;
+
+        /** The best helpers to convert an object into a representation. */
+        private final ConcurrentMap<List<Object>, ConverterHelper> toRepresentation;
+
+        /** The variants that can be converted from a given class. */
+        private final ConcurrentMap<Class<?>, List<VariantInfo>> variants;
+
+        /**
+         * Constructor.
+         * 
+         * @param converters
+         *            The registered converter helpers.
+         */
+        public Decisions(List<ConverterHelper> converters) {
+            this.converters = converters.toArray(new ConverterHelper[0]);
+            this.toObject = new ConcurrentHashMap<List<Object>, ConverterHelper>();
+            this.toRepresentation = new ConcurrentHashMap<List<Object>, ConverterHelper>();
+            this.variants = new ConcurrentHashMap<Class<?>, List<VariantInfo>>();
+        }
+
+        /**
+         * Indicates if the decisions were made for the given list of
+         * registered converter helpers.
+         * 
+         * @param registered
+         *            The registered converter helpers.
+         * @return True if the decisions were made for the given converters.
+         */
+        public boolean matches(List<ConverterHelper> registered) {
+            boolean result = (registered.size() == this.converters.length);
+            Iterator<ConverterHelper> iter = registered.iterator();
+
+            for (int i = 0; result && (i < this.converters.length)
+                    && iter.hasNext(); i++) {
+                result = (iter.next() == this.converters[i]);
+            }
+
+            return result;
+        }
+
+        /**
+         * Caches a decision, clearing the map first if it became too large.
+         * 
+         * @param <K>
+         *            The type of key.
+         * @param <V>
+         *            The type of decision.
+         * @param map
+         *            The decisions map.
+         * @param key
+         *            The decision key.
+         * @param value
+         *            The decision.
+         */
+        public <K, V> void put(ConcurrentMap<K, V> map, K key, V value) {
+            if (map.size() >= MAX_DECISIONS) {
+                map.clear();
+            }
+
+            map.put(key, value);
+        }
+    }
+
+    /** The maximum number of cached decisions of each kind. */
+    private static final int MAX_DECISIONS = 1000;
+
+    /** The current converter decisions. */
+    private static volatile Decisions decisions;
+
+    /**
+     * Clears the cached converter decisions.
+     */
+    public static void clearCache() {
+        decisions = null;
+    }
+
     /**
      * Returns the best converter helper matching the given parameters.
      * 
@@ -63,27 +157,41 @@ public class ConverterUtils {
      */
     public static ConverterHelper getBestHelper(Object source, Variant target,
             Resource resource) {
-        ConverterHelper result = null;
-        float bestScore = -1.0F;
-        float currentScore;
-
-        for (ConverterHelper ch : Engine.getInstance()
-                .getRegisteredConverters()) {
-            if (ch != null) {
-                try {
-                    currentScore = ch.score(source, target, resource);
+        Decisions decisions = getDecisions();
+        List<Object> key = Arrays.asList(
+                (source == null) ? null : source.getClass(),
+                (target == null) ? null : target.getMediaType(),
+                (target == null) ? null : target.getCharacterSet(),
+                (resource == null) ? null : resource.getClass());
+        ConverterHelper result = decisions.toRepresentation.get(key);
 
-                    if (currentScore > bestScore) {
-                        bestScore = currentScore;
-                        result = ch;
+        if (result == null) {
+            float bestScore = -1.0F;
+            float currentScore;
+            boolean failed = false;
+
+            for (ConverterHelper ch : decisions.converters) {
+                if (ch != null) {
+                    try {
+                        currentScore = ch.score(source, target, resource);
+
+                        if (currentScore > bestScore) {
+                            bestScore = currentScore;
+                            result = ch;
+                        }
+                    } catch (Exception e) {
+                        failed = true;
+                        Context.getCurrentLogger().log(
+                                Level.SEVERE,
+                                "Unable get the score of the " + ch
+                                        + " converter helper.", e);
                     }
-                } catch (Exception e) {
-                    Context.getCurrentLogger().log(
-                            Level.SEVERE,
-                            "Unable get the score of the " + ch
-                                    + " converter helper.", e);
                 }
             }
+
+            if ((result != null) && !failed) {
+                decisions.put(decisions.toRepresentation, key, result);
+            }
         }
 
         return result;
@@ -104,20 +212,51 @@ public class ConverterUtils {
      */
     public static <T> ConverterHelper getBestHelper(Representation source,
             Class<T> target, Resource resource) {
-        ConverterHelper result = null;
-        float bestScore = -1.0F;
-        float currentScore;
-
-        for (ConverterHelper ch : Engine.getInstance()
-                .getRegisteredConverters()) {
-            if (ch != null) {
-                currentScore = ch.score(source, target, resource);
-
-                if (currentScore > bestScore) {
-                    bestScore = currentScore;
-                    result = ch;
+        Decisions decisions = getDecisions();
+        List<Object> key = Arrays.asList(
+                (source == null) ? null : source.getClass(),
+                (source == null) ? null : source.getMediaType(),
+                (source == null) ? null : source.getCharacterSet(), target,
+                (resource == null) ? null : resource.getClass());
+        ConverterHelper result = decisions.toObject.get(key);
+
+        if (result == null) {
+            float bestScore = -1.0F;
+            float currentScore;
+
+            for (ConverterHelper ch : decisions.converters) {
+                if (ch != null) {
+                    currentScore = ch.score(source, target, resource);
+
+                    if (currentScore > bestScore) {
+                        bestScore = currentScore;
+                        result = ch;
+                    }
                 }
             }
+
+            if (result != null) {
+                decisions.put(decisions.toObject, key, result);
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * Returns the converter decisions for the currently registered converter
+     * helpers.
+     * 
+     * @return The current converter decisions.
+     */
+    private static Decisions getDecisions() {
+        List<ConverterHelper> registered = Engine.getInstance()
+                .getRegisteredConverters();
+        Decisions result = decisions;
+
+        if ((result == null) || !result.matches(registered)) {
+            result = new Decisions(registered);
+            decisions = result;
         }
 
         return result;
@@ -125,7 +264,8 @@ public class ConverterUtils {
 
     /**
      * Returns the list of variants that can be converted from a given object
-     * class.
+     * class. When no target variant is given, the list computed for the
+     * source class is cached and a copy is returned.
      * 
      * @param sourceClass
      *            The source class.
@@ -136,17 +276,55 @@ public class ConverterUtils {
     public static List<VariantInfo> getVariants(Class<?> sourceClass,
             Variant targetVariant) {
         List<VariantInfo> result = null;
+        Decisions decisions = getDecisions();
+        boolean cacheable = (targetVariant == null) && (sourceClass != null);
+        List<VariantInfo> cached = cacheable ? decisions.variants
+                .get(sourceClass) : null;
+
+        if (cached == null) {
+            for (ConverterHelper ch : decisions.converters) {
+                if (ch != null) {
+                    result = ch.addVariants(sourceClass, targetVariant, result);
+                }
+            }
+
+            if (cacheable && (result != null)) {
+                cached = new ArrayList<VariantInfo>(result.size());
+
+                for (VariantInfo variant : result) {
+                    cached.add(copy(variant));
+                }
 
-        for (ConverterHelper ch : Engine.getInstance()
-                .getRegisteredConverters()) {
-            if (ch != null) {
-                result = ch.addVariants(sourceClass, targetVariant, result);
+                decisions.put(decisions.variants, sourceClass, cached);
+            }
+        } else {
+            result = new ArrayList<VariantInfo>(cached.size());
+
+            for (VariantInfo variant : cached) {
+                result.add(copy(variant));
             }
         }
 
         return result;
     }
 
+    /**
+     * Copies a variant so that cached variants can't be modified by callers.
+     * 
+     * @param variant
+     *            The variant to copy.
+     * @return The copied variant.
+     */
+    private static VariantInfo copy(VariantInfo variant) {
+        VariantInfo result = new VariantInfo(variant.getMediaType(),
+                variant.getAnnotationInfo());
+        result.setCharacterSet(variant.getCharacterSet());
+        result.getEncodings().addAll(variant.getEncodings());
+        result.getLanguages().addAll(variant.getLanguages());
+        result.setInputScore(variant.getInputScore());
+        return result;
+    }
+
     /**
      * Private constructor to ensure that the class acts as a true utility class
      * i.e. it isn't instantiable and extensible.
@@ -37,6 +37,7 @@ import java.io.IOException;
 
 import org.restlet.data.CharacterSet;
 import org.restlet.data.MediaType;
+import org.restlet.engine.util.InternCache;
 import org.restlet.representation.Representation;
 
 /**
@@ -46,6 +47,10 @@ import org.restlet.representation.Representation;
  */
 public class ContentType {
 
+    // [ifndef gwt] member
+    /** Cache of the parsed "Content-Type" header values. */
+    private static final InternCache<ContentType> CONTENT_TYPES = new InternCache<ContentType>();
+
     /**
      * Parses the given content type header and returns the character set.
      * 
@@ -54,7 +59,10 @@ public class ContentType {
      * @return The character set.
      */
     public static CharacterSet readCharacterSet(String contentType) {
-        return new ContentType(contentType).getCharacterSet();
+        // [ifndef gwt] instruction
+        return valueOf(contentType).getCharacterSet();
+        // [ifdef gwt] instruction uncomment
+        // return new ContentType(contentType).getCharacterSet();
     }
 
     /**
@@ -65,7 +73,31 @@ public class ContentType {
      * @return The media type.
      */
     public static MediaType readMediaType(String contentType) {
-        return new ContentType(contentType).getMediaType();
+        // [ifndef gwt] instruction
+        return valueOf(contentType).getMediaType();
+        // [ifdef gwt] instruction uncomment
+        // return new ContentType(contentType).getMediaType();
+    }
+
+    // [ifndef gwt] method
+    /**
+     * Returns the content type parsed from a "Content-Type" header value. As
+     * content types are immutable, the result of the parsing is cached and
+     * shared for identical header values.
+     * 
+     * @param headerValue
+     *            The "Content-type" header to parse.
+     * @return The parsed content type.
+     */
+    public static ContentType valueOf(String headerValue) {
+        ContentType result = CONTENT_TYPES.get(headerValue);
+
+        if (result == null) {
+            result = CONTENT_TYPES.put(headerValue,
+                    new ContentType(headerValue));
+        }
+
+        return result;
     }
 
     /**
@@ -76,6 +76,8 @@ public final class HeaderConstants {
 
     public static final String CACHE_SHARED_MAX_AGE = "s-maxage";
 
+    public static final String CACHE_STALE_WHILE_REVALIDATE = "stale-while-revalidate";
+
     // ---------------------
     // --- Header names ---
     // ---------------------
@@ -0,0 +1,464 @@
+/**
+ * Copyright 2005-2012 Restlet S.A.S.
+ * 
+ * The contents of this file are subject to the terms of one of the following
+ * open source licenses: Apache 2.0 or LGPL 3.0 or LGPL 2.1 or CDDL 1.0 or EPL
+ * 1.0 (the "Licenses"). You can select the license that you prefer but you may
+ * not use this file except in compliance with one of these Licenses.
+ * 
+ * You can obtain a copy of the Apache 2.0 license at
+ * http://www.opensource.org/licenses/apache-2.0
+ * 
+ * You can obtain a copy of the LGPL 3.0 license at
+ * http://www.opensource.org/licenses/lgpl-3.0
+ * 
+ * You can obtain a copy of the LGPL 2.1 license at
+ * http://www.opensource.org/licenses/lgpl-2.1
+ * 
+ * You can obtain a copy of the CDDL 1.0 license at
+ * http://www.opensource.org/licenses/cddl1
+ * 
+ * You can obtain a copy of the EPL 1.0 license at
+ * http://www.opensource.org/licenses/eclipse-1.0
+ * 
+ * See the Licenses for the specific language governing permissions and
+ * limitations under the Licenses.
+ * 
+ * Alternatively, you can obtain a royalty free commercial license with less
+ * limitations, transferable or non-transferable, directly at
+ * http://www.restlet.com/products/restlet-framework
+ * 
+ * Restlet is a registered trademark of Restlet S.A.S.
+ */
+
+package org.restlet.engine.header;
+
+import java.io.IOException;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.nio.ByteBuffer;
+
+import org.restlet.engine.io.BufferState;
+
+// [excludes gwt]
+/**
+ * Incremental parser of HTTP start lines and header lines working directly on
+ * NIO byte buffers. The bytes of the current line are accumulated without
+ * being converted to characters, up to a maximum line length. Well-known header
+ * names declared in {@link HeaderConstants} are shared instead of being created
+ * for each message when received with the same case, other names being kept as
+ * received. Header values are only converted to strings when first read.
+ * 
+ * @author Jerome Louvel
+ */
+public class HeaderLineParser implements CharSequence {
+
+    /**
+     * Header whose value is kept as ISO-8859-1 bytes until it is first read.
+     */
+    private static class LazyHeader extends Header {
+
+        /** The value bytes or null if already converted. */
+        private volatile byte[] valueBytes;
+
+        /**
+         * Constructor.
+         * 
+         * @param name
+         *            The header name.
+         * @param valueBytes
+         *            The value bytes.
+         */
+        public LazyHeader(String name, byte[] valueBytes) {
+            super(name, null);
+            this.valueBytes = valueBytes;
+        }
+
+        @Override
+        public String getValue() {
+            byte[] bytes = this.valueBytes;
+
+            if (bytes != null) {
+                super.setValue(HeaderLineParser.toString(bytes, 0,
+                        bytes.length));
+                this.valueBytes = null;
+            }
+
+            return super.getValue();
+        }
+
+        @Override
+        public void setValue(String value) {
+            this.valueBytes = null;
+            super.setValue(value);
+        }
+    }
+
+    /** The size of the table of well-known header names. */
+    private static final int NAMES_SIZE = 256;
+
+    /** The default maximum length of a line. */
+    public static final int DEFAULT_MAX_LENGTH = 8192;
+
+    /** The table of well-known header names, indexed by hash code. */
+    private static final String[] NAMES = new String[NAMES_SIZE];
+
+    static {
+        for (Field field : HeaderConstants.class.getFields()) {
+            if (field.getName().startsWith("HEADER_")
+                    && Modifier.isStatic(field.getModifiers())
+                    && (field.getType() == String.class)) {
+                try {
+                    String name = (String) field.get(null);
+                    int index = hash(name) & (NAMES_SIZE - 1);
+
+                    while ((NAMES[index] != null)
+                            && !NAMES[index].equals(name)) {
+                        index = (index + 1) & (NAMES_SIZE - 1);
+                    }
+
+                    NAMES[index] = name;
+                } catch (IllegalAccessException e) {
+                    // Ignore this constant
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the hash code of a header name.
+     * 
+     * @param name
+     *            The header name.
+     * @return The hash code.
+     */
+    private static int hash(CharSequence name) {
+        int result = 0;
+
+        for (int i = 0; i < name.length(); i++) {
+            result = 31 * result + name.charAt(i);
+        }
+
+        return result;
+    }
+
+    /**
+     * Returns the well-known header name matching exactly the given bytes, so
+     * that the name received is preserved.
+     * 
+     * @param bytes
+     *            The source bytes.
+     * @param start
+     *            The start index.
+     * @param end
+     *            The end index (excluded).
+     * @return The well-known header name or null.
+     */
+    private static String lookupName(byte[] bytes, int start, int end) {
+        int hash = 0;
+
+        for (int i = start; i < end; i++) {
+            hash = 31 * hash + (bytes[i] & 0xff);
+        }
+
+        String result = null;
+        int index = hash & (NAMES_SIZE - 1);
+
+        while ((result == null) && (NAMES[index] != null)) {
+            String name = NAMES[index];
+
+            if (name.length() == (end - start)) {
+                boolean matching = true;
+
+                for (int i = 0; matching && (i < name.length()); i++) {
+                    matching = name.charAt(i) == (char) (bytes[start + i] & 0xff);
+                }
+
+                if (matching) {
+                    result = name;
+                }
+            }
+
+            index = (index + 1) & (NAMES_SIZE - 1);
+        }
+
+        return result;
+    }
+
+    /**
+     * Converts ISO-8859-1 bytes into a string.
+     * 
+     * @param bytes
+     *            The source bytes.
+     * @param start
+     *            The start index.
+     * @param end
+     *            The end index (excluded).
+     * @return The string.
+     */
+    private static String toString(byte[] bytes, int start, int end) {
+        char[] chars = new char[end - start];
+
+        for (int i = 0; i < chars.length; i++) {
+            chars[i] = (char) (bytes[start + i] & 0xff);
+        }
+
+        return new String(chars);
+    }
+
+    /** The bytes of the current line, without the ending CRLF. */
+    private volatile byte[] line;
+
+    /** The number of bytes of the current line. */
+    private volatile int length;
+
+    /** Indicates if the current line exceeded the maximum length. */
+    private volatile boolean lineTooLong;
+
+    /** The maximum length of a line or -1 for no limit. */
+    private final int maxLength;
+
+    /** The parsing state of the current line. */
+    private volatile BufferState state;
+
+    /**
+     * Default constructor.
+     */
+    public HeaderLineParser() {
+        this(256);
+    }
+
+    /**
+     * Constructor. Lines are limited to {@link #DEFAULT_MAX_LENGTH} bytes.
+     * 
+     * @param initialSize
+     *            The initial size of the line storage.
+     */
+    public HeaderLineParser(int initialSize) {
+        this(initialSize, DEFAULT_MAX_LENGTH);
+    }
+
+    /**
+     * Constructor.
+     * 
+     * @param initialSize
+     *            The initial size of the line storage.
+     * @param maxLength
+     *            The maximum length of a line or -1 for no limit.
+     */
+    public HeaderLineParser(int initialSize, int maxLength) {
+        this.line = new byte[initialSize];
+        this.length = 0;
+        this.lineTooLong = false;
+        this.maxLength = maxLength;
+        this.state = BufferState.IDLE;
+    }
+
+    public char charAt(int index) {
+        if (index >= this.length) {
+            throw new IndexOutOfBoundsException("Index " + index
+                    + " beyond a line of " + this.length + " characters");
+        }
+
+        return (char) (this.line[index] & 0xff);
+    }
+
+    /**
+     * Clears the current line so that a new one can be parsed.
+     */
+    public void clear() {
+        this.length = 0;
+        this.lineTooLong = false;
+        this.state = BufferState.IDLE;
+    }
+
+    /**
+     * Returns the maximum length of a line or -1 for no limit.
+     * 
+     * @return The maximum length of a line or -1 for no limit.
+     */
+    public int getMaxLength() {
+        return maxLength;
+    }
+
+    /**
+     * Returns the parsing state of the current line. The
+     * {@link BufferState#DRAINING} state indicates that the line is complete.
+     * 
+     * @return The parsing state of the current line.
+     */
+    public BufferState getState() {
+        return state;
+    }
+
+    /**
+     * Indicates if the current line is complete, ending with a CRLF sequence.
+     * 
+     * @return True if the current line is complete.
+     */
+    public boolean isLineReady() {
+        return getState() == BufferState.DRAINING;
+    }
+
+    /**
+     * Indicates if the parsing failed because the current line exceeded the
+     * maximum length.
+     * 
+     * @return True if the current line exceeded the maximum length.
+     */
+    public boolean isLineTooLong() {
+        return lineTooLong;
+    }
+
+    public int length() {
+        return this.length;
+    }
+
+    /**
+     * Parses the remaining bytes of the given byte buffer until the end of the
+     * current line is reached.
+     * 
+     * @param bytes
+     *            The source byte buffer.
+     * @return True if the current line is complete.
+     * @throws IOException
+     *             If the line is malformed or exceeds the maximum length.
+     */
+    public boolean parse(ByteBuffer bytes) throws IOException {
+        int next;
+
+        if (this.state == BufferState.IDLE) {
+            this.state = BufferState.FILLING;
+        }
+
+        while ((this.state != BufferState.DRAINING) && bytes.hasRemaining()) {
+            next = bytes.get() & 0xff;
+
+            switch (this.state) {
+            case FILLING:
+                if (HeaderUtils.isCarriageReturn(next)) {
+                    this.state = BufferState.FILLED;
+                } else {
+                    if ((this.maxLength != -1)
+                            && (this.length >= this.maxLength)) {
+                        this.lineTooLong = true;
+                        throw new IOException(
+                                "Line too long. The maximum length is "
+                                        + this.maxLength + " bytes");
+                    }
+
+                    if (this.length == this.line.length) {
+                        int newSize = this.line.length * 2;
+
+                        if ((this.maxLength != -1) && (newSize > this.maxLength)) {
+                            newSize = this.maxLength;
+                        }
+
+                        byte[] newLine = new byte[newSize];
+                        System.arraycopy(this.line, 0, newLine, 0, this.length);
+                        this.line = newLine;
+                    }
+
+                    this.line[this.length++] = (byte) next;
+                }
+
+                break;
+
+            case FILLED:
+                if (HeaderUtils.isLineFeed(next)) {
+                    this.state = BufferState.DRAINING;
+                } else {
+                    throw new IOException(
+                            "Missing line feed character at the end of the line. Found character \""
+                                    + (char) next + "\" (" + next + ") instead");
+                }
+
+                break;
+
+            default:
+                // Nothing to do
+                break;
+            }
+        }
+
+        return isLineReady();
+    }
+
+    /**
+     * Reads the current line as a header. Returns null if the line is empty,
+     * marking the end of the headers. The header name is shared if it is a
+     * well-known one and the header value is only converted to a string when
+     * first read.
+     * 
+     * @return The header read or null.
+     * @throws IOException
+     */
+    public Header readHeader() throws IOException {
+        Header result = null;
+
+        if (this.length > 0) {
+            int index = 0;
+
+            // Parse the header name
+            while ((index < this.length) && (this.line[index] != ':')) {
+                index++;
+            }
+
+            if (index == this.length) {
+                throw new IOException(
+                        "Unable to parse the header name. End of line reached too early.");
+            }
+
+            String name = lookupName(this.line, 0, index);
+
+            if (name == null) {
+                name = toString(this.line, 0, index);
+            }
+
+            // Skip any separator space between colon and header value
+            index++;
+
+            while ((index < this.length)
+                    && (HeaderUtils.isSpace(this.line[index] & 0xff) || HeaderUtils
+                            .isHorizontalTab(this.line[index] & 0xff))) {
+                index++;
+            }
+
+            // Keep the header value as bytes
+            byte[] value = new byte[this.length - index];
+            System.arraycopy(this.line, index, value, 0, value.length);
+            result = new LazyHeader(name, value);
+        }
+
+        return result;
+    }
+
+    public CharSequence subSequence(int start, int end) {
+        return substring(start, end);
+    }
+
+    /**
+     * Returns a part of the current line as a string.
+     * 
+     * @param start
+     *            The start index.
+     * @param end
+     *            The end index (excluded).
+     * @return The part of the current line.
+     */
+    public String substring(int start, int end) {
+        if ((start < 0) || (end > this.length) || (start > end)) {
+            throw new IndexOutOfBoundsException("Invalid range [" + start
+                    + ", " + end + "[ for a line of " + this.length
+                    + " characters");
+        }
+
+        return toString(this.line, start, end);
+    }
+
+    @Override
+    public String toString() {
+        return toString(this.line, 0, this.length);
+    }
+
+}
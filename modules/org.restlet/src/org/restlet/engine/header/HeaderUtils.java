@@ -754,7 +754,12 @@ public class HeaderUtils {
             for (Header header : headers) {
                 if (header.getName().equalsIgnoreCase(
                         HeaderConstants.HEADER_CONTENT_TYPE)) {
-                    ContentType contentType = new ContentType(header.getValue());
+                    // [ifndef gwt] instruction
+                    ContentType contentType = ContentType.valueOf(header
+                            .getValue());
+                    // [ifdef gwt] instruction uncomment
+                    // ContentType contentType = new
+                    // ContentType(header.getValue());
                     result.setMediaType(contentType.getMediaType());
 
                     if ((result.getCharacterSet() == null)
@@ -40,7 +40,11 @@ import static org.restlet.engine.header.HeaderUtils.isText;
 import static org.restlet.engine.header.HeaderUtils.isTokenChar;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.Iterator;
+import java.util.List;
 
 import org.restlet.data.CharacterSet;
 import org.restlet.data.ClientInfo;
@@ -50,6 +54,7 @@ import org.restlet.data.MediaType;
 import org.restlet.data.Metadata;
 import org.restlet.data.Parameter;
 import org.restlet.data.Preference;
+import org.restlet.engine.util.InternCache;
 import org.restlet.util.Series;
 
 /**
@@ -69,6 +74,22 @@ public class PreferenceReader<T extends Metadata> extends
 
     public static final int TYPE_MEDIA_TYPE = 4;
 
+    // [ifndef gwt] member
+    /** Cache of the parsed Accept-Charset header values. */
+    private static final InternCache<List<Preference<?>>> CHARACTER_SETS = new InternCache<List<Preference<?>>>();
+
+    // [ifndef gwt] member
+    /** Cache of the parsed Accept-Encoding header values. */
+    private static final InternCache<List<Preference<?>>> ENCODINGS = new InternCache<List<Preference<?>>>();
+
+    // [ifndef gwt] member
+    /** Cache of the parsed Accept-Language header values. */
+    private static final InternCache<List<Preference<?>>> LANGUAGES = new InternCache<List<Preference<?>>>();
+
+    // [ifndef gwt] member
+    /** Cache of the parsed Accept header values. */
+    private static final InternCache<List<Preference<?>>> MEDIA_TYPES = new InternCache<List<Preference<?>>>();
+
     /**
      * Parses character set preferences from a header.
      * 
@@ -87,10 +108,16 @@ public class PreferenceReader<T extends Metadata> extends
                 clientInfo.getAcceptedCharacterSets().add(
                         new Preference<CharacterSet>(CharacterSet.ISO_8859_1));
             } else {
-                PreferenceReader pr = new PreferenceReader(
-                        PreferenceReader.TYPE_CHARACTER_SET,
-                        acceptCharsetHeader);
-                pr.addValues(clientInfo.getAcceptedCharacterSets());
+                // [ifndef gwt] instruction
+                addPreferences(CHARACTER_SETS, TYPE_CHARACTER_SET,
+                        acceptCharsetHeader,
+                        clientInfo.getAcceptedCharacterSets());
+                // [ifdef gwt] uncomment
+                // PreferenceReader pr = new PreferenceReader(
+                // PreferenceReader.TYPE_CHARACTER_SET,
+                // acceptCharsetHeader);
+                // pr.addValues(clientInfo.getAcceptedCharacterSets());
+                // [enddef]
             }
         } else {
             clientInfo.getAcceptedCharacterSets().add(
@@ -110,9 +137,14 @@ public class PreferenceReader<T extends Metadata> extends
     public static void addEncodings(String acceptEncodingHeader,
             ClientInfo clientInfo) {
         if (acceptEncodingHeader != null) {
-            PreferenceReader pr = new PreferenceReader(
-                    PreferenceReader.TYPE_ENCODING, acceptEncodingHeader);
-            pr.addValues(clientInfo.getAcceptedEncodings());
+            // [ifndef gwt] instruction
+            addPreferences(ENCODINGS, TYPE_ENCODING, acceptEncodingHeader,
+                    clientInfo.getAcceptedEncodings());
+            // [ifdef gwt] uncomment
+            // PreferenceReader pr = new PreferenceReader(
+            // PreferenceReader.TYPE_ENCODING, acceptEncodingHeader);
+            // pr.addValues(clientInfo.getAcceptedEncodings());
+            // [enddef]
         } else {
             clientInfo.getAcceptedEncodings().add(
                     new Preference(Encoding.IDENTITY));
@@ -131,14 +163,64 @@ public class PreferenceReader<T extends Metadata> extends
     public static void addLanguages(String acceptLanguageHeader,
             ClientInfo clientInfo) {
         if (acceptLanguageHeader != null) {
-            PreferenceReader pr = new PreferenceReader(
-                    PreferenceReader.TYPE_LANGUAGE, acceptLanguageHeader);
-            pr.addValues(clientInfo.getAcceptedLanguages());
+            // [ifndef gwt] instruction
+            addPreferences(LANGUAGES, TYPE_LANGUAGE, acceptLanguageHeader,
+                    clientInfo.getAcceptedLanguages());
+            // [ifdef gwt] uncomment
+            // PreferenceReader pr = new PreferenceReader(
+            // PreferenceReader.TYPE_LANGUAGE, acceptLanguageHeader);
+            // pr.addValues(clientInfo.getAcceptedLanguages());
+            // [enddef]
         } else {
             clientInfo.getAcceptedLanguages().add(new Preference(Language.ALL));
         }
     }
 
+    // [ifndef gwt] method
+    /**
+     * Adds the preferences read from a header value to a target list. The
+     * preferences parsed for a given value are cached and reused for later
+     * requests. As preferences are mutable, copies of the cached preferences
+     * are added to the target list.
+     * 
+     * @param cache
+     *            The cache of parsed preferences.
+     * @param type
+     *            The type of metadata read.
+     * @param header
+     *            The header value to parse.
+     * @param target
+     *            The list of preferences to update.
+     */
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    private static void addPreferences(InternCache<List<Preference<?>>> cache,
+            int type, String header, Collection target) {
+        List<Preference<?>> preferences = cache.get(header);
+
+        if (preferences == null) {
+            List<Preference<?>> parsed = new ArrayList<Preference<?>>();
+            new PreferenceReader(type, header).addValues((Collection) parsed);
+            preferences = cache.put(header, Collections
+                    .unmodifiableList(parsed));
+        }
+
+        for (Preference<?> preference : preferences) {
+            Series<Parameter> parameters = null;
+
+            if (preference.getParameters() != null) {
+                parameters = new Series<Parameter>(Parameter.class);
+
+                for (Parameter parameter : preference.getParameters()) {
+                    parameters.add(new Parameter(parameter.getName(),
+                            parameter.getValue()));
+                }
+            }
+
+            target.add(new Preference(preference.getMetadata(), preference
+                    .getQuality(), parameters));
+        }
+    }
+
     /**
      * Parses media type preferences from a header.
      * 
@@ -151,9 +233,14 @@ public class PreferenceReader<T extends Metadata> extends
     public static void addMediaTypes(String acceptMediaTypeHeader,
             ClientInfo clientInfo) {
         if (acceptMediaTypeHeader != null) {
-            PreferenceReader pr = new PreferenceReader(
-                    PreferenceReader.TYPE_MEDIA_TYPE, acceptMediaTypeHeader);
-            pr.addValues(clientInfo.getAcceptedMediaTypes());
+            // [ifndef gwt] instruction
+            addPreferences(MEDIA_TYPES, TYPE_MEDIA_TYPE, acceptMediaTypeHeader,
+                    clientInfo.getAcceptedMediaTypes());
+            // [ifdef gwt] uncomment
+            // PreferenceReader pr = new PreferenceReader(
+            // PreferenceReader.TYPE_MEDIA_TYPE, acceptMediaTypeHeader);
+            // pr.addValues(clientInfo.getAcceptedMediaTypes());
+            // [enddef]
         } else {
             clientInfo.getAcceptedMediaTypes().add(
                     new Preference(MediaType.ALL));
@@ -319,22 +319,34 @@ public final class BioUtils {
     // [ifndef gwt] method
     /**
      * Returns an input stream based on the given representation's content and
-     * its write(OutputStream) method. Internally, it uses a writer thread and a
-     * pipe stream.
+     * its write(OutputStream) method. If the representation is bufferable, its
+     * content is written by the reading thread into a memory buffer on the
+     * first read. Otherwise, it uses a writer thread and a pipe stream.
      * 
      * @param representation
      *            the representation to get the {@link java.io.OutputStream}
      *            from.
      * @return A stream with the representation's content.
+     * @see #isBufferable(Representation)
      */
     public static InputStream getInputStream(final Representation representation) {
         InputStream result = null;
 
+        if (representation == null) {
+            return null;
+        } else if (isBufferable(representation)) {
+            return new ContinuationInputStream((int) representation.getSize()) {
+                @Override
+                protected boolean produce(OutputStream outputStream)
+                        throws IOException {
+                    representation.write(outputStream);
+                    return false;
+                }
+            };
+        }
+
         if (Edition.CURRENT != Edition.GAE) {
             // [ifndef gae]
-            if (representation == null) {
-                return null;
-            }
 
             final PipeStream pipe = new PipeStream();
             final java.io.OutputStream os = pipe.getOutputStream();
@@ -419,18 +431,28 @@ public final class BioUtils {
 
     // [ifndef gwt] method
     /**
-     * Returns a reader from a writer representation.Internally, it uses a
-     * writer thread and a pipe stream.
+     * Returns a reader from a writer representation. If the representation is
+     * bufferable, its content is directly written into a memory buffer.
+     * Otherwise, it uses a writer thread and a pipe stream.
      * 
      * @param representation
      *            The representation to read from.
      * @return The character reader.
      * @throws IOException
+     * @see #isBufferable(Representation)
      */
     public static Reader getReader(
             final org.restlet.representation.WriterRepresentation representation)
             throws IOException {
         Reader result = null;
+
+        if (isBufferable(representation)) {
+            java.io.StringWriter stringWriter = new java.io.StringWriter(
+                    (int) representation.getSize());
+            representation.write(stringWriter);
+            return new java.io.StringReader(stringWriter.toString());
+        }
+
         if (Edition.CURRENT != Edition.GAE) {
             // [ifndef gae]
             final java.io.PipedWriter pipedWriter = new java.io.PipedWriter();
@@ -482,6 +504,22 @@ public final class BioUtils {
 
     }
 
+    // [ifndef gwt] method
+    /**
+     * Indicates if the content of a push-style representation can be fully
+     * buffered in memory by the thread reading it, instead of relying on a
+     * writer thread and a pipe. This is the case when its size is known and
+     * doesn't exceed {@link IoUtils#MAX_BUFFERED_SIZE}.
+     * 
+     * @param representation
+     *            The representation to test.
+     * @return True if the representation can be fully buffered.
+     */
+    public static boolean isBufferable(Representation representation) {
+        return representation.hasKnownSize()
+                && (representation.getSize() <= IoUtils.MAX_BUFFERED_SIZE);
+    }
+
     // [ifndef gwt] method
     /**
      * Converts the representation to a string value. Be careful when using this
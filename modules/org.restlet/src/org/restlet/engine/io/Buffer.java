@@ -43,7 +43,9 @@ import org.restlet.Context;
 import org.restlet.engine.header.HeaderUtils;
 
 /**
- * Wrapper around a byte buffer and its state.
+ * Wrapper around a byte buffer and its state. The byte buffer can either be
+ * owned by the wrapper or leased from a {@link BufferPool} only while some
+ * bytes are in flight, see the {@link #release()} method.
  * 
  * @author Jerome Louvel
  */
@@ -70,12 +72,24 @@ public class Buffer {
         return result;
     }
 
-    /** The byte buffer. */
-    private final ByteBuffer bytes;
+    /** The byte buffer or null if not leased yet. */
+    private volatile ByteBuffer bytes;
 
     /** The index of the buffer's beginning while filling. */
     private volatile int fillBegin;
 
+    /** The lock protecting the access to the byte buffer. */
+    private final Object lock;
+
+    /** The pool from which the byte buffer is leased. */
+    private final BufferPool pool;
+
+    /** Indicates if the buffer is being processed. */
+    private volatile boolean processing;
+
+    /** The byte buffer size. */
+    private final int size;
+
     /** The byte buffer IO state. */
     private volatile BufferState state;
 
@@ -101,9 +115,31 @@ public class Buffer {
         super();
         this.fillBegin = 0;
         this.bytes = byteBuffer;
+        this.lock = new Object();
+        this.pool = null;
+        this.size = byteBuffer.capacity();
         this.state = byteBufferState;
     }
 
+    /**
+     * Constructor. The byte buffer is lazily leased from the given pool when
+     * needed.
+     * 
+     * @param bufferSize
+     *            The byte buffer size.
+     * @param pool
+     *            The pool from which the byte buffer is leased.
+     */
+    public Buffer(int bufferSize, BufferPool pool) {
+        super();
+        this.fillBegin = 0;
+        this.bytes = null;
+        this.lock = new Object();
+        this.pool = pool;
+        this.size = bufferSize;
+        this.state = BufferState.FILLING;
+    }
+
     /**
      * Constructor. Allocates a new non-direct byte buffer.
      * 
@@ -154,7 +190,10 @@ public class Buffer {
      * @return True if a compacting operation can be beneficial.
      */
     public boolean canCompact() {
-        return isFilling() ? (this.fillBegin > 0) : (getBytes().position() > 0);
+        ByteBuffer byteBuffer = this.bytes;
+        return (byteBuffer != null)
+                && (isFilling() ? (this.fillBegin > 0)
+                        : (byteBuffer.position() > 0));
     }
 
     /**
@@ -181,7 +220,8 @@ public class Buffer {
      * @return The maximum capacity of this buffer.
      */
     public final int capacity() {
-        return getBytes().capacity();
+        ByteBuffer byteBuffer = this.bytes;
+        return (byteBuffer == null) ? this.size : byteBuffer.capacity();
     }
 
     /**
@@ -189,7 +229,12 @@ public class Buffer {
      */
     public void clear() {
         this.fillBegin = 0;
-        this.bytes.clear();
+        ByteBuffer byteBuffer = this.bytes;
+
+        if (byteBuffer != null) {
+            byteBuffer.clear();
+        }
+
         this.state = BufferState.FILLING;
     }
 
@@ -213,7 +258,9 @@ public class Buffer {
      * @return True if bytes could be drained.
      */
     public boolean couldDrain() {
-        return (isFilling() && (getBytes().position() > this.fillBegin));
+        ByteBuffer byteBuffer = this.bytes;
+        return (byteBuffer != null) && isFilling()
+                && (byteBuffer.position() > this.fillBegin);
     }
 
     /**
@@ -222,8 +269,10 @@ public class Buffer {
      * @return True if more bytes could be filled in.
      */
     public boolean couldFill() {
-        return (isDraining() && (!hasRemaining() || (getBytes().limit() < getBytes()
-                .capacity())));
+        ByteBuffer byteBuffer = this.bytes;
+        return (byteBuffer != null)
+                && (isDraining() && (!byteBuffer.hasRemaining() || (byteBuffer
+                        .limit() < byteBuffer.capacity())));
     }
 
     /**
@@ -431,12 +480,26 @@ public class Buffer {
     }
 
     /**
-     * Returns the byte buffer.
+     * Returns the byte buffer. If the buffer is backed by a pool and isn't
+     * leased yet, a byte buffer is leased.
      * 
      * @return The byte buffer.
      */
     public ByteBuffer getBytes() {
-        return bytes;
+        ByteBuffer result = this.bytes;
+
+        if (result == null) {
+            synchronized (getLock()) {
+                result = this.bytes;
+
+                if (result == null) {
+                    result = this.pool.lease(this.size);
+                    this.bytes = result;
+                }
+            }
+        }
+
+        return result;
     }
 
     /**
@@ -446,7 +509,16 @@ public class Buffer {
      * @return The lock on which multiple thread can synchronize.
      */
     public Object getLock() {
-        return this.bytes;
+        return this.lock;
+    }
+
+    /**
+     * Returns the pool from which the byte buffer is leased.
+     * 
+     * @return The pool from which the byte buffer is leased or null.
+     */
+    public BufferPool getPool() {
+        return pool;
     }
 
     /**
@@ -464,7 +536,8 @@ public class Buffer {
      * @return True if the buffer has remaining bytes to be read or written.
      */
     public final boolean hasRemaining() {
-        return getBytes().hasRemaining();
+        ByteBuffer byteBuffer = this.bytes;
+        return (byteBuffer != null) ? byteBuffer.hasRemaining() : isFilling();
     }
 
     /**
@@ -484,7 +557,10 @@ public class Buffer {
      * @return True if the buffer is empty.
      */
     public boolean isEmpty() {
-        return isFilling() ? (capacity() == remaining()) : !hasRemaining();
+        ByteBuffer byteBuffer = this.bytes;
+        return (byteBuffer == null)
+                || (isFilling() ? (byteBuffer.capacity() == byteBuffer
+                        .remaining()) : !byteBuffer.hasRemaining());
     }
 
     /**
@@ -497,6 +573,16 @@ public class Buffer {
         return getState() == BufferState.FILLING;
     }
 
+    /**
+     * Indicates if a byte buffer is currently available, either owned or
+     * leased from the pool.
+     * 
+     * @return True if a byte buffer is currently available.
+     */
+    public boolean isLeased() {
+        return this.bytes != null;
+    }
+
     /**
      * Processes as a loop the IO event by draining or filling the IO buffer.
      * Note that synchronization of the {@link #getLock()} object is
@@ -518,137 +604,144 @@ public class Buffer {
         int result = 0;
 
         synchronized (getLock()) {
-            int totalFilled = 0;
-            int drained = 0;
-            int filled = 0;
-            boolean lastDrainFailed = false;
-            boolean lastFillFailed = false;
-            boolean fillEnded = false;
-            boolean tryAgain = true;
-
-            if (Context.getCurrentLogger().isLoggable(Level.FINEST)) {
-                Context.getCurrentLogger().log(Level.FINEST,
-                        "Beginning process of buffer " + this);
-            }
-
-            // Calling back the processor for preparation work, such as
-            // initiating a SSL handshake
-            result += processor.preProcess(maxDrained, args);
-
-            if (Context.getCurrentLogger().isLoggable(Level.FINEST)) {
-                Context.getCurrentLogger()
-                        .log(Level.FINEST,
-                                result
-                                        + " bytes drained from buffer at pre-processing, "
-                                        + remaining() + " remaining bytes");
-            }
+            boolean wasProcessing = this.processing;
+            this.processing = true;
+
+            try {
+                int totalFilled = 0;
+                int drained = 0;
+                int filled = 0;
+                boolean lastDrainFailed = false;
+                boolean lastFillFailed = false;
+                boolean fillEnded = false;
+                boolean tryAgain = true;
+
+                if (Context.getCurrentLogger().isLoggable(Level.FINEST)) {
+                    Context.getCurrentLogger().log(Level.FINEST,
+                            "Beginning process of buffer " + this);
+                }
 
-            while (tryAgain && processor.canLoop(this, args)) {
-                if (isDraining()) {
-                    if (Context.getCurrentLogger().isLoggable(Level.FINEST)) {
-                        Context.getCurrentLogger().log(Level.FINEST,
-                                "Draining buffer " + this);
-                    }
+                // Calling back the processor for preparation work, such as
+                // initiating a SSL handshake
+                result += processor.preProcess(maxDrained, args);
 
-                    drained = 0;
+                if (Context.getCurrentLogger().isLoggable(Level.FINEST)) {
+                    Context.getCurrentLogger()
+                            .log(Level.FINEST,
+                                    result
+                                            + " bytes drained from buffer at pre-processing, "
+                                            + remaining() + " remaining bytes");
+                }
 
-                    if (hasRemaining()) {
-                        if (maxDrained <= 0) {
-                            drained = processor.onDrain(this, 0, args);
-                        } else if (maxDrained > result) {
-                            drained = processor.onDrain(this, maxDrained
-                                    - result, args);
+                while (tryAgain && processor.canLoop(this, args)) {
+                    if (isDraining()) {
+                        if (Context.getCurrentLogger().isLoggable(Level.FINEST)) {
+                            Context.getCurrentLogger().log(Level.FINEST,
+                                    "Draining buffer " + this);
                         }
-                    }
 
-                    if (drained > 0) {
-                        // Can attempt to drain again
-                        result += drained;
-                        lastDrainFailed = false;
-                        lastFillFailed = false;
+                        drained = 0;
 
-                        if (Context.getCurrentLogger().isLoggable(Level.FINEST)) {
-                            Context.getCurrentLogger().log(
-                                    Level.FINEST,
-                                    drained + " bytes drained from buffer, "
-                                            + remaining() + " remaining bytes");
+                        if (hasRemaining()) {
+                            if (maxDrained <= 0) {
+                                drained = processor.onDrain(this, 0, args);
+                            } else if (maxDrained > result) {
+                                drained = processor.onDrain(this, maxDrained
+                                        - result, args);
+                            }
                         }
-                    } else {
-                        if (!lastFillFailed) {
-                            if (couldFill()) {
-                                // We may still be able to fill
-                                beforeFill();
-                            } else if (canCompact()) {
-                                compact();
+
+                        if (drained > 0) {
+                            // Can attempt to drain again
+                            result += drained;
+                            lastDrainFailed = false;
+                            lastFillFailed = false;
+
+                            if (Context.getCurrentLogger().isLoggable(Level.FINEST)) {
+                                Context.getCurrentLogger().log(
+                                        Level.FINEST,
+                                        drained + " bytes drained from buffer, "
+                                                + remaining() + " remaining bytes");
+                            }
+                        } else {
+                            if (!lastFillFailed) {
+                                if (couldFill()) {
+                                    // We may still be able to fill
+                                    beforeFill();
+                                } else if (canCompact()) {
+                                    compact();
+                                } else {
+                                    tryAgain = false;
+                                }
                             } else {
                                 tryAgain = false;
                             }
-                        } else {
-                            tryAgain = false;
-                        }
 
-                        lastDrainFailed = true;
-                    }
-                } else if (isFilling()) {
-                    if (Context.getCurrentLogger().isLoggable(Level.FINEST)) {
-                        Context.getCurrentLogger().log(Level.FINEST,
-                                "Filling buffer " + this);
-                    }
+                            lastDrainFailed = true;
+                        }
+                    } else if (isFilling()) {
+                        if (Context.getCurrentLogger().isLoggable(Level.FINEST)) {
+                            Context.getCurrentLogger().log(Level.FINEST,
+                                    "Filling buffer " + this);
+                        }
 
-                    filled = 0;
+                        filled = 0;
 
-                    if (hasRemaining() && processor.couldFill(this, args)) {
-                        filled = processor.onFill(this, args);
-                    }
+                        if (hasRemaining() && processor.couldFill(this, args)) {
+                            filled = processor.onFill(this, args);
+                        }
 
-                    if (filled > 0) {
-                        // Can attempt to refill again
-                        totalFilled += filled;
-                        lastDrainFailed = false;
-                        lastFillFailed = false;
+                        if (filled > 0) {
+                            // Can attempt to refill again
+                            totalFilled += filled;
+                            lastDrainFailed = false;
+                            lastFillFailed = false;
 
-                        if (Context.getCurrentLogger().isLoggable(Level.FINEST)) {
-                            Context.getCurrentLogger().log(Level.FINEST,
-                                    filled + " bytes filled into buffer");
-                        }
-                    } else {
-                        if (!lastDrainFailed && couldDrain()) {
-                            // We may still be able to drain
-                            beforeDrain();
+                            if (Context.getCurrentLogger().isLoggable(Level.FINEST)) {
+                                Context.getCurrentLogger().log(Level.FINEST,
+                                        filled + " bytes filled into buffer");
+                            }
                         } else {
-                            tryAgain = false;
-                        }
+                            if (!lastDrainFailed && couldDrain()) {
+                                // We may still be able to drain
+                                beforeDrain();
+                            } else {
+                                tryAgain = false;
+                            }
 
-                        if (filled == -1) {
-                            fillEnded = true;
-                            processor.onFillEof();
-                        }
+                            if (filled == -1) {
+                                fillEnded = true;
+                                processor.onFillEof();
+                            }
 
-                        lastFillFailed = true;
+                            lastFillFailed = true;
+                        }
+                    } else {
+                        // Can't drain nor fill
+                        tryAgain = false;
                     }
-                } else {
-                    // Can't drain nor fill
-                    tryAgain = false;
                 }
-            }
 
-            if ((result == 0)
-                    && (!processor.couldFill(this, args) || fillEnded)) {
-                // Nothing was drained and no hope to fill again
-                result = -1;
-            }
+                if ((result == 0)
+                        && (!processor.couldFill(this, args) || fillEnded)) {
+                    // Nothing was drained and no hope to fill again
+                    result = -1;
+                }
 
-            if (Context.getCurrentLogger().isLoggable(Level.FINEST)) {
-                Context.getCurrentLogger().log(
-                        Level.FINEST,
-                        "Ending process of buffer " + this + ". Result: "
-                                + result + ", try again: " + tryAgain
-                                + ", can loop: "
-                                + processor.canLoop(this, args)
-                                + ", total filled: " + totalFilled);
-            }
+                if (Context.getCurrentLogger().isLoggable(Level.FINEST)) {
+                    Context.getCurrentLogger().log(
+                            Level.FINEST,
+                            "Ending process of buffer " + this + ". Result: "
+                                    + result + ", try again: " + tryAgain
+                                    + ", can loop: "
+                                    + processor.canLoop(this, args)
+                                    + ", total filled: " + totalFilled);
+                }
 
-            processor.postProcess(result);
+                processor.postProcess(result);
+            } finally {
+                this.processing = wasProcessing;
+            }
         }
 
         return result;
@@ -661,7 +754,36 @@ public class Buffer {
      * @return The number of bytes that can be read or written.
      */
     public final int remaining() {
-        return getBytes().remaining();
+        ByteBuffer byteBuffer = this.bytes;
+        return (byteBuffer != null) ? byteBuffer.remaining()
+                : (isFilling() ? this.size : 0);
+    }
+
+    /**
+     * Releases the byte buffer back to its pool if the buffer is empty. Does
+     * nothing if the buffer isn't backed by a pool, if some bytes are still in
+     * flight or if the buffer is being processed, for example when invoked by
+     * a processor callback.
+     * 
+     * @return True if the byte buffer was released.
+     */
+    public boolean release() {
+        boolean result = false;
+
+        if ((this.pool != null) && isLeased()) {
+            synchronized (getLock()) {
+                if (!this.processing && isLeased() && isEmpty()) {
+                    ByteBuffer byteBuffer = this.bytes;
+                    this.bytes = null;
+                    this.fillBegin = 0;
+                    this.state = BufferState.FILLING;
+                    this.pool.release(byteBuffer);
+                    result = true;
+                }
+            }
+        }
+
+        return result;
     }
 
     /**
@@ -676,7 +798,9 @@ public class Buffer {
 
     @Override
     public String toString() {
-        return getBytes().toString() + ", " + getState() + ", " + isEmpty();
+        ByteBuffer byteBuffer = this.bytes;
+        return ((byteBuffer == null) ? "Released buffer" : byteBuffer
+                .toString()) + ", " + getState() + ", " + isEmpty();
     }
 
 }
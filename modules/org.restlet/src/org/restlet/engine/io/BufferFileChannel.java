@@ -0,0 +1,307 @@
+/**
+ * Copyright 2005-2012 Restlet S.A.S.
+ * 
+ * The contents of this file are subject to the terms of one of the following
+ * open source licenses: Apache 2.0 or LGPL 3.0 or LGPL 2.1 or CDDL 1.0 or EPL
+ * 1.0 (the "Licenses"). You can select the license that you prefer but you may
+ * not use this file except in compliance with one of these Licenses.
+ * 
+ * You can obtain a copy of the Apache 2.0 license at
+ * http://www.opensource.org/licenses/apache-2.0
+ * 
+ * You can obtain a copy of the LGPL 3.0 license at
+ * http://www.opensource.org/licenses/lgpl-3.0
+ * 
+ * You can obtain a copy of the LGPL 2.1 license at
+ * http://www.opensource.org/licenses/lgpl-2.1
+ * 
+ * You can obtain a copy of the CDDL 1.0 license at
+ * http://www.opensource.org/licenses/cddl1
+ * 
+ * You can obtain a copy of the EPL 1.0 license at
+ * http://www.opensource.org/licenses/eclipse-1.0
+ * 
+ * See the Licenses for the specific language governing permissions and
+ * limitations under the Licenses.
+ * 
+ * Alternatively, you can obtain a royalty free commercial license with less
+ * limitations, transferable or non-transferable, directly at
+ * http://www.restlet.com/products/restlet-framework
+ * 
+ * Restlet is a registered trademark of Restlet S.A.S.
+ */
+
+package org.restlet.engine.io;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.NonWritableChannelException;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+
+// [excludes gwt]
+/**
+ * Read-only file channel whose content is held by a byte buffer, typically a
+ * memory mapping or a heap copy of a file shared by several readers. Each
+ * instance has its own position, the shared buffer is never modified.<br>
+ * <br>
+ * Only shared locks can be acquired, as the channel isn't writable. They don't
+ * lock the file and only guard against the closing of the channel. Read-only
+ * mappings are slices of the content when it is memory mapped, otherwise they
+ * are mapped from the file, if known.
+ * 
+ * @author Jerome Louvel
+ */
+public class BufferFileChannel extends FileChannel {
+
+    /** Shared lock on a region of a buffer file channel. */
+    private static class BufferFileLock extends FileLock {
+
+        /** Indicates if the lock is still valid. */
+        private volatile boolean valid;
+
+        /**
+         * Constructor.
+         * 
+         * @param channel
+         *            The locked channel.
+         * @param position
+         *            The position of the locked region.
+         * @param size
+         *            The size of the locked region.
+         */
+        public BufferFileLock(FileChannel channel, long position, long size) {
+            super(channel, position, size, true);
+            this.valid = true;
+        }
+
+        @Override
+        public boolean isValid() {
+            return this.valid && channel().isOpen();
+        }
+
+        @Override
+        public void release() throws IOException {
+            if (!channel().isOpen()) {
+                throw new ClosedChannelException();
+            }
+
+            this.valid = false;
+        }
+    }
+
+    /** The content, with its own position and limit. */
+    private final ByteBuffer content;
+
+    /** The file whose content is held, or null. */
+    private final File file;
+
+    /**
+     * Constructor.
+     * 
+     * @param content
+     *            The shared content, from position 0 to its limit.
+     */
+    public BufferFileChannel(ByteBuffer content) {
+        this(content, null);
+    }
+
+    /**
+     * Constructor.
+     * 
+     * @param content
+     *            The shared content, from position 0 to its limit.
+     * @param file
+     *            The file whose content is held, or null.
+     */
+    public BufferFileChannel(ByteBuffer content, File file) {
+        this.content = content.duplicate();
+        this.content.position(0);
+        this.file = file;
+    }
+
+    @Override
+    public void force(boolean metaData) throws IOException {
+        // Nothing to force
+    }
+
+    @Override
+    public FileLock lock(long position, long size, boolean shared)
+            throws IOException {
+        if (!isOpen()) {
+            throw new ClosedChannelException();
+        } else if (!shared) {
+            throw new NonWritableChannelException();
+        }
+
+        return new BufferFileLock(this, position, size);
+    }
+
+    @Override
+    public MappedByteBuffer map(MapMode mode, long position, long size)
+            throws IOException {
+        if (!isOpen()) {
+            throw new ClosedChannelException();
+        } else if (mode != MapMode.READ_ONLY) {
+            throw new NonWritableChannelException();
+        } else if ((position < 0) || (size < 0)
+                || (size > Integer.MAX_VALUE)) {
+            throw new IllegalArgumentException("Invalid mapped region");
+        } else if (position + size > size()) {
+            throw new IOException(
+                    "Can't map a region beyond the end of the content");
+        }
+
+        ByteBuffer region = slice(position, size);
+
+        if (region instanceof MappedByteBuffer) {
+            // The content is itself memory mapped
+            return (MappedByteBuffer) region.slice();
+        } else if (this.file == null) {
+            throw new IOException(
+                    "Can't map a content that isn't backed by a file");
+        }
+
+        FileInputStream fis = new FileInputStream(this.file);
+
+        try {
+            return fis.getChannel().map(mode, position, size);
+        } finally {
+            // The mapping stays valid after closing the channel
+            fis.close();
+        }
+    }
+
+    @Override
+    public long position() throws IOException {
+        return this.content.position();
+    }
+
+    @Override
+    public FileChannel position(long newPosition) throws IOException {
+        this.content.position((int) Math.min(newPosition, size()));
+        return this;
+    }
+
+    @Override
+    public int read(ByteBuffer dst) throws IOException {
+        int result = read(dst, this.content.position());
+
+        if (result > 0) {
+            this.content.position(this.content.position() + result);
+        }
+
+        return result;
+    }
+
+    @Override
+    public int read(ByteBuffer dst, long position) throws IOException {
+        if (!isOpen()) {
+            throw new ClosedChannelException();
+        } else if (position >= size()) {
+            return -1;
+        }
+
+        ByteBuffer slice = slice(position, dst.remaining());
+        int result = slice.remaining();
+        dst.put(slice);
+        return result;
+    }
+
+    @Override
+    public long read(ByteBuffer[] dsts, int offset, int length)
+            throws IOException {
+        long result = 0;
+
+        if (position() >= size()) {
+            return -1;
+        }
+
+        for (int i = offset; (i < offset + length) && (position() < size()); i++) {
+            if (dsts[i].hasRemaining()) {
+                result += read(dsts[i]);
+            }
+        }
+
+        return result;
+    }
+
+    @Override
+    public long size() throws IOException {
+        return this.content.limit();
+    }
+
+    /**
+     * Returns a view of a region of the content.
+     * 
+     * @param position
+     *            The start position.
+     * @param count
+     *            The maximum number of bytes.
+     * @return The view of the region.
+     */
+    private ByteBuffer slice(long position, long count) {
+        ByteBuffer result = this.content.duplicate();
+        result.position((int) position);
+        result.limit((int) Math.min(this.content.limit(), position + count));
+        return result;
+    }
+
+    @Override
+    public long transferFrom(ReadableByteChannel src, long position, long count)
+            throws IOException {
+        throw new NonWritableChannelException();
+    }
+
+    @Override
+    public long transferTo(long position, long count,
+            WritableByteChannel target) throws IOException {
+        if (!isOpen()) {
+            throw new ClosedChannelException();
+        } else if (position >= size()) {
+            return 0;
+        }
+
+        // Written straight from the shared buffer
+        return target.write(slice(position, count));
+    }
+
+    @Override
+    public FileChannel truncate(long size) throws IOException {
+        throw new NonWritableChannelException();
+    }
+
+    @Override
+    public FileLock tryLock(long position, long size, boolean shared)
+            throws IOException {
+        return lock(position, size, shared);
+    }
+
+    @Override
+    public int write(ByteBuffer src) throws IOException {
+        throw new NonWritableChannelException();
+    }
+
+    @Override
+    public int write(ByteBuffer src, long position) throws IOException {
+        throw new NonWritableChannelException();
+    }
+
+    @Override
+    public long write(ByteBuffer[] srcs, int offset, int length)
+            throws IOException {
+        throw new NonWritableChannelException();
+    }
+
+    @Override
+    protected void implCloseChannel() throws IOException {
+        // The shared content is released by the garbage collector
+    }
+
+}
@@ -0,0 +1,377 @@
+/**
+ * Copyright 2005-2012 Restlet S.A.S.
+ * 
+ * The contents of this file are subject to the terms of one of the following
+ * open source licenses: Apache 2.0 or LGPL 3.0 or LGPL 2.1 or CDDL 1.0 or EPL
+ * 1.0 (the "Licenses"). You can select the license that you prefer but you may
+ * not use this file except in compliance with one of these Licenses.
+ * 
+ * You can obtain a copy of the Apache 2.0 license at
+ * http://www.opensource.org/licenses/apache-2.0
+ * 
+ * You can obtain a copy of the LGPL 3.0 license at
+ * http://www.opensource.org/licenses/lgpl-3.0
+ * 
+ * You can obtain a copy of the LGPL 2.1 license at
+ * http://www.opensource.org/licenses/lgpl-2.1
+ * 
+ * You can obtain a copy of the CDDL 1.0 license at
+ * http://www.opensource.org/licenses/cddl1
+ * 
+ * You can obtain a copy of the EPL 1.0 license at
+ * http://www.opensource.org/licenses/eclipse-1.0
+ * 
+ * See the Licenses for the specific language governing permissions and
+ * limitations under the Licenses.
+ * 
+ * Alternatively, you can obtain a royalty free commercial license with less
+ * limitations, transferable or non-transferable, directly at
+ * http://www.restlet.com/products/restlet-framework
+ * 
+ * Restlet is a registered trademark of Restlet S.A.S.
+ */
+
+package org.restlet.engine.io;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Pool of byte buffers shared by the {@link Buffer} instances of a connector.
+ * Buffers are leased only while some data is in flight and released when the
+ * owner becomes idle. A leased buffer has a single owner, so buffers aren't
+ * reference counted: the owner must not release a buffer still in use. The
+ * byte buffers are grouped into size classes, each one being a power of two.
+ * Each thread keeps a small cache of released buffers to limit the contention
+ * on the shared free lists.
+ * 
+ * @author Jerome Louvel
+ */
+public class BufferPool {
+
+    /** The size of the smallest size class. */
+    public static final int MIN_SIZE = 1024;
+
+    /** The number of size classes. */
+    private static final int SIZE_CLASSES = 16;
+
+    /** The maximum number of buffers per size class cached by each thread. */
+    private static final int THREAD_CACHE_SIZE = 8;
+
+    /**
+     * Returns the size class of a given buffer size.
+     * 
+     * @param size
+     *            The buffer size.
+     * @return The size class index or -1 if the size is too large to be
+     *         pooled.
+     */
+    private static int getSizeClass(int size) {
+        int result = 0;
+        int classSize = MIN_SIZE;
+
+        while ((classSize < size) && (result < SIZE_CLASSES)) {
+            classSize <<= 1;
+            result++;
+        }
+
+        return (result < SIZE_CLASSES) ? result : -1;
+    }
+
+    /** Indicates if direct NIO buffers should be allocated. */
+    private final boolean direct;
+
+    /** The shared free lists, one per size class. */
+    private final List<Queue<ByteBuffer>> freeLists;
+
+    /** The maximum number of bytes retained in the shared free lists. */
+    private final long maxRetainedBytes;
+
+    /** The per-thread caches of free buffers. */
+    private final ThreadLocal<List<ArrayDeque<ByteBuffer>>> threadCaches;
+
+    /** The number of byte buffers allocated. */
+    private final AtomicLong allocatedCount;
+
+    /** The number of bytes allocated. */
+    private final AtomicLong allocatedBytes;
+
+    /** The number of byte buffers discarded. */
+    private final AtomicLong discardedCount;
+
+    /** The number of byte buffers currently leased. */
+    private final AtomicLong leasedCount;
+
+    /** The number of bytes currently leased. */
+    private final AtomicLong leasedBytes;
+
+    /** The number of leases served from the pool without allocation. */
+    private final AtomicLong reusedCount;
+
+    /** The number of bytes retained in the shared free lists. */
+    private final AtomicLong retainedBytes;
+
+    /**
+     * Constructor.
+     * 
+     * @param direct
+     *            Indicates if direct NIO buffers should be allocated.
+     * @param maxRetainedBytes
+     *            The maximum number of bytes retained in the shared free
+     *            lists.
+     */
+    public BufferPool(boolean direct, long maxRetainedBytes) {
+        this.direct = direct;
+        this.maxRetainedBytes = maxRetainedBytes;
+        this.freeLists = new ArrayList<Queue<ByteBuffer>>(SIZE_CLASSES);
+
+        for (int i = 0; i < SIZE_CLASSES; i++) {
+            this.freeLists.add(new ConcurrentLinkedQueue<ByteBuffer>());
+        }
+
+        this.threadCaches = new ThreadLocal<List<ArrayDeque<ByteBuffer>>>() {
+            @Override
+            protected List<ArrayDeque<ByteBuffer>> initialValue() {
+                // The caches are lazily created for the size classes used
+                List<ArrayDeque<ByteBuffer>> result = new ArrayList<ArrayDeque<ByteBuffer>>(
+                        SIZE_CLASSES);
+
+                for (int i = 0; i < SIZE_CLASSES; i++) {
+                    result.add(null);
+                }
+
+                return result;
+            }
+        };
+
+        this.allocatedBytes = new AtomicLong();
+        this.allocatedCount = new AtomicLong();
+        this.discardedCount = new AtomicLong();
+        this.leasedBytes = new AtomicLong();
+        this.leasedCount = new AtomicLong();
+        this.reusedCount = new AtomicLong();
+        this.retainedBytes = new AtomicLong();
+    }
+
+    /**
+     * Allocates a new byte buffer.
+     * 
+     * @param size
+     *            The buffer size.
+     * @return The new byte buffer.
+     */
+    protected ByteBuffer allocate(int size) {
+        this.allocatedCount.incrementAndGet();
+        this.allocatedBytes.addAndGet(size);
+        return isDirect() ? ByteBuffer.allocateDirect(size) : ByteBuffer
+                .allocate(size);
+    }
+
+    /**
+     * Discards all the byte buffers retained in the shared free lists. Buffers
+     * cached by threads are left untouched.
+     */
+    public void clear() {
+        ByteBuffer byteBuffer;
+
+        for (Queue<ByteBuffer> freeList : this.freeLists) {
+            while ((byteBuffer = freeList.poll()) != null) {
+                this.retainedBytes.addAndGet(-byteBuffer.capacity());
+                this.discardedCount.incrementAndGet();
+            }
+        }
+    }
+
+    /**
+     * Returns the number of bytes allocated since the creation of the pool.
+     * 
+     * @return The number of bytes allocated.
+     */
+    public long getAllocatedBytes() {
+        return allocatedBytes.get();
+    }
+
+    /**
+     * Returns the number of byte buffers allocated since the creation of the
+     * pool.
+     * 
+     * @return The number of byte buffers allocated.
+     */
+    public long getAllocatedCount() {
+        return allocatedCount.get();
+    }
+
+    /**
+     * Returns the number of released byte buffers discarded because the pool
+     * was full.
+     * 
+     * @return The number of byte buffers discarded.
+     */
+    public long getDiscardedCount() {
+        return discardedCount.get();
+    }
+
+    /**
+     * Returns the number of bytes currently leased.
+     * 
+     * @return The number of bytes currently leased.
+     */
+    public long getLeasedBytes() {
+        return leasedBytes.get();
+    }
+
+    /**
+     * Returns the number of byte buffers currently leased.
+     * 
+     * @return The number of byte buffers currently leased.
+     */
+    public long getLeasedCount() {
+        return leasedCount.get();
+    }
+
+    /**
+     * Returns the maximum number of bytes retained in the shared free lists.
+     * 
+     * @return The maximum number of bytes retained in the shared free lists.
+     */
+    public long getMaxRetainedBytes() {
+        return maxRetainedBytes;
+    }
+
+    /**
+     * Returns the number of bytes retained in the shared free lists.
+     * 
+     * @return The number of bytes retained in the shared free lists.
+     */
+    public long getRetainedBytes() {
+        return retainedBytes.get();
+    }
+
+    /**
+     * Returns the number of leases served without allocating a new byte
+     * buffer.
+     * 
+     * @return The number of leases served without allocation.
+     */
+    public long getReusedCount() {
+        return reusedCount.get();
+    }
+
+    /**
+     * Indicates if direct NIO buffers are allocated.
+     * 
+     * @return True if direct NIO buffers are allocated.
+     */
+    public boolean isDirect() {
+        return direct;
+    }
+
+    /**
+     * Leases a cleared byte buffer with a capacity of at least the given size.
+     * It must be given back with the {@link #release(ByteBuffer)} method.
+     * 
+     * @param size
+     *            The minimum buffer size.
+     * @return The leased byte buffer.
+     */
+    public ByteBuffer lease(int size) {
+        ByteBuffer result = null;
+        int sizeClass = getSizeClass(size);
+
+        if (sizeClass == -1) {
+            result = allocate(size);
+        } else {
+            ArrayDeque<ByteBuffer> threadCache = this.threadCaches.get().get(
+                    sizeClass);
+
+            if (threadCache != null) {
+                result = threadCache.poll();
+            }
+
+            if (result == null) {
+                result = this.freeLists.get(sizeClass).poll();
+
+                if (result != null) {
+                    this.retainedBytes.addAndGet(-result.capacity());
+                }
+            }
+
+            if (result == null) {
+                result = allocate(MIN_SIZE << sizeClass);
+            } else {
+                this.reusedCount.incrementAndGet();
+            }
+        }
+
+        this.leasedCount.incrementAndGet();
+        this.leasedBytes.addAndGet(result.capacity());
+        return result;
+    }
+
+    /**
+     * Releases a byte buffer previously leased. The buffer must not be used
+     * anymore by the caller.
+     * 
+     * @param byteBuffer
+     *            The byte buffer to release.
+     */
+    public void release(ByteBuffer byteBuffer) {
+        if (byteBuffer != null) {
+            int capacity = byteBuffer.capacity();
+            this.leasedCount.decrementAndGet();
+            this.leasedBytes.addAndGet(-capacity);
+            int sizeClass = getSizeClass(capacity);
+
+            if ((sizeClass == -1) || ((MIN_SIZE << sizeClass) != capacity)
+                    || (byteBuffer.isDirect() != isDirect())) {
+                // Not a pooled buffer
+                this.discardedCount.incrementAndGet();
+            } else {
+                byteBuffer.clear();
+                List<ArrayDeque<ByteBuffer>> threadCaches = this.threadCaches
+                        .get();
+                ArrayDeque<ByteBuffer> threadCache = threadCaches
+                        .get(sizeClass);
+
+                if (threadCache == null) {
+                    threadCache = new ArrayDeque<ByteBuffer>(THREAD_CACHE_SIZE);
+                    threadCaches.set(sizeClass, threadCache);
+                }
+
+                if (threadCache.size() < THREAD_CACHE_SIZE) {
+                    threadCache.push(byteBuffer);
+                } else if (this.retainedBytes.addAndGet(capacity)
+                        <= getMaxRetainedBytes()) {
+                    this.freeLists.get(sizeClass).offer(byteBuffer);
+                } else {
+                    this.retainedBytes.addAndGet(-capacity);
+                    this.discardedCount.incrementAndGet();
+                }
+            }
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "Buffer pool (leased | retained | allocated | reused | discarded): "
+                + getLeasedCount()
+                + " buffers ("
+                + getLeasedBytes()
+                + " bytes) | "
+                + getRetainedBytes()
+                + " bytes | "
+                + getAllocatedCount()
+                + " buffers ("
+                + getAllocatedBytes()
+                + " bytes) | "
+                + getReusedCount()
+                + " | "
+                + getDiscardedCount();
+    }
+
+}
@@ -0,0 +1,209 @@
+/**
+ * Copyright 2005-2012 Restlet S.A.S.
+ * 
+ * The contents of this file are subject to the terms of one of the following
+ * open source licenses: Apache 2.0 or LGPL 3.0 or LGPL 2.1 or CDDL 1.0 or EPL
+ * 1.0 (the "Licenses"). You can select the license that you prefer but you may
+ * not use this file except in compliance with one of these Licenses.
+ * 
+ * You can obtain a copy of the Apache 2.0 license at
+ * http://www.opensource.org/licenses/apache-2.0
+ * 
+ * You can obtain a copy of the LGPL 3.0 license at
+ * http://www.opensource.org/licenses/lgpl-3.0
+ * 
+ * You can obtain a copy of the LGPL 2.1 license at
+ * http://www.opensource.org/licenses/lgpl-2.1
+ * 
+ * You can obtain a copy of the CDDL 1.0 license at
+ * http://www.opensource.org/licenses/cddl1
+ * 
+ * You can obtain a copy of the EPL 1.0 license at
+ * http://www.opensource.org/licenses/eclipse-1.0
+ * 
+ * See the Licenses for the specific language governing permissions and
+ * limitations under the Licenses.
+ * 
+ * Alternatively, you can obtain a royalty free commercial license with less
+ * limitations, transferable or non-transferable, directly at
+ * http://www.restlet.com/products/restlet-framework
+ * 
+ * Restlet is a registered trademark of Restlet S.A.S.
+ */
+
+package org.restlet.engine.io;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+// [excludes gwt]
+/**
+ * Input stream pulling its content from a push-style producer on the reading
+ * thread, without pipe nor helper thread. Each time the internal buffer is
+ * exhausted, the {@link #produce(OutputStream)} method is invoked to write the
+ * next chunk of content, until it reports that the end has been reached.
+ * Producers should write bounded chunks at each step to keep the memory
+ * footprint low. When the stream is closed before the end is reached, the
+ * {@link #onClose()} method is invoked to release the producer resources.
+ * 
+ * @author Jerome Louvel
+ */
+public abstract class ContinuationInputStream extends InputStream {
+
+    /** Byte array output stream giving access to its internal buffer. */
+    private static class Sink extends ByteArrayOutputStream {
+
+        /** The index of the next byte to read. */
+        private int position;
+
+        /**
+         * Constructor.
+         * 
+         * @param size
+         *            The initial buffer size.
+         */
+        public Sink(int size) {
+            super(size);
+            this.position = 0;
+        }
+
+        /**
+         * Returns the number of bytes that can be read.
+         * 
+         * @return The number of bytes that can be read.
+         */
+        public int available() {
+            return this.count - this.position;
+        }
+
+        /**
+         * Reads the next byte.
+         * 
+         * @return The next byte.
+         */
+        public int read() {
+            return this.buf[this.position++] & 0xff;
+        }
+
+        /**
+         * Reads bytes into the given array.
+         * 
+         * @param b
+         *            The target array.
+         * @param off
+         *            The start offset in the target array.
+         * @param len
+         *            The maximum number of bytes to read.
+         * @return The number of bytes read.
+         */
+        public int read(byte[] b, int off, int len) {
+            int result = Math.min(len, available());
+            System.arraycopy(this.buf, this.position, b, off, result);
+            this.position += result;
+            return result;
+        }
+
+        @Override
+        public synchronized void reset() {
+            super.reset();
+            this.position = 0;
+        }
+    }
+
+    /** Indicates if the stream has been closed. */
+    private boolean closed;
+
+    /** Indicates if the producer has reached the end of the content. */
+    private boolean endReached;
+
+    /** The buffer receiving the produced chunks. */
+    private final Sink sink;
+
+    /**
+     * Default constructor.
+     */
+    public ContinuationInputStream() {
+        this(IoUtils.BUFFER_SIZE);
+    }
+
+    /**
+     * Constructor.
+     * 
+     * @param bufferSize
+     *            The initial size of the internal buffer.
+     */
+    public ContinuationInputStream(int bufferSize) {
+        this.closed = false;
+        this.endReached = false;
+        this.sink = new Sink(bufferSize);
+    }
+
+    @Override
+    public int available() throws IOException {
+        return this.sink.available();
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (!this.closed) {
+            this.closed = true;
+            this.endReached = true;
+            this.sink.reset();
+            onClose();
+        }
+    }
+
+    /**
+     * Produces content until at least one byte is available or the end is
+     * reached.
+     * 
+     * @return True if at least one byte is available.
+     * @throws IOException
+     */
+    private boolean fill() throws IOException {
+        while ((this.sink.available() == 0) && !this.endReached) {
+            this.sink.reset();
+            this.endReached = !produce(this.sink);
+        }
+
+        return this.sink.available() > 0;
+    }
+
+    /**
+     * Invoked once when the stream is closed, even if the end of the content
+     * wasn't reached. Does nothing by default.
+     * 
+     * @throws IOException
+     */
+    protected void onClose() throws IOException {
+    }
+
+    /**
+     * Writes the next chunk of content to the given output stream.
+     * 
+     * @param outputStream
+     *            The output stream to write to.
+     * @return True if more content remains to be produced, false if the end
+     *         was reached.
+     * @throws IOException
+     */
+    protected abstract boolean produce(OutputStream outputStream)
+            throws IOException;
+
+    @Override
+    public int read() throws IOException {
+        return fill() ? this.sink.read() : -1;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        if (len == 0) {
+            return 0;
+        }
+
+        return fill() ? this.sink.read(b, off, len) : -1;
+    }
+
+}
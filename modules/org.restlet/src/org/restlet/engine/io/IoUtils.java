@@ -51,6 +51,16 @@ public class IoUtils {
     public static final int BUFFER_SIZE = getProperty(
             "org.restlet.engine.io.bufferSize", 8192);
 
+    /**
+     * The maximum size of the output representations that are fully buffered
+     * by the reading thread when converted to an input stream, a channel or a
+     * reader, instead of relying on a pipe and a writer thread. It looks for
+     * the System property "org.restlet.engine.io.maxBufferedSize" and if not
+     * defined, uses the "65536" default value.
+     */
+    public static final int MAX_BUFFERED_SIZE = getProperty(
+            "org.restlet.engine.io.maxBufferedSize", 65536);
+
     /**
      * The number of milliseconds after which IO operation will time out. It
      * looks for the System property "org.restlet.engine.io.timeoutMs" and if
@@ -184,18 +184,24 @@ public class NioUtils {
 
     /**
      * Returns a readable byte channel based on the given representation's
-     * content and its write(WritableByteChannel) method. Internally, it uses a
-     * writer thread and a pipe channel.
+     * content and its write(WritableByteChannel) method. If the representation
+     * is bufferable, its content is written by the reading thread into a memory
+     * buffer. Otherwise, it uses a writer thread and a pipe channel.
      * 
      * @param representation
      *            the representation to get the {@link OutputStream} from.
      * @return A readable byte channel.
      * @throws IOException
+     * @see BioUtils#isBufferable(Representation)
      */
     public static ReadableByteChannel getChannel(
             final Representation representation) throws IOException {
         ReadableByteChannel result = null;
 
+        if (BioUtils.isBufferable(representation)) {
+            return getChannel(BioUtils.getInputStream(representation));
+        }
+
         if (Edition.CURRENT != Edition.GAE) {
             // [ifndef gae]
             final java.nio.channels.Pipe pipe = java.nio.channels.Pipe.open();
@@ -118,6 +118,18 @@ public class ReadableBufferedChannel extends
         return endReached;
     }
 
+    /**
+     * Indicates if the channel is open. Stays true once the end has been
+     * reached, even if the underlying connection has been closed meanwhile, so
+     * that readers can still detect the end of the channel.
+     * 
+     * @return True if the channel is open.
+     */
+    @Override
+    public boolean isOpen() {
+        return isEndReached() || super.isOpen();
+    }
+
     /**
      * Callback invoked upon IO completion. Calls
      * {@link CompletionListener#onMessageCompleted(boolean)} if the end has been
@@ -173,7 +185,10 @@ public class ReadableBufferedChannel extends
      *         been reached.
      */
     public int read(ByteBuffer targetBuffer) throws IOException {
-        return getBuffer().process(this, 0, targetBuffer);
+        // Once the end is reached, the underlying buffer may have been given
+        // back to its connection for the next message
+        return isEndReached() ? -1 : getBuffer().process(this, 0,
+                targetBuffer);
     }
 
     /**
@@ -0,0 +1,369 @@
+/**
+ * Copyright 2005-2012 Restlet S.A.S.
+ * 
+ * The contents of this file are subject to the terms of one of the following
+ * open source licenses: Apache 2.0 or LGPL 3.0 or LGPL 2.1 or CDDL 1.0 or EPL
+ * 1.0 (the "Licenses"). You can select the license that you prefer but you may
+ * not use this file except in compliance with one of these Licenses.
+ * 
+ * You can obtain a copy of the Apache 2.0 license at
+ * http://www.opensource.org/licenses/apache-2.0
+ * 
+ * You can obtain a copy of the LGPL 3.0 license at
+ * http://www.opensource.org/licenses/lgpl-3.0
+ * 
+ * You can obtain a copy of the LGPL 2.1 license at
+ * http://www.opensource.org/licenses/lgpl-2.1
+ * 
+ * You can obtain a copy of the CDDL 1.0 license at
+ * http://www.opensource.org/licenses/cddl1
+ * 
+ * You can obtain a copy of the EPL 1.0 license at
+ * http://www.opensource.org/licenses/eclipse-1.0
+ * 
+ * See the Licenses for the specific language governing permissions and
+ * limitations under the Licenses.
+ * 
+ * Alternatively, you can obtain a royalty free commercial license with less
+ * limitations, transferable or non-transferable, directly at
+ * http://www.restlet.com/products/restlet-framework
+ * 
+ * Restlet is a registered trademark of Restlet S.A.S.
+ */
+
+package org.restlet.engine.local;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedSet;
+import java.util.TreeSet;
+
+import org.restlet.data.LocalReference;
+import org.restlet.data.Protocol;
+import org.restlet.data.Reference;
+import org.restlet.data.ReferenceList;
+
+/**
+ * Cache of the directory listings and variant lists used by the
+ * {@link DirectoryServerResource}. It prevents the underlying client
+ * connectors from listing the same directory for each request, and the
+ * listings from being sorted again for each request.<br>
+ * <br>
+ * Each entry expires after a time to live. Entries of local files are also
+ * invalidated as soon as the modification date of the listed directory
+ * changes, which happens when an entry is added, removed or renamed.
+ * 
+ * @author Jerome Louvel
+ */
+public class DirectoryCache {
+
+    /** Cached listing. */
+    private static class Entry {
+
+        /** The directory to check or null. */
+        private final File directory;
+
+        /** The expiration time. */
+        private volatile long expirationTime;
+
+        /** The modification date of the directory when listed. */
+        private final long lastModified;
+
+        /**
+         * Indicates if the modification date can be trusted to detect later
+         * changes. This isn't the case if the directory was modified during
+         * the time resolution of the file system before being listed.
+         */
+        private final boolean lastModifiedReliable;
+
+        /** The listing. */
+        private final ReferenceList list;
+
+        /** The comparator used for the sorted listing. */
+        private volatile Comparator<Reference> sortComparator;
+
+        /** The sorted listing. */
+        private volatile List<Reference> sortedList;
+
+        /**
+         * Constructor.
+         * 
+         * @param list
+         *            The listing.
+         * @param directory
+         *            The directory to check or null.
+         * @param expirationTime
+         *            The expiration time.
+         */
+        public Entry(ReferenceList list, File directory, long expirationTime) {
+            this.directory = directory;
+            this.expirationTime = expirationTime;
+            this.lastModified = (directory == null) ? 0L : directory
+                    .lastModified();
+            this.lastModifiedReliable = (this.lastModified > 0)
+                    && (this.lastModified + MODIFICATION_RESOLUTION < System
+                            .currentTimeMillis());
+            this.list = list;
+        }
+
+        /**
+         * Indicates if the entry is still valid, extending its expiration
+         * time if the directory hasn't changed.
+         * 
+         * @param now
+         *            The current time.
+         * @param timeToLive
+         *            The time to live.
+         * @return True if the entry is still valid.
+         */
+        public boolean isValid(long now, long timeToLive) {
+            boolean result = now < this.expirationTime;
+
+            if (!result && this.lastModifiedReliable
+                    && (this.directory.lastModified() == this.lastModified)) {
+                this.expirationTime = now + timeToLive;
+                result = true;
+            }
+
+            return result;
+        }
+    }
+
+    /** The worst time resolution of the file systems' modification dates. */
+    private static final long MODIFICATION_RESOLUTION = 2000L;
+
+    /**
+     * Returns the local directory of a listing.
+     * 
+     * @param uri
+     *            The URI of the listing.
+     * @param variants
+     *            True if the listing contains the variants of the URI, false
+     *            if it is the content of the directory URI.
+     * @return The local directory or null.
+     */
+    private static File getDirectory(String uri, boolean variants) {
+        File result = null;
+        LocalReference ref = new LocalReference(uri);
+
+        if (Protocol.FILE.equals(ref.getSchemeProtocol())) {
+            result = ref.getFile();
+
+            if (variants && (result != null)) {
+                result = result.getParentFile();
+            }
+        }
+
+        return result;
+    }
+
+    /** The cached entries, in access order. */
+    private final LinkedHashMap<String, Entry> entries;
+
+    /** The maximum number of entries. */
+    private final int maxEntries;
+
+    /** The time to live of the entries (in milliseconds). */
+    private final long timeToLive;
+
+    /**
+     * Constructor. Keeps 1000 entries at most.
+     * 
+     * @param timeToLive
+     *            The time to live of the entries (in milliseconds).
+     */
+    public DirectoryCache(long timeToLive) {
+        this(timeToLive, 1000);
+    }
+
+    /**
+     * Constructor.
+     * 
+     * @param timeToLive
+     *            The time to live of the entries (in milliseconds).
+     * @param maxEntries
+     *            The maximum number of entries.
+     */
+    @SuppressWarnings("serial")
+    public DirectoryCache(long timeToLive, int maxEntries) {
+        this.maxEntries = maxEntries;
+        this.timeToLive = timeToLive;
+        this.entries = new LinkedHashMap<String, Entry>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(
+                    Map.Entry<String, DirectoryCache.Entry> eldest) {
+                return size() > getMaxEntries();
+            }
+        };
+    }
+
+    /**
+     * Removes all the entries.
+     */
+    public synchronized void clear() {
+        this.entries.clear();
+    }
+
+    /**
+     * Returns a valid entry.
+     * 
+     * @param key
+     *            The entry key.
+     * @return The valid entry or null.
+     */
+    private synchronized Entry get(String key) {
+        Entry result = this.entries.get(key);
+
+        if ((result != null)
+                && !result.isValid(System.currentTimeMillis(), this.timeToLive)) {
+            this.entries.remove(key);
+            result = null;
+        }
+
+        return result;
+    }
+
+    /**
+     * Returns the number of entries.
+     * 
+     * @return The number of entries.
+     */
+    public synchronized int getCount() {
+        return this.entries.size();
+    }
+
+    /**
+     * Returns the key of a listing.
+     * 
+     * @param uri
+     *            The URI of the listing.
+     * @param variants
+     *            True if the listing contains the variants of the URI.
+     * @return The key of the listing.
+     */
+    private String getKey(String uri, boolean variants) {
+        return (variants ? "V " : "D ") + uri;
+    }
+
+    /**
+     * Returns a cached listing. The returned list must not be modified.
+     * 
+     * @param uri
+     *            The URI of the listing.
+     * @param variants
+     *            True if the listing contains the variants of the URI, false
+     *            if it is the content of the directory URI.
+     * @return The cached listing or null.
+     */
+    public ReferenceList getList(String uri, boolean variants) {
+        Entry entry = get(getKey(uri, variants));
+        return (entry == null) ? null : entry.list;
+    }
+
+    /**
+     * Returns the maximum number of entries.
+     * 
+     * @return The maximum number of entries.
+     */
+    public int getMaxEntries() {
+        return maxEntries;
+    }
+
+    /**
+     * Returns the cached content of a directory, sorted with the given
+     * comparator. The sorted list is computed once per comparator and must not
+     * be modified.
+     * 
+     * @param uri
+     *            The directory URI.
+     * @param comparator
+     *            The reference comparator.
+     * @return The sorted directory content or null.
+     */
+    public List<Reference> getSortedList(String uri,
+            Comparator<Reference> comparator) {
+        List<Reference> result = null;
+        Entry entry = get(getKey(uri, false));
+
+        if (entry != null) {
+            if (entry.sortComparator == comparator) {
+                result = entry.sortedList;
+            }
+
+            if (result == null) {
+                SortedSet<Reference> sortedSet = new TreeSet<Reference>(
+                        comparator);
+                sortedSet.addAll(entry.list);
+                result = Collections.unmodifiableList(new ArrayList<Reference>(
+                        sortedSet));
+                entry.sortedList = result;
+                entry.sortComparator = comparator;
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * Returns the time to live of the entries.
+     * 
+     * @return The time to live of the entries (in milliseconds).
+     */
+    public long getTimeToLive() {
+        return timeToLive;
+    }
+
+    /**
+     * Stores a listing.
+     * 
+     * @param uri
+     *            The URI of the listing.
+     * @param variants
+     *            True if the listing contains the variants of the URI, false
+     *            if it is the content of the directory URI.
+     * @param list
+     *            The listing to store.
+     */
+    public void putList(String uri, boolean variants, ReferenceList list) {
+        Entry entry = new Entry(list, getDirectory(uri, variants),
+                System.currentTimeMillis() + this.timeToLive);
+
+        synchronized (this) {
+            this.entries.put(getKey(uri, variants), entry);
+        }
+    }
+
+    /**
+     * Removes the listings related to a URI, typically after its
+     * modification.
+     * 
+     * @param uri
+     *            The modified URI.
+     */
+    public synchronized void remove(String uri) {
+        int lastSlashIndex = uri.lastIndexOf('/', uri.length() - 2);
+        String parentUri = (lastSlashIndex == -1) ? uri : uri.substring(0,
+                lastSlashIndex + 1);
+        this.entries.remove(getKey(uri, false));
+        this.entries.remove(getKey(uri, true));
+        this.entries.remove(getKey(parentUri, false));
+
+        // Variants of the sibling entries might be affected too
+        for (Iterator<String> iter = this.entries.keySet().iterator(); iter
+                .hasNext();) {
+            String key = iter.next();
+
+            if (key.startsWith("V " + parentUri)
+                    && (key.indexOf('/', parentUri.length() + 2) == -1)) {
+                iter.remove();
+            }
+        }
+    }
+
+}
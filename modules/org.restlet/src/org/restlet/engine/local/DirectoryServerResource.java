@@ -35,6 +35,7 @@ package org.restlet.engine.local;
 
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Comparator;
 import java.util.List;
 import java.util.SortedSet;
@@ -88,6 +89,9 @@ public class DirectoryServerResource extends ServerResource {
     /** If the resource is a directory, this contains its content. */
     private volatile ReferenceList directoryContent;
 
+    /** The URI of the directory content, if it is cached. */
+    private volatile String directoryContentUri;
+
     /**
      * If the resource is a directory, the non-trailing slash character leads to
      * redirection.
@@ -155,6 +159,7 @@ public class DirectoryServerResource extends ServerResource {
             }
 
             setStatus(contextResponse.getStatus());
+            invalidateCache();
         } else {
             setStatus(Status.CLIENT_ERROR_METHOD_NOT_ALLOWED,
                     "The directory is not modifiable.");
@@ -225,18 +230,38 @@ public class DirectoryServerResource extends ServerResource {
                                 + this.targetUri);
             } else {
                 // Try to detect the presence of a directory
-                Response contextResponse = getRepresentation(this.targetUri);
+                DirectoryCache cache = getDirectory().getCache();
+                ReferenceList listing = (cache == null) ? null : cache
+                        .getList(this.targetUri, false);
+                Response contextResponse = null;
+
+                if (listing == null) {
+                    contextResponse = getRepresentation(this.targetUri);
 
-                if (contextResponse.getEntity() != null) {
                     // As a convention, underlying client connectors return the
                     // directory listing with the media-type
                     // "MediaType.TEXT_URI_LIST" when handling directories
-                    if (MediaType.TEXT_URI_LIST.equals(contextResponse
-                            .getEntity().getMediaType())) {
+                    if ((contextResponse.getEntity() != null)
+                            && MediaType.TEXT_URI_LIST.equals(contextResponse
+                                    .getEntity().getMediaType())) {
+                        listing = new ReferenceList(
+                                contextResponse.getEntity());
+
+                        if (cache != null) {
+                            cache.putList(this.targetUri, false, listing);
+                        }
+                    }
+                }
+
+                if ((listing != null) || (contextResponse.getEntity() != null)) {
+                    if (listing != null) {
                         this.directoryTarget = true;
                         this.fileTarget = false;
-                        this.directoryContent = new ReferenceList(
-                                contextResponse.getEntity());
+                        this.directoryContent = listing;
+
+                        if (cache != null) {
+                            this.directoryContentUri = this.targetUri;
+                        }
 
                         if (!getReference().getPath().endsWith("/")) {
                             // All requests will be automatically redirected
@@ -354,13 +379,33 @@ public class DirectoryServerResource extends ServerResource {
                                     .substring(lastSlashIndex + 1);
                         }
 
-                        contextResponse = getRepresentation(this.directoryUri);
-                        if ((contextResponse.getEntity() != null)
-                                && MediaType.TEXT_URI_LIST
-                                        .equals(contextResponse.getEntity()
-                                                .getMediaType())) {
-                            this.directoryContent = new ReferenceList(
-                                    contextResponse.getEntity());
+                        listing = (cache == null) ? null : cache.getList(
+                                this.directoryUri, false);
+
+                        if (listing == null) {
+                            contextResponse = getRepresentation(this.directoryUri);
+
+                            if ((contextResponse.getEntity() != null)
+                                    && MediaType.TEXT_URI_LIST
+                                            .equals(contextResponse
+                                                    .getEntity()
+                                                    .getMediaType())) {
+                                listing = new ReferenceList(
+                                        contextResponse.getEntity());
+
+                                if (cache != null) {
+                                    cache.putList(this.directoryUri, false,
+                                            listing);
+                                }
+                            }
+                        }
+
+                        if (listing != null) {
+                            this.directoryContent = listing;
+
+                            if (cache != null) {
+                                this.directoryContentUri = this.directoryUri;
+                            }
                         }
                     }
 
@@ -648,11 +693,25 @@ public class DirectoryServerResource extends ServerResource {
                             // Set the list identifier
                             userList.setIdentifier(baseRef);
 
-                            SortedSet<Reference> sortedSet = new TreeSet<Reference>(
-                                    getDirectory().getComparator());
-                            sortedSet.addAll(this.directoryContent);
+                            Collection<Reference> sortedList = null;
+
+                            if ((getDirectory().getCache() != null)
+                                    && (this.directoryContentUri != null)) {
+                                // Reuse the listing already sorted
+                                sortedList = getDirectory().getCache()
+                                        .getSortedList(
+                                                this.directoryContentUri,
+                                                getDirectory().getComparator());
+                            }
+
+                            if (sortedList == null) {
+                                SortedSet<Reference> sortedSet = new TreeSet<Reference>(
+                                        getDirectory().getComparator());
+                                sortedSet.addAll(this.directoryContent);
+                                sortedList = sortedSet;
+                            }
 
-                            for (Reference ref : sortedSet) {
+                            for (Reference ref : sortedList) {
                                 String filePart = ref.toString(false, false)
                                         .substring(rootLength);
                                 StringBuilder filePath = new StringBuilder();
@@ -710,55 +769,69 @@ public class DirectoryServerResource extends ServerResource {
             this.uniqueReference = null;
 
             // Ask for the list of all variants of this resource
-            Response contextResponse = getRepresentation(this.targetUri,
-                    MediaType.TEXT_URI_LIST);
-            if (contextResponse.getEntity() != null) {
-                // Test if the given response is the list of all variants for
-                // this resource
-                if (MediaType.TEXT_URI_LIST.equals(contextResponse.getEntity()
-                        .getMediaType())) {
-                    ReferenceList listVariants = new ReferenceList(
-                            contextResponse.getEntity());
-                    String entryUri;
-                    String fullEntryName;
-                    String baseEntryName;
-                    int lastSlashIndex;
-                    int firstDotIndex;
-
-                    for (Reference ref : listVariants) {
-                        entryUri = ref.toString();
-                        lastSlashIndex = entryUri.lastIndexOf('/');
-                        fullEntryName = (lastSlashIndex == -1) ? entryUri
-                                : entryUri.substring(lastSlashIndex + 1);
-                        baseEntryName = fullEntryName;
-
-                        // Remove the extensions from the base name
-                        firstDotIndex = fullEntryName.indexOf('.');
-                        if (firstDotIndex != -1) {
-                            baseEntryName = fullEntryName.substring(0,
-                                    firstDotIndex);
+            DirectoryCache cache = getDirectory().getCache();
+            ReferenceList listVariants = (cache == null) ? null : cache
+                    .getList(this.targetUri, true);
+
+            if (listVariants == null) {
+                Response contextResponse = getRepresentation(this.targetUri,
+                        MediaType.TEXT_URI_LIST);
+
+                if (contextResponse.getEntity() != null) {
+                    // Test if the given response is the list of all variants
+                    // for this resource
+                    if (MediaType.TEXT_URI_LIST.equals(contextResponse
+                            .getEntity().getMediaType())) {
+                        listVariants = new ReferenceList(
+                                contextResponse.getEntity());
+
+                        if (cache != null) {
+                            cache.putList(this.targetUri, true, listVariants);
                         }
+                    } else {
+                        result.add(contextResponse.getEntity().getLocationRef());
+                    }
+                }
+            }
 
-                        // Check if the current file is a valid variant
-                        if (baseEntryName.equals(this.baseName)) {
-                            // Test if the variant is included in the base
-                            // prototype variant
-                            Variant variant = new Variant();
-                            Entity.updateMetadata(fullEntryName, variant, true,
-                                    getMetadataService());
-                            if (this.protoVariant.includes(variant)) {
-                                result.add(ref);
-                            }
+            if (listVariants != null) {
+                String entryUri;
+                String fullEntryName;
+                String baseEntryName;
+                int lastSlashIndex;
+                int firstDotIndex;
+
+                for (Reference ref : listVariants) {
+                    entryUri = ref.toString();
+                    lastSlashIndex = entryUri.lastIndexOf('/');
+                    fullEntryName = (lastSlashIndex == -1) ? entryUri
+                            : entryUri.substring(lastSlashIndex + 1);
+                    baseEntryName = fullEntryName;
+
+                    // Remove the extensions from the base name
+                    firstDotIndex = fullEntryName.indexOf('.');
+                    if (firstDotIndex != -1) {
+                        baseEntryName = fullEntryName.substring(0,
+                                firstDotIndex);
+                    }
 
-                            // Test if the variant is equal to the base variant
-                            if (this.baseVariant.equals(variant)) {
-                                // The unique reference has been found.
-                                this.uniqueReference = ref;
-                            }
+                    // Check if the current file is a valid variant
+                    if (baseEntryName.equals(this.baseName)) {
+                        // Test if the variant is included in the base
+                        // prototype variant
+                        Variant variant = new Variant();
+                        Entity.updateMetadata(fullEntryName, variant, true,
+                                getMetadataService());
+                        if (this.protoVariant.includes(variant)) {
+                            result.add(ref);
+                        }
+
+                        // Test if the variant is equal to the base variant
+                        if (this.baseVariant.equals(variant)) {
+                            // The unique reference has been found.
+                            this.uniqueReference = ref;
                         }
                     }
-                } else {
-                    result.add(contextResponse.getEntity().getLocationRef());
                 }
             }
         } catch (IOException ioe) {
@@ -796,6 +869,22 @@ public class DirectoryServerResource extends ServerResource {
         return result;
     }
 
+    /**
+     * Removes the cached listings related to the target URI, after its
+     * modification.
+     */
+    private void invalidateCache() {
+        DirectoryCache cache = getDirectory().getCache();
+
+        if (cache != null) {
+            cache.remove(this.targetUri);
+
+            if (this.directoryUri != null) {
+                cache.remove(this.directoryUri);
+            }
+        }
+    }
+
     /**
      * Indicates if the target resource is a directory.
      * 
@@ -828,6 +917,7 @@ public class DirectoryServerResource extends ServerResource {
             contextRequest.setResourceRef(this.targetUri);
             getClientDispatcher().handle(contextRequest, contextResponse);
             setStatus(contextResponse.getStatus());
+            invalidateCache();
         } else {
             setStatus(Status.CLIENT_ERROR_METHOD_NOT_ALLOWED,
                     "The directory is not modifiable.");
@@ -90,6 +90,21 @@ import org.restlet.representation.Variant;
  * <td>Indicates if a failed upload can be resumed. This will prevent the
  * deletion of the temporary file created.</td>
  * </tr>
+ * <tr>
+ * <td>mappedCacheSize</td>
+ * <td>long</td>
+ * <td>0</td>
+ * <td>Maximum total size of the recently served files whose content is kept
+ * in memory, either copied or memory mapped, in bytes. Zero disables the
+ * cache. See {@link MappedFileCache}.</td>
+ * </tr>
+ * <tr>
+ * <td>mappingThreshold</td>
+ * <td>int</td>
+ * <td>65536</td>
+ * <td>Minimum size of a cached file to be memory mapped instead of copied in
+ * a heap buffer, in bytes.</td>
+ * </tr>
  * </table>
  * 
  * @author Jerome Louvel
@@ -97,6 +112,9 @@ import org.restlet.representation.Variant;
  */
 public class FileClientHelper extends EntityClientHelper {
 
+    /** The cache of file contents or null. */
+    private volatile MappedFileCache mappedFileCache;
+
     /**
      * Constructor.
      * 
@@ -179,7 +197,38 @@ public class FileClientHelper extends EntityClientHelper {
         // Take care of the file separator.
         return new FileEntity(
                 new File(LocalReference.localizePath(decodedPath)),
-                getMetadataService());
+                getMetadataService(), getMappedFileCache());
+    }
+
+    /**
+     * Returns the cache of file contents, created on first use according to
+     * the "mappedCacheSize" and "mappingThreshold" parameters.
+     * 
+     * @return The cache of file contents or null if disabled.
+     */
+    public MappedFileCache getMappedFileCache() {
+        MappedFileCache result = this.mappedFileCache;
+
+        if (result == null) {
+            long maxSize = Long.parseLong(getHelpedParameters().getFirstValue(
+                    "mappedCacheSize", "0"));
+
+            if (maxSize > 0) {
+                synchronized (this) {
+                    result = this.mappedFileCache;
+
+                    if (result == null) {
+                        result = new MappedFileCache(maxSize,
+                                Integer.parseInt(getHelpedParameters()
+                                        .getFirstValue("mappingThreshold",
+                                                "65536")));
+                        this.mappedFileCache = result;
+                    }
+                }
+            }
+        }
+
+        return result;
     }
 
     /**
@@ -234,6 +283,8 @@ public class FileClientHelper extends EntityClientHelper {
      *            The file or directory to delete.
      */
     protected void handleFileDelete(Response response, File file) {
+        removeCachedContent(file);
+
         if (file.isDirectory()) {
             if (file.listFiles().length == 0) {
                 if (BioUtils.delete(file)) {
@@ -405,6 +456,7 @@ public class FileClientHelper extends EntityClientHelper {
 
             File tmp = null;
             boolean error = false;
+            removeCachedContent(file);
 
             if (file.exists()) {
                 // The PUT call is handled in two phases:
@@ -674,6 +726,21 @@ public class FileClientHelper extends EntityClientHelper {
                 "resumeUpload", "false"));
     }
 
+    /**
+     * Removes the cached content of a file before modifying or deleting it, as
+     * mapped files can't be modified on some platforms.
+     * 
+     * @param file
+     *            The file to modify or delete.
+     */
+    protected void removeCachedContent(File file) {
+        MappedFileCache cache = this.mappedFileCache;
+
+        if (cache != null) {
+            cache.remove(file);
+        }
+    }
+
     /**
      * Complete the given file name with the extension corresponding to the
      * given metadata.
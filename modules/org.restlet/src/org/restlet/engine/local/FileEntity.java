@@ -50,6 +50,9 @@ public class FileEntity extends Entity {
     /** The underlying regular file. */
     private final File file;
 
+    /** The cache of file contents or null. */
+    private final MappedFileCache mappedFileCache;
+
     /**
      * Constructor.
      * 
@@ -59,8 +62,24 @@ public class FileEntity extends Entity {
      *            The metadata service to use.
      */
     public FileEntity(File file, MetadataService metadataService) {
+        this(file, metadataService, null);
+    }
+
+    /**
+     * Constructor.
+     * 
+     * @param file
+     *            The underlying file.
+     * @param metadataService
+     *            The metadata service to use.
+     * @param mappedFileCache
+     *            The cache of file contents or null.
+     */
+    public FileEntity(File file, MetadataService metadataService,
+            MappedFileCache mappedFileCache) {
         super(metadataService);
         this.file = file;
+        this.mappedFileCache = mappedFileCache;
     }
 
     @Override
@@ -87,7 +106,8 @@ public class FileEntity extends Entity {
             // try {
             // [enddef]
             for (File f : getFile().listFiles()) {
-                result.add(new FileEntity(f, getMetadataService()));
+                result.add(new FileEntity(f, getMetadataService(),
+                        getMappedFileCache()));
             }
             // [ifdef gae] uncomment
             // } catch (java.security.AccessControlException ace) {
@@ -107,6 +127,15 @@ public class FileEntity extends Entity {
         return file;
     }
 
+    /**
+     * Returns the cache of file contents.
+     * 
+     * @return The cache of file contents or null.
+     */
+    public MappedFileCache getMappedFileCache() {
+        return mappedFileCache;
+    }
+
     @Override
     public String getName() {
         return getFile().getName();
@@ -116,12 +145,17 @@ public class FileEntity extends Entity {
     public Entity getParent() {
         File parentFile = getFile().getParentFile();
         return (parentFile == null) ? null : new FileEntity(parentFile,
-                getMetadataService());
+                getMetadataService(), getMappedFileCache());
     }
 
     @Override
     public Representation getRepresentation(MediaType defaultMediaType,
             int timeToLive) {
+        if (getMappedFileCache() != null) {
+            return new MappedFileRepresentation(getFile(), defaultMediaType,
+                    timeToLive, getMappedFileCache());
+        }
+
         return new FileRepresentation(getFile(), defaultMediaType, timeToLive);
     }
 
@@ -0,0 +1,114 @@
+/**
+ * Copyright 2005-2012 Restlet S.A.S.
+ * 
+ * The contents of this file are subject to the terms of one of the following
+ * open source licenses: Apache 2.0 or LGPL 3.0 or LGPL 2.1 or CDDL 1.0 or EPL
+ * 1.0 (the "Licenses"). You can select the license that you prefer but you may
+ * not use this file except in compliance with one of these Licenses.
+ * 
+ * You can obtain a copy of the Apache 2.0 license at
+ * http://www.opensource.org/licenses/apache-2.0
+ * 
+ * You can obtain a copy of the LGPL 3.0 license at
+ * http://www.opensource.org/licenses/lgpl-3.0
+ * 
+ * You can obtain a copy of the LGPL 2.1 license at
+ * http://www.opensource.org/licenses/lgpl-2.1
+ * 
+ * You can obtain a copy of the CDDL 1.0 license at
+ * http://www.opensource.org/licenses/cddl1
+ * 
+ * You can obtain a copy of the EPL 1.0 license at
+ * http://www.opensource.org/licenses/eclipse-1.0
+ * 
+ * See the Licenses for the specific language governing permissions and
+ * limitations under the Licenses.
+ * 
+ * Alternatively, you can obtain a royalty free commercial license with less
+ * limitations, transferable or non-transferable, directly at
+ * http://www.restlet.com/products/restlet-framework
+ * 
+ * Restlet is a registered trademark of Restlet S.A.S.
+ */
+
+package org.restlet.engine.local;
+
+import java.io.IOException;
+import java.io.Writer;
+
+import org.restlet.data.CharacterSet;
+import org.restlet.data.MediaType;
+import org.restlet.data.Reference;
+import org.restlet.data.ReferenceList;
+import org.restlet.representation.WriterRepresentation;
+
+/**
+ * Representation of a directory listing, written entry by entry instead of
+ * being built in memory first. It produces the same "text/html" and
+ * "text/uri-list" documents than the
+ * {@link ReferenceList#getWebRepresentation()} and
+ * {@link ReferenceList#getTextRepresentation()} methods, encoded in UTF-8.
+ * 
+ * @author Jerome Louvel
+ */
+public class ListingRepresentation extends WriterRepresentation {
+
+    /** The listing to write. */
+    private final ReferenceList listing;
+
+    /**
+     * Constructor.
+     * 
+     * @param listing
+     *            The listing to write.
+     * @param mediaType
+     *            The media type, either {@link MediaType#TEXT_HTML} or
+     *            {@link MediaType#TEXT_URI_LIST}.
+     */
+    public ListingRepresentation(ReferenceList listing, MediaType mediaType) {
+        super(mediaType);
+        setCharacterSet(CharacterSet.UTF_8);
+        this.listing = listing;
+    }
+
+    @Override
+    public void write(Writer writer) throws IOException {
+        Reference identifier = this.listing.getIdentifier();
+
+        if (MediaType.TEXT_HTML.equals(getMediaType())) {
+            writer.write("<html><body style=\"font-family: sans-serif;\">\n");
+
+            if (identifier != null) {
+                writer.write("<h2>Listing of \"" + identifier.getPath()
+                        + "\"</h2>\n");
+                Reference parentRef = identifier.getParentRef();
+
+                if (!parentRef.equals(identifier)) {
+                    writer.write("<a href=\"" + parentRef + "\">..</a><br>\n");
+                }
+            } else {
+                writer.write("<h2>List of references</h2>\n");
+            }
+
+            for (Reference ref : this.listing) {
+                writer.write("<a href=\"");
+                writer.write(ref.toString());
+                writer.write("\">");
+                writer.write(ref.getRelativeRef(identifier).toString());
+                writer.write("</a><br>\n");
+            }
+
+            writer.write("</body></html>\n");
+        } else {
+            if (identifier != null) {
+                writer.write("# " + identifier + "\r\n");
+            }
+
+            for (Reference ref : this.listing) {
+                writer.write(ref.toString());
+                writer.write("\r\n");
+            }
+        }
+    }
+
+}
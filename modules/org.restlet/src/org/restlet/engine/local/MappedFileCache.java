@@ -0,0 +1,323 @@
+/**
+ * Copyright 2005-2012 Restlet S.A.S.
+ * 
+ * The contents of this file are subject to the terms of one of the following
+ * open source licenses: Apache 2.0 or LGPL 3.0 or LGPL 2.1 or CDDL 1.0 or EPL
+ * 1.0 (the "Licenses"). You can select the license that you prefer but you may
+ * not use this file except in compliance with one of these Licenses.
+ * 
+ * You can obtain a copy of the Apache 2.0 license at
+ * http://www.opensource.org/licenses/apache-2.0
+ * 
+ * You can obtain a copy of the LGPL 3.0 license at
+ * http://www.opensource.org/licenses/lgpl-3.0
+ * 
+ * You can obtain a copy of the LGPL 2.1 license at
+ * http://www.opensource.org/licenses/lgpl-2.1
+ * 
+ * You can obtain a copy of the CDDL 1.0 license at
+ * http://www.opensource.org/licenses/cddl1
+ * 
+ * You can obtain a copy of the EPL 1.0 license at
+ * http://www.opensource.org/licenses/eclipse-1.0
+ * 
+ * See the Licenses for the specific language governing permissions and
+ * limitations under the Licenses.
+ * 
+ * Alternatively, you can obtain a royalty free commercial license with less
+ * limitations, transferable or non-transferable, directly at
+ * http://www.restlet.com/products/restlet-framework
+ * 
+ * Restlet is a registered trademark of Restlet S.A.S.
+ */
+
+package org.restlet.engine.local;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+
+/**
+ * Cache of the content of recently served files, bounded by the total number
+ * of cached bytes and evicting the least recently used files first. Files
+ * smaller than the mapping threshold are copied in read-only heap buffers,
+ * larger ones are memory mapped. The cached content is shared by all the
+ * readers of a file and revalidated against its modification date and length
+ * before each use.<br>
+ * <br>
+ * Note that the memory of evicted mappings is only released when their buffer
+ * is garbage collected. As a mapped file can't be modified or deleted on some
+ * platforms while mapped, files should be removed from the cache before being
+ * modified, see {@link #remove(File)}.
+ * 
+ * @author Jerome Louvel
+ */
+public class MappedFileCache {
+
+    /** Cached file content. */
+    private static class Entry {
+
+        /** The read-only content. */
+        private final ByteBuffer content;
+
+        /** The modification date of the file when cached. */
+        private final long lastModified;
+
+        /**
+         * Constructor.
+         * 
+         * @param content
+         *            The read-only content.
+         * @param lastModified
+         *            The modification date of the file when cached.
+         */
+        public Entry(ByteBuffer content, long lastModified) {
+            this.content = content;
+            this.lastModified = lastModified;
+        }
+    }
+
+    /** The cached entries, in access order. */
+    private final LinkedHashMap<String, Entry> entries;
+
+    /** The maximum size of a cached file. */
+    private volatile long maxEntrySize;
+
+    /** The maximum total size of the cached files. */
+    private final long maxSize;
+
+    /** The minimum size of a file to be mapped instead of copied. */
+    private volatile int mappingThreshold;
+
+    /** The current total size of the cached files. */
+    private long size;
+
+    /**
+     * Constructor. The maximum size of a cached file defaults to a tenth of
+     * the total size, and files smaller than 64 KB are copied in heap buffers.
+     * 
+     * @param maxSize
+     *            The maximum total size of the cached files (in bytes).
+     */
+    public MappedFileCache(long maxSize) {
+        this(maxSize, 65536);
+    }
+
+    /**
+     * Constructor. The maximum size of a cached file defaults to a tenth of
+     * the total size.
+     * 
+     * @param maxSize
+     *            The maximum total size of the cached files (in bytes).
+     * @param mappingThreshold
+     *            The minimum size of a file to be mapped instead of copied.
+     */
+    public MappedFileCache(long maxSize, int mappingThreshold) {
+        this.entries = new LinkedHashMap<String, Entry>(16, 0.75f, true);
+        this.maxEntrySize = Math.min(maxSize / 10, Integer.MAX_VALUE);
+        this.maxSize = maxSize;
+        this.mappingThreshold = mappingThreshold;
+        this.size = 0;
+    }
+
+    /**
+     * Removes all the entries.
+     */
+    public synchronized void clear() {
+        this.entries.clear();
+        this.size = 0;
+    }
+
+    /**
+     * Returns the cached content of a file, loading it if needed. The returned
+     * buffer is read-only and has its own position and limit.
+     * 
+     * @param file
+     *            The file.
+     * @return The content of the file or null if it can't be cached.
+     * @throws IOException
+     */
+    public ByteBuffer get(File file) throws IOException {
+        String key = file.getPath();
+        long lastModified = file.lastModified();
+        long length = file.length();
+
+        synchronized (this) {
+            Entry entry = this.entries.get(key);
+
+            if (entry != null) {
+                if ((entry.lastModified == lastModified)
+                        && (entry.content.limit() == length)) {
+                    return entry.content.duplicate();
+                }
+
+                this.entries.remove(key);
+                this.size -= entry.content.limit();
+            }
+        }
+
+        if ((lastModified == 0L) || (length > getMaxEntrySize())) {
+            // Missing or too large file
+            return null;
+        }
+
+        ByteBuffer content = load(file, length);
+
+        if ((content == null) || (file.lastModified() != lastModified)) {
+            // The file changed while being loaded
+            return null;
+        }
+
+        synchronized (this) {
+            Entry previous = this.entries.put(key, new Entry(content,
+                    lastModified));
+
+            if (previous != null) {
+                this.size -= previous.content.limit();
+            }
+
+            this.size += length;
+
+            for (Iterator<Entry> iter = this.entries.values().iterator(); (this.size > getMaxSize())
+                    && iter.hasNext();) {
+                this.size -= iter.next().content.limit();
+                iter.remove();
+            }
+        }
+
+        return content.duplicate();
+    }
+
+    /**
+     * Returns the number of cached files.
+     * 
+     * @return The number of cached files.
+     */
+    public synchronized int getCount() {
+        return this.entries.size();
+    }
+
+    /**
+     * Returns the minimum size of a file to be mapped instead of copied.
+     * 
+     * @return The minimum size of a file to be mapped instead of copied.
+     */
+    public int getMappingThreshold() {
+        return mappingThreshold;
+    }
+
+    /**
+     * Returns the maximum size of a cached file.
+     * 
+     * @return The maximum size of a cached file (in bytes).
+     */
+    public long getMaxEntrySize() {
+        return maxEntrySize;
+    }
+
+    /**
+     * Returns the maximum total size of the cached files.
+     * 
+     * @return The maximum total size of the cached files (in bytes).
+     */
+    public long getMaxSize() {
+        return maxSize;
+    }
+
+    /**
+     * Returns the current total size of the cached files.
+     * 
+     * @return The current total size of the cached files (in bytes).
+     */
+    public synchronized long getSize() {
+        return size;
+    }
+
+    /**
+     * Loads the content of a file.
+     * 
+     * @param file
+     *            The file to load.
+     * @param length
+     *            The expected length of the file.
+     * @return The read-only content or null if the length didn't match.
+     * @throws IOException
+     */
+    protected ByteBuffer load(File file, long length) throws IOException {
+        ByteBuffer result = null;
+        FileInputStream fis = new FileInputStream(file);
+
+        try {
+            FileChannel channel = fis.getChannel();
+
+            if (channel.size() == length) {
+                if (length < getMappingThreshold()) {
+                    result = ByteBuffer.allocate((int) length);
+
+                    while (result.hasRemaining()
+                            && (channel.read(result) != -1)) {
+                        // Keep reading
+                    }
+
+                    if (result.hasRemaining()) {
+                        result = null;
+                    } else {
+                        result.flip();
+                        result = result.asReadOnlyBuffer();
+                    }
+                } else {
+                    result = channel.map(FileChannel.MapMode.READ_ONLY, 0,
+                            length);
+                }
+            }
+        } finally {
+            // The mapping stays valid after closing the channel
+            fis.close();
+        }
+
+        return result;
+    }
+
+    /**
+     * Removes the cached content of a file, typically before modifying or
+     * deleting it. Readers already holding the content keep using it.
+     * 
+     * @param file
+     *            The file.
+     * @return True if the file was cached.
+     */
+    public synchronized boolean remove(File file) {
+        Entry entry = this.entries.remove(file.getPath());
+
+        if (entry != null) {
+            this.size -= entry.content.limit();
+        }
+
+        return entry != null;
+    }
+
+    /**
+     * Sets the minimum size of a file to be mapped instead of copied.
+     * 
+     * @param mappingThreshold
+     *            The minimum size of a file to be mapped instead of copied.
+     */
+    public void setMappingThreshold(int mappingThreshold) {
+        this.mappingThreshold = mappingThreshold;
+    }
+
+    /**
+     * Sets the maximum size of a cached file.
+     * 
+     * @param maxEntrySize
+     *            The maximum size of a cached file (in bytes).
+     */
+    public void setMaxEntrySize(long maxEntrySize) {
+        this.maxEntrySize = Math.min(maxEntrySize, Integer.MAX_VALUE);
+    }
+
+}
@@ -0,0 +1,119 @@
+/**
+ * Copyright 2005-2012 Restlet S.A.S.
+ * 
+ * The contents of this file are subject to the terms of one of the following
+ * open source licenses: Apache 2.0 or LGPL 3.0 or LGPL 2.1 or CDDL 1.0 or EPL
+ * 1.0 (the "Licenses"). You can select the license that you prefer but you may
+ * not use this file except in compliance with one of these Licenses.
+ * 
+ * You can obtain a copy of the Apache 2.0 license at
+ * http://www.opensource.org/licenses/apache-2.0
+ * 
+ * You can obtain a copy of the LGPL 3.0 license at
+ * http://www.opensource.org/licenses/lgpl-3.0
+ * 
+ * You can obtain a copy of the LGPL 2.1 license at
+ * http://www.opensource.org/licenses/lgpl-2.1
+ * 
+ * You can obtain a copy of the CDDL 1.0 license at
+ * http://www.opensource.org/licenses/cddl1
+ * 
+ * You can obtain a copy of the EPL 1.0 license at
+ * http://www.opensource.org/licenses/eclipse-1.0
+ * 
+ * See the Licenses for the specific language governing permissions and
+ * limitations under the Licenses.
+ * 
+ * Alternatively, you can obtain a royalty free commercial license with less
+ * limitations, transferable or non-transferable, directly at
+ * http://www.restlet.com/products/restlet-framework
+ * 
+ * Restlet is a registered trademark of Restlet S.A.S.
+ */
+
+package org.restlet.engine.local;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.logging.Level;
+
+import org.restlet.Context;
+import org.restlet.data.MediaType;
+import org.restlet.engine.io.BufferFileChannel;
+import org.restlet.engine.io.NioUtils;
+import org.restlet.representation.FileRepresentation;
+
+/**
+ * File representation whose channel is served from a {@link MappedFileCache}
+ * when possible, instead of opening and reading the file again. The stream
+ * still reads the file itself, as a {@link java.io.FileInputStream} is
+ * expected.
+ * 
+ * @author Jerome Louvel
+ */
+public class MappedFileRepresentation extends FileRepresentation {
+
+    /** The cache of file contents. */
+    private final MappedFileCache cache;
+
+    /**
+     * Constructor.
+     * 
+     * @param file
+     *            The represented file.
+     * @param mediaType
+     *            The representation's media type.
+     * @param timeToLive
+     *            The time to live before it expires (in seconds).
+     * @param cache
+     *            The cache of file contents.
+     */
+    public MappedFileRepresentation(File file, MediaType mediaType,
+            int timeToLive, MappedFileCache cache) {
+        super(file, mediaType, timeToLive);
+        this.cache = cache;
+    }
+
+    @Override
+    public FileChannel getChannel() throws IOException {
+        ByteBuffer content = getContent();
+        return (content == null) ? super.getChannel() : new BufferFileChannel(
+                content, getFile());
+    }
+
+    /**
+     * Returns the cached content of the file.
+     * 
+     * @return The cached content of the file or null.
+     */
+    protected ByteBuffer getContent() {
+        ByteBuffer result = null;
+
+        if (getFile() != null) {
+            try {
+                result = this.cache.get(getFile());
+            } catch (IOException ioe) {
+                Context.getCurrentLogger().log(Level.FINE,
+                        "Unable to cache the content of " + getFile(), ioe);
+            }
+        }
+
+        return result;
+    }
+
+    @Override
+    public void write(OutputStream outputStream) throws IOException {
+        ByteBuffer content = getContent();
+
+        if (content == null) {
+            super.write(outputStream);
+        } else {
+            NioUtils.copy(new BufferFileChannel(content),
+                    NioUtils.getChannel(outputStream));
+        }
+    }
+
+}
@@ -0,0 +1,278 @@
+/**
+ * Copyright 2005-2012 Restlet S.A.S.
+ * 
+ * The contents of this file are subject to the terms of one of the following
+ * open source licenses: Apache 2.0 or LGPL 3.0 or LGPL 2.1 or CDDL 1.0 or EPL
+ * 1.0 (the "Licenses"). You can select the license that you prefer but you may
+ * not use this file except in compliance with one of these Licenses.
+ * 
+ * You can obtain a copy of the Apache 2.0 license at
+ * http://www.opensource.org/licenses/apache-2.0
+ * 
+ * You can obtain a copy of the LGPL 3.0 license at
+ * http://www.opensource.org/licenses/lgpl-3.0
+ * 
+ * You can obtain a copy of the LGPL 2.1 license at
+ * http://www.opensource.org/licenses/lgpl-2.1
+ * 
+ * You can obtain a copy of the CDDL 1.0 license at
+ * http://www.opensource.org/licenses/cddl1
+ * 
+ * You can obtain a copy of the EPL 1.0 license at
+ * http://www.opensource.org/licenses/eclipse-1.0
+ * 
+ * See the Licenses for the specific language governing permissions and
+ * limitations under the Licenses.
+ * 
+ * Alternatively, you can obtain a royalty free commercial license with less
+ * limitations, transferable or non-transferable, directly at
+ * http://www.restlet.com/products/restlet-framework
+ * 
+ * Restlet is a registered trademark of Restlet S.A.S.
+ */
+
+package org.restlet.engine.log;
+
+import org.restlet.Request;
+import org.restlet.Response;
+import org.restlet.data.Method;
+import org.restlet.data.Status;
+
+/**
+ * Immutable snapshot of a call to log in the access log. Capturing the values
+ * from the request and response is cheap and can be done on the processing
+ * thread, while the formatting is deferred to an {@link AccessLogWriter}
+ * background thread. The format is the default one of the
+ * {@link org.restlet.service.LogService}.<br>
+ * <br>
+ * When the identity check is enabled, the blocking IDENT lookup of the user
+ * identifier is also deferred, as it is done while formatting the record.
+ * 
+ * @author Jerome Louvel
+ */
+public final class AccessLogRecord {
+
+    /**
+     * Appends a value or a dash if the value is null.
+     * 
+     * @param sb
+     *            The target builder.
+     * @param value
+     *            The value to append.
+     */
+    private static void append(StringBuilder sb, String value) {
+        sb.append((value == null) ? "-" : value);
+    }
+
+    /** The client agent name. */
+    private final String agentName;
+
+    /** The client IP address. */
+    private final String clientAddress;
+
+    /** The client port. */
+    private final int clientPort;
+
+    /** The call duration (in milliseconds). */
+    private final int duration;
+
+    /** The host reference. */
+    private final String hostRef;
+
+    /** The method name. */
+    private final String methodName;
+
+    /**
+     * Indicates if the user identifier is looked up via the IDENT protocol
+     * when formatting.
+     */
+    private final boolean identityCheck;
+
+    /** The number of bytes received or -1 if unknown. */
+    private final long receivedSize;
+
+    /** The referrer reference. */
+    private final String referrerRef;
+
+    /** The resource reference path. */
+    private final String resourcePath;
+
+    /** The resource reference query. */
+    private final String resourceQuery;
+
+    /** The number of bytes sent or -1 if unknown. */
+    private final long sentSize;
+
+    /** The server IP address. */
+    private final String serverAddress;
+
+    /** The server port. */
+    private final int serverPort;
+
+    /** The status code or -1 if unknown. */
+    private final int statusCode;
+
+    /** The logging time (in milliseconds). */
+    private final long time;
+
+    /** The remote user identifier from the challenge response. */
+    private final String userIdentifier;
+
+    /**
+     * Constructor capturing the values of the given response and of its
+     * request. The user identifier is taken from the challenge response.
+     * 
+     * @param response
+     *            The response to log.
+     * @param duration
+     *            The call duration (in milliseconds).
+     */
+    public AccessLogRecord(Response response, int duration) {
+        this(response, duration, false);
+    }
+
+    /**
+     * Constructor capturing the values of the given response and of its
+     * request.
+     * 
+     * @param response
+     *            The response to log.
+     * @param duration
+     *            The call duration (in milliseconds).
+     * @param identityCheck
+     *            True if the user identifier is looked up via the IDENT
+     *            protocol when formatting, in which case it is logged as "-"
+     *            if unknown. Otherwise, it is taken from the challenge
+     *            response.
+     */
+    public AccessLogRecord(Response response, int duration,
+            boolean identityCheck) {
+        Request request = response.getRequest();
+        this.time = System.currentTimeMillis();
+        this.duration = duration;
+        this.clientAddress = request.getClientInfo().getUpstreamAddress();
+        this.clientPort = request.getClientInfo().getPort();
+        this.identityCheck = identityCheck;
+
+        if (!identityCheck && (request.getChallengeResponse() != null)) {
+            this.userIdentifier = request.getChallengeResponse()
+                    .getIdentifier();
+        } else {
+            this.userIdentifier = null;
+        }
+
+        this.serverAddress = response.getServerInfo().getAddress();
+        this.serverPort = response.getServerInfo().getPort();
+        this.methodName = (request.getMethod() == null) ? null : request
+                .getMethod().getName();
+
+        if (request.getResourceRef() == null) {
+            this.resourcePath = null;
+            this.resourceQuery = null;
+        } else {
+            this.resourcePath = request.getResourceRef().getPath();
+            this.resourceQuery = request.getResourceRef().getQuery();
+        }
+
+        this.statusCode = (response.getStatus() == null) ? -1 : response
+                .getStatus().getCode();
+
+        if (!response.isEntityAvailable()
+                || Status.REDIRECTION_NOT_MODIFIED.equals(response.getStatus())
+                || Status.SUCCESS_NO_CONTENT.equals(response.getStatus())
+                || Method.HEAD.equals(request.getMethod())) {
+            this.sentSize = 0;
+        } else {
+            this.sentSize = response.getEntity().getSize();
+        }
+
+        this.receivedSize = (request.getEntity() == null) ? 0 : request
+                .getEntity().getSize();
+        this.hostRef = (request.getHostRef() == null) ? null : request
+                .getHostRef().toString();
+        this.agentName = request.getClientInfo().getAgent();
+        this.referrerRef = (request.getReferrerRef() == null) ? null
+                : request.getReferrerRef().getIdentifier();
+    }
+
+    /**
+     * Formats the record as a tab separated line, without line terminator.
+     * When the identity check is enabled, this looks up the user identifier
+     * via the IDENT protocol and blocks until the lookup completes or times
+     * out.
+     * 
+     * @param sb
+     *            The target builder.
+     * @return The target builder.
+     */
+    public StringBuilder format(StringBuilder sb) {
+        sb.append(String.format("%tF", this.time));
+        sb.append('\t');
+        sb.append(String.format("%tT", this.time));
+        sb.append('\t');
+        append(sb, this.clientAddress);
+        sb.append('\t');
+        append(sb, getUserIdentifier());
+        sb.append('\t');
+        append(sb, this.serverAddress);
+        sb.append('\t');
+        sb.append(this.serverPort);
+        sb.append('\t');
+        append(sb, this.methodName);
+        sb.append('\t');
+        append(sb, this.resourcePath);
+        sb.append('\t');
+        append(sb, this.resourceQuery);
+        sb.append('\t');
+        append(sb, (this.statusCode == -1) ? null : Integer
+                .toString(this.statusCode));
+        sb.append('\t');
+        append(sb, (this.sentSize == -1) ? null : Long.toString(this.sentSize));
+        sb.append('\t');
+        append(sb, (this.receivedSize == -1) ? null : Long
+                .toString(this.receivedSize));
+        sb.append('\t');
+        sb.append(this.duration);
+        sb.append('\t');
+        append(sb, this.hostRef);
+        sb.append('\t');
+        append(sb, this.agentName);
+        sb.append('\t');
+        append(sb, this.referrerRef);
+        return sb;
+    }
+
+    /**
+     * Returns the logging time.
+     * 
+     * @return The logging time (in milliseconds).
+     */
+    public long getTime() {
+        return time;
+    }
+
+    /**
+     * Returns the remote user identifier, looked up via the IDENT protocol if
+     * the identity check is enabled.
+     * 
+     * @return The remote user identifier or null.
+     */
+    private String getUserIdentifier() {
+        String result = this.userIdentifier;
+
+        if (this.identityCheck) {
+            // [ifndef gae]
+            result = new IdentClient(this.clientAddress, this.clientPort,
+                    this.serverPort).getUserIdentifier();
+            // [enddef]
+        }
+
+        return result;
+    }
+
+    @Override
+    public String toString() {
+        return format(new StringBuilder()).toString();
+    }
+
+}
@@ -0,0 +1,555 @@
+/**
+ * Copyright 2005-2012 Restlet S.A.S.
+ * 
+ * The contents of this file are subject to the terms of one of the following
+ * open source licenses: Apache 2.0 or LGPL 3.0 or LGPL 2.1 or CDDL 1.0 or EPL
+ * 1.0 (the "Licenses"). You can select the license that you prefer but you may
+ * not use this file except in compliance with one of these Licenses.
+ * 
+ * You can obtain a copy of the Apache 2.0 license at
+ * http://www.opensource.org/licenses/apache-2.0
+ * 
+ * You can obtain a copy of the LGPL 3.0 license at
+ * http://www.opensource.org/licenses/lgpl-3.0
+ * 
+ * You can obtain a copy of the LGPL 2.1 license at
+ * http://www.opensource.org/licenses/lgpl-2.1
+ * 
+ * You can obtain a copy of the CDDL 1.0 license at
+ * http://www.opensource.org/licenses/cddl1
+ * 
+ * You can obtain a copy of the EPL 1.0 license at
+ * http://www.opensource.org/licenses/eclipse-1.0
+ * 
+ * See the Licenses for the specific language governing permissions and
+ * limitations under the Licenses.
+ * 
+ * Alternatively, you can obtain a royalty free commercial license with less
+ * limitations, transferable or non-transferable, directly at
+ * http://www.restlet.com/products/restlet-framework
+ * 
+ * Restlet is a registered trademark of Restlet S.A.S.
+ */
+
+package org.restlet.engine.log;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.LockSupport;
+import java.util.logging.Level;
+
+import org.restlet.Context;
+
+/**
+ * Asynchronous access log writer. The processing threads offer immutable
+ * {@link AccessLogRecord} instances to a bounded lock-free ring buffer, and a
+ * single background thread formats them and appends them to the log file by
+ * batches, with one file channel write per batch. This avoids the global lock
+ * taken by the {@link java.util.logging.FileHandler} for each record.<br>
+ * <br>
+ * When the ring buffer is full, the records are dropped by default and counted
+ * (see {@link #getDroppedCount()}). In blocking mode, the processing threads
+ * wait instead for the writer to free some space. The log file can also be
+ * rotated based on its size and on its age, the previous files being renamed
+ * with a numeric suffix, ".1" being the most recent one.
+ * 
+ * @author Jerome Louvel
+ */
+public class AccessLogWriter {
+
+    /** The batch size, the maximum number of records per write. */
+    private volatile int batchSize;
+
+    /** Indicates if the producers wait when the ring buffer is full. */
+    private volatile boolean blocking;
+
+    /** The current file channel. */
+    private volatile FileChannel channel;
+
+    /** The number of records dropped. */
+    private final AtomicLong droppedCount;
+
+    /** The log file. */
+    private final File file;
+
+    /** The creation time of the current log file. */
+    private volatile long fileCreation;
+
+    /** The size of the current log file. */
+    private volatile long fileSize;
+
+    /** The maximum delay before writing the pending records (in ms). */
+    private volatile long flushDelay;
+
+    /** The index of the next slot to claim by a producer. */
+    private final AtomicLong head;
+
+    /** The mask used to compute the slot of an index. */
+    private final int mask;
+
+    /** The maximum size of a log file before rotation or 0 if unlimited. */
+    private volatile long maxFileSize;
+
+    /** The maximum number of rotated log files kept. */
+    private volatile int maxFiles;
+
+    /** The ring buffer of records. */
+    private final AtomicReferenceArray<AccessLogRecord> records;
+
+    /** The maximum age of a log file before rotation or 0 if unlimited. */
+    private volatile long rotationPeriod;
+
+    /** Indicates if the writer is running. */
+    private volatile boolean running;
+
+    /** The index of the next slot to read by the writer. */
+    private volatile long tail;
+
+    /** The writer thread. */
+    private volatile Thread thread;
+
+    /**
+     * Constructor with a capacity of 8192 records.
+     * 
+     * @param file
+     *            The log file.
+     */
+    public AccessLogWriter(File file) {
+        this(file, 8192);
+    }
+
+    /**
+     * Constructor.
+     * 
+     * @param file
+     *            The log file.
+     * @param capacity
+     *            The minimum capacity of the ring buffer, rounded up to a
+     *            power of two.
+     */
+    public AccessLogWriter(File file, int capacity) {
+        int size = 1;
+
+        while (size < capacity) {
+            size <<= 1;
+        }
+
+        this.file = file;
+        this.records = new AtomicReferenceArray<AccessLogRecord>(size);
+        this.mask = size - 1;
+        this.head = new AtomicLong();
+        this.tail = 0;
+        this.droppedCount = new AtomicLong();
+        this.batchSize = 256;
+        this.blocking = false;
+        this.flushDelay = 500;
+        this.maxFileSize = 0;
+        this.maxFiles = 10;
+        this.rotationPeriod = 0;
+        this.running = false;
+    }
+
+    /**
+     * Formats the next available records, up to the batch size.
+     * 
+     * @param sb
+     *            The target builder.
+     * @return The number of records formatted.
+     */
+    private int drain(StringBuilder sb) {
+        long index = this.tail;
+        int count = 0;
+        int max = getBatchSize();
+        AccessLogRecord record;
+
+        while (count < max) {
+            record = this.records.get((int) (index & this.mask));
+
+            // Either empty or claimed but not yet published
+            if (record == null) {
+                break;
+            }
+
+            this.records.set((int) (index & this.mask), null);
+            record.format(sb).append('\n');
+            index++;
+            count++;
+        }
+
+        // Frees the slots for the producers
+        this.tail = index;
+        return count;
+    }
+
+    /**
+     * Returns the batch size, the maximum number of records formatted and
+     * written at once. Producers wake up the writer as soon as a batch is
+     * ready. Default value is 256.
+     * 
+     * @return The batch size.
+     */
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    /**
+     * Returns the capacity of the ring buffer.
+     * 
+     * @return The capacity of the ring buffer.
+     */
+    public int getCapacity() {
+        return this.records.length();
+    }
+
+    /**
+     * Returns the number of records dropped because the ring buffer was full
+     * or because the writer wasn't running.
+     * 
+     * @return The number of records dropped.
+     */
+    public long getDroppedCount() {
+        return this.droppedCount.get();
+    }
+
+    /**
+     * Returns the log file.
+     * 
+     * @return The log file.
+     */
+    public File getFile() {
+        return file;
+    }
+
+    /**
+     * Returns the maximum delay before writing the pending records. Default
+     * value is 500 ms.
+     * 
+     * @return The maximum delay before writing the pending records (in ms).
+     */
+    public long getFlushDelay() {
+        return flushDelay;
+    }
+
+    /**
+     * Returns the maximum size of a log file before rotation. Default value is
+     * 0, meaning unlimited.
+     * 
+     * @return The maximum size of a log file before rotation (in bytes).
+     */
+    public long getMaxFileSize() {
+        return maxFileSize;
+    }
+
+    /**
+     * Returns the maximum number of rotated log files kept. Default value is
+     * 10.
+     * 
+     * @return The maximum number of rotated log files kept.
+     */
+    public int getMaxFiles() {
+        return maxFiles;
+    }
+
+    /**
+     * Returns the number of records waiting to be written.
+     * 
+     * @return The number of records waiting to be written.
+     */
+    public int getPendingCount() {
+        return (int) (this.head.get() - this.tail);
+    }
+
+    /**
+     * Returns the maximum age of a log file before rotation. Default value is
+     * 0, meaning unlimited.
+     * 
+     * @return The maximum age of a log file before rotation (in ms).
+     */
+    public long getRotationPeriod() {
+        return rotationPeriod;
+    }
+
+    /**
+     * Returns the rotated file with the given index.
+     * 
+     * @param index
+     *            The rotation index.
+     * @return The rotated file.
+     */
+    protected File getRotatedFile(int index) {
+        return new File(getFile().getPath() + "." + index);
+    }
+
+    /**
+     * Indicates if the producers wait when the ring buffer is full instead of
+     * dropping their record. Default value is false.
+     * 
+     * @return True if the producers wait when the ring buffer is full.
+     */
+    public boolean isBlocking() {
+        return blocking;
+    }
+
+    /**
+     * Indicates if the writer is running.
+     * 
+     * @return True if the writer is running.
+     */
+    public boolean isRunning() {
+        return running;
+    }
+
+    /**
+     * Offers a record to write. This method is lock-free unless the ring
+     * buffer is full and the blocking mode is enabled. Records offered while
+     * the writer isn't running are dropped.
+     * 
+     * @param record
+     *            The record to write.
+     * @return True if the record was accepted, false if it was dropped.
+     */
+    public boolean offer(AccessLogRecord record) {
+        long index;
+        boolean result = false;
+
+        if (!isRunning()) {
+            this.droppedCount.incrementAndGet();
+            return false;
+        }
+
+        while (!result) {
+            index = this.head.get();
+
+            if (index - this.tail >= getCapacity()) {
+                if (!isBlocking() || !isRunning()) {
+                    this.droppedCount.incrementAndGet();
+                    return false;
+                }
+
+                // Wait for the writer to free some slots
+                LockSupport.unpark(this.thread);
+                LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(1));
+            } else if (this.head.compareAndSet(index, index + 1)) {
+                this.records.set((int) (index & this.mask), record);
+                result = true;
+
+                if (index - this.tail + 1 == getBatchSize()) {
+                    LockSupport.unpark(this.thread);
+                }
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * Opens the log file channel in append mode.
+     * 
+     * @throws IOException
+     */
+    private void open() throws IOException {
+        File parent = getFile().getAbsoluteFile().getParentFile();
+
+        if ((parent != null) && !parent.exists()) {
+            parent.mkdirs();
+        }
+
+        this.channel = new FileOutputStream(getFile(), true).getChannel();
+        this.fileSize = this.channel.size();
+        this.fileCreation = System.currentTimeMillis();
+    }
+
+    /**
+     * Rotates the log files. The current file becomes the ".1" one, the
+     * oldest one being deleted.
+     * 
+     * @throws IOException
+     */
+    protected void rotate() throws IOException {
+        this.channel.close();
+
+        if (getMaxFiles() > 0) {
+            File oldest = getRotatedFile(getMaxFiles());
+
+            if (oldest.exists()) {
+                oldest.delete();
+            }
+
+            for (int i = getMaxFiles() - 1; i > 0; i--) {
+                File rotated = getRotatedFile(i);
+
+                if (rotated.exists()) {
+                    rotated.renameTo(getRotatedFile(i + 1));
+                }
+            }
+
+            getFile().renameTo(getRotatedFile(1));
+        } else {
+            getFile().delete();
+        }
+
+        open();
+    }
+
+    /**
+     * Writes the pending records until the writer is stopped.
+     */
+    private void run() {
+        StringBuilder sb = new StringBuilder();
+        int count;
+
+        while (isRunning() || (getPendingCount() > 0)) {
+            count = drain(sb);
+
+            if (count > 0) {
+                write(sb);
+                sb.setLength(0);
+            } else if (isRunning()) {
+                LockSupport.parkNanos(TimeUnit.MILLISECONDS
+                        .toNanos(getFlushDelay()));
+            } else {
+                // A producer has claimed a slot but not yet published it
+                Thread.yield();
+            }
+        }
+
+        try {
+            this.channel.close();
+        } catch (IOException e) {
+            Context.getCurrentLogger().log(Level.WARNING,
+                    "Unable to close the access log file", e);
+        }
+    }
+
+    /**
+     * Sets the batch size, the maximum number of records formatted and
+     * written at once.
+     * 
+     * @param batchSize
+     *            The batch size.
+     */
+    public void setBatchSize(int batchSize) {
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * Indicates if the producers wait when the ring buffer is full instead of
+     * dropping their record.
+     * 
+     * @param blocking
+     *            True if the producers wait when the ring buffer is full.
+     */
+    public void setBlocking(boolean blocking) {
+        this.blocking = blocking;
+    }
+
+    /**
+     * Sets the maximum delay before writing the pending records.
+     * 
+     * @param flushDelay
+     *            The maximum delay before writing the pending records (in
+     *            ms).
+     */
+    public void setFlushDelay(long flushDelay) {
+        this.flushDelay = flushDelay;
+    }
+
+    /**
+     * Sets the maximum size of a log file before rotation.
+     * 
+     * @param maxFileSize
+     *            The maximum size of a log file before rotation (in bytes).
+     */
+    public void setMaxFileSize(long maxFileSize) {
+        this.maxFileSize = maxFileSize;
+    }
+
+    /**
+     * Sets the maximum number of rotated log files kept.
+     * 
+     * @param maxFiles
+     *            The maximum number of rotated log files kept.
+     */
+    public void setMaxFiles(int maxFiles) {
+        this.maxFiles = maxFiles;
+    }
+
+    /**
+     * Sets the maximum age of a log file before rotation.
+     * 
+     * @param rotationPeriod
+     *            The maximum age of a log file before rotation (in ms).
+     */
+    public void setRotationPeriod(long rotationPeriod) {
+        this.rotationPeriod = rotationPeriod;
+    }
+
+    /**
+     * Opens the log file and starts the writer thread.
+     * 
+     * @throws IOException
+     */
+    public synchronized void start() throws IOException {
+        if (!isRunning()) {
+            open();
+            this.running = true;
+            this.thread = new Thread(new Runnable() {
+                public void run() {
+                    AccessLogWriter.this.run();
+                }
+            }, "Restlet-AccessLogWriter");
+            this.thread.setDaemon(true);
+            this.thread.start();
+        }
+    }
+
+    /**
+     * Writes the pending records and stops the writer thread.
+     * 
+     * @throws InterruptedException
+     */
+    public synchronized void stop() throws InterruptedException {
+        if (isRunning()) {
+            this.running = false;
+            LockSupport.unpark(this.thread);
+            this.thread.join();
+            this.thread = null;
+        }
+    }
+
+    /**
+     * Writes a batch of formatted records, rotating the log file first if
+     * necessary.
+     * 
+     * @param sb
+     *            The formatted records.
+     */
+    private void write(StringBuilder sb) {
+        try {
+            ByteBuffer buffer = ByteBuffer.wrap(sb.toString().getBytes(
+                    "UTF-8"));
+
+            if (((getMaxFileSize() > 0) && (this.fileSize > 0) && (this.fileSize
+                    + buffer.remaining() > getMaxFileSize()))
+                    || ((getRotationPeriod() > 0) && (System
+                            .currentTimeMillis()
+                            - this.fileCreation >= getRotationPeriod()))) {
+                rotate();
+            }
+
+            while (buffer.hasRemaining()) {
+                this.fileSize += this.channel.write(buffer);
+            }
+        } catch (IOException e) {
+            Context.getCurrentLogger().log(Level.WARNING,
+                    "Unable to write to the access log file", e);
+        }
+    }
+
+}
@@ -100,14 +100,37 @@ public class LogFilter extends Filter {
     @Override
     protected void afterHandle(Request request, Response response) {
         if (request.isLoggable() && this.logLogger.isLoggable(Level.INFO)) {
-            long startTime = (Long) request.getAttributes().get(
-                    "org.restlet.startTime");
-            int duration = (int) (System.currentTimeMillis() - startTime);
-            this.logLogger.log(Level.INFO,
-                    this.logService.getResponseLogMessage(response, duration));
+            AccessLogWriter writer = this.logService.getAccessLogWriter();
+
+            if ((writer != null) && writer.isRunning()
+                    && (this.logService.getResponseLogFormat() == null)) {
+                // Defer the formatting to the writer thread
+                AccessLogRecord record = this.logService.getResponseLogRecord(
+                        response, getDuration(request));
+
+                if (record != null) {
+                    writer.offer(record);
+                }
+            } else {
+                this.logLogger.log(Level.INFO, this.logService
+                        .getResponseLogMessage(response, getDuration(request)));
+            }
         }
     }
 
+    /**
+     * Returns the duration of the call since its start time.
+     * 
+     * @param request
+     *            The request handled.
+     * @return The call duration (in milliseconds).
+     */
+    private int getDuration(Request request) {
+        long startTime = (Long) request.getAttributes().get(
+                "org.restlet.startTime");
+        return (int) (System.currentTimeMillis() - startTime);
+    }
+
     /**
      * Allows filtering before processing by the next Restlet. Saves the start
      * time.
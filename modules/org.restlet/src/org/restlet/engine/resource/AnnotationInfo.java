@@ -158,18 +158,27 @@ public class AnnotationInfo {
     /** The input part of the annotation value. */
     private final String input;
 
+    /** The actual input types of the Java method, computed on first use. */
+    private volatile Class<?>[] javaInputTypes;
+
     /** The annotated Java method. */
     private final java.lang.reflect.Method javaMethod;
 
     /** The upper implementation of the annotated Java method. */
     private final java.lang.reflect.Method javaMethodImpl;
 
+    /** The actual output type of the Java method, computed on first use. */
+    private volatile Class<?> javaOutputType;
+
     /** The output part of the annotation value. */
     private final String output;
 
     /** The optional query part of the annotation value. */
     private final String query;
 
+    /** The parsed query parameters required by the annotation value. */
+    private final Form queryParams;
+
     /** The class that hosts the annotated Java method. */
     private final Class<?> resourceClass;
 
@@ -233,6 +242,8 @@ public class AnnotationInfo {
             this.input = null;
             this.output = null;
         }
+
+        this.queryParams = (this.query == null) ? null : new Form(this.query);
     }
 
     /**
@@ -351,14 +362,20 @@ public class AnnotationInfo {
      * @return The input types of the Java method.
      */
     public Class<?>[] getJavaInputTypes() {
-        int count = getJavaMethod().getParameterTypes().length;
-        Class<?>[] classes = new Class[count];
+        Class<?>[] classes = this.javaInputTypes;
+
+        if (classes == null) {
+            int count = getJavaMethod().getParameterTypes().length;
+            classes = new Class<?>[count];
+
+            for (int i = 0; i < count; i++) {
+                classes[i] = getJavaInputType(i);
+            }
 
-        for (int i = 0; i < count; i++) {
-            classes[i] = getJavaInputType(i);
+            this.javaInputTypes = classes;
         }
 
-        return classes;
+        return classes.clone();
     }
 
     /**
@@ -376,8 +393,15 @@ public class AnnotationInfo {
      * @return The output type of the Java method.
      */
     public Class<?> getJavaOutputType() {
-        return getJavaActualType(javaMethodImpl.getReturnType(),
-                javaMethodImpl.getGenericReturnType());
+        Class<?> result = this.javaOutputType;
+
+        if (result == null) {
+            result = getJavaActualType(javaMethodImpl.getReturnType(),
+                    javaMethodImpl.getGenericReturnType());
+            this.javaOutputType = result;
+        }
+
+        return result;
     }
 
     /**
@@ -580,10 +604,8 @@ public class AnnotationInfo {
         boolean result = true;
 
         // Verify query parameters
-        if (getQuery() != null) {
-            Form requiredParams = new Form(getQuery());
-
-            for (Iterator<Parameter> iter = requiredParams.iterator(); iter
+        if (this.queryParams != null) {
+            for (Iterator<Parameter> iter = this.queryParams.iterator(); iter
                     .hasNext() && result;) {
                 result = queryParams.contains(iter.next());
             }
@@ -34,7 +34,11 @@
 package org.restlet.engine.resource;
 
 import java.lang.annotation.Annotation;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.CopyOnWriteArrayList;
@@ -56,6 +60,9 @@ public class AnnotationUtils {
     /** Annotation info cache. */
     private final ConcurrentMap<Class<?>, List<AnnotationInfo>> cache = new ConcurrentHashMap<Class<?>, List<AnnotationInfo>>();
 
+    /** Dispatch tables cache. */
+    private final ConcurrentMap<Class<?>, Map<Method, List<AnnotationInfo>>> dispatchTables = new ConcurrentHashMap<Class<?>, Map<Method, List<AnnotationInfo>>>();
+
     /** Current instance. */
     private static AnnotationUtils instance = new AnnotationUtils();
 
@@ -180,6 +187,7 @@ public class AnnotationUtils {
      */
     public void clearCache() {
         cache.clear();
+        dispatchTables.clear();
     }
 
     /**
@@ -238,6 +246,57 @@ public class AnnotationUtils {
         return null;
     }
 
+    /**
+     * Returns the dispatch table of the given resource class. It indexes the
+     * annotation descriptors by Restlet method, preserving their order, so
+     * that only the descriptors of the requested method are matched.
+     * 
+     * @param clazz
+     *            The resource class to introspect.
+     * @return The unmodifiable dispatch table.
+     */
+    public Map<Method, List<AnnotationInfo>> getDispatchTable(Class<?> clazz) {
+        Map<Method, List<AnnotationInfo>> result = dispatchTables.get(clazz);
+
+        if (result == null) {
+            Map<Method, List<AnnotationInfo>> table = new HashMap<Method, List<AnnotationInfo>>();
+            List<AnnotationInfo> annotations = getAnnotations(clazz);
+
+            if (annotations != null) {
+                for (AnnotationInfo annotationInfo : annotations) {
+                    List<AnnotationInfo> methodAnnotations = table
+                            .get(annotationInfo.getRestletMethod());
+
+                    if (methodAnnotations == null) {
+                        methodAnnotations = new ArrayList<AnnotationInfo>();
+                        table.put(annotationInfo.getRestletMethod(),
+                                methodAnnotations);
+                    }
+
+                    methodAnnotations.add(annotationInfo);
+                }
+            }
+
+            for (Map.Entry<Method, List<AnnotationInfo>> entry : table
+                    .entrySet()) {
+                entry.setValue(Collections.unmodifiableList(entry.getValue()));
+            }
+
+            result = Collections.unmodifiableMap(table);
+
+            // Put the table in the cache if no one was previously present
+            Map<Method, List<AnnotationInfo>> prev = dispatchTables
+                    .putIfAbsent(clazz, result);
+
+            if (prev != null) {
+                // Reuse the previous entry
+                result = prev;
+            }
+        }
+
+        return result;
+    }
+
     /**
      * Returns the annotation descriptors for the given resource class.
      * 
@@ -38,6 +38,8 @@ import java.lang.reflect.Method;
 import java.lang.reflect.ParameterizedType;
 import java.lang.reflect.Type;
 import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import org.restlet.Request;
 import org.restlet.Response;
@@ -50,6 +52,8 @@ import org.restlet.resource.ClientProxy;
 import org.restlet.resource.ClientResource;
 import org.restlet.resource.ResourceException;
 import org.restlet.resource.Result;
+import org.restlet.service.ConverterService;
+import org.restlet.service.MetadataService;
 
 // [excludes gwt]
 /**
@@ -63,6 +67,123 @@ import org.restlet.resource.Result;
  */
 public class ClientInvocationHandler<T> implements InvocationHandler {
 
+    /**
+     * Invocation plan of a Java method, computed on first use and reused by
+     * the following invocations.
+     */
+    private static class InvocationPlan {
+
+        /** The annotations of the resource interface. */
+        private final List<AnnotationInfo> annotations;
+
+        /** The annotation descriptor or null if the method isn't annotated. */
+        private final AnnotationInfo annotationInfo;
+
+        /** The expected result types of the parameters, per index. */
+        private final Class<?>[] callbackTypes;
+
+        /** The mandatory query parameters or null. */
+        private final Form query;
+
+        /**
+         * The last computed response variants, with the metadata and
+         * converter services used.
+         */
+        private volatile Object[] responseVariants;
+
+        /**
+         * Constructor.
+         * 
+         * @param annotations
+         *            The annotations of the resource interface.
+         * @param annotationInfo
+         *            The annotation descriptor or null.
+         * @param javaMethod
+         *            The Java method.
+         */
+        public InvocationPlan(List<AnnotationInfo> annotations,
+                AnnotationInfo annotationInfo, Method javaMethod) {
+            this.annotations = annotations;
+            this.annotationInfo = annotationInfo;
+            this.query = ((annotationInfo == null) || (annotationInfo
+                    .getQuery() == null)) ? null : new Form(
+                    annotationInfo.getQuery());
+
+            // Get the kind of result expected by callback parameters
+            Type[] genericParameterTypes = javaMethod
+                    .getGenericParameterTypes();
+            this.callbackTypes = new Class<?>[genericParameterTypes.length];
+
+            for (int i = 0; i < genericParameterTypes.length; i++) {
+                if (genericParameterTypes[i] instanceof ParameterizedType) {
+                    Type actualType = ((ParameterizedType) genericParameterTypes[i])
+                            .getActualTypeArguments()[0];
+
+                    if (actualType instanceof Class<?>) {
+                        this.callbackTypes[i] = (Class<?>) actualType;
+                    }
+                }
+            }
+        }
+
+        /**
+         * Returns the response variants of the annotated method, reusing the
+         * last computed ones when the same services are used.
+         * 
+         * @param metadataService
+         *            The metadata service to use.
+         * @param converterService
+         *            The converter service to use.
+         * @return The response variants.
+         */
+        @SuppressWarnings("unchecked")
+        public List<Variant> getResponseVariants(
+                MetadataService metadataService,
+                ConverterService converterService) {
+            Object[] entry = this.responseVariants;
+
+            if ((entry == null) || (entry[0] != metadataService)
+                    || (entry[1] != converterService)) {
+                entry = new Object[] {
+                        metadataService,
+                        converterService,
+                        this.annotationInfo.getResponseVariants(
+                                metadataService, converterService) };
+                this.responseVariants = entry;
+            }
+
+            return (List<Variant>) entry[2];
+        }
+    }
+
+    /** The getClientResource() method of the {@link ClientProxy} interface. */
+    private static final Method GET_CLIENT_RESOURCE = getMethod(
+            ClientProxy.class, "getClientResource");
+
+    /** The invocation plans, per Java method. */
+    private static final ConcurrentMap<Method, InvocationPlan> plans = new ConcurrentHashMap<Method, InvocationPlan>();
+
+    /** The toString() method of the {@link Object} class. */
+    private static final Method TO_STRING = getMethod(Object.class,
+            "toString");
+
+    /**
+     * Returns a public method without parameters of the given class.
+     * 
+     * @param clazz
+     *            The class declaring the method.
+     * @param name
+     *            The method name.
+     * @return The method or null if not found.
+     */
+    private static Method getMethod(Class<?> clazz, String name) {
+        try {
+            return clazz.getMethod(name);
+        } catch (NoSuchMethodException e) {
+            return null;
+        }
+    }
+
     /** The annotations of the resource interface. */
     private final List<AnnotationInfo> annotations;
 
@@ -123,6 +244,27 @@ public class ClientInvocationHandler<T> implements InvocationHandler {
         return clientResource;
     }
 
+    /**
+     * Returns the invocation plan of a Java method, computing it on first use.
+     * 
+     * @param javaMethod
+     *            The Java method.
+     * @return The invocation plan.
+     */
+    private InvocationPlan getPlan(Method javaMethod) {
+        InvocationPlan result = plans.get(javaMethod);
+
+        // Plans depend on the annotations introspected for the interface
+        if ((result == null) || (result.annotations != this.annotations)) {
+            result = new InvocationPlan(this.annotations,
+                    this.annotationUtils.getAnnotation(this.annotations,
+                            javaMethod), javaMethod);
+            plans.put(javaMethod, result);
+        }
+
+        return result;
+    }
+
     /**
      * Allows for child classes to modify the request.
      */
@@ -138,15 +280,14 @@ public class ClientInvocationHandler<T> implements InvocationHandler {
             Object[] args) throws Throwable {
         Object result = null;
 
-        if (javaMethod.equals(Object.class.getMethod("toString"))) {
+        if (javaMethod.equals(TO_STRING)) {
             // Help debug
             result = "ClientProxy for resource: " + clientResource;
-        } else if (javaMethod.equals(ClientProxy.class
-                .getMethod("getClientResource"))) {
+        } else if (javaMethod.equals(GET_CLIENT_RESOURCE)) {
             result = clientResource;
         } else {
-            AnnotationInfo annotationInfo = annotationUtils.getAnnotation(
-                    annotations, javaMethod);
+            InvocationPlan plan = getPlan(javaMethod);
+            AnnotationInfo annotationInfo = plan.annotationInfo;
 
             if (annotationInfo != null) {
                 Representation requestEntity = null;
@@ -167,14 +308,7 @@ public class ClientInvocationHandler<T> implements InvocationHandler {
 
                             // Get the kind of result expected.
                             final Result rCallback = (Result) o;
-                            Type[] genericParameterTypes = javaMethod
-                                    .getGenericParameterTypes();
-                            Type genericParameterType = genericParameterTypes[i];
-                            ParameterizedType parameterizedType = (genericParameterType instanceof java.lang.reflect.ParameterizedType) ? (java.lang.reflect.ParameterizedType) genericParameterType
-                                    : null;
-                            final Class<?> actualType = (parameterizedType
-                                    .getActualTypeArguments()[0] instanceof Class<?>) ? (Class<?>) parameterizedType
-                                    .getActualTypeArguments()[0] : null;
+                            final Class<?> actualType = plan.callbackTypes[i];
 
                             // Define the callback
                             Uniform callback = new Uniform() {
@@ -227,11 +361,8 @@ public class ClientInvocationHandler<T> implements InvocationHandler {
                 request.setMethod(annotationInfo.getRestletMethod());
 
                 // Add the mandatory query parameters
-                String query = annotationInfo.getQuery();
-
-                if (query != null) {
-                    Form queryParams = new Form(annotationInfo.getQuery());
-                    request.getResourceRef().addQueryParameters(queryParams);
+                if (plan.query != null) {
+                    request.getResourceRef().addQueryParameters(plan.query);
                 }
 
                 // Set the entity
@@ -245,10 +376,9 @@ public class ClientInvocationHandler<T> implements InvocationHandler {
                                 .size() == 0)
                         && (request.getClientInfo().getAcceptedMediaTypes()
                                 .size() == 0)) {
-                    List<Variant> responseVariants = annotationInfo
-                            .getResponseVariants(getClientResource()
-                                    .getMetadataService(), getClientResource()
-                                    .getConverterService());
+                    List<Variant> responseVariants = plan.getResponseVariants(
+                            getClientResource().getMetadataService(),
+                            getClientResource().getConverterService());
 
                     if (responseVariants != null) {
                         request.setClientInfo(new ClientInfo(responseVariants));
@@ -184,6 +184,12 @@ public final class DateUtils {
         }
 
         // [ifndef gwt]
+        String result = formatFast(date, format);
+
+        if (result != null) {
+            return result;
+        }
+
         java.text.DateFormat formatter = null;
 
         if (FORMAT_RFC_3339.get(0).equals(format)) {
@@ -213,6 +219,30 @@ public final class DateUtils {
         // [enddef]
     }
 
+    // [ifndef gwt] method
+    /**
+     * Formats a Date with the specialized formatter of the HTTP date formats.
+     * 
+     * @param date
+     *            The date to format.
+     * @param format
+     *            The date format to use.
+     * @return The formatted date or null if the format isn't supported.
+     */
+    private static String formatFast(Date date, String format) {
+        String result = null;
+
+        if (FORMAT_RFC_1123.get(0).equals(format)) {
+            result = FastHttpDateFormat.formatRfc1123(date.getTime());
+        } else if (FORMAT_RFC_1036.get(0).equals(format)) {
+            result = FastHttpDateFormat.formatRfc1036(date.getTime());
+        } else if (FORMAT_ASC_TIME.get(0).equals(format)) {
+            result = FastHttpDateFormat.formatAscTime(date.getTime());
+        }
+
+        return result;
+    }
+
     /**
      * Parses a formatted date into a Date object using the default HTTP format
      * (RFC 1123).
@@ -247,6 +277,12 @@ public final class DateUtils {
         for (int i = 0; (result == null) && (i < formatsSize); i++) {
             format = formats.get(i);
             // [ifndef gwt]
+            result = parseFast(date, format);
+
+            if (result != null) {
+                continue;
+            }
+
             java.text.DateFormat parser = null;
 
             if (FORMAT_RFC_3339.get(0).equals(format)) {
@@ -281,6 +317,32 @@ public final class DateUtils {
         return result;
     }
 
+    // [ifndef gwt] method
+    /**
+     * Parses a formatted date with the specialized parser of the HTTP date
+     * formats.
+     * 
+     * @param date
+     *            The date to parse.
+     * @param format
+     *            The date format to use.
+     * @return The parsed date or null if the format isn't supported or if the
+     *         date isn't well-formed.
+     */
+    private static Date parseFast(String date, String format) {
+        Date result = null;
+
+        if (FORMAT_RFC_1123.get(0).equals(format)) {
+            result = FastHttpDateFormat.parseRfc1123(date);
+        } else if (FORMAT_RFC_1036.get(0).equals(format)) {
+            result = FastHttpDateFormat.parseRfc1036(date);
+        } else if (FORMAT_ASC_TIME.get(0).equals(format)) {
+            result = FastHttpDateFormat.parseAscTime(date);
+        }
+
+        return result;
+    }
+
     /**
      * Returns an immutable version of a given date.
      * 
@@ -0,0 +1,520 @@
+/**
+ * Copyright 2005-2012 Restlet S.A.S.
+ * 
+ * The contents of this file are subject to the terms of one of the following
+ * open source licenses: Apache 2.0 or LGPL 3.0 or LGPL 2.1 or CDDL 1.0 or EPL
+ * 1.0 (the "Licenses"). You can select the license that you prefer but you may
+ * not use this file except in compliance with one of these Licenses.
+ * 
+ * You can obtain a copy of the Apache 2.0 license at
+ * http://www.opensource.org/licenses/apache-2.0
+ * 
+ * You can obtain a copy of the LGPL 3.0 license at
+ * http://www.opensource.org/licenses/lgpl-3.0
+ * 
+ * You can obtain a copy of the LGPL 2.1 license at
+ * http://www.opensource.org/licenses/lgpl-2.1
+ * 
+ * You can obtain a copy of the CDDL 1.0 license at
+ * http://www.opensource.org/licenses/cddl1
+ * 
+ * You can obtain a copy of the EPL 1.0 license at
+ * http://www.opensource.org/licenses/eclipse-1.0
+ * 
+ * See the Licenses for the specific language governing permissions and
+ * limitations under the Licenses.
+ * 
+ * Alternatively, you can obtain a royalty free commercial license with less
+ * limitations, transferable or non-transferable, directly at
+ * http://www.restlet.com/products/restlet-framework
+ * 
+ * Restlet is a registered trademark of Restlet S.A.S.
+ */
+
+package org.restlet.engine.util;
+
+import java.util.Date;
+
+// [excludes gwt]
+/**
+ * Specialized formatter and parser for the three HTTP date formats: RFC 1123,
+ * RFC 1036 (also known as RFC 850) and ANSI C asctime(), always in the GMT
+ * time zone. It doesn't rely on {@link java.text.SimpleDateFormat} instances
+ * and caches the rendering of the last formatted second, which is typically
+ * the current date written in each response.<br>
+ * <br>
+ * The parsing methods only accept well-formed dates and return null
+ * otherwise, letting the caller fall back on a more lenient parser.
+ * 
+ * @author Jerome Louvel
+ */
+public final class FastHttpDateFormat {
+
+    /** Formatted date of a given second. */
+    private static final class CachedDate {
+
+        /** The formatted date. */
+        private final String value;
+
+        /** The number of seconds since the epoch. */
+        private final long second;
+
+        /**
+         * Constructor.
+         * 
+         * @param second
+         *            The number of seconds since the epoch.
+         * @param value
+         *            The formatted date.
+         */
+        private CachedDate(long second, String value) {
+            this.second = second;
+            this.value = value;
+        }
+    }
+
+    /** The short names of the days of the week, starting with Sunday. */
+    private static final String[] DAYS = { "Sun", "Mon", "Tue", "Wed", "Thu",
+            "Fri", "Sat" };
+
+    /** The full names of the days of the week, starting with Sunday. */
+    private static final String[] DAYS_FULL = { "Sunday", "Monday",
+            "Tuesday", "Wednesday", "Thursday", "Friday", "Saturday" };
+
+    /** The last date formatted with the RFC 1123 format. */
+    private static volatile CachedDate lastRfc1123;
+
+    /** The short names of the months. */
+    private static final String[] MONTHS = { "Jan", "Feb", "Mar", "Apr",
+            "May", "Jun", "Jul", "Aug", "Sep", "Oct", "Nov", "Dec" };
+
+    /** The number of milliseconds per day. */
+    private static final long MS_PER_DAY = 86400000L;
+
+    /**
+     * Appends a number padded with zeros.
+     * 
+     * @param sb
+     *            The target builder.
+     * @param value
+     *            The number to append.
+     * @param digits
+     *            The minimum number of digits.
+     */
+    private static void appendNumber(StringBuilder sb, int value, int digits) {
+        for (int limit = 10, i = 1; i < digits; i++, limit *= 10) {
+            if (value < limit) {
+                sb.append('0');
+            }
+        }
+
+        sb.append(value);
+    }
+
+    /**
+     * Appends the time part with the "HH:mm:ss" pattern.
+     * 
+     * @param sb
+     *            The target builder.
+     * @param time
+     *            The milliseconds since the epoch.
+     */
+    private static void appendTime(StringBuilder sb, long time) {
+        int secondOfDay = (int) (floorMod(time, MS_PER_DAY) / 1000);
+        appendNumber(sb, secondOfDay / 3600, 2);
+        sb.append(':');
+        appendNumber(sb, (secondOfDay / 60) % 60, 2);
+        sb.append(':');
+        appendNumber(sb, secondOfDay % 60, 2);
+    }
+
+    /**
+     * Converts a number of days since the epoch into a civil date.
+     * 
+     * @param days
+     *            The number of days since the epoch.
+     * @return The year, the month (1-12) and the day of the month (1-31).
+     */
+    private static int[] civilFromDays(long days) {
+        // Based on Howard Hinnant's days_from_civil algorithms
+        long z = days + 719468;
+        long era = ((z >= 0) ? z : z - 146096) / 146097;
+        long doe = z - era * 146097;
+        long yoe = (doe - doe / 1460 + doe / 36524 - doe / 146096) / 365;
+        long doy = doe - (365 * yoe + yoe / 4 - yoe / 100);
+        long mp = (5 * doy + 2) / 153;
+        int day = (int) (doy - (153 * mp + 2) / 5 + 1);
+        int month = (int) ((mp < 10) ? mp + 3 : mp - 9);
+        int year = (int) (yoe + era * 400 + ((month <= 2) ? 1 : 0));
+        return new int[] { year, month, day };
+    }
+
+    /**
+     * Converts a civil date into a number of days since the epoch.
+     * 
+     * @param year
+     *            The year.
+     * @param month
+     *            The month (1-12).
+     * @param day
+     *            The day of the month (1-31).
+     * @return The number of days since the epoch.
+     */
+    private static long daysFromCivil(int year, int month, int day) {
+        long y = (month <= 2) ? year - 1 : year;
+        long era = ((y >= 0) ? y : y - 399) / 400;
+        long yoe = y - era * 400;
+        long doy = (153 * ((month > 2) ? month - 3 : month + 9) + 2) / 5 + day
+                - 1;
+        long doe = yoe * 365 + yoe / 4 - yoe / 100 + doy;
+        return era * 146097 + doe - 719468;
+    }
+
+    /**
+     * Returns the floor division.
+     * 
+     * @param x
+     *            The dividend.
+     * @param y
+     *            The divisor.
+     * @return The floor division.
+     */
+    private static long floorDiv(long x, long y) {
+        long result = x / y;
+        return ((x % y != 0) && ((x < 0) != (y < 0))) ? result - 1 : result;
+    }
+
+    /**
+     * Returns the floor modulus.
+     * 
+     * @param x
+     *            The dividend.
+     * @param y
+     *            The divisor.
+     * @return The floor modulus.
+     */
+    private static long floorMod(long x, long y) {
+        long result = x % y;
+        return (result < 0) ? result + y : result;
+    }
+
+    /**
+     * Formats a date with the ANSI C asctime() format, for example "Sun Nov 06
+     * 08:49:37 1994".
+     * 
+     * @param time
+     *            The milliseconds since the epoch.
+     * @return The formatted date or null if the year isn't supported.
+     */
+    public static String formatAscTime(long time) {
+        long days = floorDiv(time, MS_PER_DAY);
+        int[] date = civilFromDays(days);
+
+        if (!isSupported(date[0])) {
+            return null;
+        }
+
+        StringBuilder sb = new StringBuilder(24);
+        sb.append(DAYS[getDayOfWeek(days)]).append(' ');
+        sb.append(MONTHS[date[1] - 1]).append(' ');
+        appendNumber(sb, date[2], 2);
+        sb.append(' ');
+        appendTime(sb, time);
+        sb.append(' ');
+        appendNumber(sb, date[0], 4);
+        return sb.toString();
+    }
+
+    /**
+     * Formats a date with the RFC 1036 format, for example "Sunday, 06-Nov-94
+     * 08:49:37 GMT".
+     * 
+     * @param time
+     *            The milliseconds since the epoch.
+     * @return The formatted date or null if the year isn't supported.
+     */
+    public static String formatRfc1036(long time) {
+        long days = floorDiv(time, MS_PER_DAY);
+        int[] date = civilFromDays(days);
+
+        if (!isSupported(date[0])) {
+            return null;
+        }
+
+        StringBuilder sb = new StringBuilder(32);
+        sb.append(DAYS_FULL[getDayOfWeek(days)]).append(", ");
+        appendNumber(sb, date[2], 2);
+        sb.append('-').append(MONTHS[date[1] - 1]).append('-');
+        appendNumber(sb, date[0] % 100, 2);
+        sb.append(' ');
+        appendTime(sb, time);
+        sb.append(" GMT");
+        return sb.toString();
+    }
+
+    /**
+     * Formats a date with the RFC 1123 format, for example "Sun, 06 Nov 1994
+     * 08:49:37 GMT". The rendering of the last formatted second is cached.
+     * 
+     * @param time
+     *            The milliseconds since the epoch.
+     * @return The formatted date or null if the year isn't supported.
+     */
+    public static String formatRfc1123(long time) {
+        long second = floorDiv(time, 1000);
+        CachedDate cached = lastRfc1123;
+
+        if ((cached != null) && (cached.second == second)) {
+            return cached.value;
+        }
+
+        long days = floorDiv(time, MS_PER_DAY);
+        int[] date = civilFromDays(days);
+
+        if (!isSupported(date[0])) {
+            return null;
+        }
+
+        StringBuilder sb = new StringBuilder(29);
+        sb.append(DAYS[getDayOfWeek(days)]).append(", ");
+        appendNumber(sb, date[2], 2);
+        sb.append(' ').append(MONTHS[date[1] - 1]).append(' ');
+        appendNumber(sb, date[0], 4);
+        sb.append(' ');
+        appendTime(sb, time);
+        sb.append(" GMT");
+        String result = sb.toString();
+        lastRfc1123 = new CachedDate(second, result);
+        return result;
+    }
+
+    /**
+     * Returns the day of the week, 0 being Sunday.
+     * 
+     * @param days
+     *            The number of days since the epoch.
+     * @return The day of the week.
+     */
+    private static int getDayOfWeek(long days) {
+        // The epoch was a Thursday
+        return (int) floorMod(days + 4, 7);
+    }
+
+    /**
+     * Returns the index of a name in an array, or -1.
+     * 
+     * @param names
+     *            The names.
+     * @param date
+     *            The parsed text.
+     * @param start
+     *            The start index of the name.
+     * @param end
+     *            The end index of the name.
+     * @return The index of the name or -1.
+     */
+    private static int indexOf(String[] names, String date, int start, int end) {
+        for (int i = 0; i < names.length; i++) {
+            String name = names[i];
+
+            if ((name.length() == end - start)
+                    && date.regionMatches(start, name, 0, name.length())) {
+                return i;
+            }
+        }
+
+        return -1;
+    }
+
+    /**
+     * Indicates if a year can be handled by the fast path. Other years are
+     * left to the generic formatters, whose behavior differs before the
+     * Gregorian calendar cutover.
+     * 
+     * @param year
+     *            The year.
+     * @return True if the year is supported.
+     */
+    private static boolean isSupported(int year) {
+        return (year >= 1600) && (year <= 9999);
+    }
+
+    /**
+     * Parses a date with the ANSI C asctime() format, for example "Sun Nov  6
+     * 08:49:37 1994". The day of the month can be padded with a zero or a
+     * space.
+     * 
+     * @param date
+     *            The date to parse.
+     * @return The parsed date or null.
+     */
+    public static Date parseAscTime(String date) {
+        if ((date.length() != 24) || (date.charAt(3) != ' ')
+                || (date.charAt(7) != ' ') || (date.charAt(10) != ' ')
+                || (date.charAt(19) != ' ')
+                || (indexOf(DAYS, date, 0, 3) == -1)) {
+            return null;
+        }
+
+        int day = (date.charAt(8) == ' ') ? parseNumber(date, 9, 10)
+                : parseNumber(date, 8, 10);
+        return toDate(parseNumber(date, 20, 24), indexOf(MONTHS, date, 4, 7),
+                day, date, 11);
+    }
+
+    /**
+     * Parses a number.
+     * 
+     * @param date
+     *            The text to parse.
+     * @param start
+     *            The start index.
+     * @param end
+     *            The end index.
+     * @return The number or -1 if the text isn't made of digits.
+     */
+    private static int parseNumber(String date, int start, int end) {
+        int result = 0;
+
+        for (int i = start; i < end; i++) {
+            char c = date.charAt(i);
+
+            if ((c < '0') || (c > '9')) {
+                return -1;
+            }
+
+            result = result * 10 + (c - '0');
+        }
+
+        return result;
+    }
+
+    /**
+     * Parses a date with the RFC 1036 format, for example "Sunday, 06-Nov-94
+     * 08:49:37 GMT". Two digits years are resolved like
+     * {@link java.text.SimpleDateFormat} does, within 80 years before and 20
+     * years after the current year.
+     * 
+     * @param date
+     *            The date to parse.
+     * @return The parsed date or null.
+     */
+    public static Date parseRfc1036(String date) {
+        int comma = date.indexOf(',');
+
+        if ((comma == -1) || (date.length() != comma + 24)
+                || (indexOf(DAYS_FULL, date, 0, comma) == -1)) {
+            return null;
+        }
+
+        int i = comma + 2;
+
+        if ((date.charAt(i - 1) != ' ') || (date.charAt(i + 2) != '-')
+                || (date.charAt(i + 6) != '-') || (date.charAt(i + 9) != ' ')
+                || !date.regionMatches(i + 18, " GMT", 0, 4)) {
+            return null;
+        }
+
+        int year = parseNumber(date, i + 7, i + 9);
+        int month = indexOf(MONTHS, date, i + 3, i + 6);
+        int day = parseNumber(date, i, i + 2);
+        Date result = null;
+
+        if (year != -1) {
+            // The century starts 80 years before the current instant
+            long now = System.currentTimeMillis();
+            int[] today = civilFromDays(floorDiv(now, MS_PER_DAY));
+            int startYear = today[0] - 80;
+            year += (startYear / 100) * 100;
+
+            if (year < startYear) {
+                year += 100;
+            }
+
+            result = toDate(year, month, day, date, i + 10);
+
+            if ((result != null) && (year == startYear)) {
+                long start = daysFromCivil(startYear, today[1], today[2])
+                        * MS_PER_DAY + floorMod(now, MS_PER_DAY);
+
+                if (result.getTime() < start) {
+                    result = toDate(year + 100, month, day, date, i + 10);
+                }
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * Parses a date with the RFC 1123 format, for example "Sun, 06 Nov 1994
+     * 08:49:37 GMT".
+     * 
+     * @param date
+     *            The date to parse.
+     * @return The parsed date or null.
+     */
+    public static Date parseRfc1123(String date) {
+        if ((date.length() != 29) || (date.charAt(3) != ',')
+                || (date.charAt(4) != ' ') || (date.charAt(7) != ' ')
+                || (date.charAt(11) != ' ') || (date.charAt(16) != ' ')
+                || !date.regionMatches(25, " GMT", 0, 4)
+                || (indexOf(DAYS, date, 0, 3) == -1)) {
+            return null;
+        }
+
+        return toDate(parseNumber(date, 12, 16), indexOf(MONTHS, date, 8, 11),
+                parseNumber(date, 5, 7), date, 17);
+    }
+
+    /**
+     * Builds a date from its parsed fields, after validating them.
+     * 
+     * @param year
+     *            The year or -1.
+     * @param month
+     *            The month index (0-11) or -1.
+     * @param day
+     *            The day of the month or -1.
+     * @param date
+     *            The parsed text.
+     * @param timeIndex
+     *            The index of the "HH:mm:ss" time part.
+     * @return The date or null if a field is invalid.
+     */
+    private static Date toDate(int year, int month, int day, String date,
+            int timeIndex) {
+        if ((date.charAt(timeIndex + 2) != ':')
+                || (date.charAt(timeIndex + 5) != ':')) {
+            return null;
+        }
+
+        int hours = parseNumber(date, timeIndex, timeIndex + 2);
+        int minutes = parseNumber(date, timeIndex + 3, timeIndex + 5);
+        int seconds = parseNumber(date, timeIndex + 6, timeIndex + 8);
+
+        if (!isSupported(year) || (month == -1) || (day < 1)
+                || (hours == -1) || (hours > 23) || (minutes == -1)
+                || (minutes > 59) || (seconds == -1) || (seconds > 59)) {
+            return null;
+        }
+
+        long days = daysFromCivil(year, month + 1, day);
+
+        if (civilFromDays(days)[2] != day) {
+            // Invalid day of the month
+            return null;
+        }
+
+        return new Date(days * MS_PER_DAY + hours * 3600000L + minutes
+                * 60000L + seconds * 1000L);
+    }
+
+    /**
+     * Private constructor to ensure that the class acts as a true utility class
+     * i.e. it isn't instantiable and extensible.
+     */
+    private FastHttpDateFormat() {
+    }
+
+}
@@ -0,0 +1,159 @@
+/**
+ * Copyright 2005-2012 Restlet S.A.S.
+ * 
+ * The contents of this file are subject to the terms of one of the following
+ * open source licenses: Apache 2.0 or LGPL 3.0 or LGPL 2.1 or CDDL 1.0 or EPL
+ * 1.0 (the "Licenses"). You can select the license that you prefer but you may
+ * not use this file except in compliance with one of these Licenses.
+ * 
+ * You can obtain a copy of the Apache 2.0 license at
+ * http://www.opensource.org/licenses/apache-2.0
+ * 
+ * You can obtain a copy of the LGPL 3.0 license at
+ * http://www.opensource.org/licenses/lgpl-3.0
+ * 
+ * You can obtain a copy of the LGPL 2.1 license at
+ * http://www.opensource.org/licenses/lgpl-2.1
+ * 
+ * You can obtain a copy of the CDDL 1.0 license at
+ * http://www.opensource.org/licenses/cddl1
+ * 
+ * You can obtain a copy of the EPL 1.0 license at
+ * http://www.opensource.org/licenses/eclipse-1.0
+ * 
+ * See the Licenses for the specific language governing permissions and
+ * limitations under the Licenses.
+ * 
+ * Alternatively, you can obtain a royalty free commercial license with less
+ * limitations, transferable or non-transferable, directly at
+ * http://www.restlet.com/products/restlet-framework
+ * 
+ * Restlet is a registered trademark of Restlet S.A.S.
+ */
+
+package org.restlet.engine.util;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+// [excludes gwt]
+/**
+ * Bounded and thread-safe cache of values parsed from strings such as header
+ * values or metadata names. The cached values must be immutable as they are
+ * shared between all the callers. When the maximum number of entries is
+ * reached, the cache is simply cleared, which keeps lookups lock-free and
+ * bounds the memory used by hostile or highly variable inputs. Keys longer
+ * than a maximum length are never cached.
+ * 
+ * @author Jerome Louvel
+ * @param <V>
+ *            The type of cached value.
+ */
+public class InternCache<V> {
+
+    /** The cached values. */
+    private final ConcurrentMap<String, V> values;
+
+    /** The maximum number of cached entries. */
+    private final int maxEntries;
+
+    /** The maximum length of a cached key. */
+    private final int maxKeyLength;
+
+    /**
+     * Constructor. Caches up to 1000 keys of 256 characters or less.
+     */
+    public InternCache() {
+        this(1000, 256);
+    }
+
+    /**
+     * Constructor.
+     * 
+     * @param maxEntries
+     *            The maximum number of cached entries.
+     * @param maxKeyLength
+     *            The maximum length of a cached key.
+     */
+    public InternCache(int maxEntries, int maxKeyLength) {
+        this.values = new ConcurrentHashMap<String, V>();
+        this.maxEntries = maxEntries;
+        this.maxKeyLength = maxKeyLength;
+    }
+
+    /**
+     * Removes all the cached values.
+     */
+    public void clear() {
+        this.values.clear();
+    }
+
+    /**
+     * Returns the value cached for a given key.
+     * 
+     * @param key
+     *            The key, such as a header value.
+     * @return The cached value or null.
+     */
+    public V get(String key) {
+        return (key == null) ? null : this.values.get(key);
+    }
+
+    /**
+     * Returns the maximum number of cached entries.
+     * 
+     * @return The maximum number of cached entries.
+     */
+    public int getMaxEntries() {
+        return maxEntries;
+    }
+
+    /**
+     * Returns the maximum length of a cached key.
+     * 
+     * @return The maximum length of a cached key.
+     */
+    public int getMaxKeyLength() {
+        return maxKeyLength;
+    }
+
+    /**
+     * Caches a value unless the key is too long. If another value was
+     * concurrently cached for the same key, it is returned instead so that
+     * all callers share the same instance.
+     * 
+     * @param key
+     *            The key, such as a header value.
+     * @param value
+     *            The parsed value.
+     * @return The cached value.
+     */
+    public V put(String key, V value) {
+        V result = value;
+
+        if ((key != null) && (value != null)
+                && (key.length() <= getMaxKeyLength())) {
+            if (this.values.size() >= getMaxEntries()) {
+                this.values.clear();
+            }
+
+            V previous = this.values.putIfAbsent(key, value);
+
+            if (previous != null) {
+                result = previous;
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * Returns the number of cached entries.
+     * 
+     * @return The number of cached entries.
+     */
+    public int size() {
+        return this.values.size();
+    }
+
+}
@@ -0,0 +1,376 @@
+/**
+ * Copyright 2005-2012 Restlet S.A.S.
+ * 
+ * The contents of this file are subject to the terms of one of the following
+ * open source licenses: Apache 2.0 or LGPL 3.0 or LGPL 2.1 or CDDL 1.0 or EPL
+ * 1.0 (the "Licenses"). You can select the license that you prefer but you may
+ * not use this file except in compliance with one of these Licenses.
+ * 
+ * You can obtain a copy of the Apache 2.0 license at
+ * http://www.opensource.org/licenses/apache-2.0
+ * 
+ * You can obtain a copy of the LGPL 3.0 license at
+ * http://www.opensource.org/licenses/lgpl-3.0
+ * 
+ * You can obtain a copy of the LGPL 2.1 license at
+ * http://www.opensource.org/licenses/lgpl-2.1
+ * 
+ * You can obtain a copy of the CDDL 1.0 license at
+ * http://www.opensource.org/licenses/cddl1
+ * 
+ * You can obtain a copy of the EPL 1.0 license at
+ * http://www.opensource.org/licenses/eclipse-1.0
+ * 
+ * See the Licenses for the specific language governing permissions and
+ * limitations under the Licenses.
+ * 
+ * Alternatively, you can obtain a royalty free commercial license with less
+ * limitations, transferable or non-transferable, directly at
+ * http://www.restlet.com/products/restlet-framework
+ * 
+ * Restlet is a registered trademark of Restlet S.A.S.
+ */
+
+package org.restlet.engine.util;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.restlet.Request;
+import org.restlet.Response;
+import org.restlet.routing.Route;
+import org.restlet.routing.Template;
+import org.restlet.routing.TemplateRoute;
+import org.restlet.routing.Variable;
+
+/**
+ * Segment trie compiled from a snapshot of a list of routes. Each URI template
+ * is split on the path separators into literal segments and variable segments,
+ * so that the routes that could match a given path are found in a single pass
+ * over its segments. The candidate routes are then scored in the list order,
+ * so the route returned is the one the first match mode would return.<br>
+ * <br>
+ * Routes that can't be compiled, like those using variables that can span
+ * several segments, are always considered as candidates.
+ * 
+ * @author Jerome Louvel
+ */
+public class RouteTrie {
+
+    /**
+     * Node of the trie, matching one path segment.
+     */
+    private static final class Node {
+        /** The positions of the routes whose template ends at this node. */
+        private final BitSet equalsRoutes = new BitSet();
+
+        /** The child nodes by literal segment. */
+        private final Map<String, Node> literals = new HashMap<String, Node>();
+
+        /**
+         * The literal prefixes of the last template segment of the routes
+         * matching the start of the path, null for variable segments.
+         */
+        private final List<String> prefixes = new ArrayList<String>();
+
+        /** The positions of the routes matching the start of the path. */
+        private final List<Integer> prefixRoutes = new ArrayList<Integer>();
+
+        /** The child node for variable segments. */
+        private Node wildcard;
+    }
+
+    /**
+     * Indicates if a variable can only match characters within a path
+     * segment.
+     * 
+     * @param variable
+     *            The variable to test.
+     * @return True if the variable can't match a path separator.
+     */
+    private static boolean isSegmentVariable(Variable variable) {
+        if ((variable == null) || variable.isFixed()) {
+            return false;
+        }
+
+        switch (variable.getType()) {
+        case Variable.TYPE_ALPHA:
+        case Variable.TYPE_ALPHA_DIGIT:
+        case Variable.TYPE_DIGIT:
+        case Variable.TYPE_TOKEN:
+        case Variable.TYPE_URI_SEGMENT:
+        case Variable.TYPE_URI_UNRESERVED:
+        case Variable.TYPE_WORD:
+            return true;
+        default:
+            return false;
+        }
+    }
+
+    /** The root node. */
+    private final Node root;
+
+    /** The snapshot of the routes. */
+    private final Route[] routes;
+
+    /** The positions of the routes that couldn't be compiled. */
+    private final BitSet unindexedRoutes;
+
+    /**
+     * Constructor.
+     * 
+     * @param routes
+     *            The snapshot of the routes to compile.
+     */
+    public RouteTrie(Route[] routes) {
+        this.routes = routes;
+        this.root = new Node();
+        this.unindexedRoutes = new BitSet();
+
+        for (int i = 0; i < routes.length; i++) {
+            if (!add(routes[i], i)) {
+                this.unindexedRoutes.set(i);
+            }
+        }
+    }
+
+    /**
+     * Compiles a route into the trie.
+     * 
+     * @param route
+     *            The route to compile.
+     * @param position
+     *            The position of the route in the list.
+     * @return True if the route was compiled.
+     */
+    private boolean add(Route route, int position) {
+        // Subclasses may score calls differently
+        if ((route == null) || (route.getClass() != TemplateRoute.class)) {
+            return false;
+        }
+
+        Template template = ((TemplateRoute) route).getTemplate();
+
+        if ((template == null) || (template.getClass() != Template.class)
+                || (template.getPattern() == null)
+                || (template.getPattern().indexOf('?') != -1)) {
+            return false;
+        }
+
+        // Split the pattern into segments, null for variable segments
+        List<String> segments = new ArrayList<String>();
+        String pattern = template.getPattern();
+        int start = 0;
+
+        while (start <= pattern.length()) {
+            int end = pattern.indexOf('/', start);
+
+            if (end == -1) {
+                end = pattern.length();
+            }
+
+            String segment = pattern.substring(start, end);
+
+            if ((segment.indexOf('{') == -1) && (segment.indexOf('}') == -1)) {
+                segments.add(segment);
+            } else if (isVariableSegment(template, segment)) {
+                segments.add(null);
+            } else {
+                return false;
+            }
+
+            start = end + 1;
+        }
+
+        // Walk down to the node of the last segment
+        Node node = this.root;
+        int last = segments.size() - 1;
+
+        for (int i = 0; i < last; i++) {
+            node = getChild(node, segments.get(i));
+        }
+
+        if (template.getMatchingMode() == Template.MODE_STARTS_WITH) {
+            node.prefixes.add(segments.get(last));
+            node.prefixRoutes.add(position);
+        } else if (template.getMatchingMode() == Template.MODE_EQUALS) {
+            getChild(node, segments.get(last)).equalsRoutes.set(position);
+        } else {
+            return false;
+        }
+
+        return true;
+    }
+
+    /**
+     * Collects the positions of the routes that could match the path,
+     * starting at the segment beginning at the given index.
+     * 
+     * @param node
+     *            The current node.
+     * @param path
+     *            The path to match.
+     * @param start
+     *            The index of the current segment in the path.
+     * @param candidates
+     *            The candidate positions to update.
+     */
+    private void collect(Node node, String path, int start, BitSet candidates) {
+        int end = path.indexOf('/', start);
+        boolean last = (end == -1);
+
+        if (last) {
+            end = path.length();
+        }
+
+        // Routes whose last segment matches the start of this segment
+        for (int i = 0; i < node.prefixes.size(); i++) {
+            String prefix = node.prefixes.get(i);
+
+            if ((prefix == null)
+                    || ((prefix.length() <= end - start) && path.startsWith(
+                            prefix, start))) {
+                candidates.set(node.prefixRoutes.get(i));
+            }
+        }
+
+        Node literal = node.literals.isEmpty() ? null : node.literals.get(path
+                .substring(start, end));
+
+        if (literal != null) {
+            if (last) {
+                candidates.or(literal.equalsRoutes);
+            } else {
+                collect(literal, path, end + 1, candidates);
+            }
+        }
+
+        if (node.wildcard != null) {
+            if (last) {
+                candidates.or(node.wildcard.equalsRoutes);
+            } else {
+                collect(node.wildcard, path, end + 1, candidates);
+            }
+        }
+    }
+
+    /**
+     * Returns the child node matching a template segment, creating it if
+     * needed.
+     * 
+     * @param node
+     *            The parent node.
+     * @param segment
+     *            The literal segment or null for a variable segment.
+     * @return The child node.
+     */
+    private Node getChild(Node node, String segment) {
+        Node result = null;
+
+        if (segment == null) {
+            if (node.wildcard == null) {
+                node.wildcard = new Node();
+            }
+
+            result = node.wildcard;
+        } else {
+            result = node.literals.get(segment);
+
+            if (result == null) {
+                result = new Node();
+                node.literals.put(segment, result);
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * Returns the first route match for a given call.
+     * 
+     * @param request
+     *            The request to score.
+     * @param response
+     *            The response to score.
+     * @param requiredScore
+     *            The minimum score required to have a match.
+     * @return The first route match or null.
+     */
+    public Route getFirst(Request request, Response response,
+            float requiredScore) {
+        BitSet candidates = null;
+        String path = null;
+
+        if ((request != null) && (request.getResourceRef() != null)) {
+            path = request.getResourceRef().getRemainingPart(false, false);
+        }
+
+        if (path == null) {
+            // Let each route decide
+            candidates = new BitSet(this.routes.length);
+            candidates.set(0, this.routes.length);
+        } else {
+            candidates = (BitSet) this.unindexedRoutes.clone();
+            collect(this.root, path, 0, candidates);
+        }
+
+        for (int i = candidates.nextSetBit(0); i >= 0; i = candidates
+                .nextSetBit(i + 1)) {
+            if (this.routes[i].score(request, response) >= requiredScore) {
+                return this.routes[i];
+            }
+        }
+
+        // No match found
+        return null;
+    }
+
+    /**
+     * Indicates if a template segment only contains variables that can't
+     * match a path separator, optionally mixed with literal characters.
+     * 
+     * @param template
+     *            The parent template.
+     * @param segment
+     *            The template segment.
+     * @return True if the segment can be compiled as a variable segment.
+     */
+    private boolean isVariableSegment(Template template, String segment) {
+        int variableStart = -1;
+
+        for (int i = 0; i < segment.length(); i++) {
+            char next = segment.charAt(i);
+
+            if (next == '{') {
+                if (variableStart != -1) {
+                    return false;
+                }
+
+                variableStart = i + 1;
+            } else if (next == '}') {
+                if ((variableStart == -1) || (variableStart == i)) {
+                    return false;
+                }
+
+                Variable variable = template.getVariables().get(
+                        segment.substring(variableStart, i));
+
+                if (variable == null) {
+                    variable = template.getDefaultVariable();
+                }
+
+                if (!isSegmentVariable(variable)) {
+                    return false;
+                }
+
+                variableStart = -1;
+            }
+        }
+
+        return variableStart == -1;
+    }
+
+}
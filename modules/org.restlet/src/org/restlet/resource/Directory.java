@@ -43,7 +43,9 @@ import org.restlet.Response;
 import org.restlet.data.MediaType;
 import org.restlet.data.Reference;
 import org.restlet.data.ReferenceList;
+import org.restlet.engine.local.DirectoryCache;
 import org.restlet.engine.local.DirectoryServerResource;
+import org.restlet.engine.local.ListingRepresentation;
 import org.restlet.engine.util.AlphaNumericComparator;
 import org.restlet.engine.util.AlphabeticalComparator;
 import org.restlet.representation.Representation;
@@ -79,6 +81,11 @@ import org.restlet.representation.Variant;
  * idea</a>, using a different and faster implementation contributed by Rob
  * Heittman.<br>
  * <br>
+ * Directory listings and variant lists can be kept in a {@link DirectoryCache}
+ * by calling the {@link #setCache(DirectoryCache)} method, so that frequent
+ * lookups don't hit the underlying file system or class loaders for each
+ * request.<br>
+ * <br>
  * Concurrency note: instances of this class or its subclasses can be invoked by
  * several threads at the same time and therefore must be thread-safe. You
  * should be especially careful when storing state in member variables.
@@ -89,6 +96,9 @@ import org.restlet.representation.Variant;
  */
 public class Directory extends Finder {
 
+    /** The cache of directory listings and variant lists. */
+    private volatile DirectoryCache cache;
+
     /** The reference comparator to sort index pages. */
     private volatile Comparator<Reference> comparator;
 
@@ -173,6 +183,16 @@ public class Directory extends Finder {
         this(context, new Reference(rootUri));
     }
 
+    /**
+     * Returns the cache of directory listings and variant lists. Returns null
+     * by default.
+     * 
+     * @return The cache of directory listings and variant lists or null.
+     */
+    public DirectoryCache getCache() {
+        return this.cache;
+    }
+
     /**
      * Returns the reference comparator used to sort index pages. The default
      * implementation used a friendly alphanum sorting.
@@ -205,10 +225,11 @@ public class Directory extends Finder {
     public Representation getIndexRepresentation(Variant variant,
             ReferenceList indexContent) {
         Representation result = null;
-        if (variant.getMediaType().equals(MediaType.TEXT_HTML)) {
-            result = indexContent.getWebRepresentation();
-        } else if (variant.getMediaType().equals(MediaType.TEXT_URI_LIST)) {
-            result = indexContent.getTextRepresentation();
+        if (variant.getMediaType().equals(MediaType.TEXT_HTML)
+                || variant.getMediaType().equals(MediaType.TEXT_URI_LIST)) {
+            // Write the index entries as they are listed
+            result = new ListingRepresentation(indexContent,
+                    variant.getMediaType());
         }
         return result;
     }
@@ -314,6 +335,16 @@ public class Directory extends Finder {
         useAlphaNumComparator();
     }
 
+    /**
+     * Sets the cache of directory listings and variant lists.
+     * 
+     * @param cache
+     *            The cache of directory listings and variant lists.
+     */
+    public void setCache(DirectoryCache cache) {
+        this.cache = cache;
+    }
+
     /**
      * Sets the reference comparator used to sort index pages.
      * 
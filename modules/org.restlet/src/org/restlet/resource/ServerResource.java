@@ -35,6 +35,7 @@ package org.restlet.resource;
 
 import java.lang.reflect.InvocationTargetException;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Set;
 import java.util.concurrent.CopyOnWriteArrayList;
@@ -739,7 +740,7 @@ public abstract class ServerResource extends UniformResource {
             Representation entity) {
         if (isAnnotated()) {
             return AnnotationUtils.getInstance().getAnnotation(
-                    getAnnotations(), method, query, entity,
+                    getAnnotations(method), method, query, entity,
                     getMetadataService(), getConverterService());
         }
 
@@ -756,6 +757,21 @@ public abstract class ServerResource extends UniformResource {
                 getClass()) : null;
     }
 
+    /**
+     * Returns the annotation descriptors of the given method, looked up in the
+     * dispatch table of the resource class.
+     * 
+     * @param method
+     *            The method to match.
+     * @return The annotation descriptors.
+     */
+    private List<AnnotationInfo> getAnnotations(Method method) {
+        List<AnnotationInfo> result = isAnnotated() ? AnnotationUtils
+                .getInstance().getDispatchTable(getClass()).get(method) : null;
+        return (result == null) ? Collections.<AnnotationInfo> emptyList()
+                : result;
+    }
+
     /**
      * Returns the attribute value by looking up the given name in the request
      * attributes maps. The toString() method is then invoked on the attribute
@@ -875,7 +891,7 @@ public abstract class ServerResource extends UniformResource {
                 List<Variant> annoVariants = null;
                 method = (Method.HEAD.equals(method)) ? Method.GET : method;
 
-                for (AnnotationInfo annotationInfo : getAnnotations()) {
+                for (AnnotationInfo annotationInfo : getAnnotations(method)) {
                     if (annotationInfo.isCompatible(method, getQuery(),
                             getRequestEntity(), getMetadataService(),
                             getConverterService())) {
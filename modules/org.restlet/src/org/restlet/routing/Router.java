@@ -60,6 +60,7 @@ import org.restlet.util.RouteList;
  * <li>Random match</li>
  * <li>Round robin</li>
  * <li>Custom</li>
+ * <li>Trie match</li>
  * </ul>
  * <br>
  * Note that for routes using URI patterns will update the resource reference's
@@ -133,6 +134,17 @@ public class Router extends Restlet {
      */
     public static final int MODE_RANDOM_MATCH = 5;
 
+    /**
+     * Each call is routed to the first route if the required score is reached,
+     * like in the {@link #MODE_FIRST_MATCH} mode. The URI templates of the
+     * routes are compiled into a segment trie so that only the routes that
+     * could match the remaining part of the resource reference are scored,
+     * which is much faster for large numbers of routes. See
+     * {@link RouteList#getTrieMatch(Request, Response, float)} method for
+     * implementation details.
+     */
+    public static final int MODE_TRIE_MATCH = 7;
+
     /** The default matching mode to use when selecting routes based on URIs. */
     private volatile int defaultMatchingMode;
 
@@ -568,6 +580,11 @@ public class Router extends Restlet {
                 case MODE_CUSTOM:
                     result = getCustom(request, response);
                     break;
+
+                case MODE_TRIE_MATCH:
+                    result = getRoutes().getTrieMatch(request, response,
+                            getRequiredScore());
+                    break;
                 }
             }
         }
@@ -75,6 +75,11 @@ public class Template {
     /** Mode where characters at the beginning must match the template. */
     public static final int MODE_STARTS_WITH = 1;
 
+    /**
+     * Marker for templates that can't be matched without a Regex pattern.
+     */
+    private static final String[] NO_SEGMENT_TOKENS = new String[0];
+
     /**
      * Appends to a pattern a repeating group of a given content based on a
      * class of characters.
@@ -240,6 +245,64 @@ public class Template {
         return result;
     }
 
+    /**
+     * Indicates if a character is a hexadecimal digit.
+     * 
+     * @param character
+     *            The character to test.
+     * @return True if the character is a hexadecimal digit.
+     */
+    private static boolean isHexa(char character) {
+        return ((character >= '0') && (character <= '9'))
+                || ((character >= 'A') && (character <= 'F'))
+                || ((character >= 'a') && (character <= 'f'));
+    }
+
+    /**
+     * Indicates if a character can appear literally in a URI segment, as
+     * matched by {@link Variable#TYPE_URI_SEGMENT} variables.
+     * 
+     * @param character
+     *            The character to test.
+     * @return True if the character can appear literally in a URI segment.
+     */
+    private static boolean isSegmentChar(char character) {
+        return Reference.isUnreserved(character)
+                || Reference.isSubDelimiter(character) || (character == ':')
+                || (character == '@');
+    }
+
+    /**
+     * Returns the index of the end of the URI segment characters or
+     * percent-encoded octets starting at the given index.
+     * 
+     * @param formattedString
+     *            The formatted string to scan.
+     * @param start
+     *            The start index.
+     * @return The end index (exclusive).
+     */
+    private static int scanSegment(String formattedString, int start) {
+        int result = start;
+        int length = formattedString.length();
+
+        while (result < length) {
+            char next = formattedString.charAt(result);
+
+            if (isSegmentChar(next)) {
+                result++;
+            } else if ((next == '%') && (result + 2 < length)
+                    && isHexa(formattedString.charAt(result + 1))
+                    && isHexa(formattedString.charAt(result + 2))) {
+                result += 3;
+            } else {
+                break;
+            }
+        }
+
+        return result;
+    }
+
     /** The default variable to use when no matching variable descriptor exists. */
     private volatile Variable defaultVariable;
 
@@ -261,6 +324,18 @@ public class Template {
     /** The sequence of Regex variable names as found in the pattern string. */
     private volatile List<String> regexVariables;
 
+    /**
+     * The pattern tokens if the template can be matched segment by segment,
+     * without a Regex pattern.
+     */
+    private volatile String[] segmentTokens;
+
+    /**
+     * The pattern tokens, alternating literal texts and variable names, and
+     * starting and ending with a literal text.
+     */
+    private volatile String[] tokens;
+
     /** The map of variables associated to the route's template. */
     private final Map<String, Variable> variables;
 
@@ -379,80 +454,47 @@ public class Template {
      */
     public String format(Resolver<?> resolver) {
         final StringBuilder result = new StringBuilder();
-        StringBuilder varBuffer = null;
-        char next;
-        boolean inVariable = false;
-        final int patternLength = getPattern().length();
-        for (int i = 0; i < patternLength; i++) {
-            next = getPattern().charAt(i);
-
-            if (inVariable) {
-                if (Reference.isUnreserved(next)) {
-                    // Append to the variable name
-                    varBuffer.append(next);
-                } else if (next == '}') {
-                    // End of variable detected
-                    if (varBuffer.length() == 0) {
-                        getLogger().warning(
-                                "Empty pattern variables are not allowed : "
-                                        + this.regexPattern);
-                    } else {
-                        final String varName = varBuffer.toString();
-                        Object varValue = resolver.resolve(varName);
+        final String[] tokens = getTokens();
+        result.append(tokens[0]);
 
-                        Variable var = getVariables().get(varName);
+        for (int i = 1; i < tokens.length; i += 2) {
+            final String varName = tokens[i];
+            Object varValue = resolver.resolve(varName);
 
-                        // Use the default values instead
-                        if (varValue == null) {
-                            if (var == null) {
-                                var = getDefaultVariable();
-                            }
+            Variable var = getVariables().get(varName);
 
-                            if (var != null) {
-                                varValue = var.getDefaultValue();
-                            }
-                        }
+            // Use the default values instead
+            if (varValue == null) {
+                if (var == null) {
+                    var = getDefaultVariable();
+                }
 
-                        String varValueString = (varValue == null) ? null
-                                : varValue.toString();
+                if (var != null) {
+                    varValue = var.getDefaultValue();
+                }
+            }
 
-                        if (this.encodingVariables) {
-                            // In case the values must be encoded.
-                            if (var != null) {
-                                result.append(var.encode(varValueString));
-                            } else {
-                                result.append(Reference.encode(varValueString));
-                            }
-                        } else {
-                            if ((var != null) && var.isEncodingOnFormat()) {
-                                result.append(Reference.encode(varValueString));
-                            } else {
-                                result.append(varValueString);
-                            }
-                        }
+            String varValueString = (varValue == null) ? null : varValue
+                    .toString();
 
-                        // Reset the variable name buffer
-                        varBuffer = new StringBuilder();
-                    }
-                    inVariable = false;
+            if (this.encodingVariables) {
+                // In case the values must be encoded.
+                if (var != null) {
+                    result.append(var.encode(varValueString));
                 } else {
-                    getLogger().warning(
-                            "An invalid character was detected inside a pattern variable : "
-                                    + this.regexPattern);
+                    result.append(Reference.encode(varValueString));
                 }
             } else {
-                if (next == '{') {
-                    inVariable = true;
-                    varBuffer = new StringBuilder();
-                } else if (next == '}') {
-                    getLogger().warning(
-                            "An invalid character was detected inside a pattern variable : "
-                                    + this.regexPattern);
+                if ((var != null) && var.isEncodingOnFormat()) {
+                    result.append(Reference.encode(varValueString));
                 } else {
-                    result.append(next);
+                    result.append(varValueString);
                 }
             }
+
+            result.append(tokens[i + 1]);
         }
+
         return result.toString();
     }
 
@@ -597,6 +639,131 @@ public class Template {
         return rv;
     }
 
+    /**
+     * Returns the pattern tokens if the template can be matched segment by
+     * segment, without a Regex pattern. This is the case when the template
+     * only contains literal text and {@link Variable#TYPE_URI_SEGMENT}
+     * variables, each used once and followed by the end of the pattern or by
+     * a character that can't appear in a URI segment, like a '/'.
+     * 
+     * @return The pattern tokens or {@link #NO_SEGMENT_TOKENS}.
+     */
+    private String[] getSegmentTokens() {
+        String[] result = this.segmentTokens;
+
+        if (result == null) {
+            String[] tokens = getTokens();
+            result = tokens;
+
+            for (int i = 0; (result != NO_SEGMENT_TOKENS)
+                    && (i < tokens.length); i++) {
+                if ((i % 2) == 0) {
+                    String text = tokens[i];
+
+                    if (text.indexOf('+') != -1) {
+                        // Unquoted in the Regex pattern, acts as a quantifier
+                        result = NO_SEGMENT_TOKENS;
+                    } else if ((i > 0) && (text.length() == 0)) {
+                        // Only the end of the pattern can follow a variable
+                        if (i < tokens.length - 1) {
+                            result = NO_SEGMENT_TOKENS;
+                        }
+                    } else if ((i > 0)
+                            && (isSegmentChar(text.charAt(0)) || (text
+                                    .charAt(0) == '%'))) {
+                        // The variable before must end where the text starts
+                        result = NO_SEGMENT_TOKENS;
+                    }
+                } else {
+                    Variable var = getVariables().get(tokens[i]);
+
+                    if (var == null) {
+                        var = getDefaultVariable();
+                    }
+
+                    if ((var == null) || var.isFixed()
+                            || (var.getType() != Variable.TYPE_URI_SEGMENT)) {
+                        result = NO_SEGMENT_TOKENS;
+                    } else {
+                        for (int j = 1; j < i; j += 2) {
+                            if (tokens[j].equals(tokens[i])) {
+                                result = NO_SEGMENT_TOKENS;
+                            }
+                        }
+                    }
+                }
+            }
+
+            this.segmentTokens = result;
+        }
+
+        return result;
+    }
+
+    /**
+     * Returns the pattern tokens, alternating literal texts and variable
+     * names, and starting and ending with a literal text.
+     * 
+     * @return The pattern tokens.
+     */
+    private String[] getTokens() {
+        String[] result = this.tokens;
+
+        if (result == null) {
+            final List<String> tokenList = new ArrayList<String>();
+            final String pattern = getPattern();
+            StringBuilder textBuffer = new StringBuilder();
+            StringBuilder varBuffer = null;
+            char next;
+            boolean inVariable = false;
+
+            for (int i = 0; i < pattern.length(); i++) {
+                next = pattern.charAt(i);
+
+                if (inVariable) {
+                    if (Reference.isUnreserved(next)) {
+                        // Append to the variable name
+                        varBuffer.append(next);
+                    } else if (next == '}') {
+                        // End of variable detected
+                        if (varBuffer.length() == 0) {
+                            getLogger().warning(
+                                    "Empty pattern variables are not allowed : "
+                                            + pattern);
+                        } else {
+                            tokenList.add(textBuffer.toString());
+                            tokenList.add(varBuffer.toString());
+                            textBuffer = new StringBuilder();
+                        }
+
+                        inVariable = false;
+                    } else {
+                        getLogger().warning(
+                                "An invalid character was detected inside a pattern variable : "
+                                        + pattern);
+                    }
+                } else {
+                    if (next == '{') {
+                        inVariable = true;
+                        varBuffer = new StringBuilder();
+                    } else if (next == '}') {
+                        getLogger().warning(
+                                "An invalid character was detected inside a pattern variable : "
+                                        + pattern);
+                    } else {
+                        textBuffer.append(next);
+                    }
+                }
+            }
+
+            tokenList.add(textBuffer.toString());
+            result = tokenList.toArray(new String[tokenList.size()]);
+            this.tokens = result;
+        }
+
+        return result;
+    }
+
     /**
      * Returns the list of variable names in the template.
      * 
@@ -683,7 +850,10 @@ public class Template {
         int result = -1;
 
         try {
-            if (formattedString != null) {
+            if ((formattedString != null)
+                    && (getSegmentTokens() != NO_SEGMENT_TOKENS)) {
+                result = matchSegments(formattedString, null, false);
+            } else if (formattedString != null) {
                 final Matcher matcher = getRegexPattern().matcher(
                         formattedString);
 
@@ -703,6 +873,84 @@ public class Template {
         return result;
     }
 
+    /**
+     * Matches a formatted string segment by segment, without a Regex pattern,
+     * and updates the given variables if the match succeeds.
+     * 
+     * @param formattedString
+     *            The formatted string to match.
+     * @param variables
+     *            The map of variables to update or null.
+     * @param loggable
+     *            True if the parsing should be logged.
+     * @return The number of matched characters or -1 if the match failed.
+     */
+    private int matchSegments(String formattedString,
+            Map<String, Object> variables, boolean loggable) {
+        String[] tokens = getSegmentTokens();
+
+        if (!formattedString.startsWith(tokens[0])) {
+            return -1;
+        }
+
+        int position = tokens[0].length();
+        String[] values = (variables == null) ? null
+                : new String[tokens.length / 2];
+
+        for (int i = 1; i < tokens.length; i += 2) {
+            Variable var = getVariables().get(tokens[i]);
+
+            if (var == null) {
+                var = getDefaultVariable();
+            }
+
+            int end = scanSegment(formattedString, position);
+
+            if ((var.isRequired() && (end == position))
+                    || !formattedString.startsWith(tokens[i + 1], end)) {
+                return -1;
+            }
+
+            if (values != null) {
+                values[i / 2] = formattedString.substring(position, end);
+            }
+
+            position = end + tokens[i + 1].length();
+        }
+
+        if ((getMatchingMode() == MODE_EQUALS)
+                && (position != formattedString.length())) {
+            return -1;
+        } else if ((getMatchingMode() != MODE_EQUALS)
+                && (getMatchingMode() != MODE_STARTS_WITH)) {
+            return -1;
+        }
+
+        if (values != null) {
+            // Update the attributes with the variables value
+            for (int i = 1; i < tokens.length; i += 2) {
+                String attributeName = tokens[i];
+                String attributeValue = values[i / 2];
+                Variable var = getVariables().get(attributeName);
+
+                if ((var != null) && var.isDecodingOnParse()) {
+                    attributeValue = Reference.decode(attributeValue);
+                }
+
+                if (loggable) {
+                    getLogger().fine(
+                            "Template variable \"" + attributeName
+                                    + "\" matched with value \""
+                                    + attributeValue + "\"");
+                }
+
+                variables.put(attributeName, attributeValue);
+            }
+        }
+
+        return position;
+    }
+
     /**
      * Attempts to parse a formatted reference. If the parsing succeeds, the
      * given request's attributes are updated.<br>
@@ -741,7 +989,10 @@ public class Template {
             boolean loggable) {
         int result = -1;
 
-        if (formattedString != null) {
+        if ((formattedString != null)
+                && (getSegmentTokens() != NO_SEGMENT_TOKENS)) {
+            result = matchSegments(formattedString, variables, loggable);
+        } else if (formattedString != null) {
             try {
                 Matcher matcher = getRegexPattern().matcher(formattedString);
                 boolean matched = ((getMatchingMode() == MODE_EQUALS) && matcher
@@ -901,6 +1152,8 @@ public class Template {
     public void setPattern(String pattern) {
         this.pattern = pattern;
         this.regexPattern = null;
+        this.segmentTokens = null;
+        this.tokens = null;
     }
 
     /**
@@ -37,6 +37,7 @@ import java.util.List;
 
 import org.restlet.Request;
 import org.restlet.engine.application.Conneg;
+import org.restlet.engine.application.ConnegCache;
 import org.restlet.engine.application.FlexibleConneg;
 import org.restlet.engine.application.StrictConneg;
 import org.restlet.representation.Variant;
@@ -50,6 +51,9 @@ import org.restlet.representation.Variant;
  */
 public class ConnegService extends Service {
 
+    /** The optional cache of negotiation decisions. */
+    private volatile ConnegCache cache;
+
     /**
      * Indicates if the conneg algorithm should strictly respect client
      * preferences or be more flexible.
@@ -71,14 +75,27 @@ public class ConnegService extends Service {
      */
     public ConnegService(boolean enabled) {
         super(enabled);
+        this.cache = null;
         this.strict = false;
     }
 
+    /**
+     * Returns the optional cache of negotiation decisions. Null by default.
+     * 
+     * @return The optional cache of negotiation decisions.
+     */
+    public ConnegCache getCache() {
+        return cache;
+    }
+
     /**
      * Returns the best variant representation for a given resource according
      * the the client preferences.<br>
      * A default language is provided in case the variants don't match the
-     * client preferences.
+     * client preferences.<br>
+     * <br>
+     * If a cache is set, the decision is reused for identical client
+     * preferences and variants.
      * 
      * @param variants
      *            The list of variants to compare.
@@ -93,9 +110,26 @@ public class ConnegService extends Service {
      */
     public Variant getPreferredVariant(List<? extends Variant> variants,
             Request request, MetadataService metadataService) {
-        Conneg conneg = isStrict() ? new StrictConneg(request, metadataService)
-                : new FlexibleConneg(request, metadataService);
-        return conneg.getPreferredVariant(variants);
+        Variant result = null;
+        ConnegCache cache = getCache();
+        String key = (cache == null) ? null : cache.getKey(variants, request,
+                isStrict(), metadataService);
+        Integer index = (key == null) ? null : cache.getIndex(key);
+
+        if (index != null) {
+            result = (index < 0) ? null : variants.get(index);
+        } else {
+            Conneg conneg = isStrict() ? new StrictConneg(request,
+                    metadataService) : new FlexibleConneg(request,
+                    metadataService);
+            result = conneg.getPreferredVariant(variants);
+
+            if (key != null) {
+                cache.put(key, variants, result);
+            }
+        }
+
+        return result;
     }
 
     /**
@@ -109,6 +143,16 @@ public class ConnegService extends Service {
         return strict;
     }
 
+    /**
+     * Sets the optional cache of negotiation decisions.
+     * 
+     * @param cache
+     *            The optional cache of negotiation decisions.
+     */
+    public void setCache(ConnegCache cache) {
+        this.cache = cache;
+    }
+
     /**
      * Indicates if the conneg algorithm should strictly respect client
      * preferences or be more flexible.
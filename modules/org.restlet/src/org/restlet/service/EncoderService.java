@@ -37,11 +37,13 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Iterator;
 import java.util.List;
+import java.util.zip.Deflater;
 
 import org.restlet.Context;
 import org.restlet.data.Encoding;
 import org.restlet.data.MediaType;
 import org.restlet.engine.application.Encoder;
+import org.restlet.engine.application.EncodingCache;
 import org.restlet.representation.Representation;
 import org.restlet.routing.Filter;
 
@@ -93,6 +95,21 @@ public class EncoderService extends Service {
      */
     private volatile List<MediaType> acceptedMediaTypes;
 
+    /**
+     * The compression level.
+     */
+    private volatile int compressionLevel;
+
+    /**
+     * The compression strategy.
+     */
+    private volatile int compressionStrategy;
+
+    /**
+     * The cache of encoded entities.
+     */
+    private volatile EncodingCache encodingCache;
+
     /**
      * The media types that should be ignored.
      */
@@ -121,6 +138,9 @@ public class EncoderService extends Service {
         this.mininumSize = DEFAULT_MINIMUM_SIZE;
         this.acceptedMediaTypes = getDefaultAcceptedMediaTypes();
         this.ignoredMediaTypes = getDefaultIgnoredMediaTypes();
+        this.compressionLevel = Deflater.DEFAULT_COMPRESSION;
+        this.compressionStrategy = Deflater.DEFAULT_STRATEGY;
+        this.encodingCache = null;
     }
 
     /**
@@ -201,6 +221,40 @@ public class EncoderService extends Service {
         return this.acceptedMediaTypes;
     }
 
+    /**
+     * Returns the compression level applied to the encoded entities, from 0
+     * (no compression) to 9 (best compression). Default value is
+     * {@link Deflater#DEFAULT_COMPRESSION}.
+     * 
+     * @return The compression level.
+     */
+    public int getCompressionLevel() {
+        return compressionLevel;
+    }
+
+    /**
+     * Returns the compression strategy applied to the encoded entities, as
+     * defined by {@link Deflater}. Default value is
+     * {@link Deflater#DEFAULT_STRATEGY}.
+     * 
+     * @return The compression strategy.
+     */
+    public int getCompressionStrategy() {
+        return compressionStrategy;
+    }
+
+    /**
+     * Returns the cache of encoded entities. When set, the encoded entities
+     * that can be identified, like files or representations with a strong
+     * entity tag, are compressed once and then served from memory. Null by
+     * default, meaning that entities are encoded on the fly for each call.
+     * 
+     * @return The cache of encoded entities or null.
+     */
+    public EncodingCache getEncodingCache() {
+        return encodingCache;
+    }
+
     /**
      * Returns the media types that should be ignored.
      * 
@@ -221,6 +275,37 @@ public class EncoderService extends Service {
         return this.mininumSize;
     }
 
+    /**
+     * Sets the compression level applied to the encoded entities.
+     * 
+     * @param compressionLevel
+     *            The compression level, from 0 to 9 or
+     *            {@link Deflater#DEFAULT_COMPRESSION}.
+     */
+    public void setCompressionLevel(int compressionLevel) {
+        this.compressionLevel = compressionLevel;
+    }
+
+    /**
+     * Sets the compression strategy applied to the encoded entities.
+     * 
+     * @param compressionStrategy
+     *            The compression strategy, as defined by {@link Deflater}.
+     */
+    public void setCompressionStrategy(int compressionStrategy) {
+        this.compressionStrategy = compressionStrategy;
+    }
+
+    /**
+     * Sets the cache of encoded entities.
+     * 
+     * @param encodingCache
+     *            The cache of encoded entities or null.
+     */
+    public void setEncodingCache(EncodingCache encodingCache) {
+        this.encodingCache = encodingCache;
+    }
+
     /**
      * Sets the minimum size a representation must have before compression is
      * done.
@@ -38,9 +38,9 @@ import java.util.logging.LogManager;
 import org.restlet.Context;
 import org.restlet.Request;
 import org.restlet.Response;
-import org.restlet.data.Method;
 import org.restlet.data.Reference;
-import org.restlet.data.Status;
+import org.restlet.engine.log.AccessLogRecord;
+import org.restlet.engine.log.AccessLogWriter;
 import org.restlet.engine.log.LogFilter;
 import org.restlet.representation.Representation;
 import org.restlet.resource.ClientResource;
@@ -89,6 +89,9 @@ import org.restlet.routing.Template;
  */
 public class LogService extends Service {
 
+    /** The asynchronous access log writer. */
+    private volatile AccessLogWriter accessLogWriter;
+
     /** Indicates if the debugging mode is enabled. */
     private volatile boolean debugging;
 
@@ -130,6 +133,7 @@ public class LogService extends Service {
         this.responseLogFormat = null;
         this.logPropertiesRef = null;
         this.identityCheck = false;
+        this.accessLogWriter = null;
     }
 
     @Override
@@ -148,123 +152,20 @@ public class LogService extends Service {
      */
     protected String getDefaultResponseLogMessage(Response response,
             int duration) {
-        StringBuilder sb = new StringBuilder();
-        Request request = response.getRequest();
-
-        if (isDebugging()) {
-
-        } else {
-            long currentTime = System.currentTimeMillis();
-
-            // Append the date of the request
-            sb.append(String.format("%tF", currentTime));
-            sb.append('\t');
-
-            // Append the time of the request
-            sb.append(String.format("%tT", currentTime));
-            sb.append('\t');
-
-            // Append the client IP address
-            String clientAddress = request.getClientInfo().getUpstreamAddress();
-            sb.append((clientAddress == null) ? "-" : clientAddress);
-            sb.append('\t');
-
-            // Append the user name (via IDENT protocol)
-            if (isIdentityCheck()) {
-                // [ifndef gae]
-                org.restlet.engine.log.IdentClient ic = new org.restlet.engine.log.IdentClient(
-                        request.getClientInfo().getUpstreamAddress(), request
-                                .getClientInfo().getPort(), response
-                                .getServerInfo().getPort());
-                sb.append((ic.getUserIdentifier() == null) ? "-" : ic
-                        .getUserIdentifier());
-            } else if ((request.getChallengeResponse() != null)
-                    && (request.getChallengeResponse().getIdentifier() != null)) {
-                sb.append(request.getChallengeResponse().getIdentifier());
-            } else {
-                // [enddef]
-                sb.append('-');
-            }
-
-            sb.append('\t');
-
-            // Append the server IP address
-            String serverAddress = response.getServerInfo().getAddress();
-            sb.append((serverAddress == null) ? "-" : serverAddress);
-            sb.append('\t');
-
-            // Append the server port
-            Integer serverport = response.getServerInfo().getPort();
-            sb.append((serverport == null) ? "-" : serverport.toString());
-            sb.append('\t');
-
-            // Append the method name
-            String methodName = (request.getMethod() == null) ? "-" : request
-                    .getMethod().getName();
-            sb.append((methodName == null) ? "-" : methodName);
-
-            // Append the resource path
-            sb.append('\t');
-            String resourcePath = (request.getResourceRef() == null) ? "-"
-                    : request.getResourceRef().getPath();
-            sb.append((resourcePath == null) ? "-" : resourcePath);
-
-            // Append the resource query
-            sb.append('\t');
-            String resourceQuery = (request.getResourceRef() == null) ? "-"
-                    : request.getResourceRef().getQuery();
-            sb.append((resourceQuery == null) ? "-" : resourceQuery);
-
-            // Append the status code
-            sb.append('\t');
-            sb.append((response.getStatus() == null) ? "-" : Integer
-                    .toString(response.getStatus().getCode()));
-
-            // Append the returned size
-            sb.append('\t');
-
-            if (!response.isEntityAvailable()
-                    || Status.REDIRECTION_NOT_MODIFIED.equals(response
-                            .getStatus())
-                    || Status.SUCCESS_NO_CONTENT.equals(response.getStatus())
-                    || Method.HEAD.equals(request.getMethod())) {
-                sb.append('0');
-            } else {
-                sb.append((response.getEntity().getSize() == -1) ? "-" : Long
-                        .toString(response.getEntity().getSize()));
-            }
-
-            // Append the received size
-            sb.append('\t');
-
-            if (request.getEntity() == null) {
-                sb.append('0');
-            } else {
-                sb.append((request.getEntity().getSize() == -1) ? "-" : Long
-                        .toString(request.getEntity().getSize()));
-            }
-
-            // Append the duration
-            sb.append('\t');
-            sb.append(duration);
-
-            // Append the host reference
-            sb.append('\t');
-            sb.append((request.getHostRef() == null) ? "-" : request
-                    .getHostRef().toString());
-
-            // Append the agent name
-            sb.append('\t');
-            String agentName = request.getClientInfo().getAgent();
-            sb.append((agentName == null) ? "-" : agentName);
-
-            // Append the referrer
-            sb.append('\t');
-            sb.append((request.getReferrerRef() == null) ? "-" : request
-                    .getReferrerRef().getIdentifier());
-        }
+        return isDebugging() ? "" : getResponseLogRecord(response, duration)
+                .toString();
+    }
 
-        return sb.toString();
+    /**
+     * Returns the asynchronous access log writer. When set and when no custom
+     * response log format is used, the log filter captures an
+     * {@link AccessLogRecord} for each call and offers it to this writer,
+     * instead of logging the formatted entry with the JDK's logger.
+     * 
+     * @return The asynchronous access log writer or null.
+     */
+    public AccessLogWriter getAccessLogWriter() {
+        return accessLogWriter;
     }
 
     /**
@@ -347,6 +248,22 @@ public class LogService extends Service {
         return result;
     }
 
+    /**
+     * Captures an access log record for the given response. When the identity
+     * check is enabled, the IDENT lookup of the user identifier is deferred
+     * until the record is formatted.
+     * 
+     * @param response
+     *            The response to log.
+     * @param duration
+     *            The call duration (in milliseconds).
+     * @return The access log record or null in debugging mode.
+     */
+    public AccessLogRecord getResponseLogRecord(Response response, int duration) {
+        return isDebugging() ? null : new AccessLogRecord(response, duration,
+                isIdentityCheck());
+    }
+
     /**
      * Indicates if the debugging mode is enabled. False by default.
      * 
@@ -380,6 +297,17 @@ public class LogService extends Service {
                 .match(request.getResourceRef().getTargetRef().toString()) > 0;
     }
 
+    /**
+     * Sets the asynchronous access log writer. It is started and stopped with
+     * this service.
+     * 
+     * @param accessLogWriter
+     *            The asynchronous access log writer.
+     */
+    public void setAccessLogWriter(AccessLogWriter accessLogWriter) {
+        this.accessLogWriter = accessLogWriter;
+    }
+
     /**
      * Indicates if the debugging mode is enabled.
      * 
@@ -501,5 +429,22 @@ public class LogService extends Service {
                         logProperties.getStream());
             }
         }
+
+        if (getAccessLogWriter() != null) {
+            getAccessLogWriter().start();
+        }
+    }
+
+    /**
+     * Stops the log service, writing the pending access log records if an
+     * asynchronous writer is set.
+     */
+    @Override
+    public synchronized void stop() throws Exception {
+        if (getAccessLogWriter() != null) {
+            getAccessLogWriter().stop();
+        }
+
+        super.stop();
     }
 }
@@ -33,14 +33,17 @@
 
 package org.restlet.util;
 
+import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
 import java.util.Random;
 import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.restlet.Request;
 import org.restlet.Response;
 import org.restlet.Restlet;
+import org.restlet.engine.util.RouteTrie;
 import org.restlet.routing.Route;
 
 /**
@@ -57,15 +60,47 @@ import org.restlet.routing.Route;
  * @see java.util.List
  */
 public final class RouteList extends WrapperList<Route> {
+    /**
+     * Segment trie compiled from the routes.
+     */
+    private static final class CompiledTrie {
+        /** The number of structural changes when the trie was compiled. */
+        private final int modifications;
+
+        /** The segment trie. */
+        private final RouteTrie trie;
+
+        /**
+         * Constructor.
+         * 
+         * @param trie
+         *            The segment trie.
+         * @param modifications
+         *            The number of structural changes when the trie was
+         *            compiled.
+         */
+        private CompiledTrie(RouteTrie trie, int modifications) {
+            this.trie = trie;
+            this.modifications = modifications;
+        }
+    }
+
     /** The index of the last route used in the round robin mode. */
     private volatile int lastIndex;
 
+    /** The number of structural changes made to this list. */
+    private final AtomicInteger modifications;
+
+    /** The segment trie compiled from the routes. */
+    private volatile CompiledTrie trie;
+
     /**
      * Constructor.
      */
     public RouteList() {
         super(new CopyOnWriteArrayList<Route>());
         this.lastIndex = -1;
+        this.modifications = new AtomicInteger();
     }
 
     /**
@@ -77,6 +112,40 @@ public final class RouteList extends WrapperList<Route> {
     public RouteList(List<Route> delegate) {
         super(new CopyOnWriteArrayList<Route>(delegate));
         this.lastIndex = -1;
+        this.modifications = new AtomicInteger();
+    }
+
+    @Override
+    public boolean add(Route route) {
+        boolean result = super.add(route);
+        this.modifications.incrementAndGet();
+        return result;
+    }
+
+    @Override
+    public void add(int index, Route route) {
+        super.add(index, route);
+        this.modifications.incrementAndGet();
+    }
+
+    @Override
+    public boolean addAll(Collection<? extends Route> routes) {
+        boolean result = super.addAll(routes);
+        this.modifications.incrementAndGet();
+        return result;
+    }
+
+    @Override
+    public boolean addAll(int index, Collection<? extends Route> routes) {
+        boolean result = super.addAll(index, routes);
+        this.modifications.incrementAndGet();
+        return result;
+    }
+
+    @Override
+    public void clear() {
+        super.clear();
+        this.modifications.incrementAndGet();
     }
 
     /**
@@ -229,6 +298,49 @@ public final class RouteList extends WrapperList<Route> {
         return null;
     }
 
+    /**
+     * Returns the first route match for a given call, using a segment trie
+     * compiled from the URI templates of the routes. The trie is compiled on
+     * the first call and compiled again after each structural change of the
+     * list. The route returned is the same as the one returned by
+     * {@link #getFirst(Request, Response, float)}.
+     * 
+     * @param request
+     *            The request to score.
+     * @param response
+     *            The response to score.
+     * @param requiredScore
+     *            The minimum score required to have a match.
+     * @return The first route match or null.
+     */
+    public Route getTrieMatch(Request request, Response response,
+            float requiredScore) {
+        CompiledTrie result = this.trie;
+        int modifications = this.modifications.get();
+
+        if ((result == null) || (result.modifications != modifications)) {
+            result = new CompiledTrie(new RouteTrie(toArray(new Route[0])),
+                    modifications);
+            this.trie = result;
+        }
+
+        return result.trie.getFirst(request, response, requiredScore);
+    }
+
+    @Override
+    public Route remove(int index) {
+        Route result = super.remove(index);
+        this.modifications.incrementAndGet();
+        return result;
+    }
+
+    @Override
+    public boolean remove(Object route) {
+        boolean result = super.remove(route);
+        this.modifications.incrementAndGet();
+        return result;
+    }
+
     /**
      * Removes all routes routing to a given target.
      * 
@@ -243,6 +355,27 @@ public final class RouteList extends WrapperList<Route> {
         }
     }
 
+    @Override
+    public boolean removeAll(Collection<?> routes) {
+        boolean result = super.removeAll(routes);
+        this.modifications.incrementAndGet();
+        return result;
+    }
+
+    @Override
+    public boolean retainAll(Collection<?> routes) {
+        boolean result = super.retainAll(routes);
+        this.modifications.incrementAndGet();
+        return result;
+    }
+
+    @Override
+    public Route set(int index, Route route) {
+        Route result = super.set(index, route);
+        this.modifications.incrementAndGet();
+        return result;
+    }
+
     /**
      * Returns a view of the portion of this list between the specified
      * fromIndex, inclusive, and toIndex, exclusive.
@@ -34,10 +34,14 @@
 package org.restlet.util;
 
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.ListIterator;
 import java.util.Map;
 import java.util.Set;
 import java.util.logging.Level;
@@ -48,7 +52,15 @@ import org.restlet.Context;
  * Modifiable list of entries with many helper methods. Note that this class
  * uses the Parameter class as the template type. This allows you to use an
  * instance of this class as any other java.util.List, in particular all the
- * helper methods in java.util.Collections.
+ * helper methods in java.util.Collections.<br>
+ * <br>
+ * Lookups by name on large series are resolved through a case insensitive
+ * index of the entry positions, lazily built on the first lookup and rebuilt
+ * after any modification made through the series, its iterators or its
+ * sub-list views. Like the keys of a hash map, entries renamed in place aren't
+ * tracked: they are no longer returned under their former name, but are only
+ * found under their new name once the series is modified. The delegate list
+ * given to the constructor must only be modified through the series.
  * 
  * @author Jerome Louvel
  * @param <T>
@@ -70,6 +82,183 @@ public class Series<T extends NamedValue<String>> extends WrapperList<T> {
      */
     public static final Object EMPTY_VALUE = new Object();
 
+    /** An empty array of entry positions. */
+    private static final int[] EMPTY_POSITIONS = new int[0];
+
+    /** The minimum number of entries before lookups by name are indexed. */
+    private static final int INDEX_THRESHOLD = 8;
+
+    /**
+     * Case insensitive index of the entry positions by name.
+     * 
+     * @param <T>
+     *            The contained type
+     */
+    private static final class Index<T extends NamedValue<String>> {
+
+        /** The snapshot of the indexed entries. */
+        private final List<T> entries;
+
+        /** The modification count of the series when it was indexed. */
+        private final int modCount;
+
+        /**
+         * The entry positions by index key, or null if some names can't be
+         * indexed.
+         */
+        private final Map<String, int[]> positions;
+
+        /**
+         * Constructor.
+         * 
+         * @param series
+         *            The series to index.
+         * @param modCount
+         *            The modification count of the series, read before
+         *            indexing it.
+         */
+        private Index(Series<T> series, int modCount) {
+            this.entries = new ArrayList<T>(series);
+            this.modCount = modCount;
+            Map<String, int[]> positions = new HashMap<String, int[]>();
+
+            for (int position = 0; (positions != null)
+                    && (position < this.entries.size()); position++) {
+                String key = toIndexKey(this.entries.get(position).getName());
+
+                if (key == null) {
+                    positions = null;
+                } else {
+                    int[] slots = positions.get(key);
+
+                    if (slots == null) {
+                        slots = new int[] { position };
+                    } else {
+                        int[] newSlots = new int[slots.length + 1];
+                        System.arraycopy(slots, 0, newSlots, 0, slots.length);
+                        newSlots[slots.length] = position;
+                        slots = newSlots;
+                    }
+
+                    positions.put(key, slots);
+                }
+            }
+
+            this.positions = positions;
+        }
+
+        /**
+         * Returns the positions of the entries whose name is equal to the
+         * given name, ignoring case.
+         * 
+         * @param name
+         *            The entry name.
+         * @return The entry positions or null if the index can't resolve the
+         *         name.
+         */
+        private int[] lookup(String name) {
+            String key = (this.positions == null) ? null : toIndexKey(name);
+
+            if (key == null) {
+                return null;
+            }
+
+            int[] result = this.positions.get(key);
+            return (result == null) ? EMPTY_POSITIONS : result;
+        }
+    }
+
+    /**
+     * List iterator reporting the modifications made through it to the series.
+     */
+    private final class SeriesIterator implements ListIterator<T> {
+
+        /** The iterator of the delegate list. */
+        private final ListIterator<T> delegate;
+
+        /**
+         * Constructor.
+         * 
+         * @param delegate
+         *            The iterator of the delegate list.
+         */
+        private SeriesIterator(ListIterator<T> delegate) {
+            this.delegate = delegate;
+        }
+
+        public void add(T element) {
+            this.delegate.add(element);
+            modified();
+        }
+
+        public boolean hasNext() {
+            return this.delegate.hasNext();
+        }
+
+        public boolean hasPrevious() {
+            return this.delegate.hasPrevious();
+        }
+
+        public T next() {
+            return this.delegate.next();
+        }
+
+        public int nextIndex() {
+            return this.delegate.nextIndex();
+        }
+
+        public T previous() {
+            return this.delegate.previous();
+        }
+
+        public int previousIndex() {
+            return this.delegate.previousIndex();
+        }
+
+        public void remove() {
+            this.delegate.remove();
+            modified();
+        }
+
+        public void set(T element) {
+            this.delegate.set(element);
+            modified();
+        }
+    }
+
+    /**
+     * Returns the key of a name in the index. Only ASCII names are indexed,
+     * as case insensitive equality is then equivalent to the equality of the
+     * lower-case names.
+     * 
+     * @param name
+     *            The entry name.
+     * @return The index key or null if the name can't be indexed.
+     */
+    private static String toIndexKey(String name) {
+        if (name == null) {
+            return null;
+        }
+
+        char[] chars = null;
+
+        for (int i = 0; i < name.length(); i++) {
+            char c = name.charAt(i);
+
+            if (c > 127) {
+                return null;
+            } else if ((c >= 'A') && (c <= 'Z')) {
+                if (chars == null) {
+                    chars = name.toCharArray();
+                }
+
+                chars[i] = (char) (c + ('a' - 'A'));
+            }
+        }
+
+        return (chars == null) ? name : new String(chars);
+    }
+
     // [ifndef gwt] method
     /**
      * Returns an unmodifiable view of the specified series. Attempts to call a
@@ -83,17 +272,31 @@ public class Series<T extends NamedValue<String>> extends WrapperList<T> {
     public static Series<? extends NamedValue> unmodifiableSeries(
             final Series<? extends NamedValue> series) {
         return new Series(series.entryClass,
-                java.util.Collections.unmodifiableList(series.getDelegate()));
+                java.util.Collections.unmodifiableList(series.getDelegate()),
+                series);
     }
 
+    /**
+     * The series whose delegate list is viewed by this series, or null if the
+     * delegate list isn't shared.
+     */
+    private final Series<?> backing;
+
     /** The entry class. */
     private final Class<T> entryClass;
 
+    /** The lazily-built index of the entry positions by name. */
+    private volatile Index<T> index;
+
+    /** The number of modifications made through this series. */
+    private volatile int modCount;
+
     /**
      * Constructor.
      */
     public Series(Class<T> entryClass) {
         super();
+        this.backing = null;
         this.entryClass = entryClass;
     }
 
@@ -105,6 +308,7 @@ public class Series<T extends NamedValue<String>> extends WrapperList<T> {
      */
     public Series(Class<T> entryClass, int initialCapacity) {
         super(initialCapacity);
+        this.backing = null;
         this.entryClass = entryClass;
     }
 
@@ -115,10 +319,36 @@ public class Series<T extends NamedValue<String>> extends WrapperList<T> {
      *            The delegate list.
      */
     public Series(Class<T> entryClass, List<T> delegate) {
+        this(entryClass, delegate, null);
+    }
+
+    /**
+     * Constructor.
+     * 
+     * @param delegate
+     *            The delegate list.
+     * @param backing
+     *            The series whose delegate list is viewed, or null.
+     */
+    private Series(Class<T> entryClass, List<T> delegate, Series<?> backing) {
         super(delegate);
+        this.backing = backing;
         this.entryClass = entryClass;
     }
 
+    @Override
+    public boolean add(T element) {
+        boolean result = super.add(element);
+        modified();
+        return result;
+    }
+
+    @Override
+    public void add(int index, T element) {
+        super.add(index, element);
+        modified();
+    }
+
     /**
      * Creates then adds a parameter at the end of the list.
      * 
@@ -132,6 +362,26 @@ public class Series<T extends NamedValue<String>> extends WrapperList<T> {
         return add(createEntry(name, value));
     }
 
+    @Override
+    public boolean addAll(Collection<? extends T> elements) {
+        boolean result = super.addAll(elements);
+        modified();
+        return result;
+    }
+
+    @Override
+    public boolean addAll(int index, Collection<? extends T> elements) {
+        boolean result = super.addAll(index, elements);
+        modified();
+        return result;
+    }
+
+    @Override
+    public void clear() {
+        super.clear();
+        modified();
+    }
+
     /**
      * Copies the parameters whose name is a key in the given map.<br>
      * If a matching parameter is found, its value is put in the map.<br>
@@ -289,9 +539,22 @@ public class Series<T extends NamedValue<String>> extends WrapperList<T> {
      * @return The first parameter found with the given name.
      */
     public T getFirst(String name, boolean ignoreCase) {
-        for (T param : this) {
-            if (equals(param.getName(), name, ignoreCase)) {
-                return param;
+        Index<T> index = getIndex();
+        int[] positions = (index == null) ? null : index.lookup(name);
+
+        if (positions != null) {
+            for (int position : positions) {
+                T param = index.entries.get(position);
+
+                if (equals(param.getName(), name, ignoreCase)) {
+                    return param;
+                }
+            }
+        } else {
+            for (T param : this) {
+                if (equals(param.getName(), name, ignoreCase)) {
+                    return param;
+                }
             }
         }
 
@@ -362,6 +625,39 @@ public class Series<T extends NamedValue<String>> extends WrapperList<T> {
         return getFirstValue(name, false, defaultValue);
     }
 
+    /**
+     * Returns the index of the entry positions by name. The index is rebuilt
+     * if missing or if the series was modified since it was built.
+     * 
+     * @return The index or null if the series is too small to be indexed.
+     */
+    private Index<T> getIndex() {
+        Index<T> result = null;
+
+        if (size() >= INDEX_THRESHOLD) {
+            int modCount = getModCount();
+            result = this.index;
+
+            if ((result == null) || (result.modCount != modCount)) {
+                result = new Index<T>(this, modCount);
+                this.index = result;
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * Returns the number of modifications made to the delegate list, through
+     * this series or through the series whose delegate list is viewed.
+     * 
+     * @return The number of modifications.
+     */
+    private int getModCount() {
+        return (this.backing == null) ? this.modCount : this.modCount
+                + this.backing.getModCount();
+    }
+
     /**
      * Returns the set of parameter names (case sensitive).
      * 
@@ -405,26 +701,21 @@ public class Series<T extends NamedValue<String>> extends WrapperList<T> {
      */
     public String getValues(String name, String separator, boolean ignoreCase) {
         String result = null;
-        StringBuilder sb = null;
+        List<T> params = lookup(name, ignoreCase);
 
-        for (final T param : this) {
-            if ((ignoreCase && param.getName().equalsIgnoreCase(name))
-                    || param.getName().equals(name)) {
-                if (sb == null) {
-                    if (result == null) {
-                        result = param.getValue();
-                    } else {
-                        sb = new StringBuilder();
-                        sb.append(result).append(separator)
-                                .append(param.getValue());
-                    }
-                } else {
-                    sb.append(separator).append(param.getValue());
+        if (params.size() == 1) {
+            result = params.get(0).getValue();
+        } else if (params.size() > 1) {
+            StringBuilder sb = new StringBuilder();
+
+            for (int i = 0; i < params.size(); i++) {
+                if (i > 0) {
+                    sb.append(separator);
                 }
+
+                sb.append(params.get(i).getValue());
             }
-        }
 
-        if (sb != null) {
             result = sb.toString();
         }
 
@@ -523,6 +814,96 @@ public class Series<T extends NamedValue<String>> extends WrapperList<T> {
         return result;
     }
 
+    @Override
+    public Iterator<T> iterator() {
+        return listIterator();
+    }
+
+    @Override
+    public ListIterator<T> listIterator() {
+        return new SeriesIterator(super.listIterator());
+    }
+
+    @Override
+    public ListIterator<T> listIterator(int index) {
+        return new SeriesIterator(super.listIterator(index));
+    }
+
+    /**
+     * Returns the parameters with a given name, in the series order. The
+     * index is used when possible, otherwise the series is scanned.
+     * 
+     * @param name
+     *            The parameter name.
+     * @param ignoreCase
+     *            Indicates if the name comparison is case insensitive.
+     * @return The matching parameters, or a shared empty list.
+     */
+    private List<T> lookup(String name, boolean ignoreCase) {
+        List<T> result = null;
+        Index<T> index = getIndex();
+        int[] positions = (index == null) ? null : index.lookup(name);
+
+        if (positions != null) {
+            for (int position : positions) {
+                T param = index.entries.get(position);
+
+                if (equals(param.getName(), name, ignoreCase)) {
+                    if (result == null) {
+                        result = new ArrayList<T>(positions.length);
+                    }
+
+                    result.add(param);
+                }
+            }
+        } else {
+            for (T param : this) {
+                if (equals(param.getName(), name, ignoreCase)) {
+                    if (result == null) {
+                        result = new ArrayList<T>();
+                    }
+
+                    result.add(param);
+                }
+            }
+        }
+
+        return (result == null) ? Collections.<T> emptyList() : result;
+    }
+
+    /**
+     * Records a modification of the delegate list, so that the index is
+     * rebuilt on the next lookup.
+     */
+    private void modified() {
+        this.modCount++;
+
+        if (this.backing != null) {
+            this.backing.modified();
+        }
+    }
+
+    @Override
+    public T remove(int index) {
+        T result = super.remove(index);
+        modified();
+        return result;
+    }
+
+    @Override
+    public boolean remove(Object element) {
+        boolean result = super.remove(element);
+        modified();
+        return result;
+    }
+
+    @Override
+    public boolean removeAll(Collection<?> elements) {
+        boolean result = super.removeAll(elements);
+        modified();
+        return result;
+    }
+
     /**
      * Removes all the parameters with a given name.
      * 
@@ -596,6 +977,20 @@ public class Series<T extends NamedValue<String>> extends WrapperList<T> {
         return changed;
     }
 
+    @Override
+    public boolean retainAll(Collection<?> elements) {
+        boolean result = super.retainAll(elements);
+        modified();
+        return result;
+    }
+
+    @Override
+    public T set(int index, T element) {
+        T result = super.set(index, element);
+        modified();
+        return result;
+    }
+
     /**
      * Replaces the value of the first parameter with the given name and removes
      * all other parameters with the same name. The name matching is case
@@ -665,7 +1060,7 @@ public class Series<T extends NamedValue<String>> extends WrapperList<T> {
     public Series<T> subList(int fromIndex, int toIndex) {
         // [ifndef gwt] instruction
         return new Series<T>(this.entryClass, getDelegate().subList(fromIndex,
-                toIndex));
+                toIndex), this);
         // [ifdef gwt] instruction uncomment
         // return
         // createSeries(org.restlet.engine.util.ListUtils.copySubList(
@@ -698,11 +1093,7 @@ public class Series<T extends NamedValue<String>> extends WrapperList<T> {
         // [ifdef gwt] instruction uncomment
         // Series<T> result = createSeries(null);
 
-        for (T param : this) {
-            if (equals(param.getName(), name, ignoreCase)) {
-                result.add(param);
-            }
-        }
+        result.addAll(lookup(name, ignoreCase));
 
         return result;
     }